@@ -0,0 +1,174 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import javax.inject.Provider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import toothpick.Scope;
+import toothpick.Toothpick;
+import toothpick.benchmarks.data.Dependency;
+import toothpick.benchmarks.data.SingletonDependency;
+import toothpick.benchmarks.data.UnscopedDependency;
+import toothpick.config.Module;
+
+/**
+ * Hammers the same scope from many threads. The symmetric benchmarks run with 4 threads by
+ * default, the groups with 1 writer and 3 readers. The {@link #main(String[])} method runs all of
+ * them, and {@link CreationRaceBenchmark}, with 1 to 64 threads to get scalability curves.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ContentionBenchmark {
+  private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+  private static final String[] BINDING_NAMES = new String[16];
+
+  static {
+    for (int i = 0; i < BINDING_NAMES.length; i++) {
+      BINDING_NAMES[i] = "binding" + i;
+    }
+  }
+
+  private Scope scope;
+  private Provider<UnscopedDependency> unscopedProvider;
+  private Provider<SingletonDependency> singletonProvider;
+  private int installCount;
+
+  @Setup
+  public void setUp() {
+    scope = Toothpick.openScope("root");
+    scope.getInstance(SingletonDependency.class);
+    unscopedProvider = scope.getProvider(UnscopedDependency.class);
+    singletonProvider = scope.getProvider(SingletonDependency.class);
+  }
+
+  @TearDown
+  public void tearDown() {
+    Toothpick.reset();
+  }
+
+  /** Reads a singleton that has already been created. */
+  @Benchmark
+  public Object singletonHotRead() {
+    return scope.getInstance(SingletonDependency.class);
+  }
+
+  /** Creates a new instance of an unscoped class, through the shared pool of unscoped providers. */
+  @Benchmark
+  public Object unscopedCreation() {
+    return scope.getInstance(UnscopedDependency.class);
+  }
+
+  /** Calls {@code get()} on a provider shared by all threads, creating an unscoped instance. */
+  @Benchmark
+  public Object sharedUnscopedProviderGet() {
+    return unscopedProvider.get();
+  }
+
+  /** Calls {@code get()} on a provider of a singleton shared by all threads. */
+  @Benchmark
+  public Object sharedSingletonProviderGet() {
+    return singletonProvider.get();
+  }
+
+  /**
+   * Installs a module in the scope while other threads read from it. Bindings that are already
+   * installed are not replaced, but the installation takes the same locks.
+   */
+  @Benchmark
+  @Group("installModules")
+  @GroupThreads(1)
+  public Object installModules() {
+    final String name = BINDING_NAMES[installCount++ & (BINDING_NAMES.length - 1)];
+    return scope.installModules(
+        new Module() {
+          {
+            bind(Dependency.class).withName(name).to(UnscopedDependency.class);
+          }
+        });
+  }
+
+  @Benchmark
+  @Group("installModules")
+  @GroupThreads(3)
+  public Object readDuringInstallModules() {
+    return scope.getInstance(SingletonDependency.class);
+  }
+
+  /** Opens and closes a child scope while other threads resolve dependencies. */
+  @Benchmark
+  @Group("scopeChurn")
+  @GroupThreads(1)
+  public void openAndCloseScope() {
+    Object name = new Object();
+    Toothpick.openScopes("root", name);
+    Toothpick.closeScope(name);
+  }
+
+  @Benchmark
+  @Group("scopeChurn")
+  @GroupThreads(3)
+  public Object readDuringScopeChurn() {
+    return scope.getInstance(UnscopedDependency.class);
+  }
+
+  /** Runs all the contention benchmarks with 1 to 64 threads. */
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+    String benchmark = ContentionBenchmark.class.getName();
+    for (int threads : THREAD_COUNTS) {
+      new Runner(
+              new OptionsBuilder()
+                  .parent(commandLineOptions)
+                  .include(benchmark + ".(singletonHotRead|unscopedCreation|shared.*)$")
+                  .include(CreationRaceBenchmark.class.getName())
+                  .threads(threads)
+                  .build())
+          .run();
+      // one writer, the other threads are readers
+      new Runner(
+              new OptionsBuilder()
+                  .parent(commandLineOptions)
+                  .include(benchmark + ".(installModules|scopeChurn)$")
+                  .threadGroups(1, Math.max(1, threads - 1))
+                  .build())
+          .run();
+    }
+  }
+}
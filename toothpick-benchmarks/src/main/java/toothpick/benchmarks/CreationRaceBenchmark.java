@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import toothpick.Scope;
+import toothpick.Toothpick;
+import toothpick.benchmarks.graph.GraphSources;
+import toothpick.benchmarks.graph.GraphSpec;
+import toothpick.benchmarks.graph.SyntheticGraph;
+
+/**
+ * Measures first-time creation races: all threads request the same {@value #SINGLETON_COUNT}
+ * singletons, in the same order, from a scope in which none of them has been created yet. Every
+ * iteration starts with a new scope and is a single batch of {@value #SINGLETON_COUNT} calls per
+ * thread, the score is the time of the whole batch.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 20, batchSize = CreationRaceBenchmark.SINGLETON_COUNT)
+@Measurement(iterations = 50, batchSize = CreationRaceBenchmark.SINGLETON_COUNT)
+@Fork(1)
+@Threads(4)
+public class CreationRaceBenchmark {
+  static final int SINGLETON_COUNT = 1000;
+
+  private List<Class<?>> singletonClasses;
+  private Scope scope;
+
+  @Setup(Level.Trial)
+  public void compileGraph() {
+    SyntheticGraph graph =
+        GraphSources.generate(
+                new GraphSpec()
+                    .nodeCount(SINGLETON_COUNT)
+                    .depth(1)
+                    .singletonRatio(1)
+                    .packageName("toothpick.benchmarks.race"))
+            .compile();
+    singletonClasses = graph.getRootClasses();
+  }
+
+  @Setup(Level.Iteration)
+  public void openScope() {
+    scope = Toothpick.openScope("root");
+  }
+
+  @TearDown(Level.Iteration)
+  public void closeScope() {
+    Toothpick.reset();
+  }
+
+  @Benchmark
+  public Object createSingleton(ThreadIndex threadIndex) {
+    return scope.getInstance(singletonClasses.get(threadIndex.next()));
+  }
+
+  /** The index of the next singleton to request, for each thread. */
+  @State(org.openjdk.jmh.annotations.Scope.Thread)
+  public static class ThreadIndex {
+    private int index;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      index = 0;
+    }
+
+    int next() {
+      return index++;
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import toothpick.Scope;
+import toothpick.Toothpick;
+import toothpick.benchmarks.data.Dependency;
+import toothpick.benchmarks.data.DependencyProvider;
+import toothpick.benchmarks.data.SingletonDependency;
+import toothpick.benchmarks.data.UnscopedDependency;
+import toothpick.config.Module;
+
+/** Measures {@link Scope#getInstance(Class)} for each kind of binding. */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GetInstanceBenchmark {
+  private Scope scope;
+
+  @Setup
+  public void setUp() {
+    scope = Toothpick.openScope("root");
+    scope.installModules(
+        new Module() {
+          {
+            bind(Dependency.class).withName("named").to(UnscopedDependency.class);
+            bind(Dependency.class).withName("instance").toInstance(new UnscopedDependency());
+            bind(Dependency.class)
+                .withName("provider")
+                .toProviderInstance(new DependencyProvider());
+          }
+        });
+  }
+
+  @TearDown
+  public void tearDown() {
+    Toothpick.reset();
+  }
+
+  @Benchmark
+  public Object singleton() {
+    return scope.getInstance(SingletonDependency.class);
+  }
+
+  @Benchmark
+  public Object unscoped() {
+    return scope.getInstance(UnscopedDependency.class);
+  }
+
+  @Benchmark
+  public Object named() {
+    return scope.getInstance(Dependency.class, "named");
+  }
+
+  @Benchmark
+  public Object instance() {
+    return scope.getInstance(Dependency.class, "instance");
+  }
+
+  @Benchmark
+  public Object provider() {
+    return scope.getInstance(Dependency.class, "provider");
+  }
+}
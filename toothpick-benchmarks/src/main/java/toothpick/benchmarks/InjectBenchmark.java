@@ -0,0 +1,91 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import toothpick.Scope;
+import toothpick.Toothpick;
+import toothpick.benchmarks.data.DeepHierarchyTarget;
+import toothpick.benchmarks.data.FiftyFieldsTarget;
+import toothpick.benchmarks.data.OneFieldTarget;
+import toothpick.benchmarks.data.TenFieldsTarget;
+
+/**
+ * Measures {@link Toothpick#inject(Object, Scope)} for a growing number of injected fields, and for
+ * a class whose injected fields are spread over a deep hierarchy of super classes.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InjectBenchmark {
+  private Scope scope;
+  private OneFieldTarget oneFieldTarget;
+  private TenFieldsTarget tenFieldsTarget;
+  private FiftyFieldsTarget fiftyFieldsTarget;
+  private DeepHierarchyTarget deepHierarchyTarget;
+
+  @Setup
+  public void setUp() {
+    scope = Toothpick.openScope("root");
+    oneFieldTarget = new OneFieldTarget();
+    tenFieldsTarget = new TenFieldsTarget();
+    fiftyFieldsTarget = new FiftyFieldsTarget();
+    deepHierarchyTarget = new DeepHierarchyTarget();
+  }
+
+  @TearDown
+  public void tearDown() {
+    Toothpick.reset();
+  }
+
+  @Benchmark
+  public Object oneField() {
+    Toothpick.inject(oneFieldTarget, scope);
+    return oneFieldTarget;
+  }
+
+  @Benchmark
+  public Object tenFields() {
+    Toothpick.inject(tenFieldsTarget, scope);
+    return tenFieldsTarget;
+  }
+
+  @Benchmark
+  public Object fiftyFields() {
+    Toothpick.inject(fiftyFieldsTarget, scope);
+    return fiftyFieldsTarget;
+  }
+
+  @Benchmark
+  public Object deepHierarchy() {
+    Toothpick.inject(deepHierarchyTarget, scope);
+    return deepHierarchyTarget;
+  }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.benchmarks;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import toothpick.Scope;
+import toothpick.Toothpick;
+import toothpick.benchmarks.data.Car;
+import toothpick.benchmarks.data.Engine;
+import toothpick.benchmarks.data.EngineProvider;
+import toothpick.benchmarks.data.Fuel;
+import toothpick.benchmarks.data.V8Engine;
+import toothpick.benchmarks.data.Wheels;
+import toothpick.config.Module;
+
+/**
+ * Builds the same {@link Car} graph by hand and through Toothpick, with the {@link Engine} bound
+ * with each binding mode. The graph uses generated factories and member injectors. The {@link
+ * #main(String[])} method reports the overhead of Toothpick as a ratio to the hand-wired
+ * construction.
+ *
+ * <p>The {@code SIMPLE} mode is applied to {@link Wheels}, which is otherwise discovered at
+ * runtime, as a simple binding can't bind an interface. With the {@code INSTANCE} mode, the engine
+ * is shared, and {@link #handWiredWithSharedEngine()} is the matching baseline.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OverheadBenchmark {
+  private static final String HAND_WIRED = "handWired";
+  private static final String HAND_WIRED_WITH_SHARED_ENGINE = "handWiredWithSharedEngine";
+
+  private final Engine sharedEngine = new V8Engine(new Fuel());
+  private Scope simpleScope;
+  private Scope classScope;
+  private Scope instanceScope;
+  private Scope providerInstanceScope;
+  private Scope providerClassScope;
+
+  @Setup
+  public void setUp() {
+    simpleScope =
+        openScope(
+            "simple",
+            new Module() {
+              {
+                bind(Engine.class).to(V8Engine.class);
+                bind(Wheels.class);
+              }
+            });
+    classScope =
+        openScope(
+            "class",
+            new Module() {
+              {
+                bind(Engine.class).to(V8Engine.class);
+              }
+            });
+    instanceScope =
+        openScope(
+            "instance",
+            new Module() {
+              {
+                bind(Engine.class).toInstance(sharedEngine);
+              }
+            });
+    providerInstanceScope =
+        openScope(
+            "providerInstance",
+            new Module() {
+              {
+                bind(Engine.class).toProviderInstance(new EngineProvider());
+              }
+            });
+    providerClassScope =
+        openScope(
+            "providerClass",
+            new Module() {
+              {
+                bind(Engine.class).toProvider(EngineProvider.class);
+              }
+            });
+  }
+
+  private static Scope openScope(String name, Module module) {
+    return Toothpick.openScope(name).installModules(module);
+  }
+
+  @TearDown
+  public void tearDown() {
+    Toothpick.reset();
+  }
+
+  @Benchmark
+  public Car handWired() {
+    return Car.newHandWiredCar();
+  }
+
+  @Benchmark
+  public Car handWiredWithSharedEngine() {
+    return Car.newHandWiredCar(sharedEngine);
+  }
+
+  @Benchmark
+  public Car simple() {
+    return simpleScope.getInstance(Car.class);
+  }
+
+  @Benchmark
+  public Car classBinding() {
+    return classScope.getInstance(Car.class);
+  }
+
+  @Benchmark
+  public Car instance() {
+    return instanceScope.getInstance(Car.class);
+  }
+
+  @Benchmark
+  public Car providerInstance() {
+    return providerInstanceScope.getInstance(Car.class);
+  }
+
+  @Benchmark
+  public Car providerClass() {
+    return providerClassScope.getInstance(Car.class);
+  }
+
+  /** Runs the benchmark and reports the overhead ratio of each binding mode. */
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    Collection<RunResult> results =
+        new Runner(
+                new OptionsBuilder()
+                    .parent(new CommandLineOptions(args))
+                    .include(OverheadBenchmark.class.getName())
+                    .build())
+            .run();
+
+    Map<String, Double> scores = new TreeMap<>();
+    for (RunResult result : results) {
+      String benchmark = result.getParams().getBenchmark();
+      scores.put(
+          benchmark.substring(benchmark.lastIndexOf('.') + 1),
+          result.getPrimaryResult().getScore());
+    }
+    Double handWired = scores.get(HAND_WIRED);
+    Double handWiredWithSharedEngine = scores.get(HAND_WIRED_WITH_SHARED_ENGINE);
+    if (handWired == null || handWiredWithSharedEngine == null) {
+      throw new IllegalStateException("The hand-wired baselines were not run.");
+    }
+    System.out.println(String.format(Locale.US, "%-28s  %10s  %8s", "", "ns/op", "overhead"));
+    for (Map.Entry<String, Double> score : scores.entrySet()) {
+      double baseline = score.getKey().equals("instance") ? handWiredWithSharedEngine : handWired;
+      System.out.println(
+          String.format(
+              Locale.US,
+              "%-28s  %10.1f  %7.2fx",
+              score.getKey(),
+              score.getValue(),
+              score.getValue() / baseline));
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import javax.inject.Provider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import toothpick.Lazy;
+import toothpick.Scope;
+import toothpick.Toothpick;
+import toothpick.benchmarks.data.SingletonDependency;
+import toothpick.benchmarks.data.UnscopedDependency;
+
+/**
+ * Measures the creation of providers and lazies, and the cost of {@code get()} on providers and
+ * lazies that have already been created.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProviderBenchmark {
+  private Scope scope;
+  private Provider<UnscopedDependency> unscopedProvider;
+  private Provider<SingletonDependency> singletonProvider;
+  private Lazy<UnscopedDependency> lazy;
+
+  @Setup
+  public void setUp() {
+    scope = Toothpick.openScope("root");
+    unscopedProvider = scope.getProvider(UnscopedDependency.class);
+    singletonProvider = scope.getProvider(SingletonDependency.class);
+    lazy = scope.getLazy(UnscopedDependency.class);
+    lazy.get();
+  }
+
+  @TearDown
+  public void tearDown() {
+    Toothpick.reset();
+  }
+
+  @Benchmark
+  public Object getProvider() {
+    return scope.getProvider(UnscopedDependency.class);
+  }
+
+  @Benchmark
+  public Object getLazy() {
+    return scope.getLazy(UnscopedDependency.class);
+  }
+
+  @Benchmark
+  public Object unscopedProviderGet() {
+    return unscopedProvider.get();
+  }
+
+  @Benchmark
+  public Object singletonProviderGet() {
+    return singletonProvider.get();
+  }
+
+  /** The lazy has already computed its instance, this measures the cached path. */
+  @Benchmark
+  public Object lazyGet() {
+    return lazy.get();
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import toothpick.Scope;
+import toothpick.Toothpick;
+import toothpick.benchmarks.data.RequestContext;
+import toothpick.benchmarks.data.RequestHandler;
+import toothpick.config.Module;
+
+/**
+ * Measures the throughput of a scope per request: a child scope of the application scope is
+ * opened, a module is installed in it, a handler is injected and the scope is closed. All the
+ * scopes are registered in the global scope map of Toothpick, so this measures how this path scales
+ * with the number of threads and with the number of scopes that are already open ({@code
+ * forestSize} root scopes, each with a child).
+ *
+ * <p>The allocation rate is reported by the GC profiler. The {@link #main(String[])} method adds
+ * it automatically, otherwise pass {@code -prof gc} to JMH.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScopeChurnBenchmark {
+  private static final String APPLICATION_SCOPE = "application";
+
+  @Param({"0", "100", "10000"})
+  public int forestSize;
+
+  @Setup
+  public void setUp() {
+    Toothpick.openScope(APPLICATION_SCOPE);
+    for (int i = 0; i < forestSize; i++) {
+      Toothpick.openScopes("forest" + i, "forestChild" + i);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    Toothpick.reset();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Object churn_1thread() {
+    return handleRequest();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public Object churn_4threads() {
+    return handleRequest();
+  }
+
+  @Benchmark
+  @Threads(16)
+  public Object churn_16threads() {
+    return handleRequest();
+  }
+
+  private static Object handleRequest() {
+    final Object requestKey = new Object();
+    Scope requestScope = Toothpick.openScopes(APPLICATION_SCOPE, requestKey);
+    requestScope.installModules(
+        new Module() {
+          {
+            bind(RequestContext.class).toInstance(new RequestContext(requestKey));
+          }
+        });
+    RequestHandler handler = new RequestHandler();
+    Toothpick.inject(handler, requestScope);
+    Toothpick.closeScope(requestKey);
+    return handler;
+  }
+
+  /** Runs this benchmark with the GC profiler. JMH command line options can be passed. */
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    new Runner(
+            new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(ScopeChurnBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+        .run();
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import toothpick.Scope;
+import toothpick.Toothpick;
+import toothpick.benchmarks.data.Dependency;
+import toothpick.benchmarks.data.UnscopedDependency;
+import toothpick.config.Module;
+
+/**
+ * Measures how the resolution cost grows with the distance between the scope that is queried and
+ * the scope that holds the binding. The leaf scope of a chain of {@code depth} scopes is queried.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScopeDepthBenchmark {
+  @Param({"1", "2", "3", "4", "5", "6", "7", "8"})
+  public int depth;
+
+  private Scope leaf;
+
+  @Setup
+  public void setUp() {
+    Object[] names = new Object[depth];
+    for (int i = 0; i < depth; i++) {
+      names[i] = "scope" + i;
+    }
+    leaf = Toothpick.openScopes(names);
+    Toothpick.openScope(names[0])
+        .installModules(
+            new Module() {
+              {
+                bind(Dependency.class).to(UnscopedDependency.class);
+              }
+            });
+  }
+
+  @TearDown
+  public void tearDown() {
+    Toothpick.reset();
+  }
+
+  /** The binding is defined in the root scope. */
+  @Benchmark
+  public Object boundInRootScope() {
+    return leaf.getInstance(Dependency.class);
+  }
+
+  /** There is no binding, the class is resolved via its factory after checking all ancestors. */
+  @Benchmark
+  public Object unbound() {
+    return leaf.getInstance(UnscopedDependency.class);
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import toothpick.Scope;
+import toothpick.Toothpick;
+import toothpick.benchmarks.graph.GraphSources;
+import toothpick.benchmarks.graph.GraphSpec;
+import toothpick.benchmarks.graph.SyntheticGraph;
+
+/**
+ * Resolves all the roots of a synthetic graph in a new child scope, as a screen or a request would
+ * do. The graph mixes singletons, instances of a custom scope, named bindings, providers and
+ * lazies.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SyntheticGraphBenchmark {
+  private static final String CHILD_SCOPE = "child";
+
+  @Param({"1000", "5000"})
+  public int nodeCount;
+
+  private SyntheticGraph graph;
+  private Scope rootScope;
+  private List<Class<?>> rootClasses;
+
+  @Setup
+  public void setUp() {
+    graph =
+        GraphSources.generate(
+                new GraphSpec()
+                    .nodeCount(nodeCount)
+                    .depth(8)
+                    .fanOut(4)
+                    .singletonRatio(0.2)
+                    .customScopeRatio(0.2)
+                    .namedBindingRatio(0.1)
+                    .providerEdgeRatio(0.1)
+                    .lazyEdgeRatio(0.1))
+            .compile();
+    rootScope = Toothpick.openRootScope().installModules(graph.newModule());
+    rootClasses = graph.getRootClasses();
+  }
+
+  @TearDown
+  public void tearDown() {
+    Toothpick.reset();
+  }
+
+  @Benchmark
+  public void resolveRootsInChildScope(Blackhole blackhole) {
+    Scope scope =
+        Toothpick.openScopes(rootScope.getName(), CHILD_SCOPE)
+            .supportScopeAnnotation(graph.getScopeAnnotation());
+    for (Class<?> rootClass : rootClasses) {
+      blackhole.consume(scope.getInstance(rootClass));
+    }
+    Toothpick.closeScope(CHILD_SCOPE);
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.benchmarks.coldstart;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Measures the first {@code openRootScope} + {@code installModules} + {@code inject} in a fresh
+ * JVM, for graphs of different sizes. Steady state benchmarks hide this cost, which is dominated
+ * by class loading of the generated factories and member injectors and by reflection in the
+ * locators.
+ *
+ * <p>Each measurement is made in a new JVM running {@link ColdStartProbe}. The time is broken out
+ * in the time spent in {@link toothpick.locators.FactoryLocator}, in {@link
+ * toothpick.locators.MemberInjectorLocator}, in the construction of instances, and the rest (class
+ * loading of Toothpick itself, scope creation, module installation...). Medians are reported.
+ * Usage:
+ *
+ * <pre>
+ * ./gradlew :toothpick-benchmarks:coldStartBenchmark -PcoldStartBenchmarkArgs='10 100'
+ * </pre>
+ *
+ * The arguments are the sizes of the graphs, among 10, 100 and 1000.
+ */
+public class ColdStartBenchmark {
+  private static final String[] DEFAULT_GRAPH_SIZES = {"10", "100", "1000"};
+  private static final int FORKS = 20;
+
+  private ColdStartBenchmark() {}
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    String[] graphSizes = args.length == 0 ? DEFAULT_GRAPH_SIZES : args;
+
+    System.out.println(
+        String.format(
+            Locale.US,
+            "%6s  %10s  %16s  %22s  %14s  %10s",
+            "nodes",
+            "total (ms)",
+            "FactoryLocator",
+            "MemberInjectorLocator",
+            "construction",
+            "other"));
+    for (String graphSize : graphSizes) {
+      long[][] results = new long[4][FORKS];
+      for (int fork = 0; fork < FORKS; fork++) {
+        long[] result = runProbe(graphSize);
+        for (int column = 0; column < result.length; column++) {
+          results[column][fork] = result[column];
+        }
+      }
+      long total = median(results[0]);
+      long factoryLocator = median(results[1]);
+      long memberInjectorLocator = median(results[2]);
+      long construction = median(results[3]);
+      System.out.println(
+          String.format(
+              Locale.US,
+              "%6s  %10.2f  %16.2f  %22.2f  %14.2f  %10.2f",
+              graphSize,
+              total / 1e6,
+              factoryLocator / 1e6,
+              memberInjectorLocator / 1e6,
+              construction / 1e6,
+              (total - factoryLocator - memberInjectorLocator - construction) / 1e6));
+    }
+  }
+
+  private static long[] runProbe(String graphSize) throws IOException, InterruptedException {
+    String java =
+        System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+    Process process =
+        new ProcessBuilder(
+                java,
+                "-cp",
+                System.getProperty("java.class.path"),
+                ColdStartProbe.class.getName(),
+                graphSize)
+            .redirectError(ProcessBuilder.Redirect.INHERIT)
+            .start();
+
+    long[] result = null;
+    BufferedReader reader =
+        new BufferedReader(
+            new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+    try {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.startsWith(ColdStartProbe.RESULT_PREFIX)) {
+          String[] values = line.substring(ColdStartProbe.RESULT_PREFIX.length()).split(" ");
+          result = new long[values.length];
+          for (int i = 0; i < values.length; i++) {
+            result[i] = Long.parseLong(values[i]);
+          }
+        }
+      }
+    } finally {
+      reader.close();
+    }
+    if (process.waitFor() != 0 || result == null) {
+      throw new IllegalStateException("The cold start probe failed for graph " + graphSize);
+    }
+    return result;
+  }
+
+  private static long median(long[] values) {
+    long[] sorted = values.clone();
+    Arrays.sort(sorted);
+    return sorted[sorted.length / 2];
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.benchmarks.coldstart;
+
+import toothpick.Scope;
+import toothpick.Toothpick;
+import toothpick.config.Module;
+import toothpick.configuration.Configuration;
+
+/**
+ * Performs the first injection of a graph in a fresh JVM and prints the time it took. It is
+ * launched by {@link ColdStartBenchmark}, once per JVM.
+ *
+ * <p>The graphs are generated at build time in the packages {@code
+ * toothpick.benchmarks.coldstart.graph<size>}: a binary tree of {@code Node} classes injected by
+ * constructor, one in four of them being a singleton, and a {@code Root} class injected by field.
+ */
+public class ColdStartProbe {
+  static final String RESULT_PREFIX = "cold-start:";
+
+  private ColdStartProbe() {}
+
+  /** @param args the size of the graph to inject. */
+  public static void main(String[] args) throws Exception {
+    final String graphName = "graph" + Integer.parseInt(args[0]);
+
+    long startNanos = System.nanoTime();
+    ColdStartProfile profile = new ColdStartProfile();
+    Toothpick.setConfiguration(
+        Configuration.forProduction().addCreationListener(profile).addLocatorListener(profile));
+    Object root =
+        Class.forName(ColdStartProbe.class.getPackage().getName() + "." + graphName + ".Root")
+            .newInstance();
+    Scope scope = Toothpick.openRootScope();
+    scope.installModules(
+        new Module() {
+          {
+            bind(String.class).withName("graph").toInstance(graphName);
+          }
+        });
+    Toothpick.inject(root, scope);
+    long totalNanos = System.nanoTime() - startNanos;
+
+    System.out.println(
+        RESULT_PREFIX
+            + totalNanos
+            + " "
+            + profile.getFactoryLocatorNanos()
+            + " "
+            + profile.getMemberInjectorLocatorNanos()
+            + " "
+            + profile.getConstructionNanos());
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.benchmarks.coldstart;
+
+import toothpick.Scope;
+import toothpick.monitoring.CreationListener;
+import toothpick.monitoring.LocatorKind;
+import toothpick.monitoring.LocatorListener;
+
+/**
+ * Breaks out the time spent locating generated classes from the time spent constructing instances.
+ * The time of the locators is counted once, even when they are called while creating an instance.
+ * Not thread safe, the cold start probe injects its graph on a single thread.
+ */
+class ColdStartProfile implements CreationListener, LocatorListener {
+  private int creationDepth;
+  private long creationStartNanos;
+  private long creationNanos;
+  private long locatorNanosDuringCreation;
+  private long factoryLocatorNanos;
+  private long memberInjectorLocatorNanos;
+
+  @Override
+  public void onCreationStart(Class<?> clazz, String name, Scope scope) {
+    if (creationDepth++ == 0) {
+      creationStartNanos = System.nanoTime();
+    }
+  }
+
+  @Override
+  public void onCreationEnd(Class<?> clazz, String name, Scope scope) {
+    if (--creationDepth == 0) {
+      creationNanos += System.nanoTime() - creationStartNanos;
+    }
+  }
+
+  @Override
+  public void onLocated(
+      LocatorKind locatorKind, Class<?> clazz, boolean found, long durationNanos) {
+    if (locatorKind == LocatorKind.FACTORY) {
+      factoryLocatorNanos += durationNanos;
+    } else {
+      memberInjectorLocatorNanos += durationNanos;
+    }
+    if (creationDepth > 0) {
+      locatorNanosDuringCreation += durationNanos;
+    }
+  }
+
+  long getFactoryLocatorNanos() {
+    return factoryLocatorNanos;
+  }
+
+  long getMemberInjectorLocatorNanos() {
+    return memberInjectorLocatorNanos;
+  }
+
+  /** @return the time spent creating instances, without the time spent in the locators. */
+  long getConstructionNanos() {
+    return creationNanos - locatorNanosDuringCreation;
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.benchmarks.compiler;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+import javax.annotation.processing.Filer;
+import javax.lang.model.element.Element;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileObject;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+
+/** Counts the number of sources, and their size, that a processor generates. */
+class CountingFiler implements Filer {
+  private final Filer delegate;
+  private int sourceFileCount;
+  private long sourceCharCount;
+
+  CountingFiler(Filer delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public JavaFileObject createSourceFile(CharSequence name, Element... originatingElements)
+      throws IOException {
+    sourceFileCount++;
+    return new ForwardingJavaFileObject<JavaFileObject>(
+        delegate.createSourceFile(name, originatingElements)) {
+      @Override
+      public Writer openWriter() throws IOException {
+        return new FilterWriter(super.openWriter()) {
+          @Override
+          public void write(int c) throws IOException {
+            sourceCharCount++;
+            super.write(c);
+          }
+
+          @Override
+          public void write(char[] chars, int offset, int length) throws IOException {
+            sourceCharCount += length;
+            super.write(chars, offset, length);
+          }
+
+          @Override
+          public void write(String string, int offset, int length) throws IOException {
+            sourceCharCount += length;
+            super.write(string, offset, length);
+          }
+        };
+      }
+    };
+  }
+
+  @Override
+  public JavaFileObject createClassFile(CharSequence name, Element... originatingElements)
+      throws IOException {
+    return delegate.createClassFile(name, originatingElements);
+  }
+
+  @Override
+  public FileObject createResource(
+      JavaFileManager.Location location,
+      CharSequence packageName,
+      CharSequence relativeName,
+      Element... originatingElements)
+      throws IOException {
+    return delegate.createResource(location, packageName, relativeName, originatingElements);
+  }
+
+  @Override
+  public FileObject getResource(
+      JavaFileManager.Location location, CharSequence packageName, CharSequence relativeName)
+      throws IOException {
+    return delegate.getResource(location, packageName, relativeName);
+  }
+
+  int getSourceFileCount() {
+    return sourceFileCount;
+  }
+
+  long getSourceCharCount() {
+    return sourceCharCount;
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.benchmarks.compiler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+
+/**
+ * Keeps all the files produced by the compiler in memory, so that the benchmarks are not measuring
+ * the disk. Generated sources are kept so that the compiler can read them back in the next rounds.
+ */
+public class InMemoryJavaFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+  private final Map<String, OutputFile> classFiles = new LinkedHashMap<>();
+
+  public InMemoryJavaFileManager(StandardJavaFileManager fileManager) {
+    super(fileManager);
+  }
+
+  @Override
+  public JavaFileObject getJavaFileForOutput(
+      Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+    OutputFile outputFile = new OutputFile(className, kind);
+    if (kind == JavaFileObject.Kind.CLASS) {
+      classFiles.put(className, outputFile);
+    }
+    return outputFile;
+  }
+
+  /** @return the byte code of all the compiled classes, by binary name. */
+  public Map<String, byte[]> getClassFiles() {
+    Map<String, byte[]> byteCodes = new LinkedHashMap<>();
+    for (Map.Entry<String, OutputFile> classFile : classFiles.entrySet()) {
+      byteCodes.put(classFile.getKey(), classFile.getValue().content.toByteArray());
+    }
+    return byteCodes;
+  }
+
+  private static URI uri(String className, JavaFileObject.Kind kind) {
+    return URI.create("mem:///" + className.replace('.', '/') + kind.extension);
+  }
+
+  /** A source file whose content is held in memory. */
+  public static class SourceFile extends SimpleJavaFileObject {
+    private final String code;
+
+    public SourceFile(String className, String code) {
+      super(uri(className, Kind.SOURCE), Kind.SOURCE);
+      this.code = code;
+    }
+
+    @Override
+    public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+      return code;
+    }
+  }
+
+  private static class OutputFile extends SimpleJavaFileObject {
+    private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+    OutputFile(String className, Kind kind) {
+      super(uri(className, kind), kind);
+    }
+
+    @Override
+    public OutputStream openOutputStream() {
+      content.reset();
+      return content;
+    }
+
+    @Override
+    public InputStream openInputStream() {
+      return new ByteArrayInputStream(content.toByteArray());
+    }
+
+    @Override
+    public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+      return new String(content.toByteArray(), StandardCharsets.UTF_8);
+    }
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.benchmarks.compiler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.ToolProvider;
+import toothpick.compiler.common.ToothpickProcessor;
+import toothpick.compiler.factory.FactoryProcessor;
+import toothpick.compiler.memberinjector.MemberInjectorProcessor;
+
+/**
+ * Measures the time spent by {@link FactoryProcessor} and {@link MemberInjectorProcessor} to
+ * process synthetic code bases, and the volume of sources they generate. Compilation happens in
+ * memory and with {@code -proc:only}, so that the numbers are not dominated by the disk or by
+ * bytecode generation.
+ *
+ * <p>Each code base is processed a few times to warm up the JVM before being measured. Usage:
+ *
+ * <pre>
+ * ./gradlew :toothpick-benchmarks:processorBenchmark -PprocessorBenchmarkArgs='1000 10000'
+ * </pre>
+ *
+ * The arguments are the numbers of classes of the code bases, 1000, 10000 and 50000 by default.
+ */
+public class ProcessorBenchmark {
+  private static final int[] DEFAULT_CLASS_COUNTS = {1000, 10000, 50000};
+  private static final int WARMUP_ROUNDS = 2;
+  private static final int MEASUREMENT_ROUNDS = 3;
+
+  private ProcessorBenchmark() {}
+
+  public static void main(String[] args) {
+    int[] classCounts = DEFAULT_CLASS_COUNTS;
+    if (args.length > 0) {
+      classCounts = new int[args.length];
+      for (int i = 0; i < args.length; i++) {
+        classCounts[i] = Integer.parseInt(args[i]);
+      }
+    }
+
+    System.out.println(
+        String.format(
+            Locale.US,
+            "%8s  %-24s  %12s  %10s  %14s",
+            "classes",
+            "processor",
+            "time (ms)",
+            "sources",
+            "source chars"));
+    for (int classCount : classCounts) {
+      List<JavaFileObject> corpus = SyntheticCorpus.generate(classCount);
+      for (int round = 0; round < WARMUP_ROUNDS; round++) {
+        process(corpus);
+      }
+      long compilerNanos = 0;
+      List<TimedProcessor> measuredProcessors = new ArrayList<>();
+      for (int round = 0; round < MEASUREMENT_ROUNDS; round++) {
+        long start = System.nanoTime();
+        measuredProcessors.addAll(process(corpus));
+        compilerNanos += System.nanoTime() - start;
+      }
+      report(classCount, measuredProcessors, compilerNanos);
+    }
+  }
+
+  private static List<TimedProcessor> process(List<JavaFileObject> corpus) {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    if (compiler == null) {
+      throw new IllegalStateException("The benchmark must run on a JDK, not a JRE.");
+    }
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    InMemoryJavaFileManager fileManager =
+        new InMemoryJavaFileManager(compiler.getStandardFileManager(diagnostics, null, null));
+    List<TimedProcessor> processors =
+        Arrays.asList(
+            new TimedProcessor(new MemberInjectorProcessor()),
+            new TimedProcessor(new FactoryProcessor()));
+    List<String> options =
+        Arrays.asList(
+            "-proc:only",
+            "-classpath",
+            System.getProperty("java.class.path"),
+            "-A"
+                + ToothpickProcessor.PARAMETER_ANNOTATION_TYPES
+                + "="
+                + SyntheticCorpus.SCOPE_ANNOTATION);
+
+    JavaCompiler.CompilationTask task =
+        compiler.getTask(null, fileManager, diagnostics, options, null, corpus);
+    task.setProcessors(processors);
+    if (!task.call()) {
+      StringBuilder errors = new StringBuilder("The synthetic code base doesn't compile:");
+      for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+        if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+          errors.append('\n').append(diagnostic);
+        }
+      }
+      throw new IllegalStateException(errors.toString());
+    }
+    return processors;
+  }
+
+  private static void report(
+      int classCount, List<TimedProcessor> measuredProcessors, long compilerNanos) {
+    List<String> names = new ArrayList<>();
+    for (TimedProcessor processor : measuredProcessors) {
+      if (!names.contains(processor.getName())) {
+        names.add(processor.getName());
+      }
+    }
+    for (String name : names) {
+      long processingNanos = 0;
+      int sourceFileCount = 0;
+      long sourceCharCount = 0;
+      for (TimedProcessor processor : measuredProcessors) {
+        if (processor.getName().equals(name)) {
+          processingNanos += processor.getProcessingNanos();
+          sourceFileCount = processor.getSourceFileCount();
+          sourceCharCount = processor.getSourceCharCount();
+        }
+      }
+      System.out.println(
+          String.format(
+              Locale.US,
+              "%8d  %-24s  %12.1f  %10d  %14d",
+              classCount,
+              name,
+              processingNanos / 1e6 / MEASUREMENT_ROUNDS,
+              sourceFileCount,
+              sourceCharCount));
+    }
+    System.out.println(
+        String.format(
+            Locale.US,
+            "%8d  %-24s  %12.1f",
+            classCount,
+            "javac (total)",
+            compilerNanos / 1e6 / MEASUREMENT_ROUNDS));
+  }
+}
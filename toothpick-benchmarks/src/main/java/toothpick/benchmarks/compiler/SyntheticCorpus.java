@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.benchmarks.compiler;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates the sources of a synthetic code base to be processed by the Toothpick annotation
+ * processors. Classes use all the features the processors look for: {@code @Inject} constructors,
+ * fields and methods, {@code @Singleton} and a custom scope annotation. Every class depends on the
+ * classes that were generated right before it, and classes are spread in packages of {@value
+ * #CLASSES_PER_PACKAGE} classes.
+ */
+final class SyntheticCorpus {
+  static final String ROOT_PACKAGE = "corpus";
+  static final String SCOPE_ANNOTATION = ROOT_PACKAGE + ".CorpusScope";
+  private static final int CLASSES_PER_PACKAGE = 100;
+
+  private SyntheticCorpus() {}
+
+  /**
+   * @param classCount the number of injectable classes to generate.
+   * @return the sources of the code base, the scope annotation included.
+   */
+  static List<JavaFileObject> generate(int classCount) {
+    List<JavaFileObject> sources = new ArrayList<>(classCount + 1);
+    sources.add(
+        new InMemoryJavaFileManager.SourceFile(
+            SCOPE_ANNOTATION,
+            "package "
+                + ROOT_PACKAGE
+                + ";\n"
+                + "@javax.inject.Scope\n"
+                + "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)\n"
+                + "public @interface CorpusScope {}\n"));
+    for (int index = 0; index < classCount; index++) {
+      sources.add(new InMemoryJavaFileManager.SourceFile(className(index), classSource(index)));
+    }
+    return sources;
+  }
+
+  private static String className(int index) {
+    return ROOT_PACKAGE + ".p" + index / CLASSES_PER_PACKAGE + ".Class" + index;
+  }
+
+  private static String classSource(int index) {
+    StringBuilder source = new StringBuilder(512);
+    source.append("package ").append(ROOT_PACKAGE).append(".p");
+    source.append(index / CLASSES_PER_PACKAGE).append(";\n\n");
+    switch (index % 3) {
+      case 1:
+        source.append("@javax.inject.Singleton\n");
+        break;
+      case 2:
+        source.append('@').append(SCOPE_ANNOTATION).append('\n');
+        break;
+      default:
+        // unscoped
+    }
+    source.append("public class Class").append(index).append(" {\n");
+    if (index >= 1) {
+      source.append("  @javax.inject.Inject ").append(className(index - 1));
+      source.append(" fieldDependency;\n");
+    }
+    source.append("  @javax.inject.Inject\n  public Class").append(index).append('(');
+    if (index >= 2) {
+      source.append(className(index - 2)).append(" constructorDependency");
+    }
+    source.append(") {}\n");
+    if (index >= 3) {
+      source.append("  @javax.inject.Inject\n  void setMethodDependency(");
+      source.append(className(index - 3)).append(" methodDependency) {}\n");
+    }
+    source.append("}\n");
+    return source.toString();
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.benchmarks.compiler;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.Completion;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+/**
+ * Wraps a processor to measure the time it spends in {@link #init(ProcessingEnvironment)} and
+ * {@link #process(Set, RoundEnvironment)}, over all rounds, and the sources it generates.
+ */
+class TimedProcessor implements Processor {
+  private final Processor delegate;
+  private CountingFiler filer;
+  private long processingNanos;
+
+  TimedProcessor(Processor delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public Set<String> getSupportedOptions() {
+    return delegate.getSupportedOptions();
+  }
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    return delegate.getSupportedAnnotationTypes();
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return delegate.getSupportedSourceVersion();
+  }
+
+  @Override
+  public void init(ProcessingEnvironment processingEnv) {
+    filer = new CountingFiler(processingEnv.getFiler());
+    long start = System.nanoTime();
+    delegate.init(new CountingProcessingEnvironment(processingEnv, filer));
+    processingNanos += System.nanoTime() - start;
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    long start = System.nanoTime();
+    try {
+      return delegate.process(annotations, roundEnv);
+    } finally {
+      processingNanos += System.nanoTime() - start;
+    }
+  }
+
+  @Override
+  public Iterable<? extends Completion> getCompletions(
+      Element element, AnnotationMirror annotation, ExecutableElement member, String userText) {
+    return delegate.getCompletions(element, annotation, member, userText);
+  }
+
+  String getName() {
+    return delegate.getClass().getSimpleName();
+  }
+
+  long getProcessingNanos() {
+    return processingNanos;
+  }
+
+  int getSourceFileCount() {
+    return filer == null ? 0 : filer.getSourceFileCount();
+  }
+
+  long getSourceCharCount() {
+    return filer == null ? 0 : filer.getSourceCharCount();
+  }
+
+  private static class CountingProcessingEnvironment implements ProcessingEnvironment {
+    private final ProcessingEnvironment delegate;
+    private final Filer filer;
+
+    CountingProcessingEnvironment(ProcessingEnvironment delegate, Filer filer) {
+      this.delegate = delegate;
+      this.filer = filer;
+    }
+
+    @Override
+    public Map<String, String> getOptions() {
+      return delegate.getOptions();
+    }
+
+    @Override
+    public Messager getMessager() {
+      return delegate.getMessager();
+    }
+
+    @Override
+    public Filer getFiler() {
+      return filer;
+    }
+
+    @Override
+    public Elements getElementUtils() {
+      return delegate.getElementUtils();
+    }
+
+    @Override
+    public Types getTypeUtils() {
+      return delegate.getTypeUtils();
+    }
+
+    @Override
+    public SourceVersion getSourceVersion() {
+      return delegate.getSourceVersion();
+    }
+
+    @Override
+    public Locale getLocale() {
+      return delegate.getLocale();
+    }
+  }
+}
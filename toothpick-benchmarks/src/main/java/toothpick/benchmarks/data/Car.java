@@ -0,0 +1,47 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.benchmarks.data;
+
+import javax.inject.Inject;
+
+/** A small graph mixing constructor injection, field injection and an interface binding. */
+public class Car {
+  final Engine engine;
+  final Wheels wheels;
+  @Inject Dashboard dashboard;
+
+  @Inject
+  public Car(Engine engine, Wheels wheels) {
+    this.engine = engine;
+    this.wheels = wheels;
+  }
+
+  /** @return a car built by hand, the same way Toothpick builds it. */
+  public static Car newHandWiredCar() {
+    return newHandWiredCar(new V8Engine(new Fuel()));
+  }
+
+  /** @return a car built by hand around an existing engine. */
+  public static Car newHandWiredCar(Engine engine) {
+    Car car = new Car(engine, new Wheels());
+    Dashboard dashboard = new Dashboard();
+    dashboard.speedometer = new Speedometer();
+    dashboard.fuelGauge = new FuelGauge();
+    car.dashboard = dashboard;
+    return car;
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.benchmarks.data;
+
+import javax.inject.Inject;
+
+public class FiftyFieldsTarget {
+  @Inject UnscopedDependency dependency0;
+  @Inject UnscopedDependency dependency1;
+  @Inject UnscopedDependency dependency2;
+  @Inject UnscopedDependency dependency3;
+  @Inject UnscopedDependency dependency4;
+  @Inject UnscopedDependency dependency5;
+  @Inject UnscopedDependency dependency6;
+  @Inject UnscopedDependency dependency7;
+  @Inject UnscopedDependency dependency8;
+  @Inject UnscopedDependency dependency9;
+  @Inject UnscopedDependency dependency10;
+  @Inject UnscopedDependency dependency11;
+  @Inject UnscopedDependency dependency12;
+  @Inject UnscopedDependency dependency13;
+  @Inject UnscopedDependency dependency14;
+  @Inject UnscopedDependency dependency15;
+  @Inject UnscopedDependency dependency16;
+  @Inject UnscopedDependency dependency17;
+  @Inject UnscopedDependency dependency18;
+  @Inject UnscopedDependency dependency19;
+  @Inject UnscopedDependency dependency20;
+  @Inject UnscopedDependency dependency21;
+  @Inject UnscopedDependency dependency22;
+  @Inject UnscopedDependency dependency23;
+  @Inject UnscopedDependency dependency24;
+  @Inject UnscopedDependency dependency25;
+  @Inject UnscopedDependency dependency26;
+  @Inject UnscopedDependency dependency27;
+  @Inject UnscopedDependency dependency28;
+  @Inject UnscopedDependency dependency29;
+  @Inject UnscopedDependency dependency30;
+  @Inject UnscopedDependency dependency31;
+  @Inject UnscopedDependency dependency32;
+  @Inject UnscopedDependency dependency33;
+  @Inject UnscopedDependency dependency34;
+  @Inject UnscopedDependency dependency35;
+  @Inject UnscopedDependency dependency36;
+  @Inject UnscopedDependency dependency37;
+  @Inject UnscopedDependency dependency38;
+  @Inject UnscopedDependency dependency39;
+  @Inject UnscopedDependency dependency40;
+  @Inject UnscopedDependency dependency41;
+  @Inject UnscopedDependency dependency42;
+  @Inject UnscopedDependency dependency43;
+  @Inject UnscopedDependency dependency44;
+  @Inject UnscopedDependency dependency45;
+  @Inject UnscopedDependency dependency46;
+  @Inject UnscopedDependency dependency47;
+  @Inject UnscopedDependency dependency48;
+  @Inject UnscopedDependency dependency49;
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.benchmarks.data;
+
+import javax.inject.Inject;
+
+public class TenFieldsTarget {
+  @Inject UnscopedDependency dependency0;
+  @Inject UnscopedDependency dependency1;
+  @Inject UnscopedDependency dependency2;
+  @Inject UnscopedDependency dependency3;
+  @Inject UnscopedDependency dependency4;
+  @Inject UnscopedDependency dependency5;
+  @Inject UnscopedDependency dependency6;
+  @Inject UnscopedDependency dependency7;
+  @Inject UnscopedDependency dependency8;
+  @Inject UnscopedDependency dependency9;
+}
@@ -0,0 +1,331 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.benchmarks.footprint;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.inject.Provider;
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.vm.VM;
+import toothpick.Scope;
+import toothpick.ScopeImpl;
+import toothpick.Toothpick;
+import toothpick.benchmarks.data.DependencyProvider;
+import toothpick.benchmarks.graph.GraphSources;
+import toothpick.benchmarks.graph.GraphSpec;
+import toothpick.benchmarks.graph.SyntheticGraph;
+import toothpick.config.Binding;
+import toothpick.config.Module;
+import toothpick.ktp.delegate.EagerDelegate;
+import toothpick.ktp.delegate.InjectDelegate;
+import toothpick.ktp.delegate.LazyDelegate;
+import toothpick.ktp.delegate.ProviderDelegate;
+
+/**
+ * Measures the retained size, in bytes, of the main runtime structures of Toothpick: open scopes,
+ * installed bindings for each {@link Binding.Mode}, internal providers, providers and lazies
+ * returned by scopes, and ktp delegates. Each structure is created {@value #COUNT} times, and the
+ * growth of the object graph reachable from the scopes, as measured by JOL, is divided by this
+ * count. Objects that exist before the measurement, like the keys, names or instances of bindings,
+ * are not counted.
+ *
+ * <p>The report is a sorted list of {@code key=bytes} lines that can be compared between commits:
+ *
+ * <pre>
+ * ./gradlew :toothpick-benchmarks:footprintReport -PfootprintReportArgs=before.txt
+ * # change the code...
+ * ./gradlew :toothpick-benchmarks:footprintReport -PfootprintReportArgs=after.txt
+ * ./gradlew :toothpick-benchmarks:footprintReport \
+ *     -PfootprintReportArgs='--compare before.txt after.txt'
+ * </pre>
+ *
+ * Without arguments, the report is printed on the standard output.
+ */
+public class FootprintReport {
+  private static final int COUNT = 1000;
+  private static final String COMPARE_OPTION = "--compare";
+
+  private final Map<String, Double> results = new TreeMap<>();
+  private SyntheticGraph unscopedGraph;
+  private SyntheticGraph singletonGraph;
+
+  private FootprintReport() {}
+
+  public static void main(String[] args) throws Exception {
+    if (args.length == 3 && COMPARE_OPTION.equals(args[0])) {
+      compare(read(new File(args[1])), read(new File(args[2])));
+      return;
+    }
+    FootprintReport report = new FootprintReport();
+    report.measure();
+    if (args.length == 0) {
+      report.write(new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+    } else {
+      report.write(
+          new OutputStreamWriter(new FileOutputStream(args[0]), StandardCharsets.UTF_8));
+    }
+  }
+
+  private void measure() throws Exception {
+    // classes without dependencies, each binding needs its own key
+    unscopedGraph =
+        GraphSources.generate(
+                new GraphSpec()
+                    .nodeCount(COUNT)
+                    .depth(1)
+                    .singletonRatio(0)
+                    .packageName("footprint.unscoped"))
+            .compile();
+    singletonGraph =
+        GraphSources.generate(
+                new GraphSpec()
+                    .nodeCount(COUNT)
+                    .depth(1)
+                    .singletonRatio(1)
+                    .packageName("footprint.singleton"))
+            .compile();
+    Class[] unscopedClasses = loadClasses(unscopedGraph);
+    loadClasses(singletonGraph);
+
+    measureScopes();
+    for (Binding.Mode mode : Binding.Mode.values()) {
+      measureBindings(mode, unscopedClasses);
+    }
+    measureInternalProviders();
+    measureProviders();
+    measureDelegates();
+  }
+
+  private void measureScopes() throws Exception {
+    Scope rootScope = Toothpick.openRootScope();
+    Object[] names = new Object[COUNT];
+    for (int i = 0; i < COUNT; i++) {
+      names[i] = "scope" + i;
+    }
+    Object[] roots = {rootScope, names, staticField(Toothpick.class, "MAP_KEY_TO_SCOPE")};
+    long before = retainedSize(roots);
+    for (Object name : names) {
+      Toothpick.openScopes(rootScope.getName(), name);
+    }
+    record("scope.open", before, roots);
+    Toothpick.reset();
+  }
+
+  @SuppressWarnings("unchecked")
+  private void measureBindings(final Binding.Mode mode, final Class[] classes) throws Exception {
+    final Object[] instances = new Object[COUNT];
+    final Provider[] providers = new Provider[COUNT];
+    for (int i = 0; i < COUNT; i++) {
+      instances[i] = classes[i].newInstance();
+      providers[i] = new DependencyProvider();
+    }
+    Scope scope = Toothpick.openRootScope();
+    Object[] roots = {scope, instances, providers};
+    long before = retainedSize(roots);
+    scope.installModules(
+        new Module() {
+          {
+            for (int i = 0; i < COUNT; i++) {
+              switch (mode) {
+                case SIMPLE:
+                  bind(classes[i]);
+                  break;
+                case CLASS:
+                  bind(classes[i]).to(classes[i]);
+                  break;
+                case INSTANCE:
+                  bind(classes[i]).toInstance(instances[i]);
+                  break;
+                case PROVIDER_INSTANCE:
+                  bind(classes[i]).toProviderInstance(providers[i]);
+                  break;
+                case PROVIDER_CLASS:
+                  bind(classes[i]).toProvider(DependencyProvider.class);
+                  break;
+                default:
+                  throw new IllegalStateException("Unknown mode " + mode);
+              }
+            }
+          }
+        });
+    record("binding." + mode.name().toLowerCase(Locale.US), before, roots);
+    Toothpick.reset();
+  }
+
+  private void measureInternalProviders() throws Exception {
+    Scope scope = Toothpick.openRootScope();
+    Object[] roots = {scope, staticField(ScopeImpl.class, "mapClassesToUnNamedUnScopedProviders")};
+    long before = retainedSize(roots);
+    for (Class<?> nodeClass : unscopedGraph.getRootClasses()) {
+      scope.getInstance(nodeClass);
+    }
+    record("provider.internal.unscoped", before, roots);
+
+    before = retainedSize(roots);
+    for (Class<?> nodeClass : singletonGraph.getRootClasses()) {
+      scope.getInstance(nodeClass);
+    }
+    record("provider.internal.scoped.withInstance", before, roots);
+    Toothpick.reset();
+  }
+
+  private void measureProviders() {
+    Scope scope = Toothpick.openRootScope();
+    Object[] providers = new Object[COUNT];
+    Object[] roots = {scope, providers};
+    for (Class<?> nodeClass : unscopedGraph.getRootClasses()) {
+      // creates the internal providers, they are not measured here
+      scope.getInstance(nodeClass);
+    }
+    long before = retainedSize(roots);
+    for (int i = 0; i < COUNT; i++) {
+      providers[i] = scope.getProvider(unscopedGraph.getNodeClass(i));
+    }
+    record("provider.threadSafe.provider", before, roots);
+
+    // the providers are replaced, they don't count
+    Arrays.fill(providers, null);
+    before = retainedSize(roots);
+    for (int i = 0; i < COUNT; i++) {
+      providers[i] = scope.getLazy(unscopedGraph.getNodeClass(i));
+    }
+    record("provider.threadSafe.lazy", before, roots);
+    Toothpick.reset();
+  }
+
+  @SuppressWarnings("unchecked")
+  private void measureDelegates() {
+    Scope scope = Toothpick.openRootScope();
+    InjectDelegate[] delegates = new InjectDelegate[COUNT];
+    Object[] roots = {scope, delegates};
+    for (Class<?> nodeClass : unscopedGraph.getRootClasses()) {
+      scope.getInstance(nodeClass);
+    }
+    String[] kinds = {"eager", "provider", "lazy"};
+    for (String kind : kinds) {
+      long before = retainedSize(roots);
+      for (int i = 0; i < COUNT; i++) {
+        Class nodeClass = unscopedGraph.getNodeClass(i);
+        InjectDelegate delegate;
+        if (kind.equals("eager")) {
+          delegate = new EagerDelegate(nodeClass, null);
+        } else if (kind.equals("provider")) {
+          delegate = new ProviderDelegate(nodeClass, null);
+        } else {
+          delegate = new LazyDelegate(nodeClass, null);
+        }
+        delegate.onEntryPointInjected(scope);
+        delegates[i] = delegate;
+      }
+      record("ktp.delegate." + kind + ".injected", before, roots);
+      // the delegates are replaced by the next kind, they don't count
+      Arrays.fill(delegates, null);
+    }
+    Toothpick.reset();
+  }
+
+  private void record(String key, long before, Object[] roots) {
+    results.put(key, (retainedSize(roots) - before) / (double) COUNT);
+  }
+
+  private static long retainedSize(Object[] roots) {
+    return GraphLayout.parseInstance(roots).totalSize();
+  }
+
+  private static Class[] loadClasses(SyntheticGraph graph) {
+    Class[] classes = new Class[COUNT];
+    for (int i = 0; i < COUNT; i++) {
+      classes[i] = graph.getNodeClass(i);
+    }
+    return classes;
+  }
+
+  private static Object staticField(Class<?> clazz, String name) throws Exception {
+    Field field = clazz.getDeclaredField(name);
+    field.setAccessible(true);
+    return field.get(null);
+  }
+
+  private void write(Writer writer) throws IOException {
+    PrintWriter out = new PrintWriter(writer);
+    try {
+      out.println("# Toothpick footprint, retained bytes per item, " + COUNT + " items");
+      for (String line : VM.current().details().split("\n")) {
+        out.println("# " + line);
+      }
+      for (Map.Entry<String, Double> result : results.entrySet()) {
+        out.println(String.format(Locale.US, "%s=%.1f", result.getKey(), result.getValue()));
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  private static Map<String, Double> read(File file) throws IOException {
+    Map<String, Double> results = new TreeMap<>();
+    BufferedReader reader =
+        new BufferedReader(
+            new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+    try {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        int separator = line.indexOf('=');
+        if (!line.startsWith("#") && separator > 0) {
+          results.put(line.substring(0, separator), Double.valueOf(line.substring(separator + 1)));
+        }
+      }
+    } finally {
+      reader.close();
+    }
+    return results;
+  }
+
+  private static void compare(Map<String, Double> baseline, Map<String, Double> current) {
+    Map<String, Double> allKeys = new TreeMap<>(baseline);
+    allKeys.putAll(current);
+    System.out.println(
+        String.format(
+            Locale.US, "%-42s  %10s  %10s  %10s", "", "baseline", "current", "delta"));
+    for (String key : allKeys.keySet()) {
+      Double before = baseline.get(key);
+      Double after = current.get(key);
+      System.out.println(
+          String.format(
+              Locale.US,
+              "%-42s  %10s  %10s  %10s",
+              key,
+              before == null ? "-" : String.format(Locale.US, "%.1f", before),
+              after == null ? "-" : String.format(Locale.US, "%.1f", after),
+              before == null || after == null
+                  ? "-"
+                  : String.format(Locale.US, "%+.1f", after - before)));
+    }
+  }
+}
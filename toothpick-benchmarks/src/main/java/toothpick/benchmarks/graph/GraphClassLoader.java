@@ -0,0 +1,42 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.benchmarks.graph;
+
+import java.util.Map;
+
+/**
+ * Loads the classes of a graph compiled in memory. The Toothpick locators look for generated
+ * factories and member injectors in the class loader of the injected classes, so they are found
+ * here.
+ */
+class GraphClassLoader extends ClassLoader {
+  private final Map<String, byte[]> classFiles;
+
+  GraphClassLoader(ClassLoader parent, Map<String, byte[]> classFiles) {
+    super(parent);
+    this.classFiles = classFiles;
+  }
+
+  @Override
+  protected Class<?> findClass(String name) throws ClassNotFoundException {
+    byte[] classFile = classFiles.get(name);
+    if (classFile == null) {
+      throw new ClassNotFoundException(name);
+    }
+    return defineClass(name, classFile, 0, classFile.length);
+  }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.benchmarks.graph;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.ToolProvider;
+import toothpick.benchmarks.compiler.InMemoryJavaFileManager;
+import toothpick.compiler.common.ToothpickProcessor;
+import toothpick.compiler.factory.FactoryProcessor;
+import toothpick.compiler.memberinjector.MemberInjectorProcessor;
+
+/**
+ * The sources of a synthetic dependency graph. The graph is made of classes {@code Node0} to {@code
+ * NodeN} injected by constructor, a custom scope annotation {@code GraphScope}, and a module {@code
+ * GraphModule} that defines the named bindings of the graph.
+ *
+ * <p>The sources can be written to a directory, or compiled in memory, with the Toothpick
+ * annotation processors, and loaded as a {@link SyntheticGraph}.
+ */
+public class GraphSources {
+  static final String NODE_PREFIX = "Node";
+  static final String SCOPE_ANNOTATION = "GraphScope";
+  static final String MODULE = "GraphModule";
+
+  private final GraphSpec spec;
+  private final Map<String, String> sources;
+  private final int rootCount;
+
+  private GraphSources(GraphSpec spec, Map<String, String> sources, int rootCount) {
+    this.spec = spec;
+    this.sources = sources;
+    this.rootCount = rootCount;
+  }
+
+  /**
+   * Generates the sources of a graph.
+   *
+   * @param spec the description of the graph.
+   * @return the sources of the graph.
+   */
+  public static GraphSources generate(GraphSpec spec) {
+    spec.validate();
+    return new Generator(spec).generate();
+  }
+
+  /** @return the sources of the graph, by fully qualified class name. */
+  public Map<String, String> getSources() {
+    return Collections.unmodifiableMap(sources);
+  }
+
+  public GraphSpec getSpec() {
+    return spec;
+  }
+
+  /**
+   * Writes the sources of the graph in a source directory, typically to be compiled by a build.
+   *
+   * @param directory the root of the source directory.
+   * @throws IOException if a file can't be written.
+   */
+  public void writeTo(File directory) throws IOException {
+    for (Map.Entry<String, String> source : sources.entrySet()) {
+      File file = new File(directory, source.getKey().replace('.', File.separatorChar) + ".java");
+      File parent = file.getParentFile();
+      if (!parent.isDirectory() && !parent.mkdirs()) {
+        throw new IOException("Impossible to create the directory " + parent);
+      }
+      Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8);
+      try {
+        writer.write(source.getValue());
+      } finally {
+        writer.close();
+      }
+    }
+  }
+
+  /**
+   * Compiles the graph in memory, running the Toothpick annotation processors, and loads it in a
+   * new class loader. The classes of the current class path are visible to the graph.
+   *
+   * @return the compiled graph.
+   */
+  public SyntheticGraph compile() {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    if (compiler == null) {
+      throw new IllegalStateException("Graphs can only be compiled on a JDK, not a JRE.");
+    }
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    InMemoryJavaFileManager fileManager =
+        new InMemoryJavaFileManager(compiler.getStandardFileManager(diagnostics, null, null));
+    List<JavaFileObject> compilationUnits = new ArrayList<>(sources.size());
+    for (Map.Entry<String, String> source : sources.entrySet()) {
+      compilationUnits.add(
+          new InMemoryJavaFileManager.SourceFile(source.getKey(), source.getValue()));
+    }
+    List<String> options =
+        Arrays.asList(
+            "-classpath",
+            System.getProperty("java.class.path"),
+            "-A"
+                + ToothpickProcessor.PARAMETER_ANNOTATION_TYPES
+                + "="
+                + qualify(spec, SCOPE_ANNOTATION));
+
+    JavaCompiler.CompilationTask task =
+        compiler.getTask(null, fileManager, diagnostics, options, null, compilationUnits);
+    task.setProcessors(Arrays.asList(new MemberInjectorProcessor(), new FactoryProcessor()));
+    if (!task.call()) {
+      StringBuilder errors = new StringBuilder("The synthetic graph doesn't compile:");
+      for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+        if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+          errors.append('\n').append(diagnostic);
+        }
+      }
+      throw new IllegalStateException(errors.toString());
+    }
+    GraphClassLoader classLoader =
+        new GraphClassLoader(GraphSources.class.getClassLoader(), fileManager.getClassFiles());
+    return new SyntheticGraph(spec, classLoader, rootCount);
+  }
+
+  static String qualify(GraphSpec spec, String simpleName) {
+    return spec.getPackageName() + "." + simpleName;
+  }
+
+  private static class Generator {
+    private static final int UNSCOPED = 0;
+    private static final int SINGLETON = 1;
+    private static final int CUSTOM_SCOPE = 2;
+
+    private final GraphSpec spec;
+    private final Random random;
+    private final int[] levelStarts;
+    private final int[] scopes;
+    // nodes that can be created in the root scope, they can't use the custom scope annotation
+    private final boolean[] rootCompatible;
+    private final boolean[] named;
+
+    Generator(GraphSpec spec) {
+      this.spec = spec;
+      random = new Random(spec.getSeed());
+      levelStarts = new int[spec.getDepth() + 1];
+      for (int level = 0; level <= spec.getDepth(); level++) {
+        levelStarts[level] = (int) ((long) level * spec.getNodeCount() / spec.getDepth());
+      }
+      scopes = new int[spec.getNodeCount()];
+      rootCompatible = new boolean[spec.getNodeCount()];
+      named = new boolean[spec.getNodeCount()];
+    }
+
+    GraphSources generate() {
+      Map<String, String> sources = new LinkedHashMap<>();
+      sources.put(qualify(spec, SCOPE_ANNOTATION), scopeAnnotationSource());
+      // nodes are generated level by level, the parents of a node are known before it is generated
+      for (int level = 0; level < spec.getDepth(); level++) {
+        for (int node = levelStarts[level]; node < levelStarts[level + 1]; node++) {
+          scopes[node] = pickScope(rootCompatible[node]);
+          sources.put(qualify(spec, NODE_PREFIX + node), nodeSource(node, level));
+        }
+      }
+      sources.put(qualify(spec, MODULE), moduleSource());
+      return new GraphSources(spec, sources, levelStarts[1]);
+    }
+
+    private int pickScope(boolean rootCompatible) {
+      double draw = random.nextDouble();
+      if (draw < spec.getSingletonRatio()) {
+        return SINGLETON;
+      }
+      if (draw < spec.getSingletonRatio() + spec.getCustomScopeRatio() && !rootCompatible) {
+        return CUSTOM_SCOPE;
+      }
+      return UNSCOPED;
+    }
+
+    private String nodeSource(int node, int level) {
+      StringBuilder source = new StringBuilder(512);
+      source.append("package ").append(spec.getPackageName()).append(";\n\n");
+      if (scopes[node] == SINGLETON) {
+        source.append("@javax.inject.Singleton\n");
+      } else if (scopes[node] == CUSTOM_SCOPE) {
+        source.append('@').append(SCOPE_ANNOTATION).append('\n');
+      }
+      source.append("public class ").append(NODE_PREFIX).append(node).append(" {\n");
+      source.append("  @javax.inject.Inject\n  public ").append(NODE_PREFIX).append(node);
+      source.append('(');
+      String separator = "";
+      for (int dependency : pickDependencies(level)) {
+        boolean isNamed = random.nextDouble() < spec.getNamedBindingRatio();
+        // what is created by a singleton or a named binding (installed in the root scope) can be
+        // created in the root scope
+        if (scopes[node] == SINGLETON || rootCompatible[node] || isNamed) {
+          rootCompatible[dependency] = true;
+        }
+        source.append(separator);
+        if (isNamed) {
+          named[dependency] = true;
+          source.append("@javax.inject.Named(\"").append(NODE_PREFIX).append(dependency);
+          source.append("\") ");
+        }
+        String dependencyClass = NODE_PREFIX + dependency;
+        double edgeDraw = random.nextDouble();
+        if (edgeDraw < spec.getProviderEdgeRatio()) {
+          source.append("javax.inject.Provider<").append(dependencyClass).append('>');
+        } else if (edgeDraw < spec.getProviderEdgeRatio() + spec.getLazyEdgeRatio()) {
+          source.append("toothpick.Lazy<").append(dependencyClass).append('>');
+        } else {
+          source.append(dependencyClass);
+        }
+        source.append(" dependency").append(dependency);
+        separator = ", ";
+      }
+      source.append(") {}\n}\n");
+      return source.toString();
+    }
+
+    private List<Integer> pickDependencies(int level) {
+      if (level + 1 >= spec.getDepth()) {
+        return Collections.emptyList();
+      }
+      List<Integer> candidates = new ArrayList<>();
+      for (int node = levelStarts[level + 1]; node < levelStarts[level + 2]; node++) {
+        candidates.add(node);
+      }
+      Collections.shuffle(candidates, random);
+      List<Integer> dependencies =
+          candidates.subList(0, Math.min(spec.getFanOut(), candidates.size()));
+      Collections.sort(dependencies);
+      return dependencies;
+    }
+
+    private String scopeAnnotationSource() {
+      return "package "
+          + spec.getPackageName()
+          + ";\n\n"
+          + "@javax.inject.Scope\n"
+          + "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)\n"
+          + "public @interface "
+          + SCOPE_ANNOTATION
+          + " {}\n";
+    }
+
+    private String moduleSource() {
+      StringBuilder source = new StringBuilder(512);
+      source.append("package ").append(spec.getPackageName()).append(";\n\n");
+      source.append("public class ").append(MODULE).append(" extends toothpick.config.Module {\n");
+      source.append("  public ").append(MODULE).append("() {\n");
+      for (int node = 0; node < spec.getNodeCount(); node++) {
+        if (named[node]) {
+          String nodeClass = NODE_PREFIX + node;
+          source.append("    bind(").append(nodeClass).append(".class).withName(\"");
+          source.append(nodeClass).append("\").to(").append(nodeClass).append(".class);\n");
+        }
+      }
+      source.append("  }\n}\n");
+      return source.toString();
+    }
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.benchmarks.graph;
+
+/**
+ * Describes a synthetic dependency graph to be generated by {@link
+ * GraphSources#generate(GraphSpec)}.
+ *
+ * <p>The nodes are spread over {@link #depth(int)} levels. Each node depends on up to {@link
+ * #fanOut(int)} nodes of the next level, the nodes of the first level are the roots of the graph
+ * and the nodes of the last level have no dependencies. Generation is deterministic for a given
+ * spec, randomness is controlled by {@link #seed(long)}.
+ */
+public class GraphSpec {
+  private int nodeCount = 100;
+  private int depth = 5;
+  private int fanOut = 3;
+  private double singletonRatio = 0.25;
+  private double customScopeRatio;
+  private double namedBindingRatio;
+  private double providerEdgeRatio;
+  private double lazyEdgeRatio;
+  private long seed = 42;
+  private String packageName = "toothpick.synthetic";
+
+  /** @param nodeCount the number of classes of the graph. 100 by default. */
+  public GraphSpec nodeCount(int nodeCount) {
+    if (nodeCount < 1) {
+      throw new IllegalArgumentException("A graph needs at least one node.");
+    }
+    this.nodeCount = nodeCount;
+    return this;
+  }
+
+  /** @param depth the number of levels of the graph. 5 by default. */
+  public GraphSpec depth(int depth) {
+    if (depth < 1) {
+      throw new IllegalArgumentException("A graph needs at least one level.");
+    }
+    this.depth = depth;
+    return this;
+  }
+
+  /** @param fanOut the maximum number of dependencies of a node. 3 by default. */
+  public GraphSpec fanOut(int fanOut) {
+    if (fanOut < 0) {
+      throw new IllegalArgumentException("The fan out can't be negative.");
+    }
+    this.fanOut = fanOut;
+    return this;
+  }
+
+  /**
+   * @param singletonRatio the share of nodes annotated with {@code @Singleton}. 0.25 by default.
+   */
+  public GraphSpec singletonRatio(double singletonRatio) {
+    this.singletonRatio = checkRatio(singletonRatio);
+    return this;
+  }
+
+  /**
+   * @param customScopeRatio the share of nodes annotated with the custom scope annotation of the
+   *     graph. Nodes that can be created by a singleton or a named binding are never annotated with
+   *     it, as they can be created in the root scope. 0 by default.
+   */
+  public GraphSpec customScopeRatio(double customScopeRatio) {
+    this.customScopeRatio = checkRatio(customScopeRatio);
+    return this;
+  }
+
+  /**
+   * @param namedBindingRatio the share of dependencies injected via a named binding. 0 by default.
+   */
+  public GraphSpec namedBindingRatio(double namedBindingRatio) {
+    this.namedBindingRatio = checkRatio(namedBindingRatio);
+    return this;
+  }
+
+  /**
+   * @param providerEdgeRatio the share of dependencies injected as a {@code Provider}. 0 by
+   *     default.
+   */
+  public GraphSpec providerEdgeRatio(double providerEdgeRatio) {
+    this.providerEdgeRatio = checkRatio(providerEdgeRatio);
+    return this;
+  }
+
+  /** @param lazyEdgeRatio the share of dependencies injected as a {@code Lazy}. 0 by default. */
+  public GraphSpec lazyEdgeRatio(double lazyEdgeRatio) {
+    this.lazyEdgeRatio = checkRatio(lazyEdgeRatio);
+    return this;
+  }
+
+  /** @param seed the seed of the random choices made during the generation. */
+  public GraphSpec seed(long seed) {
+    this.seed = seed;
+    return this;
+  }
+
+  /** @param packageName the package of the generated classes. */
+  public GraphSpec packageName(String packageName) {
+    if (packageName == null || packageName.isEmpty()) {
+      throw new IllegalArgumentException("The package name can't be empty.");
+    }
+    this.packageName = packageName;
+    return this;
+  }
+
+  public int getNodeCount() {
+    return nodeCount;
+  }
+
+  public int getDepth() {
+    return depth;
+  }
+
+  public int getFanOut() {
+    return fanOut;
+  }
+
+  public double getSingletonRatio() {
+    return singletonRatio;
+  }
+
+  public double getCustomScopeRatio() {
+    return customScopeRatio;
+  }
+
+  public double getNamedBindingRatio() {
+    return namedBindingRatio;
+  }
+
+  public double getProviderEdgeRatio() {
+    return providerEdgeRatio;
+  }
+
+  public double getLazyEdgeRatio() {
+    return lazyEdgeRatio;
+  }
+
+  public long getSeed() {
+    return seed;
+  }
+
+  public String getPackageName() {
+    return packageName;
+  }
+
+  void validate() {
+    if (depth > nodeCount) {
+      throw new IllegalArgumentException(
+          String.format("The depth (%d) can't exceed the number of nodes (%d).", depth, nodeCount));
+    }
+    if (singletonRatio + customScopeRatio > 1) {
+      throw new IllegalArgumentException(
+          "The sum of the singleton and custom scope ratios can't exceed 1.");
+    }
+    if (providerEdgeRatio + lazyEdgeRatio > 1) {
+      throw new IllegalArgumentException(
+          "The sum of the provider and lazy edge ratios can't exceed 1.");
+    }
+  }
+
+  private static double checkRatio(double ratio) {
+    if (ratio < 0 || ratio > 1) {
+      throw new IllegalArgumentException("A ratio must be between 0 and 1, was " + ratio);
+    }
+    return ratio;
+  }
+}
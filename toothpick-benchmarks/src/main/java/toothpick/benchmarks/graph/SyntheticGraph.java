@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.benchmarks.graph;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
+import toothpick.config.Module;
+
+/**
+ * A synthetic dependency graph, compiled and loaded. To resolve the graph, install {@link
+ * #newModule()} in the root scope, and get the {@link #getRootClasses()} from a scope that supports
+ * {@link #getScopeAnnotation()}:
+ *
+ * <pre>{@code
+ * SyntheticGraph graph = GraphSources.generate(new GraphSpec().nodeCount(5000)).compile();
+ * Scope root = Toothpick.openRootScope().installModules(graph.newModule());
+ * Scope scope = Toothpick.openScopes(root.getName(), "child")
+ *     .supportScopeAnnotation(graph.getScopeAnnotation());
+ * for (Class<?> rootClass : graph.getRootClasses()) {
+ *   scope.getInstance(rootClass);
+ * }
+ * }</pre>
+ */
+public class SyntheticGraph {
+  private final GraphSpec spec;
+  private final ClassLoader classLoader;
+  private final int rootCount;
+
+  SyntheticGraph(GraphSpec spec, ClassLoader classLoader, int rootCount) {
+    this.spec = spec;
+    this.classLoader = classLoader;
+    this.rootCount = rootCount;
+  }
+
+  public GraphSpec getSpec() {
+    return spec;
+  }
+
+  public ClassLoader getClassLoader() {
+    return classLoader;
+  }
+
+  /**
+   * @param index the index of the node, between 0 and the number of nodes of the graph.
+   * @return the class of the node.
+   */
+  public Class<?> getNodeClass(int index) {
+    if (index < 0 || index >= spec.getNodeCount()) {
+      throw new IndexOutOfBoundsException("No node " + index + " in the graph.");
+    }
+    return load(GraphSources.NODE_PREFIX + index);
+  }
+
+  /** @return the nodes of the first level of the graph, no other node depends on them. */
+  public List<Class<?>> getRootClasses() {
+    List<Class<?>> rootClasses = new ArrayList<>(rootCount);
+    for (int index = 0; index < rootCount; index++) {
+      rootClasses.add(getNodeClass(index));
+    }
+    return rootClasses;
+  }
+
+  /** @return the custom scope annotation used by the graph. */
+  @SuppressWarnings("unchecked")
+  public Class<? extends Annotation> getScopeAnnotation() {
+    return (Class<? extends Annotation>) load(GraphSources.SCOPE_ANNOTATION);
+  }
+
+  /** @return a new instance of the module that defines the named bindings of the graph. */
+  public Module newModule() {
+    try {
+      return (Module) load(GraphSources.MODULE).newInstance();
+    } catch (InstantiationException | IllegalAccessException e) {
+      throw new IllegalStateException("Impossible to create the module of the graph.", e);
+    }
+  }
+
+  private Class<?> load(String simpleName) {
+    try {
+      return Class.forName(GraphSources.qualify(spec, simpleName), false, classLoader);
+    } catch (ClassNotFoundException e) {
+      throw new IllegalStateException("The graph is incomplete.", e);
+    }
+  }
+}
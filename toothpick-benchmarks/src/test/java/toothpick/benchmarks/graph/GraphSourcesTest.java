@@ -0,0 +1,145 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.benchmarks.graph;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Map;
+import org.junit.After;
+import org.junit.Test;
+import toothpick.Scope;
+import toothpick.Toothpick;
+
+public class GraphSourcesTest {
+
+  @After
+  public void tearDown() {
+    Toothpick.reset();
+  }
+
+  @Test
+  public void generate_shouldGenerateAllNodes_theScopeAnnotationAndTheModule() {
+    // GIVEN
+    GraphSpec spec = new GraphSpec().nodeCount(50).packageName("test.graph");
+
+    // WHEN
+    Map<String, String> sources = GraphSources.generate(spec).getSources();
+
+    // THEN
+    assertThat(sources.size(), is(52));
+    assertThat(sources.get("test.graph.Node49"), notNullValue());
+    assertThat(sources.get("test.graph.GraphScope"), containsString("@javax.inject.Scope"));
+    assertThat(sources.get("test.graph.GraphModule"), containsString("extends toothpick.config"));
+  }
+
+  @Test
+  public void generate_shouldBeDeterministic_whenSpecsAreEqual() {
+    // GIVEN
+    GraphSpec spec = new GraphSpec().nodeCount(200).namedBindingRatio(0.5).lazyEdgeRatio(0.5);
+
+    // WHEN
+    Map<String, String> sources = GraphSources.generate(spec).getSources();
+    Map<String, String> otherSources = GraphSources.generate(spec).getSources();
+
+    // THEN
+    assertThat(sources, is(otherSources));
+  }
+
+  @Test
+  public void generate_shouldUseAllKindsOfEdges_whenRatiosAreSet() {
+    // GIVEN
+    GraphSpec spec =
+        new GraphSpec()
+            .nodeCount(200)
+            .customScopeRatio(0.3)
+            .namedBindingRatio(0.3)
+            .providerEdgeRatio(0.3)
+            .lazyEdgeRatio(0.3);
+
+    // WHEN
+    String allSources = GraphSources.generate(spec).getSources().toString();
+
+    // THEN
+    assertThat(allSources, containsString("@javax.inject.Singleton"));
+    assertThat(allSources, containsString("@GraphScope"));
+    assertThat(allSources, containsString("@javax.inject.Named("));
+    assertThat(allSources, containsString("javax.inject.Provider<"));
+    assertThat(allSources, containsString("toothpick.Lazy<"));
+  }
+
+  @Test
+  public void generate_shouldNotGenerateEdges_whenTheGraphHasASingleLevel() {
+    // GIVEN
+    GraphSpec spec = new GraphSpec().nodeCount(10).depth(1);
+
+    // WHEN
+    String allSources = GraphSources.generate(spec).getSources().toString();
+
+    // THEN
+    assertThat(allSources, not(containsString(" dependency")));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void generate_shouldFail_whenTheDepthExceedsTheNodeCount() {
+    // GIVEN
+    GraphSpec spec = new GraphSpec().nodeCount(3).depth(4);
+
+    // WHEN
+    GraphSources.generate(spec);
+
+    // THEN
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void singletonRatio_shouldFail_whenTheRatioIsGreaterThanOne() {
+    // GIVEN
+    // WHEN
+    new GraphSpec().singletonRatio(1.5);
+
+    // THEN
+  }
+
+  @Test
+  public void compile_shouldProduceAGraphToothpickCanResolve() {
+    // GIVEN
+    SyntheticGraph graph =
+        GraphSources.generate(
+                new GraphSpec()
+                    .nodeCount(300)
+                    .customScopeRatio(0.3)
+                    .namedBindingRatio(0.2)
+                    .providerEdgeRatio(0.2)
+                    .lazyEdgeRatio(0.2))
+            .compile();
+    Scope rootScope = Toothpick.openRootScope().installModules(graph.newModule());
+    Scope childScope =
+        Toothpick.openScopes(rootScope.getName(), "child")
+            .supportScopeAnnotation(graph.getScopeAnnotation());
+
+    // WHEN
+    // THEN
+    for (int index = 0; index < graph.getSpec().getNodeCount(); index++) {
+      Class<?> nodeClass = graph.getNodeClass(index);
+      assertThat(nodeClass.isInstance(childScope.getInstance(nodeClass)), is(true));
+    }
+    assertThat(graph.getRootClasses().size(), is(60));
+  }
+}
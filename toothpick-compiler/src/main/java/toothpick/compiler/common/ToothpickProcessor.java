@@ -67,6 +67,10 @@ public abstract class ToothpickProcessor extends AbstractProcessor {
       "toothpick.ProvidesSingleton";
   public static final String INJECT_CONSTRUCTOR_ANNOTATION_CLASS_NAME =
       "toothpick.InjectConstructor";
+  public static final String GENERATE_MODULE_ANNOTATION_CLASS_NAME =
+      "toothpick.config.GenerateModule";
+  public static final String BINDS_ANNOTATION_CLASS_NAME = "toothpick.config.Binds";
+  public static final String PROVIDES_ANNOTATION_CLASS_NAME = "toothpick.config.Provides";
 
   /**
    * The name of the annotation processor option to exclude classes from the creation of member
@@ -100,6 +104,32 @@ public abstract class ToothpickProcessor extends AbstractProcessor {
   public static final String PARAMETER_CRASH_WHEN_INJECTED_METHOD_IS_NOT_PACKAGE =
       "toothpick_crash_when_injected_method_is_not_package";
 
+  /**
+   * The name of the annotation processor option to make the generated factories create their
+   * unscoped and unnamed constructor dependencies directly, via the factories generated in the same
+   * compilation, instead of looking them up in the scope. At runtime, dependencies that are bound
+   * by a module or a test module are still looked up in the scope. Passing the value {@code true}
+   * enables static wiring, it is disabled by default.
+   */
+  public static final String PARAMETER_STATIC_WIRING = "toothpick_static_wiring";
+
+  /**
+   * The name of the annotation processor option to make the generated factories and member
+   * injectors obtain their unnamed instance dependencies via an integer key id, assigned once per
+   * class and kept in a constant of the generated class. The scopes can then find the providers of
+   * these dependencies in an array instead of maps. Passing the value {@code true} enables key ids,
+   * they are disabled by default.
+   */
+  public static final String PARAMETER_KEY_IDS = "toothpick_key_ids";
+
+  /**
+   * The name of the annotation processor option to make the generated factories, whose constructor
+   * dependencies are all unnamed instances, expose these dependencies. Scopes then look up the
+   * providers of the dependencies of such a factory once, instead of once per created instance.
+   * Passing the value {@code true} enables dependency plans, they are disabled by default.
+   */
+  public static final String PARAMETER_DEPENDENCY_PLANS = "toothpick_dependency_plans";
+
   /** Allows to suppress warning when an injected method is not package-private visible. */
   private static final String SUPPRESS_WARNING_ANNOTATION_VISIBLE_VALUE = "visible";
 
@@ -109,6 +139,7 @@ public abstract class ToothpickProcessor extends AbstractProcessor {
 
   protected String toothpickExcludeFilters = "java.*,android.*";
   protected Boolean toothpickCrashWhenMethodIsNotPackageVisible;
+  protected Boolean keyIds;
   protected Set<String> supportedAnnotationTypes = new HashSet<>();
 
   @Override
@@ -156,11 +187,19 @@ public abstract class ToothpickProcessor extends AbstractProcessor {
   }
 
   /**
-   * Reads both annotation compilers {@link ToothpickProcessor#PARAMETER_EXCLUDES} option from the
-   * arguments passed to the processor.
+   * Reads both annotation compilers {@link ToothpickProcessor#PARAMETER_EXCLUDES} and {@link
+   * ToothpickProcessor#PARAMETER_KEY_IDS} options from the arguments passed to the processor.
    */
   protected void readCommonProcessorOptions() {
     readOptionExcludes();
+    readOptionKeyIds();
+  }
+
+  private void readOptionKeyIds() {
+    Map<String, String> options = processingEnv.getOptions();
+    if (keyIds == null) {
+      keyIds = Boolean.parseBoolean(options.get(PARAMETER_KEY_IDS));
+    }
   }
 
   private void readOptionExcludes() {
@@ -532,7 +571,7 @@ public abstract class ToothpickProcessor extends AbstractProcessor {
    * @param element the element for which a qualifier is to be found.
    * @return the name of this element or null if it has no qualifier annotations.
    */
-  private String findQualifierName(VariableElement element) {
+  protected String findQualifierName(Element element) {
     String name = null;
     if (element.getAnnotationMirrors().isEmpty()) {
       return name;
@@ -562,7 +601,7 @@ public abstract class ToothpickProcessor extends AbstractProcessor {
         typeUtils.erasure(elementUtils.getTypeElement(typeName).asType()));
   }
 
-  private void checkIfAlreadyHasName(VariableElement element, Object name) {
+  private void checkIfAlreadyHasName(Element element, Object name) {
     if (name != null) {
       error(element, "Only one javax.inject.Qualifier annotation is allowed to name injections.");
     }
@@ -18,11 +18,17 @@ package toothpick.compiler.common.generators;
 
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.util.Types;
+import toothpick.KeyIds;
 import toothpick.compiler.common.generators.targets.ParamInjectionTarget;
 
 /** Common base interface for all code generators. */
@@ -30,11 +36,22 @@ public abstract class CodeGenerator {
 
   protected static final String LINE_SEPARATOR = System.getProperty("line.separator");
   protected Types typeUtil;
+  private boolean keyIds;
+  // the constants holding the key ids of the unnamed instance dependencies, by class name
+  private Map<ClassName, String> mapClassNameToKeyIdFieldName = new LinkedHashMap<>();
 
   public CodeGenerator(Types typeUtil) {
     this.typeUtil = typeUtil;
   }
 
+  /**
+   * @param keyIds whether the unnamed instance dependencies are obtained via their key id. See
+   *     {@link toothpick.KeyIds#getInstance(toothpick.Scope, Class, int)}.
+   */
+  public void setKeyIds(boolean keyIds) {
+    this.keyIds = keyIds;
+  }
+
   /**
    * Creates all java code.
    *
@@ -56,6 +73,16 @@ public abstract class CodeGenerator {
       case INSTANCE:
         scopeGetMethodName = "getInstance";
         className = ClassName.get(paramInjectionTarget.memberClass);
+        if (keyIds && paramInjectionTarget.name == null) {
+          return CodeBlock.builder()
+              .add(
+                  "$T.$L(scope, $T.class, $L)",
+                  KeyIds.class,
+                  scopeGetMethodName,
+                  className,
+                  getKeyIdFieldName(className))
+              .build();
+        }
         break;
       case PROVIDER:
         scopeGetMethodName = "getProvider";
@@ -69,10 +96,40 @@ public abstract class CodeGenerator {
         throw new IllegalStateException("The kind can't be null.");
     }
     return CodeBlock.builder()
-        .add("$L($T.class$L)", scopeGetMethodName, className, injectionName)
+        .add("scope.$L($T.class$L)", scopeGetMethodName, className, injectionName)
         .build();
   }
 
+  private String getKeyIdFieldName(ClassName className) {
+    String keyIdFieldName = mapClassNameToKeyIdFieldName.get(className);
+    if (keyIdFieldName == null) {
+      keyIdFieldName = "KEY_ID_" + (mapClassNameToKeyIdFieldName.size() + 1);
+      mapClassNameToKeyIdFieldName.put(className, keyIdFieldName);
+    }
+    return keyIdFieldName;
+  }
+
+  /**
+   * Adds the constants holding the key ids used by the generated code. Must be called once all the
+   * calls to the scope have been generated.
+   *
+   * @param builder the builder of the generated class.
+   */
+  protected void emitKeyIdFields(TypeSpec.Builder builder) {
+    for (Map.Entry<ClassName, String> entry : mapClassNameToKeyIdFieldName.entrySet()) {
+      builder.addField(
+          FieldSpec.builder(
+                  TypeName.INT,
+                  entry.getValue(),
+                  Modifier.PRIVATE,
+                  Modifier.STATIC,
+                  Modifier.FINAL)
+              .initializer("$T.of($T.class)", KeyIds.class, entry.getKey())
+              .build());
+    }
+    mapClassNameToKeyIdFieldName.clear();
+  }
+
   protected TypeName getParamType(ParamInjectionTarget paramInjectionTarget) {
     if (paramInjectionTarget.kind == ParamInjectionTarget.Kind.INSTANCE) {
       return TypeName.get(typeUtil.erasure(paramInjectionTarget.memberClass.asType()));
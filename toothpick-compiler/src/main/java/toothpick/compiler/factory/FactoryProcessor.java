@@ -23,6 +23,7 @@ import java.lang.annotation.Annotation;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -84,6 +85,9 @@ import toothpick.compiler.factory.targets.ConstructorInjectionTarget;
   ToothpickProcessor.PARAMETER_EXCLUDES, //
   ToothpickProcessor.PARAMETER_ANNOTATION_TYPES, //
   ToothpickProcessor.PARAMETER_CRASH_WHEN_NO_FACTORY_CAN_BE_CREATED, //
+  ToothpickProcessor.PARAMETER_STATIC_WIRING, //
+  ToothpickProcessor.PARAMETER_KEY_IDS, //
+  ToothpickProcessor.PARAMETER_DEPENDENCY_PLANS, //
 }) //
 public class FactoryProcessor extends ToothpickProcessor {
 
@@ -91,8 +95,12 @@ public class FactoryProcessor extends ToothpickProcessor {
 
   private Map<TypeElement, ConstructorInjectionTarget> mapTypeElementToConstructorInjectionTarget;
   private Boolean crashWhenNoFactoryCanBeCreated;
+  private Boolean staticWiring;
+  private Boolean dependencyPlans;
 
   private Map<String, TypeElement> allRoundsGeneratedToTypeElement = new HashMap<>();
+  // the classes, across all rounds, whose factories can be called directly by other factories
+  private Set<String> allRoundsStaticallyWiredClassNames = new HashSet<>();
 
   @Override
   public Set<String> getSupportedAnnotationTypes() {
@@ -109,16 +117,24 @@ public class FactoryProcessor extends ToothpickProcessor {
 
     readCommonProcessorOptions();
     readCrashWhenNoFactoryCanBeCreatedOption();
+    readStaticWiringOption();
+    readDependencyPlansOption();
 
     mapTypeElementToConstructorInjectionTarget = new LinkedHashMap<>();
     findAndParseTargets(roundEnv, annotations);
+    if (staticWiring) {
+      collectStaticallyWiredClassNames();
+    }
 
     // Generate Factories
     for (Map.Entry<TypeElement, ConstructorInjectionTarget> entry :
         mapTypeElementToConstructorInjectionTarget.entrySet()) {
       ConstructorInjectionTarget constructorInjectionTarget = entry.getValue();
       FactoryGenerator factoryGenerator =
-          new FactoryGenerator(constructorInjectionTarget, typeUtils);
+          new FactoryGenerator(
+              constructorInjectionTarget, allRoundsStaticallyWiredClassNames, typeUtils);
+      factoryGenerator.setKeyIds(keyIds);
+      factoryGenerator.setDependencyPlans(dependencyPlans);
       TypeElement typeElement = entry.getKey();
       String fileDescription = format("Factory for type %s", typeElement);
       writeToFile(factoryGenerator, fileDescription, typeElement);
@@ -136,6 +152,33 @@ public class FactoryProcessor extends ToothpickProcessor {
     }
   }
 
+  private void readStaticWiringOption() {
+    Map<String, String> options = processingEnv.getOptions();
+    if (staticWiring == null) {
+      staticWiring = Boolean.parseBoolean(options.get(PARAMETER_STATIC_WIRING));
+    }
+  }
+
+  private void readDependencyPlansOption() {
+    Map<String, String> options = processingEnv.getOptions();
+    if (dependencyPlans == null) {
+      dependencyPlans = Boolean.parseBoolean(options.get(PARAMETER_DEPENDENCY_PLANS));
+    }
+  }
+
+  // only unscoped classes can be created directly: scoped classes need to be recycled by their
+  // scope. Generic classes are left to the scope as their factories are not parameterized.
+  private void collectStaticallyWiredClassNames() {
+    for (ConstructorInjectionTarget constructorInjectionTarget :
+        mapTypeElementToConstructorInjectionTarget.values()) {
+      TypeElement builtClass = constructorInjectionTarget.builtClass;
+      if (constructorInjectionTarget.scopeName == null
+          && builtClass.getTypeParameters().isEmpty()) {
+        allRoundsStaticallyWiredClassNames.add(builtClass.getQualifiedName().toString());
+      }
+    }
+  }
+
   private void findAndParseTargets(
       RoundEnvironment roundEnv, Set<? extends TypeElement> annotations) {
     createFactoriesForClassesAnnotatedWithInjectConstructor(roundEnv);
@@ -572,6 +615,21 @@ public class FactoryProcessor extends ToothpickProcessor {
     this.crashWhenNoFactoryCanBeCreated = crashWhenNoFactoryCanBeCreated;
   }
 
+  // used for testing only
+  void setStaticWiring(boolean staticWiring) {
+    this.staticWiring = staticWiring;
+  }
+
+  // used for testing only
+  void setDependencyPlans(boolean dependencyPlans) {
+    this.dependencyPlans = dependencyPlans;
+  }
+
+  // used for testing only
+  void setKeyIds(boolean keyIds) {
+    this.keyIds = keyIds;
+  }
+
   // used for testing only
   TypeElement getOriginatingElement(String generatedQualifiedName) {
     return allRoundsGeneratedToTypeElement.get(generatedQualifiedName);
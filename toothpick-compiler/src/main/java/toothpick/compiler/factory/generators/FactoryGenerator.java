@@ -16,6 +16,7 @@
  */
 package toothpick.compiler.factory.generators;
 
+import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.FieldSpec;
@@ -24,11 +25,21 @@ import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
 import javax.lang.model.util.Types;
+import toothpick.DependencyPlan;
 import toothpick.Factory;
 import toothpick.MemberInjector;
+import toothpick.PlannedFactory;
 import toothpick.Scope;
+import toothpick.StaticWiring;
 import toothpick.compiler.common.generators.CodeGenerator;
 import toothpick.compiler.common.generators.targets.ParamInjectionTarget;
 import toothpick.compiler.factory.targets.ConstructorInjectionTarget;
@@ -37,23 +48,47 @@ import toothpick.compiler.factory.targets.ConstructorInjectionTarget;
  * Generates a {@link Factory} for a given {@link ConstructorInjectionTarget}. Typically a factory
  * is created for a class a soon as it contains an {@link javax.inject.Inject} annotated
  * constructor. See Optimistic creation of factories in TP wiki.
+ *
+ * <p>When static wiring is enabled, the unnamed instance dependencies whose class is in {@code
+ * staticallyWiredClassNames} are created via their generated factory, which is passed to {@link
+ * StaticWiring#getInstance(Scope, Class, Factory)}.
+ *
+ * <p>When dependency plans are enabled, the factories whose constructor dependencies are all
+ * unnamed instances implement {@link PlannedFactory}.
  */
 public class FactoryGenerator extends CodeGenerator {
 
   private static final String FACTORY_SUFFIX = "__Factory";
 
   private ConstructorInjectionTarget constructorInjectionTarget;
+  private Set<String> staticallyWiredClassNames;
+  private boolean dependencyPlans;
 
   public FactoryGenerator(ConstructorInjectionTarget constructorInjectionTarget, Types types) {
+    this(constructorInjectionTarget, Collections.<String>emptySet(), types);
+  }
+
+  public FactoryGenerator(
+      ConstructorInjectionTarget constructorInjectionTarget,
+      Set<String> staticallyWiredClassNames,
+      Types types) {
     super(types);
     this.constructorInjectionTarget = constructorInjectionTarget;
+    this.staticallyWiredClassNames = staticallyWiredClassNames;
+  }
+
+  /** @param dependencyPlans whether the factory implements {@link PlannedFactory} if possible. */
+  public void setDependencyPlans(boolean dependencyPlans) {
+    this.dependencyPlans = dependencyPlans;
   }
 
   public String brewJava() {
     // Interface to implement
     ClassName className = ClassName.get(constructorInjectionTarget.builtClass);
+    boolean isPlanned = isPlanned();
     ParameterizedTypeName parameterizedTypeName =
-        ParameterizedTypeName.get(ClassName.get(Factory.class), className);
+        ParameterizedTypeName.get(
+            ClassName.get(isPlanned ? PlannedFactory.class : Factory.class), className);
 
     // Build class
     TypeSpec.Builder factoryTypeSpec =
@@ -63,12 +98,17 @@ public class FactoryGenerator extends CodeGenerator {
             .addSuperinterface(parameterizedTypeName);
     emitSuperMemberInjectorFieldIfNeeded(factoryTypeSpec);
     emitCreateInstance(factoryTypeSpec);
+    if (isPlanned) {
+      emitGetDependencyClasses(factoryTypeSpec);
+      emitCreateInstanceWithDependencyPlan(factoryTypeSpec);
+    }
     emitGetTargetScope(factoryTypeSpec);
     emitHasScopeAnnotation(factoryTypeSpec);
     emitHasSingletonAnnotation(factoryTypeSpec);
     emitHasReleasableAnnotation(factoryTypeSpec);
     emitHasProvidesSingletonAnnotation(factoryTypeSpec);
     emitHasProvidesReleasableAnnotation(factoryTypeSpec);
+    emitKeyIdFields(factoryTypeSpec);
 
     JavaFile javaFile = JavaFile.builder(className.packageName(), factoryTypeSpec.build()).build();
     return javaFile.toString();
@@ -115,6 +155,123 @@ public class FactoryGenerator extends CodeGenerator {
       createInstanceBuilder.addStatement("scope = getTargetScope(scope)");
     }
 
+    int counter = 1;
+    CodeBlock.Builder codeBlockBuilder = CodeBlock.builder();
+    if (constructorInjectionTarget.throwsThrowable) {
+      codeBlockBuilder.beginControlFlow("try");
+    }
+
+    // the fields of the factories of the statically wired dependencies, by class name
+    Map<String, String> mapClassNameToFactoryFieldName = new LinkedHashMap<>();
+    for (ParamInjectionTarget paramInjectionTarget : constructorInjectionTarget.parameters) {
+      String paramName = "param" + counter++;
+      if (isStaticallyWired(paramInjectionTarget)) {
+        TypeElement memberClass = paramInjectionTarget.memberClass;
+        String factoryFieldName = mapClassNameToFactoryFieldName.get(memberClass.toString());
+        if (factoryFieldName == null) {
+          factoryFieldName = "factory" + (mapClassNameToFactoryFieldName.size() + 1);
+          mapClassNameToFactoryFieldName.put(memberClass.toString(), factoryFieldName);
+          emitFactoryField(builder, memberClass, factoryFieldName);
+          // lazily created, a factory could otherwise create the factories of a cycle forever
+          codeBlockBuilder.beginControlFlow("if ($L == null)", factoryFieldName);
+          codeBlockBuilder.addStatement(
+              "$L = new $L$L()",
+              factoryFieldName,
+              getGeneratedFQNClassName(memberClass),
+              FACTORY_SUFFIX);
+          codeBlockBuilder.endControlFlow();
+        }
+        codeBlockBuilder.addStatement(
+            "$T $L = $T.getInstance(scope, $T.class, $L)",
+            getParamType(paramInjectionTarget),
+            paramName,
+            ClassName.get(StaticWiring.class),
+            ClassName.get(memberClass),
+            factoryFieldName);
+      } else {
+        CodeBlock invokeScopeGetMethodWithNameCodeBlock =
+            getInvokeScopeGetMethodWithNameCodeBlock(paramInjectionTarget);
+        codeBlockBuilder.add("$T $L = ", getParamType(paramInjectionTarget), paramName);
+        codeBlockBuilder.add(invokeScopeGetMethodWithNameCodeBlock);
+        codeBlockBuilder.add(";");
+        codeBlockBuilder.add(LINE_SEPARATOR);
+      }
+    }
+    emitNewInstance(codeBlockBuilder);
+    createInstanceBuilder.addCode(codeBlockBuilder.build());
+
+    builder.addMethod(createInstanceBuilder.build());
+  }
+
+  // only factories whose dependencies can all be looked up by class alone can use a plan
+  private boolean isPlanned() {
+    List<ParamInjectionTarget> parameters = constructorInjectionTarget.parameters;
+    if (!dependencyPlans || parameters.isEmpty()) {
+      return false;
+    }
+    for (ParamInjectionTarget paramInjectionTarget : parameters) {
+      if (paramInjectionTarget.kind != ParamInjectionTarget.Kind.INSTANCE
+          || paramInjectionTarget.name != null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void emitGetDependencyClasses(TypeSpec.Builder builder) {
+    TypeName classArrayTypeName =
+        ArrayTypeName.of(
+            ParameterizedTypeName.get(
+                ClassName.get(Class.class), WildcardTypeName.subtypeOf(Object.class)));
+    CodeBlock.Builder classesCodeBlockBuilder = CodeBlock.builder();
+    String prefix = "";
+    for (ParamInjectionTarget paramInjectionTarget : constructorInjectionTarget.parameters) {
+      classesCodeBlockBuilder.add(
+          "$L$T.class", prefix, ClassName.get(paramInjectionTarget.memberClass));
+      prefix = ", ";
+    }
+    MethodSpec.Builder getDependencyClassesBuilder =
+        MethodSpec.methodBuilder("getDependencyClasses")
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PUBLIC)
+            .returns(classArrayTypeName)
+            .addStatement(
+                "return new $T {$L}", classArrayTypeName, classesCodeBlockBuilder.build());
+    builder.addMethod(getDependencyClassesBuilder.build());
+  }
+
+  private void emitCreateInstanceWithDependencyPlan(TypeSpec.Builder builder) {
+    ClassName className = ClassName.get(constructorInjectionTarget.builtClass);
+    MethodSpec.Builder createInstanceBuilder =
+        MethodSpec.methodBuilder("createInstance")
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PUBLIC)
+            .addParameter(ClassName.get(Scope.class), "scope")
+            .addParameter(ClassName.get(DependencyPlan.class), "plan")
+            .returns(className);
+
+    CodeBlock.Builder codeBlockBuilder = CodeBlock.builder();
+    if (constructorInjectionTarget.throwsThrowable) {
+      codeBlockBuilder.beginControlFlow("try");
+    }
+    int index = 0;
+    for (ParamInjectionTarget paramInjectionTarget : constructorInjectionTarget.parameters) {
+      codeBlockBuilder.addStatement(
+          "$T param$L = plan.getInstance($L)",
+          getParamType(paramInjectionTarget),
+          index + 1,
+          index);
+      index++;
+    }
+    emitNewInstance(codeBlockBuilder);
+    createInstanceBuilder.addCode(codeBlockBuilder.build());
+
+    builder.addMethod(createInstanceBuilder.build());
+  }
+
+  // creates and injects the instance from the local params, and closes the try block if any
+  private void emitNewInstance(CodeBlock.Builder codeBlockBuilder) {
+    ClassName className = ClassName.get(constructorInjectionTarget.builtClass);
     StringBuilder localVarStatement = new StringBuilder("");
     String simpleClassName = getSimpleClassName(className);
     localVarStatement.append(simpleClassName).append(" ");
@@ -123,24 +280,10 @@ public class FactoryGenerator extends CodeGenerator {
     localVarStatement.append(varName).append(" = ");
     localVarStatement.append("new ");
     localVarStatement.append(simpleClassName).append("(");
-    int counter = 1;
     String prefix = "";
-
-    CodeBlock.Builder codeBlockBuilder = CodeBlock.builder();
-    if (constructorInjectionTarget.throwsThrowable) {
-      codeBlockBuilder.beginControlFlow("try");
-    }
-
-    for (ParamInjectionTarget paramInjectionTarget : constructorInjectionTarget.parameters) {
-      CodeBlock invokeScopeGetMethodWithNameCodeBlock =
-          getInvokeScopeGetMethodWithNameCodeBlock(paramInjectionTarget);
-      String paramName = "param" + counter++;
-      codeBlockBuilder.add("$T $L = scope.", getParamType(paramInjectionTarget), paramName);
-      codeBlockBuilder.add(invokeScopeGetMethodWithNameCodeBlock);
-      codeBlockBuilder.add(";");
-      codeBlockBuilder.add(LINE_SEPARATOR);
+    for (int i = 1; i <= constructorInjectionTarget.parameters.size(); i++) {
       localVarStatement.append(prefix);
-      localVarStatement.append(paramName);
+      localVarStatement.append("param").append(i);
       prefix = ", ";
     }
 
@@ -156,9 +299,21 @@ public class FactoryGenerator extends CodeGenerator {
       codeBlockBuilder.addStatement("throw new $L(ex)", ClassName.get(RuntimeException.class));
       codeBlockBuilder.endControlFlow();
     }
-    createInstanceBuilder.addCode(codeBlockBuilder.build());
+  }
 
-    builder.addMethod(createInstanceBuilder.build());
+  private boolean isStaticallyWired(ParamInjectionTarget paramInjectionTarget) {
+    return paramInjectionTarget.kind == ParamInjectionTarget.Kind.INSTANCE
+        && paramInjectionTarget.name == null
+        && staticallyWiredClassNames.contains(
+            paramInjectionTarget.memberClass.getQualifiedName().toString());
+  }
+
+  private void emitFactoryField(
+      TypeSpec.Builder builder, TypeElement memberClass, String factoryFieldName) {
+    ParameterizedTypeName factoryTypeName =
+        ParameterizedTypeName.get(ClassName.get(Factory.class), ClassName.get(memberClass));
+    builder.addField(
+        FieldSpec.builder(factoryTypeName, factoryFieldName, Modifier.PRIVATE).build());
   }
 
   private void emitGetTargetScope(TypeSpec.Builder builder) {
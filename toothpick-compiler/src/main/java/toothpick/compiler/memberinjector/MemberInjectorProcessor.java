@@ -52,7 +52,8 @@ import toothpick.compiler.memberinjector.targets.MethodInjectionTarget;
 @SupportedAnnotationTypes({ToothpickProcessor.INJECT_ANNOTATION_CLASS_NAME})
 @SupportedOptions({
   ToothpickProcessor.PARAMETER_EXCLUDES, //
-  ToothpickProcessor.PARAMETER_CRASH_WHEN_INJECTED_METHOD_IS_NOT_PACKAGE
+  ToothpickProcessor.PARAMETER_CRASH_WHEN_INJECTED_METHOD_IS_NOT_PACKAGE, //
+  ToothpickProcessor.PARAMETER_KEY_IDS, //
 }) //
 public class MemberInjectorProcessor extends ToothpickProcessor {
 
@@ -92,6 +93,7 @@ public class MemberInjectorProcessor extends ToothpickProcessor {
               fieldInjectionTargetList, //
               methodInjectionTargetList, //
               typeUtils);
+      memberInjectorGenerator.setKeyIds(keyIds);
       String fileDescription = String.format("MemberInjector for type %s", typeElement);
       writeToFile(memberInjectorGenerator, fileDescription, typeElement);
       allRoundsGeneratedToTypeElement.put(memberInjectorGenerator.getFqcn(), typeElement);
@@ -206,6 +208,11 @@ public class MemberInjectorProcessor extends ToothpickProcessor {
     this.toothpickCrashWhenMethodIsNotPackageVisible = crashOrWarnWhenMethodIsNotPackageVisible;
   }
 
+  // used for testing only
+  void setKeyIds(boolean keyIds) {
+    this.keyIds = keyIds;
+  }
+
   // used for testing only
   TypeElement getOriginatingElement(String generatedQualifiedName) {
     return allRoundsGeneratedToTypeElement.get(generatedQualifiedName);
@@ -78,6 +78,7 @@ public class MemberInjectorGenerator extends CodeGenerator {
             .addSuperinterface(memberInjectorInterfaceParameterizedTypeName);
     emitSuperMemberInjectorFieldIfNeeded(scopeMemberTypeSpec);
     emitInjectMethod(scopeMemberTypeSpec, fieldInjectionTargetList, methodInjectionTargetList);
+    emitKeyIdFields(scopeMemberTypeSpec);
 
     JavaFile javaFile =
         JavaFile.builder(className.packageName(), scopeMemberTypeSpec.build()).build();
@@ -145,7 +146,7 @@ public class MemberInjectorGenerator extends CodeGenerator {
             getInvokeScopeGetMethodWithNameCodeBlock(paramInjectionTarget);
         String paramName = "param" + counter++;
         injectMethodBuilder.addCode(
-            "$T $L = scope.", getParamType(paramInjectionTarget), paramName);
+            "$T $L = ", getParamType(paramInjectionTarget), paramName);
         injectMethodBuilder.addCode(invokeScopeGetMethodWithNameCodeBlock);
         injectMethodBuilder.addCode(";");
         injectMethodBuilder.addCode(LINE_SEPARATOR);
@@ -182,7 +183,7 @@ public class MemberInjectorGenerator extends CodeGenerator {
     for (FieldInjectionTarget memberInjectionTarget : fieldInjectionTargetList) {
       CodeBlock invokeScopeGetMethodWithNameCodeBlock =
           getInvokeScopeGetMethodWithNameCodeBlock(memberInjectionTarget);
-      injectBuilder.addCode("target.$L = scope.", memberInjectionTarget.memberName);
+      injectBuilder.addCode("target.$L = ", memberInjectionTarget.memberName);
       injectBuilder.addCode(invokeScopeGetMethodWithNameCodeBlock);
       injectBuilder.addCode(";");
       injectBuilder.addCode(LINE_SEPARATOR);
@@ -0,0 +1,299 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.compiler.module;
+
+import static java.lang.String.format;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import toothpick.compiler.common.ToothpickProcessor;
+import toothpick.compiler.module.generators.ModuleGenerator;
+import toothpick.compiler.module.targets.BindingTarget;
+import toothpick.config.Binds;
+import toothpick.config.GenerateModule;
+import toothpick.config.GeneratedModule;
+import toothpick.config.Provides;
+
+/**
+ * This processor's role is to create a {@link GeneratedModule} for each {@link GenerateModule}
+ * annotated interface or abstract class. Each {@link Binds} or {@link Provides} annotated method
+ * of such a type declares a binding. The bindings are checked during annotation processing, so that
+ * installing a generated module doesn't need to go through the binding DSL.
+ */
+// http://stackoverflow.com/a/2067863/693752
+@SupportedAnnotationTypes({
+  ToothpickProcessor.GENERATE_MODULE_ANNOTATION_CLASS_NAME, //
+  ToothpickProcessor.BINDS_ANNOTATION_CLASS_NAME, //
+  ToothpickProcessor.PROVIDES_ANNOTATION_CLASS_NAME, //
+}) //
+public class ModuleProcessor extends ToothpickProcessor {
+
+  private Map<String, TypeElement> allRoundsGeneratedToTypeElement = new HashMap<>();
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    checkBindingMethodsAreInModuleDeclarations(roundEnv);
+
+    for (TypeElement typeElement :
+        ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(GenerateModule.class))) {
+      List<BindingTarget> bindingTargets = getBindingTargets(typeElement);
+      if (bindingTargets == null) {
+        continue;
+      }
+      ModuleGenerator moduleGenerator =
+          new ModuleGenerator(typeElement, bindingTargets, typeUtils);
+      String fileDescription = format("Module for type %s", typeElement);
+      writeToFile(moduleGenerator, fileDescription, typeElement);
+      allRoundsGeneratedToTypeElement.put(moduleGenerator.getFqcn(), typeElement);
+    }
+
+    return false;
+  }
+
+  private void checkBindingMethodsAreInModuleDeclarations(RoundEnvironment roundEnv) {
+    List<Element> bindingMethods = new ArrayList<>();
+    bindingMethods.addAll(roundEnv.getElementsAnnotatedWith(Binds.class));
+    bindingMethods.addAll(roundEnv.getElementsAnnotatedWith(Provides.class));
+    for (Element bindingMethod : bindingMethods) {
+      Element enclosingElement = bindingMethod.getEnclosingElement();
+      if (enclosingElement.getAnnotation(GenerateModule.class) == null) {
+        error(
+            bindingMethod,
+            "Method %s#%s declares a binding but %s is not annotated with @GenerateModule.",
+            enclosingElement,
+            bindingMethod.getSimpleName(),
+            enclosingElement);
+      }
+    }
+  }
+
+  /** @return the bindings declared by {@code typeElement}, or null if they are not valid. */
+  private List<BindingTarget> getBindingTargets(TypeElement typeElement) {
+    if (typeElement.getKind() != ElementKind.INTERFACE
+        && !typeElement.getModifiers().contains(Modifier.ABSTRACT)) {
+      error(
+          typeElement,
+          "Type %s is annotated with @GenerateModule but is neither an interface"
+              + " nor an abstract class.",
+          typeElement.getQualifiedName());
+      return null;
+    }
+
+    boolean isValid = true;
+    List<BindingTarget> bindingTargets = new ArrayList<>();
+    // the methods declaring the bindings, by key and name, to report duplicate bindings
+    Map<String, ExecutableElement> mapKeyToBindingMethod = new HashMap<>();
+    for (ExecutableElement methodElement :
+        ElementFilter.methodsIn(typeElement.getEnclosedElements())) {
+      Binds binds = methodElement.getAnnotation(Binds.class);
+      Provides provides = methodElement.getAnnotation(Provides.class);
+      if (binds == null && provides == null) {
+        continue;
+      }
+      BindingTarget bindingTarget = null;
+      if (binds != null && provides != null) {
+        error(
+            methodElement,
+            "Method %s#%s can't be annotated with both @Binds and @Provides.",
+            typeElement.getQualifiedName(),
+            methodElement.getSimpleName());
+      } else if (binds != null) {
+        bindingTarget = createBindsTarget(typeElement, methodElement, binds);
+      } else {
+        bindingTarget = createProvidesTarget(typeElement, methodElement, provides);
+      }
+      if (bindingTarget == null) {
+        isValid = false;
+        continue;
+      }
+      String bindingKey = bindingTarget.keyClass.getQualifiedName() + "#" + bindingTarget.name;
+      ExecutableElement previousMethodElement =
+          mapKeyToBindingMethod.put(bindingKey, methodElement);
+      if (previousMethodElement != null) {
+        String boundKey =
+            bindingTarget.name == null
+                ? bindingTarget.keyClass.getQualifiedName().toString()
+                : format(
+                    "%s with name %s",
+                    bindingTarget.keyClass.getQualifiedName(),
+                    bindingTarget.name);
+        error(
+            methodElement,
+            "Method %s#%s binds %s, which is already bound by method %s#%s.",
+            typeElement.getQualifiedName(),
+            methodElement.getSimpleName(),
+            boundKey,
+            typeElement.getQualifiedName(),
+            previousMethodElement.getSimpleName());
+        isValid = false;
+        continue;
+      }
+      bindingTargets.add(bindingTarget);
+    }
+    return isValid ? bindingTargets : null;
+  }
+
+  private BindingTarget createBindsTarget(
+      TypeElement typeElement, ExecutableElement methodElement, Binds binds) {
+    TypeElement keyClass = getKeyClass(typeElement, methodElement);
+    if (keyClass == null
+        || !isValidReleasable(typeElement, methodElement, binds.singleton(), binds.releasable())) {
+      return null;
+    }
+    String name = findQualifierName(methodElement);
+    switch (methodElement.getParameters().size()) {
+      case 0:
+        return new BindingTarget(
+            BindingTarget.Kind.SELF,
+            keyClass,
+            name,
+            null,
+            binds.singleton(),
+            binds.releasable(),
+            false,
+            false);
+      case 1:
+        TypeMirror implType = methodElement.getParameters().get(0).asType();
+        if (implType.getKind() != TypeKind.DECLARED
+            || !typeUtils.isAssignable(
+                typeUtils.erasure(implType), typeUtils.erasure(keyClass.asType()))) {
+          error(
+              methodElement,
+              "Method %s#%s binds %s to %s, which is not a subclass of %s.",
+              typeElement.getQualifiedName(),
+              methodElement.getSimpleName(),
+              keyClass.getQualifiedName(),
+              implType,
+              keyClass.getQualifiedName());
+          return null;
+        }
+        return new BindingTarget(
+            BindingTarget.Kind.CLASS,
+            keyClass,
+            name,
+            (TypeElement) typeUtils.asElement(implType),
+            binds.singleton(),
+            binds.releasable(),
+            false,
+            false);
+      default:
+        error(
+            methodElement,
+            "@Binds method %s#%s can only have one parameter, the implementation class.",
+            typeElement.getQualifiedName(),
+            methodElement.getSimpleName());
+        return null;
+    }
+  }
+
+  private BindingTarget createProvidesTarget(
+      TypeElement typeElement, ExecutableElement methodElement, Provides provides) {
+    TypeElement keyClass = getKeyClass(typeElement, methodElement);
+    if (keyClass == null
+        || !isValidReleasable(
+            typeElement, methodElement, provides.singleton(), provides.releasable())
+        || !isValidReleasable(
+            typeElement,
+            methodElement,
+            provides.providesSingleton(),
+            provides.providesReleasable())) {
+      return null;
+    }
+    if (methodElement.getParameters().size() != 1) {
+      error(
+          methodElement,
+          "@Provides method %s#%s must have one parameter, the provider class.",
+          typeElement.getQualifiedName(),
+          methodElement.getSimpleName());
+      return null;
+    }
+    TypeMirror providerType = methodElement.getParameters().get(0).asType();
+    DeclaredType providerOfKeyType =
+        typeUtils.getDeclaredType(
+            elementUtils.getTypeElement("javax.inject.Provider"),
+            typeUtils.getWildcardType(typeUtils.erasure(keyClass.asType()), null));
+    if (providerType.getKind() != TypeKind.DECLARED
+        || !typeUtils.isAssignable(providerType, providerOfKeyType)) {
+      error(
+          methodElement,
+          "Method %s#%s binds %s to %s, which is not a javax.inject.Provider of %s.",
+          typeElement.getQualifiedName(),
+          methodElement.getSimpleName(),
+          keyClass.getQualifiedName(),
+          providerType,
+          keyClass.getQualifiedName());
+      return null;
+    }
+    return new BindingTarget(
+        BindingTarget.Kind.PROVIDER_CLASS,
+        keyClass,
+        findQualifierName(methodElement),
+        (TypeElement) typeUtils.asElement(providerType),
+        provides.singleton(),
+        provides.releasable(),
+        provides.providesSingleton(),
+        provides.providesReleasable());
+  }
+
+  private TypeElement getKeyClass(TypeElement typeElement, ExecutableElement methodElement) {
+    TypeMirror returnType = methodElement.getReturnType();
+    if (returnType.getKind() != TypeKind.DECLARED) {
+      error(
+          methodElement,
+          "Method %s#%s must return the class of the binding key.",
+          typeElement.getQualifiedName(),
+          methodElement.getSimpleName());
+      return null;
+    }
+    return (TypeElement) typeUtils.asElement(returnType);
+  }
+
+  private boolean isValidReleasable(
+      TypeElement typeElement,
+      ExecutableElement methodElement,
+      boolean isSingleton,
+      boolean isReleasable) {
+    if (isReleasable && !isSingleton) {
+      error(
+          methodElement,
+          "Method %s#%s declares a releasable binding that is not a singleton.",
+          typeElement.getQualifiedName(),
+          methodElement.getSimpleName());
+      return false;
+    }
+    return true;
+  }
+
+  // used for testing only
+  TypeElement getOriginatingElement(String generatedQualifiedName) {
+    return allRoundsGeneratedToTypeElement.get(generatedQualifiedName);
+  }
+}
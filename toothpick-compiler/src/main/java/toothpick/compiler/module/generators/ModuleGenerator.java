@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.compiler.module.generators;
+
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeSpec;
+import java.util.List;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Types;
+import toothpick.compiler.common.generators.CodeGenerator;
+import toothpick.compiler.module.targets.BindingTarget;
+import toothpick.config.Binding;
+import toothpick.config.GeneratedModule;
+
+/**
+ * Generates a {@link GeneratedModule} for a {@link toothpick.config.GenerateModule} annotated type.
+ * The bindings are created once, in a static field of the generated module, and passed to the
+ * constructor of {@link GeneratedModule}.
+ */
+public class ModuleGenerator extends CodeGenerator {
+
+  private static final String MODULE_SUFFIX = "__Module";
+
+  private TypeElement moduleDeclaration;
+  private List<BindingTarget> bindingTargets;
+
+  public ModuleGenerator(
+      TypeElement moduleDeclaration, List<BindingTarget> bindingTargets, Types types) {
+    super(types);
+    this.moduleDeclaration = moduleDeclaration;
+    this.bindingTargets = bindingTargets;
+  }
+
+  @Override
+  public String brewJava() {
+    TypeSpec.Builder moduleTypeSpec =
+        TypeSpec.classBuilder(getGeneratedSimpleClassName(moduleDeclaration) + MODULE_SUFFIX)
+            .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+            .superclass(ClassName.get(GeneratedModule.class));
+    emitBindingsField(moduleTypeSpec);
+    emitConstructor(moduleTypeSpec);
+
+    JavaFile javaFile =
+        JavaFile.builder(getGeneratedPackageName(moduleDeclaration), moduleTypeSpec.build())
+            .build();
+    return javaFile.toString();
+  }
+
+  private void emitBindingsField(TypeSpec.Builder builder) {
+    CodeBlock.Builder bindingsCodeBlockBuilder = CodeBlock.builder().add("{\n$>");
+    String prefix = "";
+    for (BindingTarget bindingTarget : bindingTargets) {
+      bindingsCodeBlockBuilder.add(prefix);
+      bindingsCodeBlockBuilder.add(getCreateBindingCodeBlock(bindingTarget));
+      prefix = ",\n";
+    }
+    bindingsCodeBlockBuilder.add("\n$<}");
+    builder.addField(
+        FieldSpec.builder(
+                ArrayTypeName.of(Binding.class),
+                "BINDINGS",
+                Modifier.PRIVATE,
+                Modifier.STATIC,
+                Modifier.FINAL)
+            .initializer(bindingsCodeBlockBuilder.build())
+            .build());
+  }
+
+  private CodeBlock getCreateBindingCodeBlock(BindingTarget bindingTarget) {
+    ClassName keyClassName = ClassName.get(bindingTarget.keyClass);
+    switch (bindingTarget.kind) {
+      case SELF:
+        return CodeBlock.builder()
+            .add(
+                "bindingToSelf($T.class, $S, $L, $L)",
+                keyClassName,
+                bindingTarget.name,
+                bindingTarget.isCreatingSingleton,
+                bindingTarget.isCreatingReleasable)
+            .build();
+      case CLASS:
+        return CodeBlock.builder()
+            .add(
+                "bindingToClass($T.class, $S, $T.class, $L, $L)",
+                keyClassName,
+                bindingTarget.name,
+                ClassName.get(bindingTarget.targetClass),
+                bindingTarget.isCreatingSingleton,
+                bindingTarget.isCreatingReleasable)
+            .build();
+      case PROVIDER_CLASS:
+        return CodeBlock.builder()
+            .add(
+                "bindingToProviderClass($T.class, $S, $T.class, $L, $L, $L, $L)",
+                keyClassName,
+                bindingTarget.name,
+                ClassName.get(bindingTarget.targetClass),
+                bindingTarget.isCreatingSingleton,
+                bindingTarget.isCreatingReleasable,
+                bindingTarget.isProvidingSingleton,
+                bindingTarget.isProvidingReleasable)
+            .build();
+      default:
+        throw new IllegalStateException("The kind can't be null.");
+    }
+  }
+
+  private void emitConstructor(TypeSpec.Builder builder) {
+    builder.addMethod(
+        MethodSpec.constructorBuilder()
+            .addModifiers(Modifier.PUBLIC)
+            .addStatement("super(BINDINGS)")
+            .build());
+  }
+
+  @Override
+  public String getFqcn() {
+    return getGeneratedFQNClassName(moduleDeclaration) + MODULE_SUFFIX;
+  }
+}
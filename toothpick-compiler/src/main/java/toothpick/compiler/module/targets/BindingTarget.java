@@ -0,0 +1,58 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.compiler.module.targets;
+
+import javax.lang.model.element.TypeElement;
+
+/** All the information to create a binding of a generated module. */
+public final class BindingTarget {
+  public final Kind kind;
+  public final TypeElement keyClass;
+  public final String name;
+  /** the implementation or provider class, null for {@link Kind#SELF} bindings. */
+  public final TypeElement targetClass;
+
+  public final boolean isCreatingSingleton;
+  public final boolean isCreatingReleasable;
+  public final boolean isProvidingSingleton;
+  public final boolean isProvidingReleasable;
+
+  public BindingTarget(
+      Kind kind,
+      TypeElement keyClass,
+      String name,
+      TypeElement targetClass,
+      boolean isCreatingSingleton,
+      boolean isCreatingReleasable,
+      boolean isProvidingSingleton,
+      boolean isProvidingReleasable) {
+    this.kind = kind;
+    this.keyClass = keyClass;
+    this.name = name;
+    this.targetClass = targetClass;
+    this.isCreatingSingleton = isCreatingSingleton;
+    this.isCreatingReleasable = isCreatingReleasable;
+    this.isProvidingSingleton = isProvidingSingleton;
+    this.isProvidingReleasable = isProvidingReleasable;
+  }
+
+  public enum Kind {
+    SELF,
+    CLASS,
+    PROVIDER_CLASS
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.compiler.factory;
+
+import static com.google.common.truth.Truth.assert_;
+import static com.google.testing.compile.JavaSourceSubjectFactory.javaSource;
+
+import com.google.common.base.Joiner;
+import com.google.testing.compile.JavaFileObjects;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+
+public class DependencyPlansFactoryTest extends BaseFactoryTest {
+  @Test
+  public void testDependencyPlans_shouldExposeDependencies_whenAllAreUnnamedInstances() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString(
+            "test.TestDependencyPlans",
+            Joiner.on('\n')
+                .join( //
+                    "package test;", //
+                    "import javax.inject.Inject;", //
+                    "public class TestDependencyPlans {", //
+                    "  @Inject public TestDependencyPlans(Foo foo, Bar bar) {}", //
+                    "}", //
+                    "class Foo {}", //
+                    "class Bar {}" //
+                    ));
+
+    JavaFileObject expectedSource =
+        JavaFileObjects.forSourceString(
+            "test/TestDependencyPlans__Factory",
+            Joiner.on('\n')
+                .join( //
+                    "package test;", //
+                    "import java.lang.Class;", //
+                    "import java.lang.Override;", //
+                    "import toothpick.DependencyPlan;", //
+                    "import toothpick.PlannedFactory;", //
+                    "import toothpick.Scope;", //
+                    "", //
+                    "public final class TestDependencyPlans__Factory implements PlannedFactory<TestDependencyPlans> {", //
+                    "  @Override", //
+                    "  public TestDependencyPlans createInstance(Scope scope) {", //
+                    "    scope = getTargetScope(scope);", //
+                    "    Foo param1 = scope.getInstance(Foo.class);", //
+                    "    Bar param2 = scope.getInstance(Bar.class);", //
+                    "    TestDependencyPlans testDependencyPlans = new TestDependencyPlans(param1, param2);", //
+                    "    return testDependencyPlans;", //
+                    "  }", //
+                    "  @Override", //
+                    "  public Class<?>[] getDependencyClasses() {", //
+                    "    return new Class<?>[] {Foo.class, Bar.class};", //
+                    "  }", //
+                    "  @Override", //
+                    "  public TestDependencyPlans createInstance(Scope scope, DependencyPlan plan) {", //
+                    "    Foo param1 = plan.getInstance(0);", //
+                    "    Bar param2 = plan.getInstance(1);", //
+                    "    TestDependencyPlans testDependencyPlans = new TestDependencyPlans(param1, param2);", //
+                    "    return testDependencyPlans;", //
+                    "  }", //
+                    "  @Override", //
+                    "  public Scope getTargetScope(Scope scope) {", //
+                    "    return scope;", //
+                    "  }", //
+                    "  @Override", //
+                    "  public boolean hasScopeAnnotation() {", //
+                    "    return false;", //
+                    "  }", //
+                    "  @Override", //
+                    "  public boolean hasSingletonAnnotation() {", //
+                    "    return false;", //
+                    "  }", //
+                    "  @Override", //
+                    "  public boolean hasReleasableAnnotation() {", //
+                    "    return false;", //
+                    "  }", //
+                    "  @Override", //
+                    "  public boolean hasProvidesSingletonAnnotation() {", //
+                    "    return false;", //
+                    "  }", //
+                    "  @Override", //
+                    "  public boolean hasProvidesReleasableAnnotation() {", //
+                    "    return false;", //
+                    "  }", //
+                    "}" //
+                    ));
+
+    assert_()
+        .about(javaSource())
+        .that(source)
+        .processedWith(ProcessorTestUtilities.factoryProcessorsWithDependencyPlans())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expectedSource);
+  }
+
+  @Test
+  public void testDependencyPlans_shouldNotExposeDependencies_whenOneIsNamed() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString(
+            "test.TestDependencyPlans",
+            Joiner.on('\n')
+                .join( //
+                    "package test;", //
+                    "import javax.inject.Inject;", //
+                    "import javax.inject.Named;", //
+                    "public class TestDependencyPlans {", //
+                    "  @Inject public TestDependencyPlans(Foo foo, @Named(\"bar\") Foo namedFoo) {}", //
+                    "}", //
+                    "class Foo {}" //
+                    ));
+
+    JavaFileObject expectedSource =
+        JavaFileObjects.forSourceString(
+            "test/TestDependencyPlans__Factory",
+            Joiner.on('\n')
+                .join( //
+                    "package test;", //
+                    "import java.lang.Override;", //
+                    "import toothpick.Factory;", //
+                    "import toothpick.Scope;", //
+                    "", //
+                    "public final class TestDependencyPlans__Factory implements Factory<TestDependencyPlans> {", //
+                    "  @Override", //
+                    "  public TestDependencyPlans createInstance(Scope scope) {", //
+                    "    scope = getTargetScope(scope);", //
+                    "    Foo param1 = scope.getInstance(Foo.class);", //
+                    "    Foo param2 = scope.getInstance(Foo.class, \"bar\");", //
+                    "    TestDependencyPlans testDependencyPlans = new TestDependencyPlans(param1, param2);", //
+                    "    return testDependencyPlans;", //
+                    "  }", //
+                    "  @Override", //
+                    "  public Scope getTargetScope(Scope scope) {", //
+                    "    return scope;", //
+                    "  }", //
+                    "  @Override", //
+                    "  public boolean hasScopeAnnotation() {", //
+                    "    return false;", //
+                    "  }", //
+                    "  @Override", //
+                    "  public boolean hasSingletonAnnotation() {", //
+                    "    return false;", //
+                    "  }", //
+                    "  @Override", //
+                    "  public boolean hasReleasableAnnotation() {", //
+                    "    return false;", //
+                    "  }", //
+                    "  @Override", //
+                    "  public boolean hasProvidesSingletonAnnotation() {", //
+                    "    return false;", //
+                    "  }", //
+                    "  @Override", //
+                    "  public boolean hasProvidesReleasableAnnotation() {", //
+                    "    return false;", //
+                    "  }", //
+                    "}" //
+                    ));
+
+    assert_()
+        .about(javaSource())
+        .that(source)
+        .processedWith(ProcessorTestUtilities.factoryProcessorsWithDependencyPlans())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expectedSource);
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.compiler.factory;
+
+import static com.google.common.truth.Truth.assert_;
+import static com.google.testing.compile.JavaSourceSubjectFactory.javaSource;
+
+import com.google.common.base.Joiner;
+import com.google.testing.compile.JavaFileObjects;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+
+public class KeyIdsFactoryTest extends BaseFactoryTest {
+  @Test
+  public void testKeyIds_shouldUseKeyIdsForUnnamedInstances() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString(
+            "test.TestKeyIds",
+            Joiner.on('\n')
+                .join( //
+                    "package test;", //
+                    "import javax.inject.Inject;", //
+                    "import javax.inject.Named;", //
+                    "import javax.inject.Provider;", //
+                    "public class TestKeyIds {", //
+                    "  @Inject public TestKeyIds(Foo foo, ", //
+                    "      @Named(\"name\") Foo namedFoo, ", //
+                    "      Provider<Foo> fooProvider, ", //
+                    "      Bar bar, ", //
+                    "      Foo otherFoo) {}", //
+                    "}", //
+                    "class Foo {}", //
+                    "class Bar {}" //
+                    ));
+
+    JavaFileObject expectedSource =
+        JavaFileObjects.forSourceString(
+            "test/TestKeyIds__Factory",
+            Joiner.on('\n')
+                .join( //
+                    "package test;", //
+                    "import java.lang.Override;", //
+                    "import javax.inject.Provider;", //
+                    "import toothpick.Factory;", //
+                    "import toothpick.KeyIds;", //
+                    "import toothpick.Scope;", //
+                    "", //
+                    "public final class TestKeyIds__Factory implements Factory<TestKeyIds> {", //
+                    "  private static final int KEY_ID_1 = KeyIds.of(Foo.class);", //
+                    "  private static final int KEY_ID_2 = KeyIds.of(Bar.class);", //
+                    "  @Override", //
+                    "  public TestKeyIds createInstance(Scope scope) {", //
+                    "    scope = getTargetScope(scope);", //
+                    "    Foo param1 = KeyIds.getInstance(scope, Foo.class, KEY_ID_1);", //
+                    "    Foo param2 = scope.getInstance(Foo.class, \"name\");", //
+                    "    Provider<Foo> param3 = scope.getProvider(Foo.class);", //
+                    "    Bar param4 = KeyIds.getInstance(scope, Bar.class, KEY_ID_2);", //
+                    "    Foo param5 = KeyIds.getInstance(scope, Foo.class, KEY_ID_1);", //
+                    "    TestKeyIds testKeyIds = new TestKeyIds(param1, param2, param3, param4, param5);", //
+                    "    return testKeyIds;", //
+                    "  }", //
+                    "  @Override", //
+                    "  public Scope getTargetScope(Scope scope) {", //
+                    "    return scope;", //
+                    "  }", //
+                    "  @Override", //
+                    "  public boolean hasScopeAnnotation() {", //
+                    "    return false;", //
+                    "  }", //
+                    "  @Override", //
+                    "  public boolean hasSingletonAnnotation() {", //
+                    "    return false;", //
+                    "  }", //
+                    "  @Override", //
+                    "  public boolean hasReleasableAnnotation() {", //
+                    "    return false;", //
+                    "  }", //
+                    "  @Override", //
+                    "  public boolean hasProvidesSingletonAnnotation() {", //
+                    "    return false;", //
+                    "  }", //
+                    "  @Override", //
+                    "  public boolean hasProvidesReleasableAnnotation() {", //
+                    "    return false;", //
+                    "  }", //
+                    "}" //
+                    ));
+
+    assert_()
+        .about(javaSource())
+        .that(source)
+        .processedWith(ProcessorTestUtilities.factoryProcessorsWithKeyIds())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expectedSource);
+  }
+}
@@ -33,6 +33,24 @@ final class ProcessorTestUtilities {
     return Arrays.asList(factoryProcessor);
   }
 
+  static Iterable<? extends Processor> factoryProcessorsWithStaticWiring() {
+    final FactoryProcessor factoryProcessor = new FactoryProcessor();
+    factoryProcessor.setStaticWiring(true);
+    return Arrays.asList(factoryProcessor);
+  }
+
+  static Iterable<? extends Processor> factoryProcessorsWithKeyIds() {
+    final FactoryProcessor factoryProcessor = new FactoryProcessor();
+    factoryProcessor.setKeyIds(true);
+    return Arrays.asList(factoryProcessor);
+  }
+
+  static Iterable<? extends Processor> factoryProcessorsWithDependencyPlans() {
+    final FactoryProcessor factoryProcessor = new FactoryProcessor();
+    factoryProcessor.setDependencyPlans(true);
+    return Arrays.asList(factoryProcessor);
+  }
+
   static Iterable<? extends Processor> factoryAndMemberInjectorProcessors() {
     return Arrays.asList(new MemberInjectorProcessor(), new FactoryProcessor());
   }
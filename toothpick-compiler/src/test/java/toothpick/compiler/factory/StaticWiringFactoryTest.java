@@ -0,0 +1,184 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.compiler.factory;
+
+import static com.google.common.truth.Truth.assert_;
+import static com.google.testing.compile.JavaSourceSubjectFactory.javaSource;
+
+import com.google.common.base.Joiner;
+import com.google.testing.compile.JavaFileObjects;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+
+public class StaticWiringFactoryTest extends BaseFactoryTest {
+  @Test
+  public void testStaticWiring_shouldWireUnscopedUnnamedDependencies() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString(
+            "test.TestStaticWiring",
+            Joiner.on('\n')
+                .join( //
+                    "package test;", //
+                    "import javax.inject.Inject;", //
+                    "import javax.inject.Named;", //
+                    "import javax.inject.Singleton;", //
+                    "public class TestStaticWiring {", //
+                    "  @Inject public TestStaticWiring(Dependency dependency, ", //
+                    "      @Named(\"name\") Dependency namedDependency, ", //
+                    "      SingletonDependency singletonDependency, ", //
+                    "      Dependency otherDependency) {}", //
+                    "  public static class Dependency {", //
+                    "    @Inject public Dependency() {}", //
+                    "  }", //
+                    "  @Singleton public static class SingletonDependency {", //
+                    "    @Inject public SingletonDependency() {}", //
+                    "  }", //
+                    "}" //
+                    ));
+
+    JavaFileObject expectedSource =
+        JavaFileObjects.forSourceString(
+            "test/TestStaticWiring__Factory",
+            Joiner.on('\n')
+                .join( //
+                    "package test;", //
+                    "import java.lang.Override;", //
+                    "import toothpick.Factory;", //
+                    "import toothpick.Scope;", //
+                    "import toothpick.StaticWiring;", //
+                    "", //
+                    "public final class TestStaticWiring__Factory implements Factory<TestStaticWiring> {", //
+                    "  private Factory<TestStaticWiring.Dependency> factory1;", //
+                    "  @Override", //
+                    "  public TestStaticWiring createInstance(Scope scope) {", //
+                    "    scope = getTargetScope(scope);", //
+                    "    if (factory1 == null) {", //
+                    "      factory1 = new test.TestStaticWiring$Dependency__Factory();", //
+                    "    }", //
+                    "    TestStaticWiring.Dependency param1 = StaticWiring.getInstance(scope, TestStaticWiring.Dependency.class, factory1);", //
+                    "    TestStaticWiring.Dependency param2 = scope.getInstance(TestStaticWiring.Dependency.class, \"name\");", //
+                    "    TestStaticWiring.SingletonDependency param3 = scope.getInstance(TestStaticWiring.SingletonDependency.class);", //
+                    "    TestStaticWiring.Dependency param4 = StaticWiring.getInstance(scope, TestStaticWiring.Dependency.class, factory1);", //
+                    "    TestStaticWiring testStaticWiring = new TestStaticWiring(param1, param2, param3, param4);", //
+                    "    return testStaticWiring;", //
+                    "  }", //
+                    "  @Override", //
+                    "  public Scope getTargetScope(Scope scope) {", //
+                    "    return scope;", //
+                    "  }", //
+                    "  @Override", //
+                    "  public boolean hasScopeAnnotation() {", //
+                    "    return false;", //
+                    "  }", //
+                    "  @Override", //
+                    "  public boolean hasSingletonAnnotation() {", //
+                    "    return false;", //
+                    "  }", //
+                    "  @Override", //
+                    "  public boolean hasReleasableAnnotation() {", //
+                    "    return false;", //
+                    "  }", //
+                    "  @Override", //
+                    "  public boolean hasProvidesSingletonAnnotation() {", //
+                    "    return false;", //
+                    "  }", //
+                    "  @Override", //
+                    "  public boolean hasProvidesReleasableAnnotation() {", //
+                    "    return false;", //
+                    "  }", //
+                    "}" //
+                    ));
+
+    assert_()
+        .about(javaSource())
+        .that(source)
+        .processedWith(ProcessorTestUtilities.factoryProcessorsWithStaticWiring())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expectedSource);
+  }
+
+  @Test
+  public void testStaticWiring_shouldNotWireDependencies_whenTheirFactoryIsNotGenerated() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString(
+            "test.TestStaticWiring",
+            Joiner.on('\n')
+                .join( //
+                    "package test;", //
+                    "import javax.inject.Inject;", //
+                    "public class TestStaticWiring {", //
+                    "  @Inject public TestStaticWiring(String string) {}", //
+                    "}" //
+                    ));
+
+    JavaFileObject expectedSource =
+        JavaFileObjects.forSourceString(
+            "test/TestStaticWiring__Factory",
+            Joiner.on('\n')
+                .join( //
+                    "package test;", //
+                    "import java.lang.Override;", //
+                    "import java.lang.String;", //
+                    "import toothpick.Factory;", //
+                    "import toothpick.Scope;", //
+                    "import toothpick.StaticWiring;", //
+                    "", //
+                    "public final class TestStaticWiring__Factory implements Factory<TestStaticWiring> {", //
+                    "  @Override", //
+                    "  public TestStaticWiring createInstance(Scope scope) {", //
+                    "    scope = getTargetScope(scope);", //
+                    "    String param1 = scope.getInstance(String.class);", //
+                    "    TestStaticWiring testStaticWiring = new TestStaticWiring(param1);", //
+                    "    return testStaticWiring;", //
+                    "  }", //
+                    "  @Override", //
+                    "  public Scope getTargetScope(Scope scope) {", //
+                    "    return scope;", //
+                    "  }", //
+                    "  @Override", //
+                    "  public boolean hasScopeAnnotation() {", //
+                    "    return false;", //
+                    "  }", //
+                    "  @Override", //
+                    "  public boolean hasSingletonAnnotation() {", //
+                    "    return false;", //
+                    "  }", //
+                    "  @Override", //
+                    "  public boolean hasReleasableAnnotation() {", //
+                    "    return false;", //
+                    "  }", //
+                    "  @Override", //
+                    "  public boolean hasProvidesSingletonAnnotation() {", //
+                    "    return false;", //
+                    "  }", //
+                    "  @Override", //
+                    "  public boolean hasProvidesReleasableAnnotation() {", //
+                    "    return false;", //
+                    "  }", //
+                    "}" //
+                    ));
+
+    assert_()
+        .about(javaSource())
+        .that(source)
+        .processedWith(ProcessorTestUtilities.factoryProcessorsWithStaticWiring())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expectedSource);
+  }
+}
@@ -19,6 +19,7 @@ package toothpick.compiler.memberinjector;
 import static com.google.common.truth.Truth.assert_;
 import static com.google.testing.compile.JavaSourceSubjectFactory.javaSource;
 import static toothpick.compiler.memberinjector.ProcessorTestUtilities.memberInjectorProcessors;
+import static toothpick.compiler.memberinjector.ProcessorTestUtilities.memberInjectorProcessorsWithKeyIds;
 
 import com.google.common.base.Joiner;
 import com.google.testing.compile.JavaFileObjects;
@@ -70,6 +71,57 @@ public class FieldMemberInjectorTest {
         .generatesSources(expectedSource);
   }
 
+  @Test
+  public void testFieldInjection_shouldUseKeyIds_whenKeyIdsAreEnabled() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString(
+            "test.TestFieldInjection",
+            Joiner.on('\n')
+                .join( //
+                    "package test;", //
+                    "import javax.inject.Inject;", //
+                    "import javax.inject.Named;", //
+                    "public class TestFieldInjection {", //
+                    "  @Inject Foo foo;", //
+                    "  @Inject @Named(\"bar\") Foo namedFoo;", //
+                    "  @Inject Foo otherFoo;", //
+                    "  public TestFieldInjection() {}", //
+                    "}", //
+                    "class Foo {}" //
+                    ));
+
+    JavaFileObject expectedSource =
+        JavaFileObjects.forSourceString(
+            "test/TestFieldInjection__MemberInjector",
+            Joiner.on('\n')
+                .join( //
+                    "package test;", //
+                    "", //
+                    "import java.lang.Override;", //
+                    "import toothpick.KeyIds;", //
+                    "import toothpick.MemberInjector;", //
+                    "import toothpick.Scope;", //
+                    "", //
+                    "public final class TestFieldInjection__MemberInjector implements MemberInjector<TestFieldInjection> {", //
+                    "  private static final int KEY_ID_1 = KeyIds.of(Foo.class);", //
+                    "  @Override", //
+                    "  public void inject(TestFieldInjection target, Scope scope) {", //
+                    "    target.foo = KeyIds.getInstance(scope, Foo.class, KEY_ID_1);", //
+                    "    target.namedFoo = scope.getInstance(Foo.class, \"bar\");", //
+                    "    target.otherFoo = KeyIds.getInstance(scope, Foo.class, KEY_ID_1);", //
+                    "  }", //
+                    "}" //
+                    ));
+
+    assert_()
+        .about(javaSource())
+        .that(source)
+        .processedWith(memberInjectorProcessorsWithKeyIds())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expectedSource);
+  }
+
   @Test
   public void testNamedFieldInjection_whenUsingNamed() {
     JavaFileObject source =
@@ -32,4 +32,10 @@ final class ProcessorTestUtilities {
     memberInjectorProcessor.setCrashOrWarnWhenMethodIsNotPackageVisible(true);
     return Arrays.asList(memberInjectorProcessor);
   }
+
+  static Iterable<? extends Processor> memberInjectorProcessorsWithKeyIds() {
+    final MemberInjectorProcessor memberInjectorProcessor = new MemberInjectorProcessor();
+    memberInjectorProcessor.setKeyIds(true);
+    return Arrays.asList(memberInjectorProcessor);
+  }
 }
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.compiler.module;
+
+import static com.google.common.truth.Truth.assert_;
+import static com.google.testing.compile.JavaSourceSubjectFactory.javaSource;
+import static toothpick.compiler.module.ProcessorTestUtilities.moduleProcessors;
+
+import com.google.common.base.Joiner;
+import com.google.testing.compile.JavaFileObjects;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+
+public class ModuleTest {
+  @Test
+  public void testModule_shouldCreateAllKindsOfBindings() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString(
+            "test.TestModule",
+            Joiner.on('\n')
+                .join( //
+                    "package test;", //
+                    "import javax.inject.Named;", //
+                    "import javax.inject.Provider;", //
+                    "import toothpick.config.Binds;", //
+                    "import toothpick.config.GenerateModule;", //
+                    "import toothpick.config.Provides;", //
+                    "@GenerateModule", //
+                    "public interface TestModule {", //
+                    "  @Binds IFoo foo(Foo foo);", //
+                    "  @Binds(singleton = true, releasable = true) Foo foo();", //
+                    "  @Provides(providesSingleton = true) @Named(\"bar\") Bar bar(BarProvider p);", //
+                    "}", //
+                    "interface IFoo {}", //
+                    "class Foo implements IFoo {}", //
+                    "class Bar {}", //
+                    "class BarProvider implements Provider<Bar> {", //
+                    "  public Bar get() { return new Bar(); }", //
+                    "}" //
+                    ));
+
+    JavaFileObject expectedSource =
+        JavaFileObjects.forSourceString(
+            "test/TestModule__Module",
+            Joiner.on('\n')
+                .join( //
+                    "package test;", //
+                    "", //
+                    "import toothpick.config.Binding;", //
+                    "import toothpick.config.GeneratedModule;", //
+                    "", //
+                    "public final class TestModule__Module extends GeneratedModule {", //
+                    "  private static final Binding[] BINDINGS = {", //
+                    "    bindingToClass(IFoo.class, null, Foo.class, false, false),", //
+                    "    bindingToSelf(Foo.class, null, true, true),", //
+                    "    bindingToProviderClass(Bar.class, \"bar\", BarProvider.class, false, false, true, false)", //
+                    "  };", //
+                    "  public TestModule__Module() {", //
+                    "    super(BINDINGS);", //
+                    "  }", //
+                    "}" //
+                    ));
+
+    assert_()
+        .about(javaSource())
+        .that(source)
+        .processedWith(moduleProcessors())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expectedSource);
+  }
+
+  @Test
+  public void testModule_shouldFail_whenDeclarationIsAConcreteClass() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString(
+            "test.TestModule",
+            Joiner.on('\n')
+                .join( //
+                    "package test;", //
+                    "import toothpick.config.GenerateModule;", //
+                    "@GenerateModule", //
+                    "public class TestModule {", //
+                    "}" //
+                    ));
+
+    assert_()
+        .about(javaSource())
+        .that(source)
+        .processedWith(moduleProcessors())
+        .failsToCompile()
+        .withErrorContaining(
+            "Type test.TestModule is annotated with @GenerateModule but is neither an interface"
+                + " nor an abstract class.");
+  }
+
+  @Test
+  public void testModule_shouldFail_whenImplementationIsNotASubclassOfKey() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString(
+            "test.TestModule",
+            Joiner.on('\n')
+                .join( //
+                    "package test;", //
+                    "import toothpick.config.Binds;", //
+                    "import toothpick.config.GenerateModule;", //
+                    "@GenerateModule", //
+                    "public interface TestModule {", //
+                    "  @Binds Foo foo(Bar bar);", //
+                    "}", //
+                    "class Foo {}", //
+                    "class Bar {}" //
+                    ));
+
+    assert_()
+        .about(javaSource())
+        .that(source)
+        .processedWith(moduleProcessors())
+        .failsToCompile()
+        .withErrorContaining(
+            "Method test.TestModule#foo binds test.Foo to test.Bar, which is not a subclass of"
+                + " test.Foo.");
+  }
+
+  @Test
+  public void testModule_shouldFail_whenParameterIsNotAProviderOfKey() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString(
+            "test.TestModule",
+            Joiner.on('\n')
+                .join( //
+                    "package test;", //
+                    "import toothpick.config.GenerateModule;", //
+                    "import toothpick.config.Provides;", //
+                    "@GenerateModule", //
+                    "public interface TestModule {", //
+                    "  @Provides Foo foo(Foo foo);", //
+                    "}", //
+                    "class Foo {}" //
+                    ));
+
+    assert_()
+        .about(javaSource())
+        .that(source)
+        .processedWith(moduleProcessors())
+        .failsToCompile()
+        .withErrorContaining(
+            "Method test.TestModule#foo binds test.Foo to test.Foo, which is not a"
+                + " javax.inject.Provider of test.Foo.");
+  }
+
+  @Test
+  public void testModule_shouldFail_whenReleasableBindingIsNotASingleton() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString(
+            "test.TestModule",
+            Joiner.on('\n')
+                .join( //
+                    "package test;", //
+                    "import toothpick.config.Binds;", //
+                    "import toothpick.config.GenerateModule;", //
+                    "@GenerateModule", //
+                    "public interface TestModule {", //
+                    "  @Binds(releasable = true) Foo foo();", //
+                    "}", //
+                    "class Foo {}" //
+                    ));
+
+    assert_()
+        .about(javaSource())
+        .that(source)
+        .processedWith(moduleProcessors())
+        .failsToCompile()
+        .withErrorContaining(
+            "Method test.TestModule#foo declares a releasable binding that is not a singleton.");
+  }
+
+  @Test
+  public void testModule_shouldFail_whenKeyAndNameAreBoundTwice() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString(
+            "test.TestModule",
+            Joiner.on('\n')
+                .join( //
+                    "package test;", //
+                    "import javax.inject.Named;", //
+                    "import toothpick.config.Binds;", //
+                    "import toothpick.config.GenerateModule;", //
+                    "@GenerateModule", //
+                    "public interface TestModule {", //
+                    "  @Binds @Named(\"foo\") Foo foo();", //
+                    "  @Binds Foo unnamedFoo();", //
+                    "  @Binds @Named(\"foo\") Foo otherFoo(Bar bar);", //
+                    "}", //
+                    "class Foo {}", //
+                    "class Bar extends Foo {}" //
+                    ));
+
+    assert_()
+        .about(javaSource())
+        .that(source)
+        .processedWith(moduleProcessors())
+        .failsToCompile()
+        .withErrorContaining(
+            "Method test.TestModule#otherFoo binds test.Foo with name foo, which is already bound"
+                + " by method test.TestModule#foo.");
+  }
+
+  @Test
+  public void testModule_shouldFail_whenBindingIsNotInAModuleDeclaration() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString(
+            "test.TestModule",
+            Joiner.on('\n')
+                .join( //
+                    "package test;", //
+                    "import toothpick.config.Binds;", //
+                    "public interface TestModule {", //
+                    "  @Binds Foo foo();", //
+                    "}", //
+                    "class Foo {}" //
+                    ));
+
+    assert_()
+        .about(javaSource())
+        .that(source)
+        .processedWith(moduleProcessors())
+        .failsToCompile()
+        .withErrorContaining(
+            "Method test.TestModule#foo declares a binding but test.TestModule is not annotated"
+                + " with @GenerateModule.");
+  }
+}
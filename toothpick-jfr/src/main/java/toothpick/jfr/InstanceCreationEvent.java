@@ -0,0 +1,43 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Toothpick created an instance. The duration includes the creation of its dependencies. */
+@Name("toothpick.InstanceCreation")
+@Label("Instance Creation")
+@Description("Toothpick created an instance, including its dependencies")
+@Category("Toothpick")
+@StackTrace(false)
+public class InstanceCreationEvent extends jdk.jfr.Event {
+  @Label("Class")
+  @Description("The class that was requested")
+  Class<?> instanceClass;
+
+  @Label("Name")
+  @Description("The name of the binding, if any")
+  String name;
+
+  @Label("Scope")
+  @Description("The scope in which the instance was created")
+  String scope;
+}
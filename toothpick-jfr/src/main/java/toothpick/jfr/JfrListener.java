@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.jfr;
+
+import java.util.ArrayList;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import toothpick.Scope;
+import toothpick.configuration.Configuration;
+import toothpick.monitoring.CreationListener;
+import toothpick.monitoring.ScopeListener;
+import toothpick.monitoring.ScopeOperation;
+
+/**
+ * Emits Java Flight Recorder events for all instance creations and scope operations. Events are
+ * only created when they are enabled in a running recording, there is no other overhead when no
+ * recording is active.
+ *
+ * <pre>{@code
+ * Toothpick.setConfiguration(JfrListener.install(Configuration.forProduction()));
+ * }</pre>
+ *
+ * @see InstanceCreationEvent
+ * @see OpenScopeEvent
+ * @see CloseScopeEvent
+ * @see InstallModulesEvent
+ * @see ReleaseScopeEvent
+ */
+public class JfrListener implements CreationListener, ScopeListener {
+  private static final EventType INSTANCE_CREATION =
+      EventType.getEventType(InstanceCreationEvent.class);
+  private static final EventType OPEN_SCOPE = EventType.getEventType(OpenScopeEvent.class);
+  private static final EventType CLOSE_SCOPE = EventType.getEventType(CloseScopeEvent.class);
+  private static final EventType INSTALL_MODULES = EventType.getEventType(InstallModulesEvent.class);
+  private static final EventType RELEASE_SCOPE = EventType.getEventType(ReleaseScopeEvent.class);
+
+  // events in progress on the current thread, a null entry is an event that is not enabled.
+  private final ThreadLocal<ArrayList<Event>> eventStack =
+      ThreadLocal.withInitial(ArrayList::new);
+
+  /**
+   * Registers a new listener in a configuration.
+   *
+   * @param configuration the configuration in which to register the listener.
+   * @return {@code configuration}.
+   */
+  public static Configuration install(Configuration configuration) {
+    JfrListener listener = new JfrListener();
+    return configuration.addCreationListener(listener).addScopeListener(listener);
+  }
+
+  @Override
+  public void onCreationStart(Class<?> clazz, String name, Scope scope) {
+    push(INSTANCE_CREATION.isEnabled() ? new InstanceCreationEvent() : null);
+  }
+
+  @Override
+  public void onCreationEnd(Class<?> clazz, String name, Scope scope) {
+    InstanceCreationEvent event = (InstanceCreationEvent) pop();
+    if (event != null) {
+      event.end();
+      if (event.shouldCommit()) {
+        event.instanceClass = clazz;
+        event.name = name;
+        event.scope = String.valueOf(scope.getName());
+        event.commit();
+      }
+    }
+  }
+
+  @Override
+  public void onScopeOperationStart(ScopeOperation operation, Object scopeName) {
+    push(createScopeEvent(operation));
+  }
+
+  @Override
+  public void onScopeOperationEnd(ScopeOperation operation, Object scopeName) {
+    ScopeEvent event = (ScopeEvent) pop();
+    if (event != null) {
+      event.end();
+      if (event.shouldCommit()) {
+        event.scope = String.valueOf(scopeName);
+        event.commit();
+      }
+    }
+  }
+
+  private ScopeEvent createScopeEvent(ScopeOperation operation) {
+    switch (operation) {
+      case OPEN:
+        return OPEN_SCOPE.isEnabled() ? new OpenScopeEvent() : null;
+      case CLOSE:
+        return CLOSE_SCOPE.isEnabled() ? new CloseScopeEvent() : null;
+      case INSTALL_MODULES:
+        return INSTALL_MODULES.isEnabled() ? new InstallModulesEvent() : null;
+      case RELEASE:
+        return RELEASE_SCOPE.isEnabled() ? new ReleaseScopeEvent() : null;
+      default:
+        throw new IllegalStateException("Unknown scope operation: " + operation);
+    }
+  }
+
+  private void push(Event event) {
+    if (event != null) {
+      event.begin();
+    }
+    eventStack.get().add(event);
+  }
+
+  private Event pop() {
+    ArrayList<Event> events = eventStack.get();
+    if (events.isEmpty()) {
+      // the listener was registered while an operation was in progress
+      return null;
+    }
+    return events.remove(events.size() - 1);
+  }
+}
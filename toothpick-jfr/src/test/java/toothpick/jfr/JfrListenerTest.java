@@ -0,0 +1,128 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.jfr;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import toothpick.Scope;
+import toothpick.Toothpick;
+import toothpick.config.Module;
+import toothpick.configuration.Configuration;
+import toothpick.jfr.data.Car;
+import toothpick.jfr.data.Engine;
+
+public class JfrListenerTest {
+
+  private Recording recording;
+
+  @Before
+  public void setUp() {
+    Toothpick.setConfiguration(JfrListener.install(Configuration.forProduction()));
+    recording = new Recording();
+    recording.enable(InstanceCreationEvent.class).withoutThreshold();
+    recording.enable(OpenScopeEvent.class).withoutThreshold();
+    recording.enable(CloseScopeEvent.class).withoutThreshold();
+    recording.enable(InstallModulesEvent.class).withoutThreshold();
+    recording.enable(ReleaseScopeEvent.class).withoutThreshold();
+  }
+
+  @After
+  public void tearDown() {
+    recording.close();
+    Toothpick.setConfiguration(Configuration.forProduction());
+    Toothpick.reset();
+  }
+
+  @Test
+  public void getInstance_shouldEmitCreationEvents_whenRecording() throws Exception {
+    // GIVEN
+    recording.start();
+    Scope scope = Toothpick.openScope("root");
+
+    // WHEN
+    scope.getInstance(Car.class);
+
+    // THEN
+    List<RecordedEvent> events = stopAndReadEvents("toothpick.InstanceCreation");
+    assertThat(events.size(), is(2));
+    assertThat(events.get(0).getClass("instanceClass").getName(), is(Engine.class.getName()));
+    assertThat(events.get(1).getClass("instanceClass").getName(), is(Car.class.getName()));
+    assertThat(events.get(1).getString("scope"), is("root"));
+  }
+
+  @Test
+  public void scopeOperations_shouldEmitScopeEvents_whenRecording() throws Exception {
+    // GIVEN
+    recording.start();
+
+    // WHEN
+    Scope scope = Toothpick.openScopes("root", "child");
+    scope.installModules(new Module());
+    scope.release();
+    Toothpick.closeScope("root");
+
+    // THEN
+    assertThat(stopAndReadEvents("toothpick.OpenScope").size(), is(2));
+    assertThat(readEvents("toothpick.InstallModules").get(0).getString("scope"), is("child"));
+    assertThat(readEvents("toothpick.ReleaseScope").size(), is(1));
+    assertThat(readEvents("toothpick.CloseScope").get(0).getString("scope"), is("root"));
+  }
+
+  @Test
+  public void getInstance_shouldNotEmitEvents_whenNotRecording() throws Exception {
+    // GIVEN
+    Scope scope = Toothpick.openScope("root");
+    scope.getInstance(Car.class);
+
+    // WHEN
+    recording.start();
+
+    // THEN
+    assertThat(stopAndReadEvents("toothpick.InstanceCreation").size(), is(0));
+  }
+
+  private List<RecordedEvent> stopAndReadEvents(String eventName) throws Exception {
+    recording.stop();
+    return readEvents(eventName);
+  }
+
+  private List<RecordedEvent> readEvents(String eventName) throws Exception {
+    File file = File.createTempFile("toothpick", ".jfr");
+    try {
+      recording.dump(file.toPath());
+      List<RecordedEvent> events = new ArrayList<>();
+      for (RecordedEvent event : RecordingFile.readAllEvents(file.toPath())) {
+        if (event.getEventType().getName().equals(eventName)) {
+          events.add(event);
+        }
+      }
+      return events;
+    } finally {
+      file.delete();
+    }
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick;
+
+/**
+ * The implementation of {@link DependencyPlan}. It keeps the providers of the dependencies of a
+ * factory in a scope, as they were looked up during a given bindings epoch of this scope.
+ */
+final class DependencyPlanImpl implements DependencyPlan {
+  final int epoch;
+  private final Scope scope;
+  private final Class<?>[] classes;
+  private final InternalProvider[] providers;
+
+  DependencyPlanImpl(int epoch, Scope scope, Class<?>[] classes, InternalProvider[] providers) {
+    this.epoch = epoch;
+    this.scope = scope;
+    this.classes = classes;
+    this.providers = providers;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <D> D getInstance(int index) {
+    return (D) providers[index].get(scope, classes[index], null);
+  }
+}
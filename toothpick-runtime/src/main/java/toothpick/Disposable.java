@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A closeable singleton created by Toothpick, with the closeable singletons it depends on. It is
+ * used to dispose singletons when their scope is closed, see {@link Disposer}.
+ *
+ * <p>The dependencies are recorded while the singleton is created: each thread keeps a stack of the
+ * instances being created, and every closeable singleton obtained during the creation of an
+ * instance is a dependency of this instance. The dependencies of an instance that is not a
+ * closeable singleton are passed to the instance that depends on it. A singleton that is not
+ * closeable but has closeable dependencies is also represented by a disposable, without closeable,
+ * so that its dependencies are passed again to the instances that depend on it later, when it is
+ * returned from its provider's cache. Such disposables are never disposed themselves.
+ */
+final class Disposable {
+  private static final ThreadLocal<ArrayDeque<List<Disposable>>> CREATION_STACK =
+      new ThreadLocal<ArrayDeque<List<Disposable>>>() {
+        @Override
+        protected ArrayDeque<List<Disposable>> initialValue() {
+          return new ArrayDeque<>();
+        }
+      };
+
+  // null for a singleton that is not closeable
+  final AutoCloseable closeable;
+  final List<Disposable> dependencies;
+
+  private Disposable(AutoCloseable closeable, List<Disposable> dependencies) {
+    this.closeable = closeable;
+    this.dependencies = dependencies;
+  }
+
+  /** Called when the current thread starts creating an instance. */
+  static void onCreationStart() {
+    CREATION_STACK.get().push(new ArrayList<Disposable>(2));
+  }
+
+  /**
+   * Called when the current thread has created an instance, or failed to create it.
+   *
+   * @param instance the singleton instance that was created, or null if the instance is not a
+   *     singleton or could not be created.
+   * @return the disposable of {@code instance}, or null if it is neither closeable nor depends on
+   *     closeable singletons.
+   */
+  static Disposable onCreationEnd(Object instance) {
+    ArrayDeque<List<Disposable>> creationStack = CREATION_STACK.get();
+    List<Disposable> dependencies = creationStack.pop();
+    if (instance instanceof AutoCloseable) {
+      Disposable disposable = new Disposable((AutoCloseable) instance, dependencies);
+      onDependency(disposable);
+      return disposable;
+    }
+    List<Disposable> dependentDependencies = creationStack.peek();
+    if (dependentDependencies != null) {
+      for (Disposable dependency : dependencies) {
+        addDependency(dependentDependencies, dependency);
+      }
+    }
+    if (instance == null || dependencies.isEmpty()) {
+      return null;
+    }
+    return new Disposable(null, dependencies);
+  }
+
+  /**
+   * Called when the current thread obtains a singleton that was already created.
+   *
+   * @param dependency the disposable of the singleton.
+   */
+  static void onDependency(Disposable dependency) {
+    List<Disposable> dependencies = CREATION_STACK.get().peek();
+    if (dependencies == null) {
+      return;
+    }
+    if (dependency.closeable != null) {
+      addDependency(dependencies, dependency);
+      return;
+    }
+    for (Disposable closeableDependency : dependency.dependencies) {
+      addDependency(dependencies, closeableDependency);
+    }
+  }
+
+  private static void addDependency(List<Disposable> dependencies, Disposable dependency) {
+    // lists are small, a set would cost more
+    if (!dependencies.contains(dependency)) {
+      dependencies.add(dependency);
+    }
+  }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick;
+
+import static java.lang.String.format;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import toothpick.configuration.Configuration;
+
+/**
+ * Disposes closeable singletons in the reverse order of their dependencies: a singleton is closed
+ * once all the singletons that depend on it are closed, or failed to close. Dependencies on
+ * singletons that are not disposed, for instance singletons of a parent scope that remains open,
+ * are ignored.
+ */
+final class Disposer {
+  private final Map<Disposable, int[]> dependentCounts = new IdentityHashMap<>();
+  private final ArrayDeque<Disposable> disposables = new ArrayDeque<>();
+  private final List<Throwable> failures = new ArrayList<>();
+
+  private Disposer(List<Disposable> disposables) {
+    for (Disposable disposable : disposables) {
+      dependentCounts.put(disposable, new int[1]);
+    }
+    for (Disposable disposable : disposables) {
+      for (Disposable dependency : disposable.dependencies) {
+        int[] dependentCount = dependentCounts.get(dependency);
+        if (dependentCount != null) {
+          dependentCount[0]++;
+        }
+      }
+    }
+    // the last created singletons are closed first when there are no dependencies between them
+    for (int i = disposables.size() - 1; i >= 0; i--) {
+      Disposable disposable = disposables.get(i);
+      if (dependentCounts.get(disposable)[0] == 0) {
+        this.disposables.add(disposable);
+      }
+    }
+  }
+
+  /**
+   * Closes {@code disposables}. Failures to close a singleton don't prevent the other singletons
+   * from being closed, they are reported once all singletons are processed.
+   *
+   * @param disposables the singletons to close, in creation order.
+   * @param configuration the configuration that defines how singletons are closed.
+   * @throws IllegalStateException if some singletons failed to close, or timed out. The causes are
+   *     suppressed exceptions.
+   * @see Configuration#disposeCloseableSingletons(ExecutorService, long, TimeUnit)
+   */
+  static void dispose(List<Disposable> disposables, Configuration configuration) {
+    dispose(
+        disposables,
+        configuration.getDisposalExecutorService(),
+        configuration.getDisposalTimeoutNanos());
+  }
+
+  /**
+   * Closes {@code disposables}. Failures to close a singleton don't prevent the other singletons
+   * from being closed, they are reported once all singletons are processed.
+   *
+   * @param disposables the singletons to close, in creation order.
+   * @param executorService the executor used to close the singletons, or null to close them on the
+   *     current thread.
+   * @param timeoutNanos the maximum time to wait for all singletons to be closed when {@code
+   *     executorService} is not null.
+   * @throws IllegalStateException if some singletons failed to close, or timed out. The causes are
+   *     suppressed exceptions.
+   */
+  static void dispose(
+      List<Disposable> disposables, ExecutorService executorService, long timeoutNanos) {
+    if (disposables.isEmpty()) {
+      return;
+    }
+    Disposer disposer = new Disposer(disposables);
+    if (executorService == null) {
+      disposer.disposeSerially();
+    } else {
+      disposer.disposeInParallel(executorService, timeoutNanos);
+    }
+    disposer.throwFailures();
+  }
+
+  private void disposeSerially() {
+    while (!disposables.isEmpty()) {
+      Disposable disposable = disposables.poll();
+      try {
+        disposable.closeable.close();
+      } catch (Exception e) {
+        failures.add(e);
+      }
+      onDisposed(disposable);
+    }
+  }
+
+  private void disposeInParallel(ExecutorService executorService, long timeoutNanos) {
+    // the timeout bounds the whole disposal, not the closing of each singleton
+    final long deadlineNanos = System.nanoTime() + timeoutNanos;
+    CompletionService<Disposable> completionService =
+        new ExecutorCompletionService<>(executorService);
+    Map<Future<Disposable>, Disposable> runningDisposables = new IdentityHashMap<>();
+    submitDisposables(completionService, runningDisposables);
+
+    while (!runningDisposables.isEmpty()) {
+      final Future<Disposable> future;
+      try {
+        future =
+            completionService.poll(
+                Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        failures.add(e);
+        return;
+      }
+
+      if (future == null) {
+        onTimeout(runningDisposables);
+        return;
+      }
+      Disposable disposable = runningDisposables.remove(future);
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        failures.add(e.getCause());
+      } catch (InterruptedException e) {
+        // JACOCO:OFF
+        throw new IllegalStateException("Should not happen as the future is done.", e);
+        // JACOCO:ON
+      }
+      onDisposed(disposable);
+      submitDisposables(completionService, runningDisposables);
+    }
+  }
+
+  private void submitDisposables(
+      CompletionService<Disposable> completionService,
+      Map<Future<Disposable>, Disposable> runningDisposables) {
+    while (!disposables.isEmpty()) {
+      final Disposable disposable = disposables.poll();
+      Future<Disposable> future =
+          completionService.submit(
+              new Callable<Disposable>() {
+                @Override
+                public Disposable call() throws Exception {
+                  disposable.closeable.close();
+                  return disposable;
+                }
+              });
+      runningDisposables.put(future, disposable);
+    }
+  }
+
+  /**
+   * Cancels the singletons that are still being closed when the timeout is reached. The singletons
+   * that still wait for their dependents to be closed are not closed at all.
+   */
+  private void onTimeout(Map<Future<Disposable>, Disposable> runningDisposables) {
+    for (Map.Entry<Future<Disposable>, Disposable> runningDisposable :
+        runningDisposables.entrySet()) {
+      runningDisposable.getKey().cancel(true);
+      failures.add(
+          new TimeoutException(
+              format("Closing %s timed out.", runningDisposable.getValue().closeable)));
+    }
+    for (Map.Entry<Disposable, int[]> dependentCount : dependentCounts.entrySet()) {
+      if (dependentCount.getValue()[0] > 0) {
+        failures.add(
+            new TimeoutException(
+                format(
+                    "%s was not closed as the disposal timed out.",
+                    dependentCount.getKey().closeable)));
+      }
+    }
+  }
+
+  private void onDisposed(Disposable disposable) {
+    for (Disposable dependency : disposable.dependencies) {
+      int[] dependentCount = dependentCounts.get(dependency);
+      if (dependentCount != null && --dependentCount[0] == 0) {
+        disposables.add(dependency);
+      }
+    }
+  }
+
+  private void throwFailures() {
+    if (failures.isEmpty()) {
+      return;
+    }
+    IllegalStateException exception =
+        new IllegalStateException(
+            format("%d closeable singletons could not be disposed.", failures.size()));
+    for (Throwable failure : failures) {
+      exception.addSuppressed(failure);
+    }
+    throw exception;
+  }
+}
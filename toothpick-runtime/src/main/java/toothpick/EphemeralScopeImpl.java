@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick;
+
+import static java.lang.String.format;
+
+import java.util.ArrayList;
+import java.util.List;
+import toothpick.configuration.Configuration;
+import toothpick.configuration.ConfigurationHolder;
+
+/**
+ * The implementation of {@link EphemeralScope}. Its parent scopes are set once, when it is created,
+ * and it is never added to the children of its parent nor to the scopes of {@link Toothpick}, so
+ * that creating and closing it doesn't touch any shared structure. As its parent doesn't know about
+ * it, it checks that its parent is still open every time it is used. A recycled parent is never
+ * reopened, so this check also covers parents recycled by the scope pool.
+ */
+final class EphemeralScopeImpl extends ScopeImpl implements EphemeralScope {
+  private final ScopeImpl parentScope;
+
+  EphemeralScopeImpl(ScopeImpl parentScope) {
+    super(new Name(parentScope.getName()));
+    this.parentScope = parentScope;
+    List<ScopeNode> parentScopes = new ArrayList<>(parentScope.parentScopes.size() + 1);
+    parentScopes.add(parentScope);
+    parentScopes.addAll(parentScope.parentScopes);
+    this.parentScopes.addAll(parentScopes);
+  }
+
+  @Override
+  public Scope openSubScope(Object subScopeName) {
+    throw new IllegalStateException(
+        format("The ephemeral scope %s can't have named sub scopes.", name));
+  }
+
+  @Override
+  public Scope openSubScope(Object subScopeName, ScopeConfig scopeConfig) {
+    return openSubScope(subScopeName);
+  }
+
+  @Override
+  public void close() {
+    super.close();
+    final Configuration configuration = ConfigurationHolder.configuration;
+    if (configuration.isDisposingCloseableSingletons()) {
+      // closing twice disposes nothing, as the singletons are drained
+      List<Disposable> disposables = new ArrayList<>();
+      drainDisposables(disposables);
+      Disposer.dispose(disposables, configuration);
+    }
+  }
+
+  @Override
+  void crashIfClosed() {
+    super.crashIfClosed();
+    if (!parentScope.isOpen) {
+      throw new IllegalStateException(
+          format(
+              "The parent scope of the ephemeral scope %s has been closed."
+                  + " It can't be used to create new instances.",
+              name));
+    }
+  }
+
+  /** The name of an ephemeral scope, only equal to itself. */
+  private static final class Name {
+    private final Object parentScopeName;
+
+    Name(Object parentScopeName) {
+      this.parentScopeName = parentScopeName;
+    }
+
+    @Override
+    public String toString() {
+      return "EphemeralScope@" + Integer.toHexString(hashCode()) + " of " + parentScopeName;
+    }
+  }
+}
@@ -17,7 +17,10 @@
 package toothpick;
 
 import javax.inject.Provider;
+import toothpick.configuration.Configuration;
+import toothpick.configuration.ConfigurationHolder;
 import toothpick.locators.FactoryLocator;
+import toothpick.monitoring.LockKind;
 
 /**
  * A non thread safe internal provider. It should never be exposed outside of Toothpick.
@@ -36,6 +39,12 @@ public class InternalProvider<T> {
   private boolean isReleasable;
   private boolean isProvidingSingleton;
   private boolean isProvidingReleasable;
+  // the disposable of the singleton instance, when it is closeable or depends on closeable
+  // singletons, and disposal is enabled. It is written before the instance is published, so that
+  // readers of the instance see its disposable without locking
+  private volatile Disposable disposable;
+  // whether the disposable of the instance being created is still to be built, guarded by this
+  private boolean isCreatingDisposable;
 
   InternalProvider(T instance) {
     // not that an instance cannot be releasable as TP wouldn't know how to recreate a second
@@ -105,16 +114,102 @@ public class InternalProvider<T> {
     this.isReleasable = this.isSingleton && isReleasable;
   }
 
+  public T get(Scope scope) {
+    return get(scope, null, null);
+  }
+
   // we lock on the unscoped provider itself to prevent concurrent usage
   // of the unscoped provider (
-  public synchronized T get(Scope scope) {
+  // Instances are read once and returned from locals, so that a concurrent release, which doesn't
+  // lock, can only make a caller see either the previous instance or a new one.
+  T get(Scope scope, Class<?> clazz, String name) {
+    T instance = this.instance;
     if (instance != null) {
-      return instance;
+      return onCachedInstance(instance);
+    }
+
+    final Configuration configuration = ConfigurationHolder.configuration;
+
+    final long lockRequestNanos = configuration.onLockRequested();
+    long lockWaitNanos = Configuration.NOT_TIMED;
+    try {
+      synchronized (this) {
+        lockWaitNanos = configuration.onLockAcquired(lockRequestNanos);
+        instance = this.instance;
+        if (instance != null) {
+          return onCachedInstance(instance);
+        }
+
+        // from here on, an instance is going to be created
+        configuration.onCreationStart(clazz, name, scope);
+        if (configuration.isDisposingCloseableSingletons()) {
+          Disposable.onCreationStart();
+          isCreatingDisposable = true;
+        }
+        try {
+          return createInstance(scope);
+        } finally {
+          // the instance was not published, it is not a singleton or could not be created
+          if (isCreatingDisposable) {
+            onDisposableCreationEnd(scope, null);
+          }
+          configuration.onCreationEnd(clazz, name, scope);
+        }
+      }
+    } finally {
+      configuration.onLockReleased(LockKind.INTERNAL_PROVIDER, clazz, name, lockWaitNanos);
+    }
+  }
+
+  private T onCachedInstance(T instance) {
+    // the disposable of the instance was written before it
+    final Disposable disposable = this.disposable;
+    if (disposable != null) {
+      Disposable.onDependency(disposable);
+    }
+    return instance;
+  }
+
+  // publishes a new singleton instance, after its disposable
+  private void publishInstance(T instance, Scope scope) {
+    if (isCreatingDisposable) {
+      onDisposableCreationEnd(scope, instance);
+    }
+    this.instance = instance;
+  }
+
+  private void onDisposableCreationEnd(Scope scope, T instance) {
+    isCreatingDisposable = false;
+    // only the singletons of a scope are disposed
+    final boolean isDisposable = instance != null && scope instanceof ScopeImpl;
+    final Disposable disposable = Disposable.onCreationEnd(isDisposable ? instance : null);
+    this.disposable = disposable;
+    if (disposable != null && disposable.closeable != null) {
+      ((ScopeImpl) scope).addDisposable(disposable);
     }
+  }
 
+  // the dependencies of a planned factory are looked up once per target scope
+  @SuppressWarnings("unchecked")
+  private static <T> T createInstance(Factory<T> factory, Scope scope) {
+    if (factory instanceof PlannedFactory
+        && ConfigurationHolder.configuration.allowsDependencyPlans()) {
+      PlannedFactory<T> plannedFactory = (PlannedFactory<T>) factory;
+      Scope targetScope = plannedFactory.getTargetScope(scope);
+      if (targetScope instanceof ScopeImpl) {
+        return plannedFactory.createInstance(
+            targetScope, ((ScopeImpl) targetScope).getDependencyPlan(plannedFactory));
+      }
+    }
+    return factory.createInstance(scope);
+  }
+
+  private T createInstance(Scope scope) {
+    Provider<? extends T> providerInstance = this.providerInstance;
     if (providerInstance != null) {
       if (isProvidingSingleton) {
-        instance = providerInstance.get();
+        T instance = providerInstance.get();
+        publishInstance(instance, scope);
         return instance;
       }
 
@@ -122,16 +217,21 @@ public class InternalProvider<T> {
     }
 
     if (factoryClass != null && factory == null) {
+      final boolean wasReleasable = isReleasable();
       factory = FactoryLocator.getFactory(factoryClass);
       this.isSingleton |= factory.hasSingletonAnnotation();
       this.isReleasable |= (this.isSingleton && factory.hasReleasableAnnotation());
       // gc
       factoryClass = null;
+      if (!wasReleasable && isReleasable()) {
+        onReleasableDiscovered(scope);
+      }
     }
 
     if (factory != null) {
       if (isSingleton) {
-        instance = factory.createInstance(scope);
+        T instance = createInstance(factory, scope);
+        publishInstance(instance, scope);
 
         if (!isReleasable) {
           // gc
@@ -141,10 +241,11 @@ public class InternalProvider<T> {
         return instance;
       }
 
-      return factory.createInstance(scope);
+      return createInstance(factory, scope);
     }
 
     if (providerFactoryClass != null && providerFactory == null) {
+      final boolean wasReleasable = isReleasable();
       providerFactory = FactoryLocator.getFactory(providerFactoryClass);
       this.isSingleton |= providerFactory.hasSingletonAnnotation();
       this.isReleasable |= (this.isSingleton && providerFactory.hasReleasableAnnotation());
@@ -154,11 +255,15 @@ public class InternalProvider<T> {
 
       // gc
       providerFactoryClass = null;
+      if (!wasReleasable && isReleasable()) {
+        onReleasableDiscovered(scope);
+      }
     }
 
     if (providerFactory != null) {
       if (isSingleton) {
         providerInstance = providerFactory.createInstance(scope);
+        this.providerInstance = providerInstance;
 
         if (!isReleasable) {
           // gc
@@ -166,14 +271,16 @@ public class InternalProvider<T> {
         }
 
         if (isProvidingSingleton) {
-          instance = providerInstance.get();
+          T instance = providerInstance.get();
+          publishInstance(instance, scope);
           return instance;
         }
         return providerInstance.get();
       }
 
       if (isProvidingSingleton) {
-        instance = providerFactory.createInstance(scope).get();
+        T instance = providerFactory.createInstance(scope).get();
+        publishInstance(instance, scope);
 
         if (!isProvidingReleasable) {
           // gc
@@ -189,11 +296,22 @@ public class InternalProvider<T> {
         "A provider can only be used with an instance, a provider, a factory or a provider factory. Should not happen.");
   }
 
+  private void onReleasableDiscovered(Scope scope) {
+    // the scope indexes its releasable providers, see ScopeImpl#release()
+    if (scope instanceof ScopeImpl) {
+      ((ScopeImpl) scope).addReleasableProvider(this);
+    }
+  }
+
   boolean isReleasable() {
     return isReleasable || isProvidingReleasable;
   }
 
+  // Release doesn't lock: it only drops the references to the cached instances. The factories of
+  // releasable providers are never dropped, so the next call to get creates new instances.
   void release() {
+    // a released instance is still disposed when its scope closes, but is not a dependency anymore
+    disposable = null;
     if (isReleasable) {
       if (providerInstance != null) {
         providerInstance = null;
@@ -76,7 +76,8 @@ public class InternalScopedProvider<T> extends InternalProvider<T> {
 
   // we lock on the unscoped provider itself to prevent concurrent usage
   // of the unscoped provider (
-  public T get(Scope scope) {
-    return super.get(this.scope);
+  @Override
+  T get(Scope scope, Class<?> clazz, String name) {
+    return super.get(this.scope, clazz, name);
   }
 }
@@ -19,18 +19,32 @@ package toothpick;
 import static java.lang.String.format;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import javax.inject.Provider;
+import toothpick.KeyIds.KeyIdScope;
+import toothpick.StaticWiring.StaticWiringScope;
 import toothpick.config.Binding;
+import toothpick.config.GeneratedModule;
 import toothpick.config.Module;
+import toothpick.config.ModuleTemplate;
+import toothpick.configuration.Configuration;
 import toothpick.configuration.ConfigurationHolder;
 import toothpick.configuration.IllegalBindingException;
 import toothpick.locators.FactoryLocator;
+import toothpick.monitoring.LockKind;
+import toothpick.monitoring.LookupOrigin;
+import toothpick.monitoring.ScopeOperation;
 
 /**
  * {@inheritDoc}
@@ -49,8 +63,10 @@ import toothpick.locators.FactoryLocator;
  * {@code Toothpick} class or <em>must</em> be synchronized using the {@code Toothpick} class if
  * used concurrently.</em>
  */
-public class ScopeImpl extends ScopeNode {
+public class ScopeImpl extends ScopeNode implements KeyIdScope, StaticWiringScope {
   private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+  private static final InternalProvider[] NO_PROVIDERS = new InternalProvider[0];
+  private static final ModuleTemplate[] NO_MODULE_TEMPLATES = new ModuleTemplate[0];
 
   /* This map is static and contains internal bindings / providers that will be
    * available to all scopes. The internal providers contained in the map will not be
@@ -64,18 +80,66 @@ public class ScopeImpl extends ScopeNode {
   /*@VisibleForTesting */ static final IdentityHashMap<Class, InternalProvider>
       mapClassesToUnNamedUnScopedProviders = new IdentityHashMap<>();
 
+  /* The classes that have an unnamed binding in at least one scope, since the last reset.
+   * Statically wired dependencies are only created directly by their factory when they are not
+   * in this set. Classes are not removed when a scope is closed, a false positive only costs a
+   * lookup.
+   */
+  /*@VisibleForTesting */ static final Set<Class> unNamedBoundClasses =
+      Collections.newSetFromMap(new ConcurrentHashMap<Class, Boolean>());
+
+  /* Incremented every time the unscoped providers shared by all scopes are reset. It is part of
+   * the bindings epoch of all scopes, see getBindingsEpoch().
+   */
+  private static final AtomicInteger unScopedProvidersEpoch = new AtomicInteger();
+
   /*
    * These 2 maps contain the internal bindings / providers specific to a scope.
    */
   /*@VisibleForTesting */ final IdentityHashMap<Class, Map<String, InternalScopedProvider>>
-      mapClassesToNamedScopedProviders = new IdentityHashMap<>();
+      mapClassesToNamedScopedProviders;
   /*@VisibleForTesting */ final IdentityHashMap<Class, InternalScopedProvider>
-      mapClassesToUnNamedScopedProviders = new IdentityHashMap<>();
+      mapClassesToUnNamedScopedProviders;
 
   private boolean hasTestModules;
+  // the module templates installed in this scope, in installation order. Their providers are
+  // installed in this scope when they are first looked up. Copied on write, guarded by this.
+  private volatile ModuleTemplate[] moduleTemplates = NO_MODULE_TEMPLATES;
+  // the closeable singletons of this scope, in creation order. Guarded by this.
+  private List<Disposable> disposables;
+  // the releasable providers installed in this scope, so that releasing the scope doesn't go
+  // through all its providers. Copied on write, guarded by this.
+  /*@VisibleForTesting */ volatile InternalProvider[] releasableProviders = NO_PROVIDERS;
+  // incremented every time the bindings of this scope change, after the change
+  private final AtomicInteger bindingsEpoch = new AtomicInteger();
+  // the providers of unnamed keys looked up via this scope, by key id. Written under this.
+  /*@VisibleForTesting */ volatile ProviderSlots providerSlots = ProviderSlots.NONE;
+  // the dependency plans of the factories that created instances in this scope
+  private final Map<Factory, DependencyPlanImpl> mapFactoryToDependencyPlan;
 
   public ScopeImpl(Object name) {
+    this(name, null);
+  }
+
+  /**
+   * Creates a scope that reuses the provider maps of a recycled scope, if any. The recycled scope
+   * itself is never reopened, and checks that it is not recycled every time it holds the lock of
+   * one of these maps, so that stale references to it can neither read nor change this scope.
+   *
+   * @param name the name of the scope.
+   * @param recycledScope a scope recycled by {@link ScopePool}, whose maps are empty, or null.
+   */
+  ScopeImpl(Object name, ScopeImpl recycledScope) {
     super(name);
+    if (recycledScope == null) {
+      mapClassesToNamedScopedProviders = new IdentityHashMap<>();
+      mapClassesToUnNamedScopedProviders = new IdentityHashMap<>();
+    } else {
+      mapClassesToNamedScopedProviders = recycledScope.mapClassesToNamedScopedProviders;
+      mapClassesToUnNamedScopedProviders = recycledScope.mapClassesToUnNamedScopedProviders;
+    }
+    // not reused, it is not guarded by a lock that could check the owner of the plans
+    mapFactoryToDependencyPlan = new ConcurrentHashMap<>();
     installBindingForScopeClass();
   }
 
@@ -90,13 +154,36 @@ public class ScopeImpl extends ScopeNode {
     ConfigurationHolder.configuration.checkCyclesStart(clazz, name);
     T t;
     try {
-      t = lookupProvider(clazz, name).get(this);
+      t = lookupProvider(clazz, name).get(this, clazz, name);
     } finally {
       ConfigurationHolder.configuration.checkCyclesEnd(clazz, name);
     }
     return t;
   }
 
+  @Override
+  public <T> T getInstance(Class<T> clazz, int keyId) {
+    crashIfClosed();
+    ConfigurationHolder.configuration.checkCyclesStart(clazz, null);
+    T t;
+    try {
+      t = lookupProvider(clazz, keyId).get(this, clazz, null);
+    } finally {
+      ConfigurationHolder.configuration.checkCyclesEnd(clazz, null);
+    }
+    return t;
+  }
+
+  @Override
+  public <T> T getStaticallyWiredInstance(Class<T> clazz, Factory<T> factory) {
+    if (!ConfigurationHolder.configuration.allowsStaticWiring()
+        || unNamedBoundClasses.contains(clazz)) {
+      return getInstance(clazz, null);
+    }
+    crashIfClosed();
+    return factory.createInstance(this);
+  }
+
   @Override
   public <T> Provider<T> getProvider(Class<T> clazz) {
     return getProvider(clazz, null);
@@ -121,6 +208,7 @@ public class ScopeImpl extends ScopeNode {
 
   @Override
   public synchronized Scope installTestModules(Module... modules) {
+    crashIfRecycled();
     if (hasTestModules) {
       throw new IllegalStateException("TestModules can only be installed once per scope.");
     }
@@ -131,12 +219,14 @@ public class ScopeImpl extends ScopeNode {
 
   @Override
   public Scope installModules(Module... modules) {
+    crashIfRecycled();
     installModules(false, modules);
     return this;
   }
 
   @Override
   public void inject(Object obj) {
+    crashIfRecycled();
     Toothpick.inject(obj, this);
   }
 
@@ -152,6 +242,10 @@ public class ScopeImpl extends ScopeNode {
     builder.append(':');
     builder.append(System.identityHashCode(this));
     builder.append(LINE_SEPARATOR);
+    // the tables of a recycled scope belong to another scope
+    if (isRecycled) {
+      return builder.toString();
+    }
 
     builder.append("Providers: [");
     ArrayList<Class> sortedScopedProviderClassesList;
@@ -216,34 +310,75 @@ public class ScopeImpl extends ScopeNode {
   }
 
   private void installModules(boolean isTestModule, Module... modules) {
-    for (Module module : modules) {
-      try {
-        installModule(isTestModule, module);
-      } catch (Exception e) {
-        throw new IllegalStateException(
-            format("Module %s couldn't be installed", module.getClass().getName()), e);
+    final Configuration configuration = ConfigurationHolder.configuration;
+    configuration.onScopeOperationStart(ScopeOperation.INSTALL_MODULES, name);
+    try {
+      for (Module module : modules) {
+        try {
+          installModule(isTestModule, module);
+        } catch (Exception e) {
+          throw new IllegalStateException(
+              format("Module %s couldn't be installed", module.getClass().getName()), e);
+        }
       }
+    } finally {
+      onBindingsChanged();
+      configuration.onScopeOperationEnd(ScopeOperation.INSTALL_MODULES, name);
     }
   }
 
   @SuppressWarnings("unchecked")
   private void installModule(boolean isTestModule, Module module) {
+    if (module instanceof ModuleTemplate && !isTestModule) {
+      installModuleTemplate((ModuleTemplate) module);
+      return;
+    }
+    if (module instanceof GeneratedModule) {
+      // the bindings are already built, no need to go through the binding set
+      for (Binding binding : ((GeneratedModule) module).getBindings()) {
+        installBinding(isTestModule, binding);
+      }
+      return;
+    }
     for (Binding binding : module.getBindingSet()) {
       if (binding == null) {
         throw new IllegalStateException("A module can't have a null binding : " + module);
       }
+      installBinding(isTestModule, binding);
+    }
+  }
 
-      Class clazz = binding.getKey();
-      String bindingName = binding.getName();
-      try {
-        if (isTestModule || getScopedProvider(clazz, bindingName) == null) {
-          InternalProvider provider = toProvider(binding);
-          installScopedProvider(clazz, bindingName, provider, isTestModule);
+  private void installModuleTemplate(ModuleTemplate moduleTemplate) {
+    // only the bindings of scope annotated classes can be illegal, they are known up front
+    for (Binding binding : moduleTemplate.getScopeAnnotatedBindings()) {
+      ConfigurationHolder.configuration.checkIllegalBinding(binding, this);
+    }
+    unNamedBoundClasses.addAll(moduleTemplate.getUnNamedKeys());
+    // copied on write under the same lock as the other arrays of the scope, so that templates
+    // installed concurrently are not lost
+    synchronized (this) {
+      ModuleTemplate[] moduleTemplates = this.moduleTemplates;
+      ModuleTemplate[] newModuleTemplates =
+          Arrays.copyOf(moduleTemplates, moduleTemplates.length + 1);
+      newModuleTemplates[moduleTemplates.length] = moduleTemplate;
+      this.moduleTemplates = newModuleTemplates;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void installBinding(boolean isTestModule, Binding binding) {
+    Class clazz = binding.getKey();
+    String bindingName = binding.getName();
+    try {
+      if (isTestModule || getScopedProvider(clazz, bindingName) == null) {
+        InternalProvider provider = toProvider(binding);
+        installScopedProvider(clazz, bindingName, provider, isTestModule);
+        if (bindingName == null) {
+          unNamedBoundClasses.add(clazz);
         }
-      } catch (Exception e) {
-        throw new IllegalBindingException(
-            format("Binding %s couldn't be installed", bindingName), e);
       }
+    } catch (Exception e) {
+      throw new IllegalBindingException(format("Binding %s couldn't be installed", bindingName), e);
     }
   }
 
@@ -258,7 +393,10 @@ public class ScopeImpl extends ScopeNode {
           "null binding are not allowed. Should not happen unless getBindingSet is overridden.");
     }
     ConfigurationHolder.configuration.checkIllegalBinding(binding, this);
+    return createProvider(binding);
+  }
 
+  private <T> InternalProvider<T> createProvider(Binding<T> binding) {
     switch (binding.getMode()) {
       case SIMPLE:
         return new InternalScopedProvider<T>(
@@ -319,18 +457,25 @@ public class ScopeImpl extends ScopeNode {
     if (clazz == null) {
       throw new IllegalArgumentException("TP can't get an instance of a null class.");
     }
+    final Configuration configuration = ConfigurationHolder.configuration;
     InternalProvider<? extends T> scopedProvider = getScopedProvider(clazz, bindingName);
     if (scopedProvider != null) {
+      configuration.onProviderLookedUp(this, clazz, bindingName, LookupOrigin.SCOPE, 0, 1);
       return scopedProvider;
     }
+    int depth = 0;
     for (Scope parentScope : parentScopes) {
+      depth++;
       ScopeImpl parentScopeImpl = (ScopeImpl) parentScope;
       InternalProvider<? extends T> parentScopedProvider =
           parentScopeImpl.getScopedProvider(clazz, bindingName);
       if (parentScopedProvider != null) {
+        configuration.onProviderLookedUp(
+            this, clazz, bindingName, LookupOrigin.SCOPE, depth, depth + 1);
         return parentScopedProvider;
       }
     }
+    depth++;
 
     // if the binding is named
     // we couldn't find it in any scope, we must fail
@@ -349,6 +494,8 @@ public class ScopeImpl extends ScopeNode {
     // check if we have a cached un-scoped provider
     InternalProvider<? extends T> unScopedProviderInPool = getUnUnScopedProvider(clazz, null);
     if (unScopedProviderInPool != null) {
+      configuration.onProviderLookedUp(
+          this, clazz, null, LookupOrigin.UNSCOPED_POOL, depth, depth + 1);
       return unScopedProviderInPool;
     }
 
@@ -357,6 +504,7 @@ public class ScopeImpl extends ScopeNode {
     // we need to know whether they are scoped or not, if so we scope them
     // if not, they are place in the pool
     Factory<T> factory = FactoryLocator.getFactory(clazz);
+    configuration.onProviderLookedUp(this, clazz, null, LookupOrigin.FACTORY, depth, depth + 1);
 
     if (factory.hasScopeAnnotation()) {
       // the new provider will have to work in the current scope
@@ -380,6 +528,109 @@ public class ScopeImpl extends ScopeNode {
     }
   }
 
+  /**
+   * Looks up the provider of the unnamed key {@code clazz}, like {@link #lookupProvider(Class,
+   * String)}, but first in the provider slots of this scope. Providers are kept in the slots until
+   * the bindings of this scope or of its parents change. They are not kept when lookups are
+   * monitored.
+   *
+   * @param clazz the {@link Class} of {@code T} for which we lookup an {@link InternalProvider}.
+   * @param keyId the id of {@code clazz}.
+   * @param <T> the type for which we lookup an {@link InternalProvider}.
+   * @return a provider associated to the {@code T}.
+   */
+  @SuppressWarnings("unchecked")
+  /* @VisibleForTesting */ <T> InternalProvider<? extends T> lookupProvider(
+      Class<T> clazz, int keyId) {
+    // read before the lookup, the provider is only kept if no binding changed in between
+    final int epoch = getBindingsEpoch();
+    final ProviderSlots providerSlots = this.providerSlots;
+    if (providerSlots.epoch == epoch) {
+      InternalProvider<? extends T> slotProvider = providerSlots.get(keyId);
+      if (slotProvider != null) {
+        return slotProvider;
+      }
+    }
+    InternalProvider<? extends T> provider = lookupProvider(clazz, null);
+    if (!ConfigurationHolder.configuration.hasLookupListeners()) {
+      setProviderSlot(keyId, provider, epoch);
+    }
+    return provider;
+  }
+
+  private void setProviderSlot(int keyId, InternalProvider provider, int epoch) {
+    if (keyId < 0) {
+      throw new IllegalArgumentException("Key ids can't be negative.");
+    }
+    synchronized (this) {
+      ProviderSlots providerSlots = this.providerSlots;
+      if (providerSlots.epoch != epoch) {
+        if (getBindingsEpoch() != epoch) {
+          // the provider may be stale already
+          return;
+        }
+        providerSlots = new ProviderSlots(epoch, ProviderSlots.MIN_CAPACITY);
+      }
+      this.providerSlots = providerSlots.put(keyId, provider);
+    }
+  }
+
+  private void onBindingsChanged() {
+    bindingsEpoch.incrementAndGet();
+  }
+
+  /**
+   * Computes the epoch of the bindings visible from this scope. It changes every time the bindings
+   * of this scope or of one of its parents change, or the unscoped providers are reset. The parents
+   * themselves don't change without resetting the provider slots and the dependency plans.
+   *
+   * @return the sum of the epochs of this scope, of its parents and of the unscoped providers.
+   */
+  private int getBindingsEpoch() {
+    int epoch = unScopedProvidersEpoch.get() + bindingsEpoch.get();
+    for (ScopeNode parentScope : parentScopes) {
+      if (parentScope instanceof ScopeImpl) {
+        epoch += ((ScopeImpl) parentScope).bindingsEpoch.get();
+      }
+    }
+    return epoch;
+  }
+
+  @Override
+  void onParentScopesChanged() {
+    // the slots and plans can contain providers of the previous parents
+    synchronized (this) {
+      providerSlots = ProviderSlots.NONE;
+    }
+    mapFactoryToDependencyPlan.clear();
+  }
+
+  /**
+   * Obtains the dependency plan of {@code factory} in this scope. The providers of the dependencies
+   * are looked up the first time, and again only when the bindings of this scope or of its parents
+   * have changed since.
+   *
+   * @param factory the factory whose dependencies are looked up, its target scope must be this.
+   * @return the plan of the dependencies of {@code factory} in this scope.
+   */
+  @SuppressWarnings("unchecked")
+  DependencyPlan getDependencyPlan(PlannedFactory<?> factory) {
+    // read before the lookups, a plan is only reused if no binding changed in between
+    final int epoch = getBindingsEpoch();
+    DependencyPlanImpl dependencyPlan = mapFactoryToDependencyPlan.get(factory);
+    if (dependencyPlan != null && dependencyPlan.epoch == epoch) {
+      return dependencyPlan;
+    }
+    Class<?>[] classes = factory.getDependencyClasses();
+    InternalProvider[] providers = new InternalProvider[classes.length];
+    for (int i = 0; i < classes.length; i++) {
+      providers[i] = lookupProvider((Class) classes[i], null);
+    }
+    dependencyPlan = new DependencyPlanImpl(epoch, this, classes, providers);
+    mapFactoryToDependencyPlan.put(factory, dependencyPlan);
+    return dependencyPlan;
+  }
+
   /**
    * Obtains the provider of the class {@code clazz} and name {@code bindingName}, if any. The
    * returned provider will be scoped. It can be {@code null} if there is no such provider.
@@ -392,7 +643,34 @@ public class ScopeImpl extends ScopeNode {
    *     null} is there is no such scoped provider.
    */
   private <T> InternalProvider<? extends T> getScopedProvider(Class<T> clazz, String bindingName) {
-    return getInternalProvider(clazz, bindingName, true);
+    InternalProvider<? extends T> scopedProvider = getInternalProvider(clazz, bindingName, true);
+    if (scopedProvider == null && moduleTemplates.length != 0) {
+      return installModuleTemplateProvider(clazz, bindingName);
+    }
+    return scopedProvider;
+  }
+
+  /**
+   * Installs the provider of the binding of the class {@code clazz} and name {@code bindingName}
+   * of the first module template of this scope that has such a binding. The bindings of module
+   * templates were validated when the templates were installed.
+   *
+   * @param clazz the class for which to install the scoped provider.
+   * @param bindingName the name, possibly {@code null}, for which to install the scoped provider.
+   * @param <T> the type of {@code clazz}.
+   * @return the scoped provider for class {@code clazz} and {@code bindingName}, or {@code null}
+   *     if no module template has such a binding.
+   */
+  private <T> InternalProvider<? extends T> installModuleTemplateProvider(
+      Class<T> clazz, String bindingName) {
+    for (ModuleTemplate moduleTemplate : moduleTemplates) {
+      Binding<T> binding = moduleTemplate.getBinding(clazz, bindingName);
+      if (binding != null) {
+        // if another thread installed the provider first, its provider is returned
+        return installScopedProvider(clazz, bindingName, createProvider(binding), false);
+      }
+    }
+    return null;
   }
 
   /**
@@ -429,24 +707,49 @@ public class ScopeImpl extends ScopeNode {
   @SuppressWarnings("unchecked")
   private <T> InternalProvider<? extends T> getInternalProvider(
       Class<T> clazz, String bindingName, boolean isScoped) {
+    final Configuration configuration = ConfigurationHolder.configuration;
+    final long lockRequestNanos = configuration.onLockRequested();
     if (bindingName == null) {
       if (isScoped) {
-        synchronized (mapClassesToUnNamedScopedProviders) {
-          return mapClassesToUnNamedScopedProviders.get(clazz);
+        long lockWaitNanos = Configuration.NOT_TIMED;
+        try {
+          synchronized (mapClassesToUnNamedScopedProviders) {
+            lockWaitNanos = configuration.onLockAcquired(lockRequestNanos);
+            // the map belongs to another scope once this one is recycled
+            crashIfRecycled();
+            return mapClassesToUnNamedScopedProviders.get(clazz);
+          }
+        } finally {
+          configuration.onLockReleased(
+              LockKind.UNNAMED_SCOPED_PROVIDERS, clazz, null, lockWaitNanos);
         }
       } else {
-        synchronized (mapClassesToUnNamedUnScopedProviders) {
-          return mapClassesToUnNamedUnScopedProviders.get(clazz);
+        long lockWaitNanos = Configuration.NOT_TIMED;
+        try {
+          synchronized (mapClassesToUnNamedUnScopedProviders) {
+            lockWaitNanos = configuration.onLockAcquired(lockRequestNanos);
+            return mapClassesToUnNamedUnScopedProviders.get(clazz);
+          }
+        } finally {
+          configuration.onLockReleased(LockKind.UNSCOPED_PROVIDERS, clazz, null, lockWaitNanos);
         }
       }
     } else {
-      synchronized (mapClassesToNamedScopedProviders) {
-        Map<String, InternalScopedProvider> mapNameToProvider =
-            mapClassesToNamedScopedProviders.get(clazz);
-        if (mapNameToProvider == null) {
-          return null;
+      long lockWaitNanos = Configuration.NOT_TIMED;
+      try {
+        synchronized (mapClassesToNamedScopedProviders) {
+          lockWaitNanos = configuration.onLockAcquired(lockRequestNanos);
+          crashIfRecycled();
+          Map<String, InternalScopedProvider> mapNameToProvider =
+              mapClassesToNamedScopedProviders.get(clazz);
+          if (mapNameToProvider == null) {
+            return null;
+          }
+          return mapNameToProvider.get(bindingName);
         }
-        return mapNameToProvider.get(bindingName);
+      } finally {
+        configuration.onLockReleased(
+            LockKind.NAMED_SCOPED_PROVIDERS, clazz, bindingName, lockWaitNanos);
       }
     }
   }
@@ -529,23 +832,37 @@ public class ScopeImpl extends ScopeNode {
       String bindingName,
       InternalScopedProvider<? extends T> internalProvider,
       boolean isTestProvider) {
-    synchronized (mapClassesToNamedScopedProviders) {
-      Map<String, InternalScopedProvider> mapNameToProvider =
-          mapClassesToNamedScopedProviders.get(clazz);
-      if (mapNameToProvider == null) {
-        mapNameToProvider = new HashMap<>(1);
-        mapClassesToNamedScopedProviders.put(clazz, mapNameToProvider);
-        mapNameToProvider.put(bindingName, internalProvider);
-        return internalProvider;
-      }
+    final Configuration configuration = ConfigurationHolder.configuration;
+    final long lockRequestNanos = configuration.onLockRequested();
+    long lockWaitNanos = Configuration.NOT_TIMED;
+    try {
+      synchronized (mapClassesToNamedScopedProviders) {
+        lockWaitNanos = configuration.onLockAcquired(lockRequestNanos);
+        // a thread that started a lookup before this scope was recycled must not install its
+        // provider in the map of another scope
+        crashIfRecycled();
+        Map<String, InternalScopedProvider> mapNameToProvider =
+            mapClassesToNamedScopedProviders.get(clazz);
+        if (mapNameToProvider == null) {
+          mapNameToProvider = new HashMap<>(1);
+          mapClassesToNamedScopedProviders.put(clazz, mapNameToProvider);
+          mapNameToProvider.put(bindingName, internalProvider);
+          onProviderInstalled(internalProvider, null);
+          return internalProvider;
+        }
 
-      InternalProvider<? extends T> previous = mapNameToProvider.get(bindingName);
-      if (previous == null || isTestProvider) {
-        mapNameToProvider.put(bindingName, internalProvider);
-        return internalProvider;
-      } else {
-        return previous;
+        InternalProvider<? extends T> previous = mapNameToProvider.get(bindingName);
+        if (previous == null || isTestProvider) {
+          mapNameToProvider.put(bindingName, internalProvider);
+          onProviderInstalled(internalProvider, previous);
+          return internalProvider;
+        } else {
+          return previous;
+        }
       }
+    } finally {
+      configuration.onLockReleased(
+          LockKind.NAMED_SCOPED_PROVIDERS, clazz, bindingName, lockWaitNanos);
     }
   }
 
@@ -554,32 +871,52 @@ public class ScopeImpl extends ScopeNode {
       Class<T> clazz,
       InternalScopedProvider<? extends T> internalProvider,
       boolean isTestProvider) {
-    synchronized (mapClassesToUnNamedScopedProviders) {
-      InternalScopedProvider<T> previous = mapClassesToUnNamedScopedProviders.get(clazz);
-      if (previous == null || isTestProvider) {
-        mapClassesToUnNamedScopedProviders.put(clazz, internalProvider);
-        return internalProvider;
-      } else {
-        return previous;
+    final Configuration configuration = ConfigurationHolder.configuration;
+    final long lockRequestNanos = configuration.onLockRequested();
+    long lockWaitNanos = Configuration.NOT_TIMED;
+    try {
+      synchronized (mapClassesToUnNamedScopedProviders) {
+        lockWaitNanos = configuration.onLockAcquired(lockRequestNanos);
+        crashIfRecycled();
+        InternalScopedProvider<T> previous = mapClassesToUnNamedScopedProviders.get(clazz);
+        if (previous == null || isTestProvider) {
+          mapClassesToUnNamedScopedProviders.put(clazz, internalProvider);
+          onProviderInstalled(internalProvider, previous);
+          return internalProvider;
+        } else {
+          return previous;
+        }
       }
+    } finally {
+      configuration.onLockReleased(LockKind.UNNAMED_SCOPED_PROVIDERS, clazz, null, lockWaitNanos);
     }
   }
 
   @SuppressWarnings("unchecked")
   private <T> InternalProvider<? extends T> installUnScopedProvider(
       Class<T> clazz, InternalProvider<? extends T> internalProvider, boolean isTestProvider) {
-    synchronized (mapClassesToUnNamedUnScopedProviders) {
-      InternalProvider<? extends T> previous = mapClassesToUnNamedUnScopedProviders.get(clazz);
-      if (previous == null || isTestProvider) {
-        mapClassesToUnNamedUnScopedProviders.put(clazz, internalProvider);
-        return internalProvider;
-      } else {
-        return previous;
+    final Configuration configuration = ConfigurationHolder.configuration;
+    final long lockRequestNanos = configuration.onLockRequested();
+    long lockWaitNanos = Configuration.NOT_TIMED;
+    try {
+      synchronized (mapClassesToUnNamedUnScopedProviders) {
+        lockWaitNanos = configuration.onLockAcquired(lockRequestNanos);
+        InternalProvider<? extends T> previous = mapClassesToUnNamedUnScopedProviders.get(clazz);
+        if (previous == null || isTestProvider) {
+          mapClassesToUnNamedUnScopedProviders.put(clazz, internalProvider);
+          return internalProvider;
+        } else {
+          return previous;
+        }
       }
+    } finally {
+      configuration.onLockReleased(LockKind.UNSCOPED_PROVIDERS, clazz, null, lockWaitNanos);
     }
   }
 
-  private void crashIfClosed() {
+  // overridden by ephemeral scopes, that also depend on the state of their parent
+  void crashIfClosed() {
+    crashIfRecycled();
     if (!isOpen) {
       throw new IllegalStateException(
           String.format(
@@ -591,6 +928,8 @@ public class ScopeImpl extends ScopeNode {
 
   static void resetUnScopedProviders() {
     mapClassesToUnNamedUnScopedProviders.clear();
+    unNamedBoundClasses.clear();
+    unScopedProvidersEpoch.incrementAndGet();
   }
 
   /**
@@ -602,18 +941,125 @@ public class ScopeImpl extends ScopeNode {
     super.reset();
     mapClassesToNamedScopedProviders.clear();
     mapClassesToUnNamedScopedProviders.clear();
+    synchronized (this) {
+      moduleTemplates = NO_MODULE_TEMPLATES;
+      releasableProviders = NO_PROVIDERS;
+    }
     hasTestModules = false;
     installBindingForScopeClass();
+    onBindingsChanged();
+  }
+
+  /**
+   * Drops all the state of a closed scope, including its children and parents, so that its maps of
+   * providers can be reused by another scope created by {@link ScopePool}. The scope is marked as
+   * recycled and can't be used anymore.
+   */
+  void recycle() {
+    // marked before clearing the maps: a stale thread that acquires their locks afterwards fails
+    isRecycled = true;
+    // under the same locks as the lookups, as stale threads can still be reading the maps
+    synchronized (mapClassesToNamedScopedProviders) {
+      mapClassesToNamedScopedProviders.clear();
+    }
+    synchronized (mapClassesToUnNamedScopedProviders) {
+      mapClassesToUnNamedScopedProviders.clear();
+    }
+    mapFactoryToDependencyPlan.clear();
+    scopeAnnotationClasses.clear();
+    hasReleasableProviders = false;
+    synchronized (this) {
+      moduleTemplates = NO_MODULE_TEMPLATES;
+      releasableProviders = NO_PROVIDERS;
+      providerSlots = ProviderSlots.NONE;
+      disposables = null;
+    }
+    childrenScopes.clear();
+    parentScopes.clear();
+  }
+
+  synchronized void addDisposable(Disposable disposable) {
+    if (disposables == null) {
+      disposables = new ArrayList<>();
+    }
+    disposables.add(disposable);
+  }
+
+  /**
+   * Removes the closeable singletons of this scope, so that they are disposed only once.
+   *
+   * @param disposables the list to which the closeable singletons are added, in creation order.
+   */
+  synchronized void drainDisposables(List<Disposable> disposables) {
+    if (this.disposables != null) {
+      disposables.addAll(this.disposables);
+      this.disposables = null;
+    }
+  }
+
+  /**
+   * Adds a provider to the releasable providers of this scope. It is called when a releasable
+   * provider is installed, or when a provider discovers it is releasable as it locates its factory.
+   *
+   * @param internalProvider the releasable provider.
+   */
+  void addReleasableProvider(InternalProvider internalProvider) {
+    synchronized (this) {
+      InternalProvider[] releasableProviders = this.releasableProviders;
+      for (InternalProvider releasableProvider : releasableProviders) {
+        if (releasableProvider == internalProvider) {
+          return;
+        }
+      }
+      InternalProvider[] newReleasableProviders =
+          Arrays.copyOf(releasableProviders, releasableProviders.length + 1);
+      newReleasableProviders[releasableProviders.length] = internalProvider;
+      this.releasableProviders = newReleasableProviders;
+    }
+    onReleasableProviderAdded();
+  }
+
+  private void removeReleasableProvider(InternalProvider internalProvider) {
+    synchronized (this) {
+      InternalProvider[] releasableProviders = this.releasableProviders;
+      for (int i = 0; i < releasableProviders.length; i++) {
+        if (releasableProviders[i] == internalProvider) {
+          InternalProvider[] newReleasableProviders =
+              new InternalProvider[releasableProviders.length - 1];
+          System.arraycopy(releasableProviders, 0, newReleasableProviders, 0, i);
+          System.arraycopy(
+              releasableProviders,
+              i + 1,
+              newReleasableProviders,
+              i,
+              releasableProviders.length - i - 1);
+          this.releasableProviders = newReleasableProviders;
+          return;
+        }
+      }
+    }
+  }
+
+  private void onProviderInstalled(
+      InternalProvider<?> internalProvider, InternalProvider<?> previousProvider) {
+    if (previousProvider != null && previousProvider.isReleasable()) {
+      removeReleasableProvider(previousProvider);
+    }
+    if (internalProvider.isReleasable()) {
+      addReleasableProvider(internalProvider);
+    }
   }
 
   @Override
   public Scope openSubScope(Object subScopeName) {
+    crashIfRecycled();
     // we already check later that sub scope is a child of this
     return Toothpick.openScopes(getName(), subScopeName);
   }
 
   @Override
   public Scope openSubScope(Object subScopeName, ScopeConfig scopeConfig) {
+    crashIfRecycled();
     // we already check later that sub scope is a child of this
     boolean wasOpen = Toothpick.isScopeOpen(subScopeName);
     Scope scope = Toothpick.openScopes(getName(), subScopeName);
@@ -623,29 +1069,49 @@ public class ScopeImpl extends ScopeNode {
     return scope;
   }
 
+  /**
+   * Opens an anonymous sub scope of this scope. Unlike named sub scopes, it is neither registered
+   * in Toothpick nor as a child of this scope, so it is cheap to create and to dispose of.
+   *
+   * @return a new ephemeral sub scope of this scope, that must be closed once it is not needed
+   *     anymore.
+   * @see Toothpick#openEphemeralSubScope(Scope)
+   */
+  public EphemeralScope openEphemeralSubScope() {
+    crashIfClosed();
+    return new EphemeralScopeImpl(this);
+  }
+
   @Override
   public void release() {
-    for (ScopeNode childScope : childrenScopes.values()) {
-      childScope.release();
+    crashIfRecycled();
+    final Configuration configuration = ConfigurationHolder.configuration;
+    configuration.onScopeOperationStart(ScopeOperation.RELEASE, name);
+    try {
+      releaseProviders();
+    } finally {
+      configuration.onScopeOperationEnd(ScopeOperation.RELEASE, name);
     }
+  }
 
-    synchronized (mapClassesToUnNamedScopedProviders) {
-      for (InternalProvider internalProvider : mapClassesToUnNamedScopedProviders.values()) {
-        if (internalProvider.isReleasable()) {
-          internalProvider.release();
-        }
-      }
+  private void releaseProviders() {
+    // only the subtrees that contain releasable providers are visited
+    if (!hasReleasableProviders) {
+      return;
     }
-    synchronized (mapClassesToNamedScopedProviders) {
-      for (Map<String, InternalScopedProvider> mapNameToInternalProvider :
-          mapClassesToNamedScopedProviders.values()) {
-        for (InternalProvider internalProvider : mapNameToInternalProvider.values()) {
-          if (internalProvider.isReleasable()) {
-            internalProvider.release();
-          }
-        }
+    for (ScopeNode childScope : childrenScopes.values()) {
+      if (childScope.hasReleasableProviders) {
+        childScope.release();
       }
     }
+    releaseScopedProviders();
+  }
+
+  /** Releases the releasable providers of this scope, but not the ones of its children. */
+  void releaseScopedProviders() {
+    for (InternalProvider internalProvider : releasableProviders) {
+      internalProvider.release();
+    }
   }
 
   /** Install bindings for scope. */
@@ -654,6 +1120,96 @@ public class ScopeImpl extends ScopeNode {
     installScopedProvider(Scope.class, null, new InternalScopedProvider<>(this, this), false);
   }
 
+  /**
+   * The providers of a scope indexed by key id, valid as long as the bindings don't change. They
+   * are stored in a small open addressed table, so that its size depends on the number of keys
+   * looked up via the scope, not on the number of key ids. Slots are only added to a table, and
+   * readers don't lock: a slot that is not visible yet only costs a lookup.
+   */
+  /*@VisibleForTesting */ static final class ProviderSlots {
+    static final int MIN_CAPACITY = 8;
+    static final ProviderSlots NONE = new ProviderSlots(-1, 0);
+
+    final int epoch;
+    // the slots, at the index of their key id, or after it with linear probing
+    final AtomicReferenceArray<Slot> slots;
+    // the number of slots in use, guarded by the scope
+    private int size;
+
+    ProviderSlots(int epoch, int capacity) {
+      this.epoch = epoch;
+      this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /** @return the provider of {@code keyId}, or null if it is not in the slots. */
+    InternalProvider get(int keyId) {
+      final AtomicReferenceArray<Slot> slots = this.slots;
+      final int mask = slots.length() - 1;
+      if (mask < 0) {
+        return null;
+      }
+      // the table is never full, so there is always an empty slot to stop at
+      for (int index = keyId & mask; ; index = (index + 1) & mask) {
+        Slot slot = slots.get(index);
+        if (slot == null) {
+          return null;
+        }
+        if (slot.keyId == keyId) {
+          return slot.provider;
+        }
+      }
+    }
+
+    /**
+     * Adds the provider of {@code keyId}, must be called under the lock of the scope.
+     *
+     * @return these slots, or larger slots with the same providers if these are half full.
+     */
+    ProviderSlots put(int keyId, InternalProvider provider) {
+      if (2 * (size + 1) <= slots.length()) {
+        put(new Slot(keyId, provider));
+        return this;
+      }
+      ProviderSlots providerSlots =
+          new ProviderSlots(epoch, Math.max(MIN_CAPACITY, 2 * slots.length()));
+      for (int index = 0; index < slots.length(); index++) {
+        Slot slot = slots.get(index);
+        if (slot != null) {
+          providerSlots.put(slot);
+        }
+      }
+      providerSlots.put(new Slot(keyId, provider));
+      return providerSlots;
+    }
+
+    private void put(Slot slot) {
+      final int mask = slots.length() - 1;
+      for (int index = slot.keyId & mask; ; index = (index + 1) & mask) {
+        Slot currentSlot = slots.get(index);
+        if (currentSlot == null) {
+          slots.set(index, slot);
+          size++;
+          return;
+        }
+        if (currentSlot.keyId == slot.keyId) {
+          slots.set(index, slot);
+          return;
+        }
+      }
+    }
+  }
+
+  /** The provider of a key id, in the provider slots of a scope. */
+  static final class Slot {
+    final int keyId;
+    final InternalProvider provider;
+
+    Slot(int keyId, InternalProvider provider) {
+      this.keyId = keyId;
+      this.provider = provider;
+    }
+  }
+
   private static class ClassNameComparator implements Comparator<Class> {
     @Override
     public int compare(Class o1, Class o2) {
@@ -82,10 +82,17 @@ public abstract class ScopeNode implements Scope {
   // as setting the parent is called only once when creating a node
   protected final List<ScopeNode> parentScopes = new CopyOnWriteArrayList<>();
   protected Object name;
-  protected boolean isOpen = true;
+  // volatile as closed scopes can be read from the scope map by other threads
+  protected volatile boolean isOpen = true;
+  // whether this closed scope was recycled by the scope pool. A recycled scope is never reopened,
+  // its tables are reused by another scope and it must not be used anymore.
+  protected volatile boolean isRecycled;
   // same here for lock free access
   protected final Set<Class<? extends Annotation>> scopeAnnotationClasses =
       new CopyOnWriteArraySet<>();
+  // whether this scope or one of its children scopes has releasable providers. It is never reset
+  // when providers are removed, releasing a subtree without releasable providers is harmless.
+  protected volatile boolean hasReleasableProviders;
 
   public ScopeNode(Object name) {
     if (name == null) {
@@ -119,6 +126,7 @@ public abstract class ScopeNode implements Scope {
   /** @return the parentScope of this scope. Can be null for a root scope. */
   @Override
   public ScopeNode getParentScope() {
+    crashIfRecycled();
     Iterator<ScopeNode> parentIterator = parentScopes.iterator();
     boolean hasParent = parentIterator.hasNext();
     return hasParent ? parentIterator.next() : null;
@@ -138,6 +146,7 @@ public abstract class ScopeNode implements Scope {
   @SuppressWarnings({"unused", "used by generated code"})
   @Override
   public <A extends Annotation> ScopeNode getParentScope(Class<A> scopeAnnotationClass) {
+    crashIfRecycled();
     checkIsAnnotationScope(scopeAnnotationClass);
 
     if (scopeAnnotationClass == Singleton.class) {
@@ -165,6 +174,7 @@ public abstract class ScopeNode implements Scope {
   @SuppressWarnings({"unused", "used by generated code"})
   @Override
   public ScopeNode getRootScope() {
+    crashIfRecycled();
     if (parentScopes.isEmpty()) {
       return this;
     }
@@ -183,6 +193,7 @@ public abstract class ScopeNode implements Scope {
    */
   @Override
   public Scope supportScopeAnnotation(Class<? extends Annotation> scopeAnnotationClass) {
+    crashIfRecycled();
     checkIsAnnotationScope(scopeAnnotationClass);
     if (scopeAnnotationClass == Singleton.class) {
       throw new IllegalArgumentException(
@@ -197,6 +208,7 @@ public abstract class ScopeNode implements Scope {
 
   @Override
   public boolean isScopeAnnotationSupported(Class<? extends Annotation> scopeAnnotationClass) {
+    crashIfRecycled();
     if (scopeAnnotationClass == Singleton.class) {
       return parentScopes.isEmpty();
     }
@@ -256,6 +268,10 @@ public abstract class ScopeNode implements Scope {
     // we choose not to lock as this scenario doesn't seem meaningful
     child.parentScopes.add(this);
     child.parentScopes.addAll(parentScopes);
+    child.onParentScopesChanged();
+    if (child.hasReleasableProviders) {
+      child.onReleasableProviderAdded();
+    }
     return child;
   }
 
@@ -280,12 +296,38 @@ public abstract class ScopeNode implements Scope {
     childrenScopes.remove(child.getName());
     // make the ex-child a new root.
     child.parentScopes.clear();
+    child.onParentScopesChanged();
   }
 
   void close() {
     isOpen = false;
   }
 
+  /**
+   * Fails if this scope was recycled. Public methods of a scope check it, so that stale references
+   * to a recycled scope can't reach the tables now used by another scope.
+   */
+  void crashIfRecycled() {
+    if (isRecycled) {
+      throw new IllegalStateException(
+          format("The scope with name %s has been closed and recycled. It can't be used.", name));
+    }
+  }
+
+  /** Called when the scope is added to a parent, or removed from its parent. */
+  void onParentScopesChanged() {}
+
+  /**
+   * Marks this scope and all its parents as containing releasable providers, so that {@link
+   * #release()} visits them.
+   */
+  void onReleasableProviderAdded() {
+    hasReleasableProviders = true;
+    for (ScopeNode parentScope : parentScopes) {
+      parentScope.hasReleasableProviders = true;
+    }
+  }
+
   List<Object> getParentScopesNames() {
     List<Object> parentScopesNames = new ArrayList<>();
     for (ScopeNode parentScope : parentScopes) {
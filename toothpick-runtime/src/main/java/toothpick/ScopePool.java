@@ -0,0 +1,76 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded pool of closed scopes, used by {@link Toothpick} when scope recycling is enabled via
+ * {@link toothpick.configuration.Configuration#enableScopePool(int)}. Only plain {@link ScopeImpl}
+ * instances are recycled. Recycled scopes are never reopened: their maps of providers are handed to
+ * the new scopes obtained from the pool, and the recycled scopes fail on any further use, including
+ * lookups that were already running when they were recycled.
+ */
+class ScopePool {
+  private final ConcurrentLinkedQueue<ScopeImpl> scopes = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger size = new AtomicInteger();
+
+  /**
+   * @param name the name of the scope.
+   * @return a new scope that reuses the maps of providers of a recycled scope, if the pool is not
+   *     empty.
+   */
+  ScopeImpl obtain(Object name) {
+    ScopeImpl recycledScope = scopes.poll();
+    if (recycledScope != null) {
+      size.decrementAndGet();
+    }
+    return new ScopeImpl(name, recycledScope);
+  }
+
+  /**
+   * Recycles a closed scope, if the pool is not full. The scope must be detached from the scope
+   * tree and all its children must have been recycled or closed.
+   *
+   * @param scope the scope to recycle.
+   * @param maxPooledScopes the maximum size of the pool.
+   */
+  void recycle(ScopeNode scope, int maxPooledScopes) {
+    if (scope.getClass() != ScopeImpl.class) {
+      return;
+    }
+    if (size.incrementAndGet() > maxPooledScopes) {
+      size.decrementAndGet();
+      return;
+    }
+    ScopeImpl scopeImpl = (ScopeImpl) scope;
+    scopeImpl.recycle();
+    scopes.offer(scopeImpl);
+  }
+
+  void clear() {
+    while (scopes.poll() != null) {
+      size.decrementAndGet();
+    }
+  }
+
+  /*for testing.*/
+  int size() {
+    return size.get();
+  }
+}
@@ -18,6 +18,9 @@ package toothpick;
 
 import java.lang.ref.WeakReference;
 import javax.inject.Provider;
+import toothpick.configuration.Configuration;
+import toothpick.configuration.ConfigurationHolder;
+import toothpick.monitoring.LockKind;
 
 /**
  * A thread safe internal provider. It will be exposed outside of Toothpick.
@@ -50,16 +53,24 @@ public class ThreadSafeProviderImpl<T> implements Provider<T>, Lazy<T> {
     // ensure both sync for DSL
     // and sync around provider
     // so that dev's providers don't deal with concurrency
-    synchronized (this) {
-      if (isLazy) {
-        // DCL
-        if (instance == null) {
-          instance = getScope().getInstance(clazz, name);
-          scope.clear();
+    final Configuration configuration = ConfigurationHolder.configuration;
+    final long lockRequestNanos = configuration.onLockRequested();
+    long lockWaitNanos = Configuration.NOT_TIMED;
+    try {
+      synchronized (this) {
+        lockWaitNanos = configuration.onLockAcquired(lockRequestNanos);
+        if (isLazy) {
+          // DCL
+          if (instance == null) {
+            instance = getScope().getInstance(clazz, name);
+            scope.clear();
+          }
+          return instance;
         }
-        return instance;
+        return getScope().getInstance(clazz, name);
       }
-      return getScope().getInstance(clazz, name);
+    } finally {
+      configuration.onLockReleased(LockKind.THREAD_SAFE_PROVIDER, clazz, name, lockWaitNanos);
     }
   }
 
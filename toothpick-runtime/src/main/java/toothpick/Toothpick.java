@@ -16,11 +16,19 @@
  */
 package toothpick;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import toothpick.Scope.ScopeConfig;
 import toothpick.configuration.Configuration;
 import toothpick.configuration.ConfigurationHolder;
+import toothpick.monitoring.LockKind;
+import toothpick.monitoring.ScopeOperation;
 
 /**
  * Main class to access toothpick features. It allows to create / retrieve scopes and perform
@@ -41,6 +49,31 @@ public class Toothpick {
       new ConcurrentHashMap<>();
   // ConcurrentHashSet doesn't exist so we're not using a Set ;)
   private static final ConcurrentHashMap<Object, Scope> ROOT_SCOPES = new ConcurrentHashMap<>();
+  // opening an existing scope doesn't lock. Creating and closing a scope locks the stripe of its
+  // name only, so that unrelated scopes can be created and closed in parallel, while a given name
+  // can't be created and closed at the same time.
+  private static final int SCOPE_LOCK_COUNT = 32;
+  private static final Object[] SCOPE_LOCKS = new Object[SCOPE_LOCK_COUNT];
+
+  static {
+    for (int i = 0; i < SCOPE_LOCK_COUNT; i++) {
+      SCOPE_LOCKS[i] = new Object();
+    }
+  }
+
+  private static final ScopePool SCOPE_POOL = new ScopePool();
+  // returned when closed scopes are cleaned up before closeScope returns
+  private static final FutureTask<Void> CLEANED_UP_SCOPES =
+      new FutureTask<>(
+          new Runnable() {
+            @Override
+            public void run() {}
+          },
+          null);
+
+  static {
+    CLEANED_UP_SCOPES.run();
+  }
   static Injector injector = new InjectorImpl();
 
   protected Toothpick() {
@@ -59,15 +92,16 @@ public class Toothpick {
    * @return the root scope.
    */
   public static Scope openRootScope() {
-    synchronized (ROOT_SCOPES) {
-      if (ROOT_SCOPES.size() > 1) {
+    Iterator<Scope> rootScopes = ROOT_SCOPES.values().iterator();
+    if (rootScopes.hasNext()) {
+      Scope rootScope = rootScopes.next();
+      if (rootScopes.hasNext()) {
         throw new RuntimeException(
             "openRootScope() is not supported when multiple root scopes are enabled. Use 'Configuration.preventMultipleRootScopes()' to enable it.");
-      } else if (ROOT_SCOPES.size() == 1) {
-        return ROOT_SCOPES.values().iterator().next();
       }
-      return openScope(Toothpick.class);
+      return rootScope;
     }
+    return openScope(Toothpick.class);
   }
 
   /**
@@ -113,7 +147,8 @@ public class Toothpick {
       throw new IllegalArgumentException("null scope names are not allowed.");
     }
 
-    return MAP_KEY_TO_SCOPE.containsKey(name);
+    ScopeNode scope = (ScopeNode) MAP_KEY_TO_SCOPE.get(name);
+    return scope != null && scope.isOpen;
   }
 
   /**
@@ -187,59 +222,176 @@ public class Toothpick {
    * @param isRootScope whether or not this is a root scope
    */
   private static Scope openScope(Object name, boolean isRootScope) {
-    synchronized (ROOT_SCOPES) {
-      if (name == null) {
-        throw new IllegalArgumentException("null scope names are not allowed.");
-      }
+    if (name == null) {
+      throw new IllegalArgumentException("null scope names are not allowed.");
+    }
 
-      Scope scope = MAP_KEY_TO_SCOPE.get(name);
-      if (scope != null) {
+    final Configuration configuration = ConfigurationHolder.configuration;
+    configuration.onScopeOperationStart(ScopeOperation.OPEN, name);
+    try {
+      return doOpenScope(name, isRootScope);
+    } finally {
+      configuration.onScopeOperationEnd(ScopeOperation.OPEN, name);
+    }
+  }
+
+  private static Scope doOpenScope(Object name, boolean isRootScope) {
+    ScopeNode scope = (ScopeNode) MAP_KEY_TO_SCOPE.get(name);
+    if (scope != null && scope.isOpen) {
+      return scope;
+    }
+
+    final Configuration configuration = ConfigurationHolder.configuration;
+    final long lockRequestNanos = configuration.onLockRequested();
+    long lockWaitNanos = Configuration.NOT_TIMED;
+    try {
+      synchronized (getScopeLock(name)) {
+        lockWaitNanos = configuration.onLockAcquired(lockRequestNanos);
+        scope = (ScopeNode) MAP_KEY_TO_SCOPE.get(name);
+        if (scope != null) {
+          if (scope.isOpen) {
+            return scope;
+          }
+          // the scope was closed as a sub-scope and is not removed from the map yet
+          MAP_KEY_TO_SCOPE.remove(name, scope);
+        }
+        scope = SCOPE_POOL.obtain(name);
+        MAP_KEY_TO_SCOPE.put(name, scope);
+        if (isRootScope) {
+          ROOT_SCOPES.put(name, scope);
+          ConfigurationHolder.configuration.checkMultipleRootScopes(scope);
+        }
         return scope;
       }
-      scope = new ScopeImpl(name);
-      Scope previous = MAP_KEY_TO_SCOPE.putIfAbsent(name, scope);
-      if (previous != null) {
-        // if there was already a scope by this name, we return it
-        scope = previous;
-      } else if (isRootScope) {
-        ROOT_SCOPES.put(name, scope);
-        ConfigurationHolder.configuration.checkMultipleRootScopes(scope);
-      }
-      return scope;
+    } finally {
+      configuration.onLockReleased(LockKind.ROOT_SCOPES, null, null, lockWaitNanos);
     }
   }
 
   /**
    * Detach a scope from its parent, this will trigger the garbage collection of this scope and it's
-   * sub-scopes if they are not referenced outside of Toothpick.
+   * sub-scopes if they are not referenced outside of Toothpick. If the configuration disposes
+   * closeable singletons, the closeable singletons of the scope and its sub-scopes are closed.
    *
    * @param name the name of the scope to close.
+   * @throws IllegalStateException if some closeable singletons could not be disposed. The scope is
+   *     closed nonetheless.
+   * @see Configuration#disposeCloseableSingletons()
    */
   public static void closeScope(Object name) {
-    synchronized (ROOT_SCOPES) {
-      // we remove the scope first, so that other threads don't see it, and see the next snapshot of
-      // the tree
-      ScopeNode scope = (ScopeNode) MAP_KEY_TO_SCOPE.remove(name);
-      if (scope != null) {
+    closeScope(name, null, false);
+  }
+
+  /**
+   * Detach a scope from its parent, this will trigger the garbage collection of this scope and it's
+   * sub-scopes if they are not referenced outside of Toothpick. The scope and its sub-scopes are
+   * closed when this method returns, but the removal of the sub-scopes from Toothpick, and their
+   * release if {@code releaseScopes} is true, are performed by {@code executor}. This is useful to
+   * close scopes that have many sub-scopes.
+   *
+   * @param name the name of the scope to close.
+   * @param executor the executor used to clean up the closed scopes. If null, they are cleaned up
+   *     before this method returns.
+   * @param releaseScopes whether to release the closed scopes and their sub-scopes.
+   * @return a future that is done once the closed scopes are cleaned up. If some closeable
+   *     singletons could not be disposed, its {@code get} method throws an {@link
+   *     java.util.concurrent.ExecutionException} caused by the {@link IllegalStateException}
+   *     reporting them.
+   * @throws IllegalStateException if some closeable singletons could not be disposed and {@code
+   *     executor} is null. The scope is closed nonetheless.
+   * @see Scope#release()
+   * @see Configuration#disposeCloseableSingletons()
+   */
+  public static Future<Void> closeScope(
+      Object name, Executor executor, final boolean releaseScopes) {
+    final Configuration configuration = ConfigurationHolder.configuration;
+    configuration.onScopeOperationStart(ScopeOperation.CLOSE, name);
+    final List<ScopeNode> closedScopes;
+    try {
+      closedScopes = doCloseScope(name);
+    } finally {
+      configuration.onScopeOperationEnd(ScopeOperation.CLOSE, name);
+    }
+    if (closedScopes == null) {
+      return CLEANED_UP_SCOPES;
+    }
+
+    if (executor == null) {
+      removeScopesFromMap(closedScopes, releaseScopes, configuration);
+      return CLEANED_UP_SCOPES;
+    }
+    // the failures of the clean up, including disposal failures, are reported by the future
+    FutureTask<Void> cleanUp =
+        new FutureTask<>(
+            new Runnable() {
+              @Override
+              public void run() {
+                removeScopesFromMap(closedScopes, releaseScopes, configuration);
+              }
+            },
+            null);
+    executor.execute(cleanUp);
+    return cleanUp;
+  }
+
+  /**
+   * Detaches a scope from the scope forest and marks it closed with all its sub-scopes. The closed
+   * scopes are not removed from {@link #MAP_KEY_TO_SCOPE}, except the scope itself, as there might
+   * be many of them. It is safe as closed scopes are never returned by {@link #openScope(Object)}.
+   *
+   * @param name the name of the scope to close.
+   * @return the closed scopes, parents before children, or null if there is no open scope by this
+   *     name.
+   */
+  private static List<ScopeNode> doCloseScope(Object name) {
+    final Configuration configuration = ConfigurationHolder.configuration;
+    final long lockRequestNanos = configuration.onLockRequested();
+    long lockWaitNanos = Configuration.NOT_TIMED;
+    try {
+      synchronized (getScopeLock(name)) {
+        lockWaitNanos = configuration.onLockAcquired(lockRequestNanos);
+        // we remove the scope first, so that other threads don't see it, and see the next snapshot
+        // of the tree
+        ScopeNode scope = (ScopeNode) MAP_KEY_TO_SCOPE.remove(name);
+        if (scope == null || !scope.isOpen) {
+          // a scope that is already closed is removed by the thread that closed it
+          return null;
+        }
         ScopeNode parentScope = scope.getParentScope();
         if (parentScope != null) {
           parentScope.removeChild(scope);
         } else {
           ConfigurationHolder.configuration.onScopeForestReset();
-          ROOT_SCOPES.remove(name);
+          ROOT_SCOPES.remove(name, scope);
         }
-        removeScopeAndChildrenFromMap(scope);
+        return closeScopeAndChildren(scope);
       }
+    } finally {
+      configuration.onLockReleased(LockKind.ROOT_SCOPES, null, null, lockWaitNanos);
     }
   }
 
   /** Clears all scopes. Useful for testing and not getting any leak... */
   public static void reset() {
+    // all scopes are closed even if some closeable singletons can't be disposed
+    IllegalStateException disposalException = null;
     for (Object name : Collections.list(MAP_KEY_TO_SCOPE.keys())) {
-      closeScope(name);
+      try {
+        closeScope(name);
+      } catch (IllegalStateException e) {
+        if (disposalException == null) {
+          disposalException = e;
+        } else {
+          disposalException.addSuppressed(e);
+        }
+      }
     }
     ConfigurationHolder.configuration.onScopeForestReset();
     ScopeImpl.resetUnScopedProviders();
+    SCOPE_POOL.clear();
+    if (disposalException != null) {
+      throw disposalException;
+    }
   }
 
   /**
@@ -253,6 +405,21 @@ public class Toothpick {
     scopeNode.reset();
   }
 
+  /**
+   * Opens an anonymous sub scope of {@code parentScope}. Unlike named sub scopes, it is neither
+   * registered in Toothpick nor as a child of its parent, so it is cheap to create and to dispose
+   * of, and is well suited to scopes that only live for the duration of a request.
+   *
+   * @param parentScope the parent of the ephemeral scope, it must be open.
+   * @return a new ephemeral sub scope of {@code parentScope}, that must be closed once it is not
+   *     needed anymore.
+   * @see EphemeralScope
+   */
+  public static EphemeralScope openEphemeralSubScope(Scope parentScope) {
+    ScopeImpl scopeImpl = (ScopeImpl) parentScope;
+    return scopeImpl.openEphemeralSubScope();
+  }
+
   /**
    * Resets the state of a single scope. Useful for automation testing when we want to reset the
    * scope used to install test modules.
@@ -272,21 +439,74 @@ public class Toothpick {
    * @param scope the scope in which all dependencies are obtained.
    */
   public static void inject(Object obj, Scope scope) {
-    injector.inject(obj, scope);
+    final Configuration configuration = ConfigurationHolder.configuration;
+    if (!configuration.hasInjectionListeners()) {
+      injector.inject(obj, scope);
+      return;
+    }
+    configuration.onInjectionStart(obj.getClass(), scope);
+    try {
+      injector.inject(obj, scope);
+    } finally {
+      configuration.onInjectionEnd(obj.getClass(), scope);
+    }
   }
 
   /**
-   * Removes all nodes of {@code scope} using DFS. We don't lock here.
+   * Marks all nodes of {@code scope} closed using BFS. It is iterative so that deep trees of scopes
+   * can't overflow the stack.
    *
-   * @param scope the parent scope of which all children will recursively be removed from the map.
-   *     We don't do anything else to the children nodes are they will be garbage collected soon. We
-   *     just cut a whole sub-graph in the references graph of the JVM normally.
+   * @param scope the parent scope of which all children will be closed.
+   * @return the closed scopes, parents before children.
    */
-  private static void removeScopeAndChildrenFromMap(ScopeNode scope) {
-    MAP_KEY_TO_SCOPE.remove(scope.getName());
-    scope.close();
-    for (ScopeNode childScope : scope.childrenScopes.values()) {
-      removeScopeAndChildrenFromMap(childScope);
+  private static List<ScopeNode> closeScopeAndChildren(ScopeNode scope) {
+    List<ScopeNode> closedScopes = new ArrayList<>();
+    closedScopes.add(scope);
+    for (int i = 0; i < closedScopes.size(); i++) {
+      ScopeNode closedScope = closedScopes.get(i);
+      closedScope.close();
+      closedScopes.addAll(closedScope.childrenScopes.values());
+    }
+    return closedScopes;
+  }
+
+  /**
+   * Removes closed scopes from the map. We don't hold any lock while iterating, the scopes are only
+   * removed from the map if they are still mapped to the closed nodes, not if a new scope by the
+   * same name was opened in the meantime. We don't do anything else to the closed nodes are they
+   * will be garbage collected soon, unless they are recycled. Their closeable singletons are
+   * disposed last, once the scopes can't be reached anymore.
+   *
+   * @param closedScopes the closed scopes, parents before children.
+   * @param releaseScopes whether to release the closed scopes.
+   * @param configuration the configuration used to close the scopes. Nodes are recycled after their
+   *     children, as recycling a node drops its children.
+   */
+  private static void removeScopesFromMap(
+      List<ScopeNode> closedScopes, boolean releaseScopes, Configuration configuration) {
+    final int maxPooledScopes = configuration.getMaxPooledScopes();
+    List<Disposable> disposables = null;
+    if (configuration.isDisposingCloseableSingletons()) {
+      // parents first, as singletons are disposed in reverse order
+      disposables = new ArrayList<>();
+      for (ScopeNode closedScope : closedScopes) {
+        if (closedScope instanceof ScopeImpl) {
+          ((ScopeImpl) closedScope).drainDisposables(disposables);
+        }
+      }
+    }
+    for (int i = closedScopes.size() - 1; i >= 0; i--) {
+      ScopeNode closedScope = closedScopes.get(i);
+      removeScopeFromMap(closedScope);
+      if (releaseScopes && closedScope instanceof ScopeImpl) {
+        ((ScopeImpl) closedScope).releaseScopedProviders();
+      }
+      if (maxPooledScopes > 0) {
+        SCOPE_POOL.recycle(closedScope, maxPooledScopes);
+      }
+    }
+    if (disposables != null) {
+      Disposer.dispose(disposables, configuration);
     }
   }
 
@@ -299,8 +519,37 @@ public class Toothpick {
     ConfigurationHolder.configuration = configuration;
   }
 
+  private static void removeScopeFromMap(ScopeNode scope) {
+    final Object name = scope.getName();
+    final Configuration configuration = ConfigurationHolder.configuration;
+    final long lockRequestNanos = configuration.onLockRequested();
+    long lockWaitNanos = Configuration.NOT_TIMED;
+    try {
+      synchronized (getScopeLock(name)) {
+        lockWaitNanos = configuration.onLockAcquired(lockRequestNanos);
+        // scopes are equal when their names are, so we compare them by identity under the lock
+        if (MAP_KEY_TO_SCOPE.get(name) == scope) {
+          MAP_KEY_TO_SCOPE.remove(name);
+        }
+      }
+    } finally {
+      configuration.onLockReleased(LockKind.ROOT_SCOPES, null, null, lockWaitNanos);
+    }
+  }
+
+  private static Object getScopeLock(Object name) {
+    int hash = name.hashCode();
+    hash ^= hash >>> 16;
+    return SCOPE_LOCKS[hash & (SCOPE_LOCK_COUNT - 1)];
+  }
+
   /*for testing.*/
   static int getScopeNamesSize() {
     return MAP_KEY_TO_SCOPE.size();
   }
+
+  /*for testing.*/
+  static int getPooledScopesSize() {
+    return SCOPE_POOL.size();
+  }
 }
@@ -16,8 +16,21 @@
  */
 package toothpick.configuration;
 
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import toothpick.Scope;
 import toothpick.config.Binding;
+import toothpick.monitoring.CreationListener;
+import toothpick.monitoring.InjectionListener;
+import toothpick.monitoring.LocatorKind;
+import toothpick.monitoring.LocatorListener;
+import toothpick.monitoring.LockKind;
+import toothpick.monitoring.LockListener;
+import toothpick.monitoring.LookupListener;
+import toothpick.monitoring.LookupOrigin;
+import toothpick.monitoring.ScopeListener;
+import toothpick.monitoring.ScopeOperation;
 
 /**
  * Strategy pattern that allows to change various behaviors of Toothpick. The default configuration
@@ -25,11 +38,32 @@ import toothpick.config.Binding;
  * even possible to use a composition of the built-in configurations.
  */
 public class Configuration
-    implements RuntimeCheckConfiguration, MultipleRootScopeCheckConfiguration {
+    implements RuntimeCheckConfiguration,
+        MultipleRootScopeCheckConfiguration,
+        CreationListener,
+        InjectionListener,
+        ScopeListener,
+        LookupListener {
+
+  /**
+   * The value of the timestamps and durations that are not measured because nothing monitors them.
+   * {@link System#nanoTime()} can return any value, but not this one in practice.
+   */
+  public static final long NOT_TIMED = Long.MIN_VALUE;
 
   private RuntimeCheckConfiguration runtimeCheckConfiguration = new RuntimeCheckOffConfiguration();
   private MultipleRootScopeCheckConfiguration multipleRootScopeCheckConfiguration =
       new MultipleRootScopeCheckOffConfiguration();
+  private CreationListener[] creationListeners = new CreationListener[0];
+  private InjectionListener[] injectionListeners = new InjectionListener[0];
+  private ScopeListener[] scopeListeners = new ScopeListener[0];
+  private LockListener[] lockListeners = new LockListener[0];
+  private LookupListener[] lookupListeners = new LookupListener[0];
+  private LocatorListener[] locatorListeners = new LocatorListener[0];
+  private int maxPooledScopes;
+  private boolean isDisposingCloseableSingletons;
+  private ExecutorService disposalExecutorService;
+  private long disposalTimeoutNanos;
 
   /**
    * Performs many runtime checks. This configuration reduces performance. It should be used only
@@ -82,6 +116,234 @@ public class Configuration
     return this;
   }
 
+  /**
+   * Registers a listener that will be notified of all instance creations. Listeners slow down the
+   * creation of instances, they are meant to be used for monitoring and tracing.
+   *
+   * @param creationListener the listener to register.
+   * @return this configuration.
+   * @see toothpick.monitoring.CreationTracer
+   */
+  public Configuration addCreationListener(CreationListener creationListener) {
+    if (creationListener == null) {
+      throw new IllegalArgumentException("The creation listener can't be null.");
+    }
+    CreationListener[] newCreationListeners =
+        Arrays.copyOf(creationListeners, creationListeners.length + 1);
+    newCreationListeners[creationListeners.length] = creationListener;
+    creationListeners = newCreationListeners;
+    return this;
+  }
+
+  /**
+   * Registers a listener that will be notified every time the members of an instance that was not
+   * created by Toothpick are injected.
+   *
+   * @param injectionListener the listener to register.
+   * @return this configuration.
+   * @see toothpick.monitoring.SlowCreationDetector
+   */
+  public Configuration addInjectionListener(InjectionListener injectionListener) {
+    if (injectionListener == null) {
+      throw new IllegalArgumentException("The injection listener can't be null.");
+    }
+    InjectionListener[] newInjectionListeners =
+        Arrays.copyOf(injectionListeners, injectionListeners.length + 1);
+    newInjectionListeners[injectionListeners.length] = injectionListener;
+    injectionListeners = newInjectionListeners;
+    return this;
+  }
+
+  /**
+   * Registers a listener that will be notified of all operations on scopes: opening, closing,
+   * installing modules and releasing.
+   *
+   * @param scopeListener the listener to register.
+   * @return this configuration.
+   */
+  public Configuration addScopeListener(ScopeListener scopeListener) {
+    if (scopeListener == null) {
+      throw new IllegalArgumentException("The scope listener can't be null.");
+    }
+    ScopeListener[] newScopeListeners = Arrays.copyOf(scopeListeners, scopeListeners.length + 1);
+    newScopeListeners[scopeListeners.length] = scopeListener;
+    scopeListeners = newScopeListeners;
+    return this;
+  }
+
+  /**
+   * Registers a listener that will be notified every time a thread acquires one of the internal
+   * locks of Toothpick, with the time it waited for it. When no lock listener is registered, the
+   * locks are not timed.
+   *
+   * @param lockListener the listener to register.
+   * @return this configuration.
+   * @see toothpick.monitoring.LockContentionStats
+   */
+  public Configuration addLockListener(LockListener lockListener) {
+    if (lockListener == null) {
+      throw new IllegalArgumentException("The lock listener can't be null.");
+    }
+    LockListener[] newLockListeners = Arrays.copyOf(lockListeners, lockListeners.length + 1);
+    newLockListeners[lockListeners.length] = lockListener;
+    lockListeners = newLockListeners;
+    return this;
+  }
+
+  /**
+   * Registers a listener that will be notified every time a scope looks up the provider of a
+   * binding.
+   *
+   * @param lookupListener the listener to register.
+   * @return this configuration.
+   * @see toothpick.monitoring.LookupStats
+   */
+  public Configuration addLookupListener(LookupListener lookupListener) {
+    if (lookupListener == null) {
+      throw new IllegalArgumentException("The lookup listener can't be null.");
+    }
+    LookupListener[] newLookupListeners =
+        Arrays.copyOf(lookupListeners, lookupListeners.length + 1);
+    newLookupListeners[lookupListeners.length] = lookupListener;
+    lookupListeners = newLookupListeners;
+    return this;
+  }
+
+  /**
+   * Registers a listener that will be notified every time Toothpick locates a generated factory or
+   * member injector, with the time it took. When no locator listener is registered, the locators
+   * are not timed.
+   *
+   * @param locatorListener the listener to register.
+   * @return this configuration.
+   */
+  public Configuration addLocatorListener(LocatorListener locatorListener) {
+    if (locatorListener == null) {
+      throw new IllegalArgumentException("The locator listener can't be null.");
+    }
+    LocatorListener[] newLocatorListeners =
+        Arrays.copyOf(locatorListeners, locatorListeners.length + 1);
+    newLocatorListeners[locatorListeners.length] = locatorListener;
+    locatorListeners = newLocatorListeners;
+    return this;
+  }
+
+  /**
+   * Recycles closed scopes. When a scope is closed via {@link toothpick.Toothpick}, it is reset and
+   * kept in a pool, up to {@code maxPooledScopes} scopes, so that its tables are reused by the next
+   * scope opened via {@link toothpick.Toothpick}. It reduces allocations when short lived scopes
+   * are opened and closed at a high rate.
+   *
+   * <p>Only the internal tables of closed scopes are reused, a recycled scope is never reopened.
+   * All further uses of a recycled scope, including via its providers, its lazies and injected
+   * {@code Scope} instances, throw an {@link IllegalStateException}.
+   *
+   * @param maxPooledScopes the maximum number of closed scopes kept for reuse, 0 disables the pool.
+   * @return this configuration.
+   */
+  public Configuration enableScopePool(int maxPooledScopes) {
+    if (maxPooledScopes < 0) {
+      throw new IllegalArgumentException("The size of the scope pool can't be negative.");
+    }
+    this.maxPooledScopes = maxPooledScopes;
+    return this;
+  }
+
+  /** @return the maximum number of closed scopes kept for reuse, 0 if scopes are not recycled. */
+  public int getMaxPooledScopes() {
+    return maxPooledScopes;
+  }
+
+  /**
+   * Disposes the singletons that implement {@link AutoCloseable} when their scope is closed via
+   * {@link toothpick.Toothpick}. They are closed on the thread closing the scope, in the reverse
+   * order of their dependencies: a singleton is closed after all the singletons that depend on it.
+   * Only the dependencies obtained while a singleton is created are known to Toothpick, not the
+   * ones obtained later via a {@code Provider} or a {@code Lazy}.
+   *
+   * @return this configuration.
+   */
+  public Configuration disposeCloseableSingletons() {
+    this.isDisposingCloseableSingletons = true;
+    this.disposalExecutorService = null;
+    this.disposalTimeoutNanos = 0;
+    return this;
+  }
+
+  /**
+   * Disposes the singletons that implement {@link AutoCloseable} when their scope is closed via
+   * {@link toothpick.Toothpick}, like {@link #disposeCloseableSingletons()}, but singletons that
+   * don't depend on each other are closed in parallel on {@code executorService}. The thread
+   * closing the scope waits for all singletons to be closed, but doesn't wait more than {@code
+   * timeout} in total. The singletons that are not closed by then are reported as timed out.
+   *
+   * @param executorService the executor used to close the singletons.
+   * @param timeout the maximum time to wait for all the singletons of the closed scopes to be
+   *     closed.
+   * @param timeUnit the unit of {@code timeout}.
+   * @return this configuration.
+   */
+  public Configuration disposeCloseableSingletons(
+      ExecutorService executorService, long timeout, TimeUnit timeUnit) {
+    if (executorService == null) {
+      throw new IllegalArgumentException("The executor service can't be null.");
+    }
+    if (timeout <= 0) {
+      throw new IllegalArgumentException("The disposal timeout must be positive.");
+    }
+    this.isDisposingCloseableSingletons = true;
+    this.disposalExecutorService = executorService;
+    this.disposalTimeoutNanos = timeUnit.toNanos(timeout);
+    return this;
+  }
+
+  /** @return true if closeable singletons are disposed when their scope is closed. */
+  public boolean isDisposingCloseableSingletons() {
+    return isDisposingCloseableSingletons;
+  }
+
+  /** @return the executor used to dispose closeable singletons, null to dispose them serially. */
+  public ExecutorService getDisposalExecutorService() {
+    return disposalExecutorService;
+  }
+
+  /** @return the maximum time to wait for a singleton to be disposed, in nanoseconds. */
+  public long getDisposalTimeoutNanos() {
+    return disposalTimeoutNanos;
+  }
+
+  /**
+   * Static wiring lets generated factories create their unbound, unscoped, dependencies directly.
+   * These creations are not visible to the runtime checks and to the creation and lookup
+   * listeners, so static wiring is only allowed when none of them is active.
+   *
+   * @return true if the dependencies can be statically wired.
+   * @see toothpick.StaticWiring
+   */
+  public boolean allowsStaticWiring() {
+    return runtimeCheckConfiguration instanceof RuntimeCheckOffConfiguration
+        && creationListeners.length == 0
+        && lookupListeners.length == 0;
+  }
+
+  /**
+   * Dependency plans let factories reuse the providers of their dependencies, without looking them
+   * up nor checking cycles. They are only allowed when no runtime check and no lookup listener is
+   * active.
+   *
+   * @return true if the dependencies can be obtained via dependency plans.
+   * @see toothpick.PlannedFactory
+   */
+  public boolean allowsDependencyPlans() {
+    return runtimeCheckConfiguration instanceof RuntimeCheckOffConfiguration
+        && lookupListeners.length == 0;
+  }
+
+  /** @return true if lookup listeners are registered, all lookups must then be notified. */
+  public boolean hasLookupListeners() {
+    return lookupListeners.length != 0;
+  }
+
   @Override
   public void checkIllegalBinding(Binding binding, Scope scope) {
     runtimeCheckConfiguration.checkIllegalBinding(binding, scope);
@@ -106,4 +368,133 @@ public class Configuration
   public void onScopeForestReset() {
     multipleRootScopeCheckConfiguration.onScopeForestReset();
   }
+
+  @Override
+  public void onCreationStart(Class<?> clazz, String name, Scope scope) {
+    for (CreationListener creationListener : creationListeners) {
+      creationListener.onCreationStart(clazz, name, scope);
+    }
+  }
+
+  @Override
+  public void onCreationEnd(Class<?> clazz, String name, Scope scope) {
+    // notify in reverse order so that listeners are nested
+    for (int i = creationListeners.length - 1; i >= 0; i--) {
+      creationListeners[i].onCreationEnd(clazz, name, scope);
+    }
+  }
+
+  @Override
+  public void onInjectionStart(Class<?> clazz, Scope scope) {
+    for (InjectionListener injectionListener : injectionListeners) {
+      injectionListener.onInjectionStart(clazz, scope);
+    }
+  }
+
+  @Override
+  public void onInjectionEnd(Class<?> clazz, Scope scope) {
+    // notify in reverse order so that listeners are nested
+    for (int i = injectionListeners.length - 1; i >= 0; i--) {
+      injectionListeners[i].onInjectionEnd(clazz, scope);
+    }
+  }
+
+  /** @return true if injection listeners are registered. */
+  public boolean hasInjectionListeners() {
+    return injectionListeners.length != 0;
+  }
+
+  @Override
+  public void onScopeOperationStart(ScopeOperation operation, Object scopeName) {
+    for (ScopeListener scopeListener : scopeListeners) {
+      scopeListener.onScopeOperationStart(operation, scopeName);
+    }
+  }
+
+  @Override
+  public void onScopeOperationEnd(ScopeOperation operation, Object scopeName) {
+    // notify in reverse order so that listeners are nested
+    for (int i = scopeListeners.length - 1; i >= 0; i--) {
+      scopeListeners[i].onScopeOperationEnd(operation, scopeName);
+    }
+  }
+
+  @Override
+  public void onProviderLookedUp(
+      Scope scope, Class<?> clazz, String name, LookupOrigin origin, int depth, int probes) {
+    for (LookupListener lookupListener : lookupListeners) {
+      lookupListener.onProviderLookedUp(scope, clazz, name, origin, depth, probes);
+    }
+  }
+
+  /**
+   * To be called right before acquiring one of the internal locks of Toothpick.
+   *
+   * @return the time at which the thread started waiting for the lock, or {@link #NOT_TIMED} if
+   *     locks are not monitored.
+   * @see #onLockAcquired(long)
+   */
+  public long onLockRequested() {
+    return lockListeners.length == 0 ? NOT_TIMED : System.nanoTime();
+  }
+
+  /**
+   * To be called right after acquiring one of the internal locks of Toothpick. Listeners are not
+   * notified while the lock is held, so that they don't add to the contention they measure.
+   *
+   * @param requestNanos the value returned by {@link #onLockRequested()}.
+   * @return the time the thread waited for the lock, or {@link #NOT_TIMED} if locks are not
+   *     monitored. It must be passed to {@link #onLockReleased(LockKind, Class, String, long)}.
+   */
+  public long onLockAcquired(long requestNanos) {
+    return requestNanos == NOT_TIMED ? NOT_TIMED : System.nanoTime() - requestNanos;
+  }
+
+  /**
+   * To be called right after releasing one of the internal locks of Toothpick, even if the code
+   * holding the lock failed.
+   *
+   * @param lockKind the lock that was acquired.
+   * @param clazz the class of the binding for which the lock was acquired, if any.
+   * @param name the name of the binding for which the lock was acquired, if any.
+   * @param waitNanos the value returned by {@link #onLockAcquired(long)}, or {@link #NOT_TIMED} if
+   *     the lock was not acquired.
+   */
+  public void onLockReleased(LockKind lockKind, Class<?> clazz, String name, long waitNanos) {
+    if (waitNanos == NOT_TIMED) {
+      return;
+    }
+    for (LockListener lockListener : lockListeners) {
+      lockListener.onLockAcquired(lockKind, clazz, name, waitNanos);
+    }
+  }
+
+  /**
+   * To be called right before locating a generated class.
+   *
+   * @return the time at which the locator started, or {@link #NOT_TIMED} if locators are not
+   *     monitored.
+   * @see #onLocateEnd(LocatorKind, Class, boolean, long)
+   */
+  public long onLocateStart() {
+    return locatorListeners.length == 0 ? NOT_TIMED : System.nanoTime();
+  }
+
+  /**
+   * To be called right after locating a generated class.
+   *
+   * @param locatorKind the kind of generated class that was located.
+   * @param clazz the class for which the generated class was located.
+   * @param found whether the generated class was found.
+   * @param startNanos the value returned by {@link #onLocateStart()}.
+   */
+  public void onLocateEnd(LocatorKind locatorKind, Class<?> clazz, boolean found, long startNanos) {
+    if (startNanos == NOT_TIMED) {
+      return;
+    }
+    long durationNanos = System.nanoTime() - startNanos;
+    for (LocatorListener locatorListener : locatorListeners) {
+      locatorListener.onLocated(locatorKind, clazz, found, durationNanos);
+    }
+  }
 }
@@ -17,6 +17,9 @@
 package toothpick.locators;
 
 import toothpick.Factory;
+import toothpick.configuration.Configuration;
+import toothpick.configuration.ConfigurationHolder;
+import toothpick.monitoring.LocatorKind;
 
 /**
  * The locator retrieves a {@link Factory} for a given class. In case no generated factory for a
@@ -29,12 +32,31 @@ public class FactoryLocator {
 
   @SuppressWarnings("unchecked")
   public static <T> Factory<T> getFactory(Class<T> clazz) {
+    Configuration configuration = ConfigurationHolder.configuration;
+    long startNanos = configuration.onLocateStart();
+    boolean found = false;
     try {
       Class<? extends Factory<T>> factoryClass =
-          (Class<? extends Factory<T>>) Class.forName(clazz.getName() + "__Factory");
-      return factoryClass.newInstance();
+          (Class<? extends Factory<T>>) loadGeneratedClass(clazz, "__Factory");
+      Factory<T> factory = factoryClass.newInstance();
+      found = true;
+      return factory;
     } catch (Exception e) {
       throw new NoFactoryFoundException(clazz, e);
+    } finally {
+      configuration.onLocateEnd(LocatorKind.FACTORY, clazz, found, startNanos);
     }
   }
+
+  // the generated class is looked up in the class loader of the class, so that classes loaded by
+  // child class loaders can be injected.
+  private static Class<?> loadGeneratedClass(Class<?> clazz, String suffix)
+      throws ClassNotFoundException {
+    String generatedClassName = clazz.getName() + suffix;
+    ClassLoader classLoader = clazz.getClassLoader();
+    if (classLoader == null) {
+      return Class.forName(generatedClassName);
+    }
+    return Class.forName(generatedClassName, true, classLoader);
+  }
 }
@@ -17,6 +17,9 @@
 package toothpick.locators;
 
 import toothpick.MemberInjector;
+import toothpick.configuration.Configuration;
+import toothpick.configuration.ConfigurationHolder;
+import toothpick.monitoring.LocatorKind;
 
 /**
  * Locates the {@link MemberInjector} instances. If not {@link MemberInjector} is found, we simply
@@ -29,12 +32,31 @@ public class MemberInjectorLocator {
 
   @SuppressWarnings("unchecked")
   public static <T> MemberInjector<T> getMemberInjector(Class<T> clazz) {
+    Configuration configuration = ConfigurationHolder.configuration;
+    long startNanos = configuration.onLocateStart();
+    MemberInjector<T> memberInjector = null;
     try {
       Class<? extends MemberInjector<T>> memberInjectorClass =
-          (Class<? extends MemberInjector<T>>) Class.forName(clazz.getName() + "__MemberInjector");
-      return memberInjectorClass.newInstance();
+          (Class<? extends MemberInjector<T>>) loadGeneratedClass(clazz, "__MemberInjector");
+      memberInjector = memberInjectorClass.newInstance();
+      return memberInjector;
     } catch (Exception e) {
       return null;
+    } finally {
+      configuration.onLocateEnd(
+          LocatorKind.MEMBER_INJECTOR, clazz, memberInjector != null, startNanos);
     }
   }
+
+  // the generated class is looked up in the class loader of the class, so that classes loaded by
+  // child class loaders can be injected.
+  private static Class<?> loadGeneratedClass(Class<?> clazz, String suffix)
+      throws ClassNotFoundException {
+    String generatedClassName = clazz.getName() + suffix;
+    ClassLoader classLoader = clazz.getClassLoader();
+    if (classLoader == null) {
+      return Class.forName(generatedClassName);
+    }
+    return Class.forName(generatedClassName, true, classLoader);
+  }
 }
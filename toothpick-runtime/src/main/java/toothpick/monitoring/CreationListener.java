@@ -0,0 +1,49 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.monitoring;
+
+import toothpick.Scope;
+
+/**
+ * Gets notified every time Toothpick creates an instance. Calls are made on the thread that creates
+ * the instance, and nested dependencies are notified between the start and end calls of the
+ * instance that depends on them. Scoped instances that have already been created are not notified.
+ *
+ * <p>Listeners are registered via {@link
+ * toothpick.configuration.Configuration#addCreationListener(CreationListener)}.
+ */
+public interface CreationListener {
+  /**
+   * Called when Toothpick starts creating an instance.
+   *
+   * @param clazz the class that was requested, can be {@code null} if the instance is not created
+   *     through a scope.
+   * @param name the name of the binding, {@code null} for unnamed bindings.
+   * @param scope the scope in which the instance is created.
+   */
+  void onCreationStart(Class<?> clazz, String name, Scope scope);
+
+  /**
+   * Called when Toothpick has created an instance, or failed to create it.
+   *
+   * @param clazz the class that was requested, can be {@code null} if the instance is not created
+   *     through a scope.
+   * @param name the name of the binding, {@code null} for unnamed bindings.
+   * @param scope the scope in which the instance is created.
+   */
+  void onCreationEnd(Class<?> clazz, String name, Scope scope);
+}
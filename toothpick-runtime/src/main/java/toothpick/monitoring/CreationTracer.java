@@ -0,0 +1,281 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.monitoring;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import toothpick.Scope;
+
+/**
+ * Records all instance creations as nested spans. Each span contains the class and name of the
+ * binding, the scope in which the instance was created, the thread and the wall time of the
+ * creation. Dependencies created while creating an instance are recorded as children spans of this
+ * instance.
+ *
+ * <p>The trace can be exported to the Chrome trace event format, which can be opened in {@code
+ * chrome://tracing} or Perfetto. Each thread gets its own lane.
+ *
+ * <pre>{@code
+ * CreationTracer tracer = new CreationTracer();
+ * Toothpick.setConfiguration(Configuration.forProduction().addCreationListener(tracer));
+ * // start the app...
+ * tracer.writeChromeTrace(writer);
+ * }</pre>
+ *
+ * The tracer is thread safe.
+ */
+public class CreationTracer implements CreationListener {
+  private static final String UNKNOWN_CLASS_NAME = "<unknown>";
+
+  private final long originNanos = System.nanoTime();
+  private final ConcurrentLinkedQueue<Span> spans = new ConcurrentLinkedQueue<>();
+  private final ThreadLocal<ArrayDeque<Long>> startNanosStack =
+      new ThreadLocal<ArrayDeque<Long>>() {
+        @Override
+        protected ArrayDeque<Long> initialValue() {
+          return new ArrayDeque<>();
+        }
+      };
+
+  @Override
+  public void onCreationStart(Class<?> clazz, String name, Scope scope) {
+    startNanosStack.get().push(System.nanoTime());
+  }
+
+  @Override
+  public void onCreationEnd(Class<?> clazz, String name, Scope scope) {
+    long endNanos = System.nanoTime();
+    ArrayDeque<Long> stack = startNanosStack.get();
+    if (stack.isEmpty()) {
+      // the tracer was registered while an instance was being created
+      return;
+    }
+    long startNanos = stack.pop();
+    Thread thread = Thread.currentThread();
+    spans.add(
+        new Span(
+            clazz == null ? UNKNOWN_CLASS_NAME : clazz.getName(),
+            name,
+            String.valueOf(scope == null ? null : scope.getName()),
+            thread.getId(),
+            thread.getName(),
+            startNanos - originNanos,
+            endNanos - startNanos,
+            stack.size()));
+  }
+
+  /** @return a snapshot of all the spans recorded so far, in the order they were closed. */
+  public List<Span> getSpans() {
+    return new ArrayList<>(spans);
+  }
+
+  /** Removes all the spans recorded so far. */
+  public void clear() {
+    spans.clear();
+  }
+
+  /** @return the trace, in the Chrome trace event JSON format. */
+  public String toChromeTrace() {
+    StringBuilder builder = new StringBuilder();
+    try {
+      writeChromeTrace(builder);
+    } catch (IOException e) {
+      // JACOCO:OFF
+      throw new IllegalStateException("Should not happen with a StringBuilder.", e);
+      // JACOCO:ON
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Writes the trace in the Chrome trace event JSON format. Every span is a complete event ({@code
+   * "ph":"X"}), and every thread gets a metadata event to name its lane.
+   *
+   * @param out where to write the trace.
+   * @throws IOException if {@code out} fails.
+   */
+  public void writeChromeTrace(Appendable out) throws IOException {
+    List<Span> spans = getSpans();
+    Map<Long, String> threadNames = new LinkedHashMap<>();
+    for (Span span : spans) {
+      threadNames.put(span.threadId, span.threadName);
+    }
+
+    out.append("{\"traceEvents\":[");
+    String separator = "";
+    for (Map.Entry<Long, String> threadName : threadNames.entrySet()) {
+      out.append(separator);
+      out.append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":");
+      out.append(String.valueOf(threadName.getKey()));
+      out.append(",\"args\":{\"name\":");
+      appendJsonString(out, threadName.getValue());
+      out.append("}}");
+      separator = ",";
+    }
+    for (Span span : spans) {
+      out.append(separator);
+      out.append("{\"name\":");
+      appendJsonString(
+          out, span.bindingName == null ? span.className : span.className + "@" + span.bindingName);
+      out.append(",\"cat\":\"toothpick\",\"ph\":\"X\",\"ts\":");
+      appendMicros(out, span.startNanos);
+      out.append(",\"dur\":");
+      appendMicros(out, span.durationNanos);
+      out.append(",\"pid\":1,\"tid\":");
+      out.append(String.valueOf(span.threadId));
+      out.append(",\"args\":{\"class\":");
+      appendJsonString(out, span.className);
+      out.append(",\"name\":");
+      appendJsonString(out, span.bindingName);
+      out.append(",\"scope\":");
+      appendJsonString(out, span.scopeName);
+      out.append(",\"depth\":");
+      out.append(String.valueOf(span.depth));
+      out.append("}}");
+      separator = ",";
+    }
+    out.append("],\"displayTimeUnit\":\"ms\"}");
+  }
+
+  private static void appendMicros(Appendable out, long nanos) throws IOException {
+    out.append(String.valueOf(nanos / 1000));
+    out.append('.');
+    String fraction = String.valueOf(nanos % 1000);
+    for (int i = fraction.length(); i < 3; i++) {
+      out.append('0');
+    }
+    out.append(fraction);
+  }
+
+  private static void appendJsonString(Appendable out, String value) throws IOException {
+    if (value == null) {
+      out.append("null");
+      return;
+    }
+    out.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"':
+          out.append("\\\"");
+          break;
+        case '\\':
+          out.append("\\\\");
+          break;
+        case '\n':
+          out.append("\\n");
+          break;
+        case '\r':
+          out.append("\\r");
+          break;
+        case '\t':
+          out.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            String hex = Integer.toHexString(c);
+            out.append("\\u");
+            for (int j = hex.length(); j < 4; j++) {
+              out.append('0');
+            }
+            out.append(hex);
+          } else {
+            out.append(c);
+          }
+      }
+    }
+    out.append('"');
+  }
+
+  /** The creation of an instance. */
+  public static final class Span {
+    private final String className;
+    private final String bindingName;
+    private final String scopeName;
+    private final long threadId;
+    private final String threadName;
+    private final long startNanos;
+    private final long durationNanos;
+    private final int depth;
+
+    Span(
+        String className,
+        String bindingName,
+        String scopeName,
+        long threadId,
+        String threadName,
+        long startNanos,
+        long durationNanos,
+        int depth) {
+      this.className = className;
+      this.bindingName = bindingName;
+      this.scopeName = scopeName;
+      this.threadId = threadId;
+      this.threadName = threadName;
+      this.startNanos = startNanos;
+      this.durationNanos = durationNanos;
+      this.depth = depth;
+    }
+
+    public String getClassName() {
+      return className;
+    }
+
+    /** @return the name of the binding, {@code null} for unnamed bindings. */
+    public String getBindingName() {
+      return bindingName;
+    }
+
+    public String getScopeName() {
+      return scopeName;
+    }
+
+    public long getThreadId() {
+      return threadId;
+    }
+
+    public String getThreadName() {
+      return threadName;
+    }
+
+    /** @return the start of the creation, relative to the creation of the tracer. */
+    public long getStartNanos() {
+      return startNanos;
+    }
+
+    /** @return the wall time of the creation, including the creation of its dependencies. */
+    public long getDurationNanos() {
+      return durationNanos;
+    }
+
+    /** @return the nesting level of the span, 0 for instances that are not a dependency. */
+    public int getDepth() {
+      return depth;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "%s@%s in %s [%s] %dns", className, bindingName, scopeName, threadName, durationNanos);
+    }
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.monitoring;
+
+import toothpick.Scope;
+
+/**
+ * Gets notified every time Toothpick injects the members of an instance it didn't create, via
+ * {@link toothpick.Toothpick#inject(Object, Scope)} or {@link Scope#inject(Object)}. Calls are made
+ * on the thread that injects the instance, and the creations of its dependencies are notified
+ * between the start and end calls.
+ *
+ * <p>Listeners are registered via {@link
+ * toothpick.configuration.Configuration#addInjectionListener(InjectionListener)}.
+ */
+public interface InjectionListener {
+  /**
+   * Called when Toothpick starts injecting the members of an instance.
+   *
+   * @param clazz the class of the injected instance.
+   * @param scope the scope in which the dependencies are obtained.
+   */
+  void onInjectionStart(Class<?> clazz, Scope scope);
+
+  /**
+   * Called when Toothpick has injected the members of an instance, or failed to inject them.
+   *
+   * @param clazz the class of the injected instance.
+   * @param scope the scope in which the dependencies are obtained.
+   */
+  void onInjectionEnd(Class<?> clazz, Scope scope);
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.monitoring;
+
+/**
+ * Gets notified every time Toothpick locates a generated factory or member injector, with the time
+ * it took. The first time a class is located, this includes loading the generated class.
+ *
+ * <p>Listeners are registered via {@link
+ * toothpick.configuration.Configuration#addLocatorListener(LocatorListener)}.
+ */
+public interface LocatorListener {
+  /**
+   * Called when a locator has located, or failed to locate, the generated class for {@code clazz}.
+   *
+   * @param locatorKind the kind of generated class that was located.
+   * @param clazz the class for which the generated class was located.
+   * @param found whether the generated class was found.
+   * @param durationNanos the time it took to locate the generated class and instantiate it.
+   */
+  void onLocated(LocatorKind locatorKind, Class<?> clazz, boolean found, long durationNanos);
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.monitoring;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Aggregates the time threads wait to acquire the internal locks of Toothpick, per lock kind and
+ * per binding. For each of them, it keeps the number of acquisitions, the total wait time and the
+ * maximum wait time.
+ *
+ * <pre>{@code
+ * LockContentionStats stats = new LockContentionStats();
+ * Toothpick.setConfiguration(Configuration.forProduction().addLockListener(stats));
+ * // later...
+ * for (LockContentionStats.Entry entry : stats.getEntries()) { ... }
+ * }</pre>
+ *
+ * The stats are thread safe.
+ */
+public class LockContentionStats implements LockListener {
+  // the key of the locks that are not related to a binding
+  private static final Object NO_CLASS = new Object();
+
+  // the entries per lock kind, then per class. Looking up an entry doesn't allocate.
+  private final EnumMap<LockKind, ConcurrentHashMap<Object, ClassEntries>> entries =
+      new EnumMap<>(LockKind.class);
+
+  public LockContentionStats() {
+    for (LockKind lockKind : LockKind.values()) {
+      entries.put(lockKind, new ConcurrentHashMap<Object, ClassEntries>());
+    }
+  }
+
+  @Override
+  public void onLockAcquired(LockKind lockKind, Class<?> clazz, String name, long waitNanos) {
+    ConcurrentHashMap<Object, ClassEntries> lockKindEntries = entries.get(lockKind);
+    Object classKey = clazz == null ? NO_CLASS : clazz;
+    ClassEntries classEntries = lockKindEntries.get(classKey);
+    if (classEntries == null) {
+      ClassEntries newClassEntries = new ClassEntries(lockKind, clazz);
+      classEntries = lockKindEntries.putIfAbsent(classKey, newClassEntries);
+      if (classEntries == null) {
+        classEntries = newClassEntries;
+      }
+    }
+    classEntries.getEntry(name).record(waitNanos);
+  }
+
+  /**
+   * @return a snapshot of the stats of each lock kind and binding, sorted by decreasing total wait
+   *     time.
+   */
+  public List<Entry> getEntries() {
+    List<Entry> result = new ArrayList<>();
+    for (Entry entry : getLiveEntries()) {
+      result.add(entry.copy());
+    }
+    Collections.sort(result, new TotalWaitComparator());
+    return result;
+  }
+
+  /** @return a snapshot of the stats aggregated per lock kind. */
+  public Map<LockKind, Entry> getEntriesByLockKind() {
+    Map<LockKind, Entry> result = new EnumMap<>(LockKind.class);
+    for (Entry entry : getLiveEntries()) {
+      Entry lockKindEntry = result.get(entry.lockKind);
+      if (lockKindEntry == null) {
+        lockKindEntry = new Entry(entry.lockKind, null, null);
+        result.put(entry.lockKind, lockKindEntry);
+      }
+      lockKindEntry.merge(entry);
+    }
+    return result;
+  }
+
+  /** Removes all the stats collected so far. */
+  public void clear() {
+    for (ConcurrentHashMap<Object, ClassEntries> lockKindEntries : entries.values()) {
+      lockKindEntries.clear();
+    }
+  }
+
+  private List<Entry> getLiveEntries() {
+    List<Entry> result = new ArrayList<>();
+    for (ConcurrentHashMap<Object, ClassEntries> lockKindEntries : entries.values()) {
+      for (ClassEntries classEntries : lockKindEntries.values()) {
+        classEntries.addEntriesTo(result);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    for (Entry entry : getEntries()) {
+      builder.append(entry);
+      builder.append('\n');
+    }
+    return builder.toString();
+  }
+
+  /** The stats of a lock kind, for a given binding if any. */
+  public static final class Entry {
+    private final LockKind lockKind;
+    private final Class<?> clazz;
+    private final String name;
+    private final AtomicLong acquisitionCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    Entry(LockKind lockKind, Class<?> clazz, String name) {
+      this.lockKind = lockKind;
+      this.clazz = clazz;
+      this.name = name;
+    }
+
+    public LockKind getLockKind() {
+      return lockKind;
+    }
+
+    /** @return the class of the binding, {@code null} if the lock is not related to a binding. */
+    public Class<?> getBindingClass() {
+      return clazz;
+    }
+
+    /** @return the name of the binding, {@code null} for unnamed bindings. */
+    public String getBindingName() {
+      return name;
+    }
+
+    public long getAcquisitionCount() {
+      return acquisitionCount.get();
+    }
+
+    public long getTotalWaitNanos() {
+      return totalWaitNanos.get();
+    }
+
+    public long getMaxWaitNanos() {
+      return maxWaitNanos.get();
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "%s %s%s: %d acquisitions, total wait %dns, max wait %dns",
+          lockKind,
+          clazz == null ? "" : clazz.getName(),
+          name == null ? "" : "@" + name,
+          getAcquisitionCount(),
+          getTotalWaitNanos(),
+          getMaxWaitNanos());
+    }
+
+    private void record(long waitNanos) {
+      acquisitionCount.incrementAndGet();
+      totalWaitNanos.addAndGet(waitNanos);
+      updateMax(waitNanos);
+    }
+
+    private void merge(Entry entry) {
+      acquisitionCount.addAndGet(entry.getAcquisitionCount());
+      totalWaitNanos.addAndGet(entry.getTotalWaitNanos());
+      updateMax(entry.getMaxWaitNanos());
+    }
+
+    private void updateMax(long waitNanos) {
+      long max = maxWaitNanos.get();
+      while (waitNanos > max && !maxWaitNanos.compareAndSet(max, waitNanos)) {
+        max = maxWaitNanos.get();
+      }
+    }
+
+    private Entry copy() {
+      Entry copy = new Entry(lockKind, clazz, name);
+      copy.merge(this);
+      return copy;
+    }
+  }
+
+  // the entries of a lock kind and a class, per binding name
+  private static final class ClassEntries {
+    private final LockKind lockKind;
+    private final Class<?> clazz;
+    private volatile Entry unNamedEntry;
+    private final ConcurrentHashMap<String, Entry> namedEntries = new ConcurrentHashMap<>();
+
+    ClassEntries(LockKind lockKind, Class<?> clazz) {
+      this.lockKind = lockKind;
+      this.clazz = clazz;
+    }
+
+    Entry getEntry(String name) {
+      if (name == null) {
+        Entry entry = unNamedEntry;
+        if (entry == null) {
+          synchronized (this) {
+            entry = unNamedEntry;
+            if (entry == null) {
+              entry = new Entry(lockKind, clazz, null);
+              unNamedEntry = entry;
+            }
+          }
+        }
+        return entry;
+      }
+      Entry entry = namedEntries.get(name);
+      if (entry == null) {
+        Entry newEntry = new Entry(lockKind, clazz, name);
+        entry = namedEntries.putIfAbsent(name, newEntry);
+        if (entry == null) {
+          entry = newEntry;
+        }
+      }
+      return entry;
+    }
+
+    void addEntriesTo(List<Entry> result) {
+      Entry entry = unNamedEntry;
+      if (entry != null) {
+        result.add(entry);
+      }
+      result.addAll(namedEntries.values());
+    }
+  }
+
+  private static class TotalWaitComparator implements Comparator<Entry> {
+    @Override
+    public int compare(Entry o1, Entry o2) {
+      long diff = o2.getTotalWaitNanos() - o1.getTotalWaitNanos();
+      return diff < 0 ? -1 : (diff == 0 ? 0 : 1);
+    }
+  }
+}
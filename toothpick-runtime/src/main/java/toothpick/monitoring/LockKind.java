@@ -0,0 +1,36 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.monitoring;
+
+/** The internal locks of Toothpick that are notified to {@link LockListener}s. */
+public enum LockKind {
+  /** The monitor of an internal provider, held while an instance is created. */
+  INTERNAL_PROVIDER,
+  /** The map of the unnamed providers of a scope. */
+  UNNAMED_SCOPED_PROVIDERS,
+  /** The map of the named providers of a scope. */
+  NAMED_SCOPED_PROVIDERS,
+  /** The static pool of unscoped providers, shared by all scopes. */
+  UNSCOPED_PROVIDERS,
+  /**
+   * The lock of the stripe of the scope registry a scope name belongs to, held while creating and
+   * closing a scope. Opening a scope that is already open doesn't lock.
+   */
+  ROOT_SCOPES,
+  /** The monitor of a provider or a lazy returned by a scope. */
+  THREAD_SAFE_PROVIDER
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.monitoring;
+
+/**
+ * Gets notified every time a thread acquires one of the internal locks of Toothpick, with the time
+ * it waited to acquire it. Calls are made right after the lock is released, so that listeners don't
+ * make other threads wait for the lock.
+ *
+ * <p>Listeners are registered via {@link
+ * toothpick.configuration.Configuration#addLockListener(LockListener)}.
+ */
+public interface LockListener {
+  /**
+   * Called when a thread has acquired a lock.
+   *
+   * @param lockKind the lock that was acquired.
+   * @param clazz the class of the binding for which the lock was acquired, {@code null} if the
+   *     lock is not related to a binding.
+   * @param name the name of the binding for which the lock was acquired, {@code null} for unnamed
+   *     bindings.
+   * @param waitNanos the time the thread waited to acquire the lock.
+   */
+  void onLockAcquired(LockKind lockKind, Class<?> clazz, String name, long waitNanos);
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.monitoring;
+
+import toothpick.Scope;
+
+/**
+ * Gets notified every time a scope looks up the provider of a binding, with where the provider was
+ * found and how many maps were probed to find it.
+ *
+ * <p>Listeners are registered via {@link
+ * toothpick.configuration.Configuration#addLookupListener(LookupListener)}.
+ */
+public interface LookupListener {
+  /**
+   * Called when a scope has found, or created, the provider of a binding.
+   *
+   * @param scope the scope in which the lookup was performed.
+   * @param clazz the class of the binding.
+   * @param name the name of the binding, {@code null} for unnamed bindings.
+   * @param origin where the provider was found.
+   * @param depth for {@link LookupOrigin#SCOPE}, the distance between {@code scope} and the scope
+   *     where the provider was found: 0 for {@code scope} itself, 1 for its parent, etc. The number
+   *     of ancestors of {@code scope} + 1 for the other origins.
+   * @param probes the number of maps of providers that were probed.
+   */
+  void onProviderLookedUp(
+      Scope scope, Class<?> clazz, String name, LookupOrigin origin, int depth, int probes);
+}
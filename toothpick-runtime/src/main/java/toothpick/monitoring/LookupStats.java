@@ -0,0 +1,323 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.monitoring;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import toothpick.EphemeralScope;
+import toothpick.Scope;
+
+/**
+ * Counts where the providers looked up by scopes are found, and how many maps of providers were
+ * probed to find them. Lookups are counted per scope (by name) and in aggregate. The lookups of
+ * all {@link EphemeralScope}s are counted together, as their names are all distinct. The buckets
+ * are:
+ *
+ * <ul>
+ *   <li>the scope itself (depth 0),
+ *   <li>an ancestor of the scope at depth k,
+ *   <li>the static pool of unscoped providers,
+ *   <li>a new provider created after looking up the factory of the class.
+ * </ul>
+ *
+ * <pre>{@code
+ * LookupStats stats = new LookupStats();
+ * Toothpick.setConfiguration(
+ *     Configuration.forProduction().addLookupListener(stats).addScopeListener(stats));
+ * // later...
+ * LookupStats.Counters counters = stats.getAggregateCounters();
+ * }</pre>
+ *
+ * The stats are thread safe. Note that scopes are identified by their name. When the stats are also
+ * registered as a {@link ScopeListener}, closing a scope removes its counters and the counters of
+ * its sub scopes, otherwise they are kept until {@link #clear()} is called.
+ */
+public class LookupStats implements LookupListener, ScopeListener {
+  private final Counters aggregateCounters = new Counters();
+  private final Counters ephemeralScopeCounters = new Counters();
+  private final ConcurrentHashMap<Object, ScopeCounters> countersPerScope =
+      new ConcurrentHashMap<>();
+
+  @Override
+  public void onProviderLookedUp(
+      Scope scope, Class<?> clazz, String name, LookupOrigin origin, int depth, int probes) {
+    aggregateCounters.record(origin, depth, probes);
+    if (scope instanceof EphemeralScope) {
+      ephemeralScopeCounters.record(origin, depth, probes);
+      return;
+    }
+
+    Object scopeName = scope.getName();
+    ScopeCounters scopeCounters = countersPerScope.get(scopeName);
+    if (scopeCounters == null) {
+      Object[] scopeNames = getScopeNames(scope);
+      if (scopeNames == null) {
+        // the scope was closed concurrently, its counters would never be removed
+        return;
+      }
+      ScopeCounters newScopeCounters = new ScopeCounters(scopeNames);
+      scopeCounters = countersPerScope.putIfAbsent(scopeName, newScopeCounters);
+      if (scopeCounters == null) {
+        scopeCounters = newScopeCounters;
+      }
+    }
+    scopeCounters.counters.record(origin, depth, probes);
+  }
+
+  @Override
+  public void onScopeOperationStart(ScopeOperation operation, Object scopeName) {}
+
+  @Override
+  public void onScopeOperationEnd(ScopeOperation operation, Object scopeName) {
+    if (operation != ScopeOperation.CLOSE) {
+      return;
+    }
+    // the sub scopes are closed with their parent
+    Iterator<ScopeCounters> iterator = countersPerScope.values().iterator();
+    while (iterator.hasNext()) {
+      if (iterator.next().isInScope(scopeName)) {
+        iterator.remove();
+      }
+    }
+  }
+
+  /** @return a snapshot of the counters of all scopes. */
+  public Counters getAggregateCounters() {
+    return aggregateCounters.copy();
+  }
+
+  /** @return a snapshot of the counters of the lookups performed in all ephemeral scopes. */
+  public Counters getEphemeralScopeCounters() {
+    return ephemeralScopeCounters.copy();
+  }
+
+  /**
+   * @param scopeName the name of a scope.
+   * @return a snapshot of the counters of the lookups performed in the scope named {@code
+   *     scopeName}, or {@code null} if no lookup was performed in this scope.
+   */
+  public Counters getCounters(Object scopeName) {
+    ScopeCounters scopeCounters = countersPerScope.get(scopeName);
+    return scopeCounters == null ? null : scopeCounters.counters.copy();
+  }
+
+  /** @return a snapshot of the counters of each scope, by scope name. */
+  public Map<Object, Counters> getCountersPerScope() {
+    Map<Object, Counters> result = new LinkedHashMap<>();
+    for (Map.Entry<Object, ScopeCounters> entry : countersPerScope.entrySet()) {
+      result.put(entry.getKey(), entry.getValue().counters.copy());
+    }
+    return result;
+  }
+
+  /** Removes all the counters collected so far. */
+  public void clear() {
+    aggregateCounters.clear();
+    ephemeralScopeCounters.clear();
+    countersPerScope.clear();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    builder.append("All scopes: ");
+    builder.append(getAggregateCounters());
+    builder.append("\nEphemeral scopes: ");
+    builder.append(getEphemeralScopeCounters());
+    for (Map.Entry<Object, Counters> entry : getCountersPerScope().entrySet()) {
+      builder.append('\n');
+      builder.append(entry.getKey());
+      builder.append(": ");
+      builder.append(entry.getValue());
+    }
+    return builder.toString();
+  }
+
+  /**
+   * @return the names of {@code scope} and of its ancestors, or {@code null} if the scope was
+   *     closed and recycled.
+   */
+  private static Object[] getScopeNames(Scope scope) {
+    List<Object> scopeNames = new ArrayList<>();
+    try {
+      for (Scope currentScope = scope;
+          currentScope != null;
+          currentScope = currentScope.getParentScope()) {
+        scopeNames.add(currentScope.getName());
+      }
+    } catch (IllegalStateException e) {
+      return null;
+    }
+    return scopeNames.toArray();
+  }
+
+  /** The counters of a scope, with the names of the scopes whose closing removes them. */
+  private static final class ScopeCounters {
+    private final Object[] scopeNames;
+    private final Counters counters = new Counters();
+
+    ScopeCounters(Object[] scopeNames) {
+      this.scopeNames = scopeNames;
+    }
+
+    boolean isInScope(Object scopeName) {
+      for (Object name : scopeNames) {
+        if (name.equals(scopeName)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /** The lookup counters of a scope, or of all scopes. */
+  public static final class Counters {
+    private long[] scopeLookupCounts = new long[1];
+    private long[] scopeProbeCounts = new long[1];
+    private long unscopedPoolLookupCount;
+    private long unscopedPoolProbeCount;
+    private long factoryLookupCount;
+    private long factoryProbeCount;
+
+    Counters() {}
+
+    /**
+     * @param depth the distance to the scope in which lookups were performed: 0 for the scope
+     *     itself, 1 for its parent, etc.
+     * @return the number of lookups satisfied by the scope at {@code depth}.
+     */
+    public synchronized long getScopeLookupCount(int depth) {
+      return depth < scopeLookupCounts.length ? scopeLookupCounts[depth] : 0;
+    }
+
+    /**
+     * @param depth the distance to the scope in which lookups were performed: 0 for the scope
+     *     itself, 1 for its parent, etc.
+     * @return the number of maps probed by lookups satisfied by the scope at {@code depth}.
+     */
+    public synchronized long getScopeProbeCount(int depth) {
+      return depth < scopeProbeCounts.length ? scopeProbeCounts[depth] : 0;
+    }
+
+    /** @return the maximum depth at which a lookup was satisfied. */
+    public synchronized int getMaxScopeDepth() {
+      for (int depth = scopeLookupCounts.length - 1; depth > 0; depth--) {
+        if (scopeLookupCounts[depth] != 0) {
+          return depth;
+        }
+      }
+      return 0;
+    }
+
+    /** @return the number of lookups satisfied by the pool of unscoped providers. */
+    public synchronized long getUnscopedPoolLookupCount() {
+      return unscopedPoolLookupCount;
+    }
+
+    /** @return the number of maps probed by lookups satisfied by the pool of unscoped providers. */
+    public synchronized long getUnscopedPoolProbeCount() {
+      return unscopedPoolProbeCount;
+    }
+
+    /** @return the number of lookups that needed to look up a factory. */
+    public synchronized long getFactoryLookupCount() {
+      return factoryLookupCount;
+    }
+
+    /** @return the number of maps probed by lookups that needed to look up a factory. */
+    public synchronized long getFactoryProbeCount() {
+      return factoryProbeCount;
+    }
+
+    /** @return the total number of lookups. */
+    public synchronized long getLookupCount() {
+      long lookupCount = unscopedPoolLookupCount + factoryLookupCount;
+      for (long scopeLookupCount : scopeLookupCounts) {
+        lookupCount += scopeLookupCount;
+      }
+      return lookupCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+      List<String> scopeBuckets = new ArrayList<>();
+      for (int depth = 0; depth < scopeLookupCounts.length; depth++) {
+        if (scopeLookupCounts[depth] != 0) {
+          scopeBuckets.add(
+              String.format(
+                  "depth %d: %d lookups/%d probes",
+                  depth, scopeLookupCounts[depth], scopeProbeCounts[depth]));
+        }
+      }
+      return String.format(
+          "scopes %s, unscoped pool: %d lookups/%d probes, factory: %d lookups/%d probes",
+          scopeBuckets,
+          unscopedPoolLookupCount,
+          unscopedPoolProbeCount,
+          factoryLookupCount,
+          factoryProbeCount);
+    }
+
+    synchronized void record(LookupOrigin origin, int depth, int probes) {
+      switch (origin) {
+        case SCOPE:
+          if (depth >= scopeLookupCounts.length) {
+            scopeLookupCounts = Arrays.copyOf(scopeLookupCounts, depth + 1);
+            scopeProbeCounts = Arrays.copyOf(scopeProbeCounts, depth + 1);
+          }
+          scopeLookupCounts[depth]++;
+          scopeProbeCounts[depth] += probes;
+          break;
+        case UNSCOPED_POOL:
+          unscopedPoolLookupCount++;
+          unscopedPoolProbeCount += probes;
+          break;
+        case FACTORY:
+          factoryLookupCount++;
+          factoryProbeCount += probes;
+          break;
+        default:
+          throw new IllegalStateException("Unknown lookup origin: " + origin);
+      }
+    }
+
+    synchronized void clear() {
+      scopeLookupCounts = new long[1];
+      scopeProbeCounts = new long[1];
+      unscopedPoolLookupCount = 0;
+      unscopedPoolProbeCount = 0;
+      factoryLookupCount = 0;
+      factoryProbeCount = 0;
+    }
+
+    synchronized Counters copy() {
+      Counters copy = new Counters();
+      copy.scopeLookupCounts = scopeLookupCounts.clone();
+      copy.scopeProbeCounts = scopeProbeCounts.clone();
+      copy.unscopedPoolLookupCount = unscopedPoolLookupCount;
+      copy.unscopedPoolProbeCount = unscopedPoolProbeCount;
+      copy.factoryLookupCount = factoryLookupCount;
+      copy.factoryProbeCount = factoryProbeCount;
+      return copy;
+    }
+  }
+}
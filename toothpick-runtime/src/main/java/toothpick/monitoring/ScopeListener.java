@@ -0,0 +1,43 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.monitoring;
+
+/**
+ * Gets notified of the operations performed on scopes. Calls are made on the thread that performs
+ * the operation, and each start call is followed by an end call, even if the operation failed.
+ * Operations can be nested, for instance releasing a scope releases its children scopes.
+ *
+ * <p>Listeners are registered via {@link
+ * toothpick.configuration.Configuration#addScopeListener(ScopeListener)}.
+ */
+public interface ScopeListener {
+  /**
+   * Called when an operation starts on a scope.
+   *
+   * @param operation the operation performed.
+   * @param scopeName the name of the scope on which the operation is performed.
+   */
+  void onScopeOperationStart(ScopeOperation operation, Object scopeName);
+
+  /**
+   * Called when an operation ends on a scope.
+   *
+   * @param operation the operation performed.
+   * @param scopeName the name of the scope on which the operation is performed.
+   */
+  void onScopeOperationEnd(ScopeOperation operation, Object scopeName);
+}
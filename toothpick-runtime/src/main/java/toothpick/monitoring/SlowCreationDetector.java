@@ -0,0 +1,308 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.monitoring;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import toothpick.Scope;
+
+/**
+ * Detects instance creations that take longer than a threshold. This covers both the creation of
+ * instances via factories and the calls to providers. For each slow creation, a {@link Report} is
+ * kept that contains the resolution path that led to the creation (e.g. {@code MainActivity ->
+ * Presenter -> Repository -> Database}), the scope and the thread. When the detector is also
+ * registered as an injection listener, the path starts with the instance whose members were
+ * injected.
+ *
+ * <p>A slow creation makes all the creations that depend on it slow too. Only the deepest slow
+ * creation of a resolution path is reported, unless the creation of one of its ancestors is slow
+ * on its own, excluding the creation of its dependencies.
+ *
+ * <p>The reports are kept in a bounded ring buffer: when it is full, the oldest reports are
+ * overwritten. To limit the overhead when many creations are slow, the number of reports per second
+ * is limited. Reports over this limit are not kept, but they are counted.
+ *
+ * <pre>{@code
+ * SlowCreationDetector detector = new SlowCreationDetector(16);
+ * Toothpick.setConfiguration(
+ *     Configuration.forProduction().addCreationListener(detector).addInjectionListener(detector));
+ * // later...
+ * for (SlowCreationDetector.Report report : detector.getReports()) { ... }
+ * }</pre>
+ *
+ * The detector is thread safe.
+ */
+public class SlowCreationDetector implements CreationListener, InjectionListener {
+  private static final int DEFAULT_CAPACITY = 64;
+  private static final int DEFAULT_MAX_REPORTS_PER_SECOND = 10;
+  private static final String PATH_SEPARATOR = " -> ";
+
+  private final long thresholdNanos;
+  private final int maxReportsPerSecond;
+  private final Report[] reports;
+  private int nextReportIndex;
+  private int reportCount;
+  private long suppressedReportCount;
+  private long currentSecondStartNanos;
+  private int reportsInCurrentSecond;
+
+  private final ThreadLocal<ArrayList<Frame>> resolutionPath =
+      new ThreadLocal<ArrayList<Frame>>() {
+        @Override
+        protected ArrayList<Frame> initialValue() {
+          return new ArrayList<>();
+        }
+      };
+
+  /**
+   * Creates a detector that keeps the last 64 reports, and at most 10 reports per second.
+   *
+   * @param thresholdMillis creations that take longer than this threshold are reported.
+   */
+  public SlowCreationDetector(long thresholdMillis) {
+    this(thresholdMillis, DEFAULT_CAPACITY, DEFAULT_MAX_REPORTS_PER_SECOND);
+  }
+
+  /**
+   * @param thresholdMillis creations that take longer than this threshold are reported.
+   * @param capacity the number of reports kept, older reports are overwritten.
+   * @param maxReportsPerSecond the maximum number of reports kept per second.
+   */
+  public SlowCreationDetector(long thresholdMillis, int capacity, int maxReportsPerSecond) {
+    if (thresholdMillis < 0) {
+      throw new IllegalArgumentException("The threshold can't be negative.");
+    }
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("The capacity must be positive.");
+    }
+    if (maxReportsPerSecond <= 0) {
+      throw new IllegalArgumentException("The maximum number of reports must be positive.");
+    }
+    this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    this.maxReportsPerSecond = maxReportsPerSecond;
+    this.reports = new Report[capacity];
+  }
+
+  @Override
+  public void onCreationStart(Class<?> clazz, String name, Scope scope) {
+    resolutionPath.get().add(new Frame(clazz, name, System.nanoTime()));
+  }
+
+  @Override
+  public void onCreationEnd(Class<?> clazz, String name, Scope scope) {
+    long endNanos = System.nanoTime();
+    ArrayList<Frame> path = resolutionPath.get();
+    if (path.isEmpty()) {
+      // the detector was registered while an instance was being created
+      return;
+    }
+    Frame frame = path.remove(path.size() - 1);
+    long durationNanos = endNanos - frame.startNanos;
+    long selfDurationNanos = durationNanos - frame.childrenNanos;
+    boolean isSlow = durationNanos > thresholdNanos;
+    if (!path.isEmpty()) {
+      Frame parentFrame = path.get(path.size() - 1);
+      parentFrame.childrenNanos += durationNanos;
+      parentFrame.hasSlowDependency |= isSlow;
+    }
+
+    // the ancestors of a slow creation are only reported if they are slow on their own
+    boolean isReported =
+        isSlow && (!frame.hasSlowDependency || selfDurationNanos > thresholdNanos);
+    if (isReported && acquireReportPermit(endNanos)) {
+      List<String> classNames = new ArrayList<>(path.size() + 1);
+      for (Frame parentFrame : path) {
+        classNames.add(parentFrame.getClassName());
+      }
+      classNames.add(frame.getClassName());
+      Thread thread = Thread.currentThread();
+      addReport(
+          new Report(
+              Collections.unmodifiableList(classNames),
+              name,
+              String.valueOf(scope == null ? null : scope.getName()),
+              thread.getName(),
+              durationNanos,
+              selfDurationNanos));
+    }
+  }
+
+  @Override
+  public void onInjectionStart(Class<?> clazz, Scope scope) {
+    resolutionPath.get().add(new Frame(clazz, null, System.nanoTime()));
+  }
+
+  @Override
+  public void onInjectionEnd(Class<?> clazz, Scope scope) {
+    ArrayList<Frame> path = resolutionPath.get();
+    if (path.isEmpty()) {
+      // the detector was registered while an instance was being injected
+      return;
+    }
+    // injections are only part of the path, they are not creations
+    Frame frame = path.remove(path.size() - 1);
+    if (!path.isEmpty()) {
+      Frame parentFrame = path.get(path.size() - 1);
+      parentFrame.childrenNanos += System.nanoTime() - frame.startNanos;
+      parentFrame.hasSlowDependency |= frame.hasSlowDependency;
+    }
+  }
+
+  /** @return the reports currently kept, from the oldest to the most recent. */
+  public synchronized List<Report> getReports() {
+    List<Report> result = new ArrayList<>(reportCount);
+    int firstReportIndex = (nextReportIndex - reportCount + reports.length) % reports.length;
+    for (int i = 0; i < reportCount; i++) {
+      result.add(reports[(firstReportIndex + i) % reports.length]);
+    }
+    return result;
+  }
+
+  /** @return the number of slow creations that were not reported because of the rate limit. */
+  public synchronized long getSuppressedReportCount() {
+    return suppressedReportCount;
+  }
+
+  /** Removes all the reports and resets the count of suppressed reports. */
+  public synchronized void clear() {
+    for (int i = 0; i < reports.length; i++) {
+      reports[i] = null;
+    }
+    nextReportIndex = 0;
+    reportCount = 0;
+    suppressedReportCount = 0;
+  }
+
+  private synchronized boolean acquireReportPermit(long nowNanos) {
+    if (nowNanos - currentSecondStartNanos >= TimeUnit.SECONDS.toNanos(1)
+        || reportsInCurrentSecond == 0) {
+      currentSecondStartNanos = nowNanos;
+      reportsInCurrentSecond = 0;
+    }
+    if (reportsInCurrentSecond == maxReportsPerSecond) {
+      suppressedReportCount++;
+      return false;
+    }
+    reportsInCurrentSecond++;
+    return true;
+  }
+
+  private synchronized void addReport(Report report) {
+    reports[nextReportIndex] = report;
+    nextReportIndex = (nextReportIndex + 1) % reports.length;
+    if (reportCount < reports.length) {
+      reportCount++;
+    }
+  }
+
+  private static class Frame {
+    private final Class<?> clazz;
+    private final String name;
+    private final long startNanos;
+    private long childrenNanos;
+    private boolean hasSlowDependency;
+
+    Frame(Class<?> clazz, String name, long startNanos) {
+      this.clazz = clazz;
+      this.name = name;
+      this.startNanos = startNanos;
+    }
+
+    String getClassName() {
+      String className = clazz == null ? "<unknown>" : clazz.getName();
+      return name == null ? className : className + "@" + name;
+    }
+  }
+
+  /** A slow creation. */
+  public static final class Report {
+    private final List<String> path;
+    private final String bindingName;
+    private final String scopeName;
+    private final String threadName;
+    private final long durationNanos;
+    private final long selfDurationNanos;
+
+    Report(
+        List<String> path,
+        String bindingName,
+        String scopeName,
+        String threadName,
+        long durationNanos,
+        long selfDurationNanos) {
+      this.path = path;
+      this.bindingName = bindingName;
+      this.scopeName = scopeName;
+      this.threadName = threadName;
+      this.durationNanos = durationNanos;
+      this.selfDurationNanos = selfDurationNanos;
+    }
+
+    /**
+     * @return the resolution path that led to the slow creation. The first element is the instance
+     *     that was requested or injected, the last one is the slow instance. Named bindings are
+     *     suffixed by {@code @name}.
+     */
+    public List<String> getPath() {
+      return path;
+    }
+
+    /** @return the name of the binding of the slow instance, {@code null} for unnamed bindings. */
+    public String getBindingName() {
+      return bindingName;
+    }
+
+    /** @return the scope in which the slow instance was created. */
+    public String getScopeName() {
+      return scopeName;
+    }
+
+    public String getThreadName() {
+      return threadName;
+    }
+
+    /** @return the duration of the creation, including the creation of its dependencies. */
+    public long getDurationNanos() {
+      return durationNanos;
+    }
+
+    /** @return the duration of the creation, excluding the creation of its dependencies. */
+    public long getSelfDurationNanos() {
+      return selfDurationNanos;
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder builder = new StringBuilder();
+      for (String className : path) {
+        if (builder.length() != 0) {
+          builder.append(PATH_SEPARATOR);
+        }
+        builder.append(className);
+      }
+      return String.format(
+          "%s took %dms (%dms excluding dependencies) in scope %s on thread %s",
+          builder,
+          TimeUnit.NANOSECONDS.toMillis(durationNanos),
+          TimeUnit.NANOSECONDS.toMillis(selfDurationNanos),
+          scopeName,
+          threadName);
+    }
+  }
+}
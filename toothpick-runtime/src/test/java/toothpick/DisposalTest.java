@@ -0,0 +1,529 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Provider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import toothpick.config.Module;
+import toothpick.configuration.Configuration;
+import toothpick.monitoring.LockKind;
+import toothpick.monitoring.LockListener;
+
+public class DisposalTest {
+
+  private final List<String> closedResources = new CopyOnWriteArrayList<>();
+  private ExecutorService executorService;
+
+  @Before
+  public void setUp() {
+    executorService = Executors.newFixedThreadPool(2);
+  }
+
+  @After
+  public void tearDown() {
+    Toothpick.setConfiguration(Configuration.forProduction());
+    Toothpick.reset();
+    executorService.shutdownNow();
+  }
+
+  @Test
+  public void closeScope_shouldDisposeSingletons_inReverseDependencyOrder() {
+    // GIVEN
+    Toothpick.setConfiguration(Configuration.forProduction().disposeCloseableSingletons());
+    Scope scope = Toothpick.openScope("root");
+    scope.installModules(
+        new Module() {
+          {
+            bind(Connection.class)
+                .toProviderInstance(new ResourceProvider("connection"))
+                .providesSingleton();
+            bind(Repository.class)
+                .toProviderInstance(new ResourceProvider("repository", Connection.class))
+                .providesSingleton();
+            bind(Service.class)
+                .toProviderInstance(new ResourceProvider("service", Repository.class))
+                .providesSingleton();
+          }
+        });
+    scope.getInstance(Connection.class);
+    scope.getInstance(Service.class);
+
+    // WHEN
+    Toothpick.closeScope("root");
+
+    // THEN
+    assertThat(closedResources, is(Arrays.asList("service", "repository", "connection")));
+  }
+
+  @Test
+  public void closeScope_shouldDisposeDependenciesOfCachedSingletons_afterTheirDependents() {
+    // GIVEN
+    Toothpick.setConfiguration(
+        Configuration.forProduction()
+            .disposeCloseableSingletons(executorService, 5, TimeUnit.SECONDS));
+    Scope scope = Toothpick.openScope("root");
+    scope.installModules(
+        new Module() {
+          {
+            bind(Connection.class)
+                .toProviderInstance(new ResourceProvider("connection"))
+                .providesSingleton();
+            bind(ConnectionPool.class)
+                .toProviderInstance(
+                    new Provider<ConnectionPool>() {
+                      @Override
+                      public ConnectionPool get() {
+                        Toothpick.openScope("root").getInstance(Connection.class);
+                        return new ConnectionPool();
+                      }
+                    })
+                .providesSingleton();
+            bind(Service.class)
+                .toProviderInstance(
+                    new ResourceProvider("service", ConnectionPool.class) {
+                      @Override
+                      void onClose() throws Exception {
+                        Thread.sleep(50);
+                      }
+                    })
+                .providesSingleton();
+          }
+        });
+    scope.getInstance(ConnectionPool.class);
+    scope.getInstance(Service.class);
+
+    // WHEN
+    Toothpick.closeScope("root");
+
+    // THEN
+    assertThat(closedResources, is(Arrays.asList("service", "connection")));
+  }
+
+  @Test
+  public void getInstance_shouldNotLockCachedSingletons_whenDisposalIsEnabled() {
+    // GIVEN
+    final AtomicInteger lockCount = new AtomicInteger();
+    Toothpick.setConfiguration(
+        Configuration.forProduction()
+            .disposeCloseableSingletons()
+            .addLockListener(
+                new LockListener() {
+                  @Override
+                  public void onLockAcquired(
+                      LockKind lockKind, Class<?> clazz, String name, long waitNanos) {
+                    if (lockKind == LockKind.INTERNAL_PROVIDER && clazz == Connection.class) {
+                      lockCount.incrementAndGet();
+                    }
+                  }
+                }));
+    Scope scope = Toothpick.openScope("root");
+    scope.installModules(
+        new Module() {
+          {
+            bind(Connection.class)
+                .toProviderInstance(new ResourceProvider("connection"))
+                .providesSingleton();
+          }
+        });
+    Connection connection = scope.getInstance(Connection.class);
+
+    // WHEN
+    Connection cachedConnection = scope.getInstance(Connection.class);
+
+    // THEN
+    assertThat(cachedConnection, sameInstance(connection));
+    assertThat(lockCount.get(), is(1));
+  }
+
+  @Test
+  public void closeScope_shouldDisposeSingletonsOfSubScopes_beforeTheOnesOfTheirParents() {
+    // GIVEN
+    Toothpick.setConfiguration(Configuration.forProduction().disposeCloseableSingletons());
+    Scope scope = Toothpick.openScope("root");
+    scope.installModules(
+        new Module() {
+          {
+            bind(Connection.class)
+                .toProviderInstance(new ResourceProvider("connection"))
+                .providesSingleton();
+          }
+        });
+    Scope childScope = scope.openSubScope("child");
+    childScope.installModules(
+        new Module() {
+          {
+            bind(Service.class)
+                .toProviderInstance(new ResourceProvider("service"))
+                .providesSingleton();
+          }
+        });
+    scope.getInstance(Connection.class);
+    childScope.getInstance(Service.class);
+
+    // WHEN
+    Toothpick.closeScope("root");
+
+    // THEN
+    assertThat(closedResources, is(Arrays.asList("service", "connection")));
+  }
+
+  @Test
+  public void closeScope_shouldNotDisposeSingletonsOfParentScope() {
+    // GIVEN
+    Toothpick.setConfiguration(Configuration.forProduction().disposeCloseableSingletons());
+    Scope scope = Toothpick.openScope("root");
+    scope.installModules(
+        new Module() {
+          {
+            bind(Connection.class)
+                .toProviderInstance(new ResourceProvider("connection"))
+                .providesSingleton();
+          }
+        });
+    Scope childScope = scope.openSubScope("child");
+    childScope.installModules(
+        new Module() {
+          {
+            bind(Service.class)
+                .toProviderInstance(new ResourceProvider("service", Connection.class))
+                .providesSingleton();
+          }
+        });
+    childScope.getInstance(Service.class);
+
+    // WHEN
+    Toothpick.closeScope("child");
+
+    // THEN
+    assertThat(closedResources, is(Collections.singletonList("service")));
+  }
+
+  @Test
+  public void closeScope_shouldNotDisposeUnscopedInstances() {
+    // GIVEN
+    Toothpick.setConfiguration(Configuration.forProduction().disposeCloseableSingletons());
+    Scope scope = Toothpick.openScope("root");
+    scope.installModules(
+        new Module() {
+          {
+            bind(Connection.class).toProviderInstance(new ResourceProvider("connection"));
+          }
+        });
+    scope.getInstance(Connection.class);
+
+    // WHEN
+    Toothpick.closeScope("root");
+
+    // THEN
+    assertThat(closedResources.isEmpty(), is(true));
+  }
+
+  @Test
+  public void closeScope_shouldNotDisposeSingletons_whenDisposalIsDisabled() {
+    // GIVEN
+    Scope scope = Toothpick.openScope("root");
+    scope.installModules(
+        new Module() {
+          {
+            bind(Connection.class)
+                .toProviderInstance(new ResourceProvider("connection"))
+                .providesSingleton();
+          }
+        });
+    scope.getInstance(Connection.class);
+
+    // WHEN
+    Toothpick.closeScope("root");
+
+    // THEN
+    assertThat(closedResources.isEmpty(), is(true));
+  }
+
+  @Test
+  public void closeScope_shouldDisposeIndependentSingletons_inParallel() {
+    // GIVEN
+    Toothpick.setConfiguration(
+        Configuration.forProduction()
+            .disposeCloseableSingletons(executorService, 5, TimeUnit.SECONDS));
+    final CyclicBarrier barrier = new CyclicBarrier(2);
+    Scope scope = Toothpick.openScope("root");
+    scope.installModules(
+        new Module() {
+          {
+            bind(Connection.class)
+                .toProviderInstance(new ResourceProvider("connection", barrier))
+                .providesSingleton();
+            bind(Service.class)
+                .toProviderInstance(new ResourceProvider("service", barrier))
+                .providesSingleton();
+          }
+        });
+    scope.getInstance(Connection.class);
+    scope.getInstance(Service.class);
+
+    // WHEN
+    Toothpick.closeScope("root");
+
+    // THEN
+    assertThat(closedResources.size(), is(2));
+  }
+
+  @Test
+  public void closeScope_shouldNotDisposeDependencies_whenDependentSingletonTimesOut() {
+    // GIVEN
+    Toothpick.setConfiguration(
+        Configuration.forProduction()
+            .disposeCloseableSingletons(executorService, 10, TimeUnit.MILLISECONDS));
+    final CountDownLatch neverCountedDown = new CountDownLatch(1);
+    Scope scope = Toothpick.openScope("root");
+    scope.installModules(
+        new Module() {
+          {
+            bind(Connection.class)
+                .toProviderInstance(new ResourceProvider("connection"))
+                .providesSingleton();
+            bind(Service.class)
+                .toProviderInstance(
+                    new ResourceProvider("service", Connection.class) {
+                      @Override
+                      void onClose() throws Exception {
+                        neverCountedDown.await();
+                      }
+                    })
+                .providesSingleton();
+          }
+        });
+    scope.getInstance(Service.class);
+
+    // WHEN
+    try {
+      Toothpick.closeScope("root");
+      fail("Should throw an exception");
+    } catch (IllegalStateException e) {
+      // THEN
+      assertThat(e.getSuppressed().length, is(2));
+      assertThat(e.getSuppressed()[0], instanceOf(TimeoutException.class));
+      assertThat(e.getSuppressed()[1], instanceOf(TimeoutException.class));
+      assertThat(closedResources.isEmpty(), is(true));
+      assertThat(Toothpick.isScopeOpen("root"), is(false));
+    }
+  }
+
+  @Test
+  public void closeScope_shouldStopDisposing_whenTotalTimeoutIsReached() {
+    // GIVEN
+    Toothpick.setConfiguration(
+        Configuration.forProduction()
+            .disposeCloseableSingletons(executorService, 150, TimeUnit.MILLISECONDS));
+    Scope scope = Toothpick.openScope("root");
+    scope.installModules(
+        new Module() {
+          {
+            bind(Connection.class)
+                .toProviderInstance(new SlowResourceProvider("connection", null))
+                .providesSingleton();
+            bind(Repository.class)
+                .toProviderInstance(new SlowResourceProvider("repository", Connection.class))
+                .providesSingleton();
+            bind(Service.class)
+                .toProviderInstance(new SlowResourceProvider("service", Repository.class))
+                .providesSingleton();
+          }
+        });
+    scope.getInstance(Service.class);
+
+    // WHEN
+    try {
+      Toothpick.closeScope("root");
+      fail("Should throw an exception");
+    } catch (IllegalStateException e) {
+      // THEN
+      assertThat(e.getSuppressed().length, is(2));
+      assertThat(closedResources, is(Collections.singletonList("service")));
+    }
+  }
+
+  @Test
+  public void closeScope_shouldDisposeAllSingletons_whenOneFailsToClose() {
+    // GIVEN
+    Toothpick.setConfiguration(Configuration.forProduction().disposeCloseableSingletons());
+    Scope scope = Toothpick.openScope("root");
+    scope.installModules(
+        new Module() {
+          {
+            bind(Connection.class)
+                .toProviderInstance(new ResourceProvider("connection"))
+                .providesSingleton();
+            bind(Service.class)
+                .toProviderInstance(
+                    new ResourceProvider("service", Connection.class) {
+                      @Override
+                      void onClose() throws Exception {
+                        throw new IOException("service");
+                      }
+                    })
+                .providesSingleton();
+          }
+        });
+    scope.getInstance(Service.class);
+
+    // WHEN
+    try {
+      Toothpick.closeScope("root");
+      fail("Should throw an exception");
+    } catch (IllegalStateException e) {
+      // THEN
+      assertThat(e.getSuppressed()[0], instanceOf(IOException.class));
+      assertThat(closedResources, is(Collections.singletonList("connection")));
+    }
+  }
+
+  @Test
+  public void closeScope_shouldReportDisposalFailures_whenScopesAreCleanedUpByExecutor()
+      throws Exception {
+    // GIVEN
+    Toothpick.setConfiguration(Configuration.forProduction().disposeCloseableSingletons());
+    Scope scope = Toothpick.openScope("root");
+    scope.installModules(
+        new Module() {
+          {
+            bind(Service.class)
+                .toProviderInstance(
+                    new ResourceProvider("service") {
+                      @Override
+                      void onClose() throws Exception {
+                        throw new IOException("service");
+                      }
+                    })
+                .providesSingleton();
+          }
+        });
+    scope.getInstance(Service.class);
+
+    // WHEN
+    Future<Void> cleanUp = Toothpick.closeScope("root", executorService, false);
+
+    // THEN
+    try {
+      cleanUp.get(5, TimeUnit.SECONDS);
+      fail("Should throw an exception");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+      assertThat(e.getCause().getSuppressed()[0], instanceOf(IOException.class));
+    }
+  }
+
+  private interface Connection extends Closeable {}
+
+  private interface Repository extends Closeable {}
+
+  private interface Service extends Closeable {}
+
+  private static class ConnectionPool {}
+
+  private class ResourceProvider implements Provider<Resource> {
+    private final String name;
+    private final Class<?> dependency;
+    private final CyclicBarrier barrier;
+
+    ResourceProvider(String name) {
+      this(name, null, null);
+    }
+
+    ResourceProvider(String name, Class<?> dependency) {
+      this(name, dependency, null);
+    }
+
+    ResourceProvider(String name, CyclicBarrier barrier) {
+      this(name, null, barrier);
+    }
+
+    private ResourceProvider(String name, Class<?> dependency, CyclicBarrier barrier) {
+      this.name = name;
+      this.dependency = dependency;
+      this.barrier = barrier;
+    }
+
+    @Override
+    public Resource get() {
+      if (dependency != null) {
+        Toothpick.openScope("root").getInstance(dependency);
+      }
+      return new Resource(this);
+    }
+
+    void onClose() throws Exception {
+      if (barrier != null) {
+        barrier.await(5, TimeUnit.SECONDS);
+      }
+    }
+  }
+
+  private class SlowResourceProvider extends ResourceProvider {
+    SlowResourceProvider(String name, Class<?> dependency) {
+      super(name, dependency);
+    }
+
+    @Override
+    void onClose() throws Exception {
+      Thread.sleep(80);
+    }
+  }
+
+  private class Resource implements Connection, Repository, Service {
+    private final ResourceProvider provider;
+
+    Resource(ResourceProvider provider) {
+      this.provider = provider;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        provider.onClose();
+      } catch (IOException e) {
+        throw e;
+      } catch (Exception e) {
+        throw new IOException(e);
+      }
+      closedResources.add(provider.name);
+    }
+  }
+}
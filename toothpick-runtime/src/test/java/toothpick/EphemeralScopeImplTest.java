@@ -0,0 +1,204 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.inject.Provider;
+import org.junit.After;
+import org.junit.Test;
+import toothpick.config.Module;
+import toothpick.configuration.Configuration;
+import toothpick.data.Foo;
+import toothpick.data.FooSingleton;
+import toothpick.data.IFoo;
+
+public class EphemeralScopeImplTest {
+
+  @After
+  public void tearDown() {
+    Toothpick.setConfiguration(Configuration.forProduction());
+    Toothpick.reset();
+  }
+
+  @Test
+  public void openEphemeralSubScope_shouldResolveBindingsOfParentScopes() {
+    // GIVEN
+    final Foo foo = new Foo();
+    Scope rootScope = Toothpick.openScope("root");
+    rootScope.installModules(
+        new Module() {
+          {
+            bind(IFoo.class).toInstance(foo);
+          }
+        });
+    Scope parentScope = rootScope.openSubScope("parent");
+
+    // WHEN
+    EphemeralScope ephemeralScope = Toothpick.openEphemeralSubScope(parentScope);
+
+    // THEN
+    assertThat(ephemeralScope.getInstance(IFoo.class), sameInstance((IFoo) foo));
+    assertThat(
+        ephemeralScope.getInstance(FooSingleton.class),
+        sameInstance(rootScope.getInstance(FooSingleton.class)));
+    assertThat(ephemeralScope.getParentScope(), sameInstance(parentScope));
+    assertThat(ephemeralScope.getRootScope(), sameInstance(rootScope));
+  }
+
+  @Test
+  public void openEphemeralSubScope_shouldNotRegisterScope() {
+    // GIVEN
+    ScopeNode parentScope = (ScopeNode) Toothpick.openScope("parent");
+
+    // WHEN
+    Scope ephemeralScope = Toothpick.openEphemeralSubScope(parentScope);
+
+    // THEN
+    assertThat(Toothpick.getScopeNamesSize(), is(1));
+    assertThat(Toothpick.isScopeOpen(ephemeralScope.getName()), is(false));
+    assertThat(parentScope.getChildrenScopes().isEmpty(), is(true));
+  }
+
+  @Test
+  public void openEphemeralSubScope_shouldReturnDistinctScopes() {
+    // GIVEN
+    Scope parentScope = Toothpick.openScope("parent");
+
+    // WHEN
+    Scope ephemeralScope = Toothpick.openEphemeralSubScope(parentScope);
+    Scope ephemeralScope2 = Toothpick.openEphemeralSubScope(parentScope);
+
+    // THEN
+    assertThat(ephemeralScope, not(sameInstance(ephemeralScope2)));
+    assertThat(ephemeralScope.equals(ephemeralScope2), is(false));
+    assertThat(ephemeralScope.getInstance(Scope.class), sameInstance(ephemeralScope));
+  }
+
+  @Test
+  public void close_shouldPreventCreatingInstances() {
+    // GIVEN
+    Scope parentScope = Toothpick.openScope("parent");
+    EphemeralScope ephemeralScope;
+    try (EphemeralScope scope = Toothpick.openEphemeralSubScope(parentScope)) {
+      scope.getInstance(Foo.class);
+      ephemeralScope = scope;
+    }
+
+    // WHEN
+    try {
+      ephemeralScope.getInstance(Foo.class);
+      fail("Should throw an exception");
+    } catch (IllegalStateException e) {
+      // THEN
+      ephemeralScope.close();
+      assertThat(parentScope.getInstance(Foo.class), notNullValue());
+    }
+  }
+
+  @Test
+  public void getInstance_shouldFail_whenParentScopeIsClosed() {
+    // GIVEN
+    Scope parentScope = Toothpick.openScope("parent");
+    EphemeralScope ephemeralScope = Toothpick.openEphemeralSubScope(parentScope);
+
+    // WHEN
+    Toothpick.closeScope("parent");
+
+    // THEN
+    try {
+      ephemeralScope.getInstance(Foo.class);
+      fail("Should throw an exception");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void getInstance_shouldFail_whenParentScopeIsRecycled() {
+    // GIVEN
+    Toothpick.setConfiguration(Configuration.forProduction().enableScopePool(1));
+    Scope parentScope = Toothpick.openScope("parent");
+    EphemeralScope ephemeralScope = Toothpick.openEphemeralSubScope(parentScope);
+    Toothpick.closeScope("parent");
+
+    // WHEN
+    Scope otherScope = Toothpick.openScope("other");
+
+    // THEN
+    assertThat(otherScope, not(sameInstance(parentScope)));
+    try {
+      ephemeralScope.getInstance(Foo.class);
+      fail("Should throw an exception");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void close_shouldDisposeCloseableSingletons_whenDisposalIsEnabled() {
+    // GIVEN
+    Toothpick.setConfiguration(Configuration.forProduction().disposeCloseableSingletons());
+    final AtomicBoolean isClosed = new AtomicBoolean();
+    EphemeralScope ephemeralScope = Toothpick.openEphemeralSubScope(Toothpick.openScope("parent"));
+    ephemeralScope.installModules(
+        new Module() {
+          {
+            bind(Closeable.class)
+                .toProviderInstance(
+                    new Provider<Closeable>() {
+                      @Override
+                      public Closeable get() {
+                        return new Closeable() {
+                          @Override
+                          public void close() {
+                            isClosed.set(true);
+                          }
+                        };
+                      }
+                    })
+                .providesSingleton();
+          }
+        });
+    ephemeralScope.getInstance(Closeable.class);
+
+    // WHEN
+    ephemeralScope.close();
+
+    // THEN
+    assertThat(isClosed.get(), is(true));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void openSubScope_shouldFail_whenScopeIsEphemeral() {
+    // GIVEN
+    Scope ephemeralScope = Toothpick.openEphemeralSubScope(Toothpick.openScope("parent"));
+
+    // WHEN
+    ephemeralScope.openSubScope("child");
+
+    // THEN
+    fail("Should throw an exception");
+  }
+}
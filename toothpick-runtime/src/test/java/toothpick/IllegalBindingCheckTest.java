@@ -24,6 +24,7 @@ import static org.junit.Assert.fail;
 
 import org.junit.Test;
 import toothpick.config.Module;
+import toothpick.config.ModuleTemplate;
 import toothpick.configuration.Configuration;
 import toothpick.data.Foo;
 import toothpick.data.FooProviderAnnotatedSingleton;
@@ -73,4 +74,25 @@ public class IllegalBindingCheckTest {
     assertThat(((Foo) foo2).bar, notNullValue());
     assertThat(((Foo) foo).bar, sameInstance(((Foo) foo2).bar));
   }
+
+  @Test(expected = RuntimeException.class)
+  public void
+      providerClassBinding_shouldFailToInstallTemplate_whenAnnotationScopeIsNotMatchedByInstallationScope_InDevConfig() {
+    // GIVEN
+    Toothpick.setConfiguration(Configuration.forDevelopment());
+    Scope scope = Toothpick.openScopes("", "child");
+    ModuleTemplate moduleTemplate =
+        ModuleTemplate.freeze(
+            new Module() {
+              {
+                bind(IFoo.class).toProvider(FooProviderAnnotatedSingleton.class);
+              }
+            });
+
+    // WHEN
+    scope.installModules(moduleTemplate);
+
+    // THEN
+    fail("Test should have thrown an exception.");
+  }
 }
@@ -16,21 +16,69 @@
  */
 package toothpick;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.fail;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.inject.Provider;
+import org.junit.After;
 import org.junit.Test;
+import toothpick.config.Binding;
+import toothpick.config.GeneratedModule;
 import toothpick.config.Module;
+import toothpick.config.ModuleTemplate;
+import toothpick.configuration.Configuration;
 import toothpick.data.Bar;
 import toothpick.data.Foo;
 import toothpick.data.IFoo;
 import toothpick.locators.NoFactoryFoundException;
+import toothpick.monitoring.LockKind;
+import toothpick.monitoring.LockListener;
 
 public class ScopeImplTest {
 
+  @After
+  public void tearDown() {
+    Toothpick.setConfiguration(Configuration.forProduction());
+    Toothpick.reset();
+  }
+
+  @Test
+  public void getInstance_shouldNotifyLockListeners_afterLockIsReleased() {
+    // GIVEN
+    final ScopeImpl scope = new ScopeImpl("root");
+    final AtomicInteger notificationCount = new AtomicInteger();
+    final AtomicBoolean wasLockHeld = new AtomicBoolean();
+    Toothpick.setConfiguration(
+        Configuration.forProduction()
+            .addLockListener(
+                new LockListener() {
+                  @Override
+                  public void onLockAcquired(
+                      LockKind lockKind, Class<?> clazz, String name, long waitNanos) {
+                    if (lockKind == LockKind.UNNAMED_SCOPED_PROVIDERS) {
+                      notificationCount.incrementAndGet();
+                      if (Thread.holdsLock(scope.mapClassesToUnNamedScopedProviders)) {
+                        wasLockHeld.set(true);
+                      }
+                    }
+                  }
+                }));
+
+    // WHEN
+    scope.getInstance(Foo.class);
+
+    // THEN
+    assertThat(notificationCount.get() > 0, is(true));
+    assertThat(wasLockHeld.get(), is(false));
+  }
+
   @Test
   public void installOverrideModules_shouldInstallOverrideBindings_whenCalledOnce() {
     // GIVEN
@@ -278,6 +326,432 @@ public class ScopeImplTest {
     assertThat(scope.getInstance(Scope.class), notNullValue());
   }
 
+  @Test
+  public void release_shouldOnlyVisitSubScopes_withReleasableProviders() {
+    // GIVEN
+    ScopeImpl scope = new ScopeImpl("root");
+    ScopeImpl releasableChildScope = new ScopeImpl("releasable");
+    ScopeImpl otherChildScope = new ScopeImpl("other");
+    scope.addChild(releasableChildScope);
+    scope.addChild(otherChildScope);
+    releasableChildScope.installModules(new ReleasableModule());
+    IFoo foo = releasableChildScope.getInstance(IFoo.class);
+
+    // WHEN
+    scope.release();
+
+    // THEN
+    assertThat(scope.hasReleasableProviders, is(true));
+    assertThat(releasableChildScope.hasReleasableProviders, is(true));
+    assertThat(otherChildScope.hasReleasableProviders, is(false));
+    assertThat(releasableChildScope.getInstance(IFoo.class), not(sameInstance(foo)));
+  }
+
+  @Test
+  public void installTestModules_shouldUnindexReleasableProvider_whenItIsOverridden() {
+    // GIVEN
+    ScopeImpl scope = new ScopeImpl("root");
+    scope.installModules(new ReleasableModule());
+    assertThat(scope.releasableProviders.length, is(1));
+
+    // WHEN
+    scope.installTestModules(
+        new Module() {
+          {
+            bind(IFoo.class).to(Foo.class).singleton();
+          }
+        });
+
+    // THEN
+    assertThat(scope.releasableProviders.length, is(0));
+  }
+
+  @Test
+  public void getStaticallyWiredInstance_shouldUseFactory_whenClassIsNotBound() {
+    // GIVEN
+    ScopeImpl scope = new ScopeImpl("root");
+    CountingFooFactory factory = new CountingFooFactory();
+
+    // WHEN
+    Foo foo = scope.getStaticallyWiredInstance(Foo.class, factory);
+
+    // THEN
+    assertThat(foo, notNullValue());
+    assertThat(factory.createdInstanceCount, is(1));
+  }
+
+  @Test
+  public void staticWiringGetInstance_shouldUseFactory_whenClassIsNotBound() {
+    // GIVEN
+    Scope scope = new ScopeImpl("root");
+    CountingFooFactory factory = new CountingFooFactory();
+
+    // WHEN
+    Foo foo = StaticWiring.getInstance(scope, Foo.class, factory);
+
+    // THEN
+    assertThat(foo, notNullValue());
+    assertThat(factory.createdInstanceCount, is(1));
+  }
+
+  @Test
+  public void getStaticallyWiredInstance_shouldUseBinding_whenClassIsBound() {
+    // GIVEN
+    ScopeImpl scope = new ScopeImpl("root");
+    Foo foo = new Foo();
+    scope.installModules(new TestModule(foo));
+    CountingFooFactory factory = new CountingFooFactory();
+
+    // WHEN
+    Foo wiredFoo = scope.getStaticallyWiredInstance(Foo.class, factory);
+
+    // THEN
+    assertThat(wiredFoo, sameInstance(foo));
+    assertThat(factory.createdInstanceCount, is(0));
+  }
+
+  @Test
+  public void getStaticallyWiredInstance_shouldUseBinding_whenClassIsBoundInParentScope() {
+    // GIVEN
+    ScopeImpl scope = new ScopeImpl("root");
+    ScopeImpl childScope = new ScopeImpl("child");
+    scope.addChild(childScope);
+    Foo foo = new Foo();
+    scope.installModules(new TestModule(foo));
+    CountingFooFactory factory = new CountingFooFactory();
+
+    // WHEN
+    Foo wiredFoo = childScope.getStaticallyWiredInstance(Foo.class, factory);
+
+    // THEN
+    assertThat(wiredFoo, sameInstance(foo));
+    assertThat(factory.createdInstanceCount, is(0));
+  }
+
+  @Test
+  public void getStaticallyWiredInstance_shouldNotUseFactory_whenRuntimeChecksAreOn() {
+    // GIVEN
+    Toothpick.setConfiguration(Configuration.forDevelopment());
+    ScopeImpl scope = new ScopeImpl("root");
+    CountingFooFactory factory = new CountingFooFactory();
+
+    // WHEN
+    Foo foo;
+    try {
+      foo = scope.getStaticallyWiredInstance(Foo.class, factory);
+    } finally {
+      Toothpick.setConfiguration(Configuration.forProduction());
+    }
+
+    // THEN
+    assertThat(foo, notNullValue());
+    assertThat(factory.createdInstanceCount, is(0));
+  }
+
+  @Test
+  public void getInstanceWithKeyId_shouldReuseProvider_whenBindingsDontChange() {
+    // GIVEN
+    ScopeImpl scope = new ScopeImpl("root");
+    scope.installModules(new TestModule(new Foo()));
+    int keyId = KeyIds.of(Foo.class);
+    InternalProvider<? extends Foo> provider = scope.lookupProvider(Foo.class, keyId);
+
+    // WHEN
+    InternalProvider<? extends Foo> otherProvider = scope.lookupProvider(Foo.class, keyId);
+
+    // THEN
+    assertThat(otherProvider, sameInstance((Object) provider));
+  }
+
+  @Test
+  public void keyIdsGetInstance_shouldUseBinding_whenScopeSupportsKeyIds() {
+    // GIVEN
+    Foo foo = new Foo();
+    Scope scope = new ScopeImpl("root");
+    scope.installModules(new TestModule(foo));
+
+    // WHEN
+    Foo boundFoo = KeyIds.getInstance(scope, Foo.class, KeyIds.of(Foo.class));
+
+    // THEN
+    assertThat(boundFoo, sameInstance(foo));
+  }
+
+  @Test
+  public void getInstanceWithKeyId_shouldUseNewBinding_whenBindingIsInstalledAfterLookup() {
+    // GIVEN
+    ScopeImpl scope = new ScopeImpl("root");
+    int keyId = KeyIds.of(Foo.class);
+    Foo unboundFoo = scope.getInstance(Foo.class, keyId);
+    Foo foo = new Foo();
+    scope.installModules(new TestModule(foo));
+
+    // WHEN
+    Foo boundFoo = scope.getInstance(Foo.class, keyId);
+
+    // THEN
+    assertThat(unboundFoo, notNullValue());
+    assertThat(boundFoo, sameInstance(foo));
+  }
+
+  @Test
+  public void getInstanceWithKeyId_shouldUseNewBinding_whenBindingIsInstalledInParentAfterLookup() {
+    // GIVEN
+    ScopeImpl scope = new ScopeImpl("root");
+    ScopeImpl childScope = new ScopeImpl("child");
+    scope.addChild(childScope);
+    int keyId = KeyIds.of(Foo.class);
+    childScope.getInstance(Foo.class, keyId);
+    Foo foo = new Foo();
+    scope.installModules(new TestModule(foo));
+
+    // WHEN
+    Foo boundFoo = childScope.getInstance(Foo.class, keyId);
+
+    // THEN
+    assertThat(boundFoo, sameInstance(foo));
+  }
+
+  @Test
+  public void lookupProviderWithKeyId_shouldKeepProviderSlots_whenBindingsOfOtherScopeChange() {
+    // GIVEN
+    ScopeImpl scope = new ScopeImpl("root");
+    int keyId = KeyIds.of(Foo.class);
+    scope.lookupProvider(Foo.class, keyId);
+    ScopeImpl.ProviderSlots providerSlots = scope.providerSlots;
+    ScopeImpl otherScope = new ScopeImpl("other");
+    otherScope.installModules(new TestModule(new Foo()));
+
+    // WHEN
+    scope.lookupProvider(Foo.class, keyId);
+
+    // THEN
+    assertThat(scope.providerSlots, sameInstance(providerSlots));
+  }
+
+  @Test
+  public void lookupProviderWithKeyId_shouldNotGrowProviderSlots_whenBindingsChange() {
+    // GIVEN
+    ScopeImpl scope = new ScopeImpl("root");
+    int keyId = KeyIds.of(Foo.class);
+    scope.lookupProvider(Foo.class, keyId);
+
+    // WHEN
+    for (int i = 0; i < 10; i++) {
+      scope.installModules(new TestModule(new Foo()));
+      scope.lookupProvider(Foo.class, keyId);
+    }
+
+    // THEN
+    assertThat(scope.providerSlots.slots.length(), is(ScopeImpl.ProviderSlots.MIN_CAPACITY));
+  }
+
+  @Test
+  public void lookupProviderWithKeyId_shouldSizeProviderSlotsByKeysLookedUp() {
+    // GIVEN
+    ScopeImpl scope = new ScopeImpl("root");
+    InternalProvider<? extends Foo> provider = scope.lookupProvider(Foo.class, null);
+
+    // WHEN
+    for (int i = 1; i <= 20; i++) {
+      scope.lookupProvider(Foo.class, i * 100000);
+    }
+
+    // THEN
+    for (int i = 1; i <= 20; i++) {
+      assertThat(scope.providerSlots.get(i * 100000), sameInstance((Object) provider));
+    }
+    assertThat(scope.providerSlots.get(1), nullValue());
+    assertThat(scope.providerSlots.slots.length(), is(64));
+  }
+
+  @Test
+  public void getInstanceWithKeyId_shouldUseParentBinding_whenScopeIsAddedToParentAfterLookup() {
+    // GIVEN
+    ScopeImpl scope = new ScopeImpl("root");
+    Foo foo = new Foo();
+    scope.installModules(new TestModule(foo));
+    ScopeImpl childScope = new ScopeImpl("child");
+    int keyId = KeyIds.of(Foo.class);
+    childScope.getInstance(Foo.class, keyId);
+    scope.addChild(childScope);
+
+    // WHEN
+    Foo boundFoo = childScope.getInstance(Foo.class, keyId);
+
+    // THEN
+    assertThat(boundFoo, sameInstance(foo));
+  }
+
+  @Test
+  public void createInstance_shouldLookUpDependenciesOnce_whenFactoryIsPlanned() {
+    // GIVEN
+    ScopeImpl scope = new ScopeImpl("root");
+    PlannedFooFactory factory = new PlannedFooFactory();
+    InternalProvider<Foo> provider = new InternalProvider<>(factory);
+    provider.get(scope);
+
+    // WHEN
+    Foo foo = provider.get(scope);
+
+    // THEN
+    assertThat(foo.bar, notNullValue());
+    assertThat(factory.plannedInstanceCount, is(2));
+    assertThat(factory.dependencyClassesCount, is(1));
+  }
+
+  @Test
+  public void createInstance_shouldLookUpDependenciesAgain_whenBindingsChange() {
+    // GIVEN
+    ScopeImpl scope = new ScopeImpl("root");
+    PlannedFooFactory factory = new PlannedFooFactory();
+    InternalProvider<Foo> provider = new InternalProvider<>(factory);
+    provider.get(scope);
+    final Bar bar = new Bar();
+    scope.installModules(
+        new Module() {
+          {
+            bind(Bar.class).toInstance(bar);
+          }
+        });
+
+    // WHEN
+    Foo foo = provider.get(scope);
+
+    // THEN
+    assertThat(foo.bar, sameInstance(bar));
+    assertThat(factory.dependencyClassesCount, is(2));
+  }
+
+  @Test
+  public void createInstance_shouldNotUseDependencyPlan_whenRuntimeChecksAreOn() {
+    // GIVEN
+    Toothpick.setConfiguration(Configuration.forDevelopment());
+    ScopeImpl scope = new ScopeImpl("root");
+    PlannedFooFactory factory = new PlannedFooFactory();
+    InternalProvider<Foo> provider = new InternalProvider<>(factory);
+
+    // WHEN
+    try {
+      provider.get(scope);
+    } finally {
+      Toothpick.setConfiguration(Configuration.forProduction());
+    }
+
+    // THEN
+    assertThat(factory.createdInstanceCount, is(1));
+    assertThat(factory.plannedInstanceCount, is(0));
+  }
+
+  @Test
+  public void installModules_shouldInstallBindings_whenModuleIsGenerated() {
+    // GIVEN
+    ScopeImpl scope = new ScopeImpl("root");
+
+    // WHEN
+    scope.installModules(new TestGeneratedModule());
+
+    // THEN
+    IFoo foo = scope.getInstance(IFoo.class);
+    assertThat(foo instanceof Foo, is(true));
+    assertThat(scope.getInstance(IFoo.class), sameInstance(foo));
+    assertThat(scope.releasableProviders.length, is(1));
+  }
+
+  @Test
+  public void installTestModules_shouldOverrideBindings_whenModuleIsGenerated() {
+    // GIVEN
+    Foo testFoo = new Foo();
+    ScopeImpl scope = new ScopeImpl("root");
+    scope.installTestModules(new TestModule(testFoo));
+
+    // WHEN
+    scope.installModules(new TestGeneratedModule());
+
+    // THEN
+    assertThat(scope.getInstance(Foo.class), sameInstance(testFoo));
+  }
+
+  @Test
+  public void installModules_shouldInstallProvidersLazily_whenModuleIsATemplate() {
+    // GIVEN
+    ModuleTemplate moduleTemplate = ModuleTemplate.freeze(new TestGeneratedModule());
+    ScopeImpl scope = new ScopeImpl("root");
+    ScopeImpl otherScope = new ScopeImpl("other");
+
+    // WHEN
+    scope.installModules(moduleTemplate);
+    otherScope.installModules(moduleTemplate);
+
+    // THEN
+    assertThat(scope.mapClassesToUnNamedScopedProviders.get(IFoo.class), nullValue());
+    IFoo foo = scope.getInstance(IFoo.class);
+    assertThat(foo instanceof Foo, is(true));
+    assertThat(scope.getInstance(IFoo.class), sameInstance(foo));
+    assertThat(scope.mapClassesToUnNamedScopedProviders.get(IFoo.class), notNullValue());
+    assertThat(scope.releasableProviders.length, is(1));
+    assertThat(otherScope.mapClassesToUnNamedScopedProviders.get(IFoo.class), nullValue());
+    assertThat(otherScope.getInstance(IFoo.class), not(sameInstance(foo)));
+  }
+
+  @Test
+  public void installModules_shouldKeepTemplateBindings_whenModuleIsInstalledAfterTemplate() {
+    // GIVEN
+    Foo templateFoo = new Foo();
+    ScopeImpl scope = new ScopeImpl("root");
+    scope.installModules(ModuleTemplate.freeze(new TestModule(templateFoo)));
+
+    // WHEN
+    scope.installModules(new ProdModule());
+
+    // THEN
+    assertThat(scope.getInstance(Foo.class), sameInstance(templateFoo));
+  }
+
+  @Test
+  public void installModules_shouldInstallTemplateBindings_inChildScopes() {
+    // GIVEN
+    Foo templateFoo = new Foo();
+    ScopeImpl scope = new ScopeImpl("root");
+    ScopeImpl childScope = new ScopeImpl("child");
+    scope.addChild(childScope);
+
+    // WHEN
+    scope.installModules(ModuleTemplate.freeze(new TestModule(templateFoo)));
+
+    // THEN
+    assertThat(childScope.getInstance(Foo.class), sameInstance(templateFoo));
+  }
+
+  @Test
+  public void installTestModules_shouldOverrideBindings_whenModuleIsATemplate() {
+    // GIVEN
+    Foo testFoo = new Foo();
+    ScopeImpl scope = new ScopeImpl("root");
+    scope.installModules(ModuleTemplate.freeze(new ProdModule()));
+
+    // WHEN
+    scope.installTestModules(ModuleTemplate.freeze(new TestModule(testFoo)));
+    scope.installModules(ModuleTemplate.freeze(new ProdModule()));
+
+    // THEN
+    assertThat(scope.getInstance(Foo.class), sameInstance(testFoo));
+  }
+
+  @Test
+  public void reset_shouldRemoveModuleTemplates() {
+    // GIVEN
+    Foo templateFoo = new Foo();
+    ScopeImpl scope = new ScopeImpl("root");
+    scope.installModules(ModuleTemplate.freeze(new TestModule(templateFoo)));
+
+    // WHEN
+    scope.reset();
+
+    // THEN
+    assertThat(scope.getInstance(Foo.class), not(sameInstance(templateFoo)));
+  }
+
   private static class TestModule extends Module {
     TestModule(Foo foo) {
       bind(Foo.class).toInstance(foo);
@@ -303,6 +777,83 @@ public class ScopeImplTest {
     }
   }
 
+  private static class ReleasableModule extends Module {
+    ReleasableModule() {
+      bind(IFoo.class).to(Foo.class).singleton().releasable();
+    }
+  }
+
+  private static class CountingFooFactory implements Factory<Foo> {
+    int createdInstanceCount;
+
+    @Override
+    public Foo createInstance(Scope scope) {
+      createdInstanceCount++;
+      return new Foo();
+    }
+
+    @Override
+    public Scope getTargetScope(Scope scope) {
+      return scope;
+    }
+
+    @Override
+    public boolean hasScopeAnnotation() {
+      return false;
+    }
+
+    @Override
+    public boolean hasSingletonAnnotation() {
+      return false;
+    }
+
+    @Override
+    public boolean hasReleasableAnnotation() {
+      return false;
+    }
+
+    @Override
+    public boolean hasProvidesSingletonAnnotation() {
+      return false;
+    }
+
+    @Override
+    public boolean hasProvidesReleasableAnnotation() {
+      return false;
+    }
+  }
+
+  private static class PlannedFooFactory extends CountingFooFactory
+      implements PlannedFactory<Foo> {
+    int dependencyClassesCount;
+    int plannedInstanceCount;
+
+    @Override
+    public Class<?>[] getDependencyClasses() {
+      dependencyClassesCount++;
+      return new Class<?>[] {Bar.class};
+    }
+
+    @Override
+    public Foo createInstance(Scope scope, DependencyPlan plan) {
+      plannedInstanceCount++;
+      Foo foo = new Foo();
+      foo.bar = plan.getInstance(0);
+      return foo;
+    }
+  }
+
+  private static final class TestGeneratedModule extends GeneratedModule {
+    private static final Binding[] BINDINGS = {
+      bindingToClass(IFoo.class, null, Foo.class, true, true),
+      bindingToSelf(Foo.class, null, false, false)
+    };
+
+    TestGeneratedModule() {
+      super(BINDINGS);
+    }
+  }
+
   private static class BuggyModule extends Module {
     {
       bind(Foo.class).toInstance(null);
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+import javax.inject.Provider;
+import org.junit.After;
+import org.junit.Test;
+import toothpick.config.Module;
+import toothpick.configuration.Configuration;
+import toothpick.data.Foo;
+
+public class ScopePoolTest {
+
+  @After
+  public void tearDown() {
+    Toothpick.setConfiguration(Configuration.forProduction());
+    Toothpick.reset();
+  }
+
+  @Test
+  public void openScope_shouldReuseClosedScope_whenScopePoolIsEnabled() {
+    // GIVEN
+    Toothpick.setConfiguration(Configuration.forProduction().enableScopePool(10));
+    ScopeNode closedGrandChild = (ScopeNode) Toothpick.openScopes("root", "child", "grandChild");
+    ScopeNode closedChild = closedGrandChild.getParentScope();
+    Toothpick.closeScope("child");
+
+    // WHEN
+    ScopeNode scope = (ScopeNode) Toothpick.openScope("foo");
+
+    // THEN
+    assertThat(Toothpick.getPooledScopesSize(), is(1));
+    assertThat(scope.getName(), is((Object) "foo"));
+    assertThat(scope.getParentScope(), nullValue());
+    assertThat(scope.getChildrenScopes().isEmpty(), is(true));
+    assertThat(scope.getInstance(Scope.class), sameInstance((Scope) scope));
+    assertThat(scope, not(sameInstance(closedChild)));
+    assertThat(scope, not(sameInstance(closedGrandChild)));
+  }
+
+  @Test
+  public void openScope_shouldReuseTablesOfClosedScope_whenScopePoolIsEnabled() {
+    // GIVEN
+    Toothpick.setConfiguration(Configuration.forProduction().enableScopePool(1));
+    ScopeImpl closedScope = (ScopeImpl) Toothpick.openScope("foo");
+    Toothpick.closeScope("foo");
+
+    // WHEN
+    ScopeImpl scope = (ScopeImpl) Toothpick.openScope("bar");
+
+    // THEN
+    assertThat(Toothpick.getPooledScopesSize(), is(0));
+    assertThat(
+        scope.mapClassesToUnNamedScopedProviders,
+        sameInstance(closedScope.mapClassesToUnNamedScopedProviders));
+    assertThat(
+        scope.mapClassesToNamedScopedProviders,
+        sameInstance(closedScope.mapClassesToNamedScopedProviders));
+  }
+
+  @Test
+  public void openScope_shouldNotReuseClosedScope_whenScopePoolIsDisabled() {
+    // GIVEN
+    Scope closedScope = Toothpick.openScope("foo");
+    Toothpick.closeScope("foo");
+
+    // WHEN
+    Scope scope = Toothpick.openScope("foo");
+
+    // THEN
+    assertThat(scope, not(sameInstance(closedScope)));
+    assertThat(Toothpick.getPooledScopesSize(), is(0));
+  }
+
+  @Test
+  public void closeScope_shouldNotPoolMoreScopesThanTheMaximum() {
+    // GIVEN
+    Toothpick.setConfiguration(Configuration.forProduction().enableScopePool(1));
+    Toothpick.openScopes("root", "child");
+
+    // WHEN
+    Toothpick.closeScope("root");
+
+    // THEN
+    assertThat(Toothpick.getPooledScopesSize(), is(1));
+  }
+
+  @Test
+  public void openScope_shouldNotKeepBindingsOfRecycledScope() {
+    // GIVEN
+    Toothpick.setConfiguration(Configuration.forProduction().enableScopePool(1));
+    final Foo foo = new Foo();
+    Scope closedScope = Toothpick.openScope("foo");
+    closedScope.installModules(
+        new Module() {
+          {
+            bind(Foo.class).toInstance(foo);
+          }
+        });
+    Toothpick.closeScope("foo");
+
+    // WHEN
+    Scope scope = Toothpick.openScope("bar");
+
+    // THEN
+    assertThat(scope.getInstance(Foo.class), not(sameInstance(foo)));
+  }
+
+  @Test
+  public void installModules_shouldFail_whenScopeWasRecycled() {
+    // GIVEN
+    Toothpick.setConfiguration(Configuration.forProduction().enableScopePool(1));
+    Scope recycledScope = Toothpick.openScope("foo");
+    Toothpick.closeScope("foo");
+    Scope scope = Toothpick.openScope("bar");
+
+    // WHEN
+    try {
+      recycledScope.installModules(
+          new Module() {
+            {
+              bind(Foo.class).toInstance(new Foo());
+            }
+          });
+      fail("Should throw an exception");
+    } catch (IllegalStateException e) {
+      // THEN
+      assertThat(e.getMessage().contains("recycled"), is(true));
+      assertThat(
+          ((ScopeImpl) scope).mapClassesToUnNamedScopedProviders.containsKey(Foo.class),
+          is(false));
+    }
+  }
+
+  @Test
+  public void injectedScope_shouldFail_whenScopeWasRecycled() {
+    // GIVEN
+    Toothpick.setConfiguration(Configuration.forProduction().enableScopePool(1));
+    Scope injectedScope = Toothpick.openScope("foo").getInstance(Scope.class);
+    Toothpick.closeScope("foo");
+    Toothpick.openScope("bar");
+
+    // WHEN
+    try {
+      injectedScope.getInstance(Foo.class);
+      fail("Should throw an exception");
+    } catch (IllegalStateException e) {
+      // THEN
+      assertThat(e.getMessage().contains("recycled"), is(true));
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void openSubScope_shouldFail_whenScopeWasRecycled() {
+    // GIVEN
+    Toothpick.setConfiguration(Configuration.forProduction().enableScopePool(1));
+    Scope recycledScope = Toothpick.openScope("foo");
+    Toothpick.closeScope("foo");
+
+    // WHEN
+    recycledScope.openSubScope("child");
+
+    // THEN
+    fail("Should throw an exception");
+  }
+
+  @Test
+  public void provider_shouldFail_whenScopeWasRecycled() {
+    // GIVEN
+    Toothpick.setConfiguration(Configuration.forProduction().enableScopePool(1));
+    Provider<Foo> provider = Toothpick.openScope("foo").getProvider(Foo.class);
+    Toothpick.closeScope("foo");
+    Toothpick.openScope("bar");
+
+    // WHEN
+    try {
+      provider.get();
+      fail("Should throw an exception");
+    } catch (IllegalStateException e) {
+      // THEN
+      assertThat(e.getMessage().contains("recycled"), is(true));
+    }
+  }
+
+  @Test
+  public void lookupProvider_shouldNotReachReusedTables_whenScopeWasRecycledDuringLookup() {
+    // GIVEN
+    Toothpick.setConfiguration(Configuration.forProduction().enableScopePool(1));
+    // a thread that passed the checks of the public methods before the scope was recycled
+    ScopeImpl staleScope = (ScopeImpl) Toothpick.openScope("foo");
+    Toothpick.closeScope("foo");
+    ScopeImpl scope = (ScopeImpl) Toothpick.openScope("bar");
+
+    // WHEN
+    try {
+      staleScope.lookupProvider(Foo.class, null);
+      fail("Should throw an exception");
+    } catch (IllegalStateException e) {
+      // THEN
+      assertThat(e.getMessage().contains("recycled"), is(true));
+    }
+    assertThat(scope.mapClassesToUnNamedScopedProviders.containsKey(Foo.class), is(false));
+    assertThat(scope.getInstance(Scope.class), sameInstance((Scope) scope));
+  }
+
+  @Test
+  public void reset_shouldEmptyThePool() {
+    // GIVEN
+    Toothpick.setConfiguration(Configuration.forProduction().enableScopePool(1));
+    Toothpick.openScope("foo");
+    Toothpick.closeScope("foo");
+
+    // WHEN
+    Toothpick.reset();
+
+    // THEN
+    assertThat(Toothpick.getPooledScopesSize(), is(0));
+  }
+}
@@ -19,6 +19,7 @@ package toothpick;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalToObject;
@@ -29,11 +30,20 @@ import static org.mockito.Mockito.verify;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.After;
 import org.junit.Test;
 import org.mockito.Mockito;
 import toothpick.configuration.Configuration;
+import toothpick.config.Module;
 import toothpick.configuration.MultipleRootException;
+import toothpick.data.Foo;
+import toothpick.data.IFoo;
+import toothpick.monitoring.LockKind;
+import toothpick.monitoring.LockListener;
 
 public class ToothpickTest {
 
@@ -455,8 +465,101 @@ public class ToothpickTest {
     fail("Should throw an exception for multiple scope trees!");
   }
 
+  @Test
+  public void openScope_shouldNotLock_whenScopeIsAlreadyOpen() {
+    // GIVEN
+    final AtomicInteger lockCount = new AtomicInteger();
+    Toothpick.setConfiguration(
+        Configuration.forProduction()
+            .addLockListener(
+                new LockListener() {
+                  @Override
+                  public void onLockAcquired(
+                      LockKind lockKind, Class<?> clazz, String name, long waitNanos) {
+                    lockCount.incrementAndGet();
+                  }
+                }));
+    Scope scope = Toothpick.openScope("foo");
+    Toothpick.openRootScope();
+    lockCount.set(0);
+
+    // WHEN
+    Scope scope2 = Toothpick.openScope("foo");
+    Scope rootScope = Toothpick.openRootScope();
+
+    // THEN
+    assertThat(scope2, sameInstance(scope));
+    assertThat(rootScope, sameInstance(scope));
+    assertThat(lockCount.get(), is(0));
+  }
+
+  @Test
+  public void closeScope_shouldCloseSubScopes_beforeExecutorCleansThemUp() {
+    // GIVEN
+    QueueExecutor executor = new QueueExecutor();
+    Scope childScope = Toothpick.openScopes("foo", "bar");
+
+    // WHEN
+    Toothpick.closeScope("foo", executor, false);
+
+    // THEN
+    assertThat(Toothpick.isScopeOpen("foo"), is(false));
+    assertThat(Toothpick.isScopeOpen("bar"), is(false));
+    assertThat(Toothpick.getScopeNamesSize(), is(1));
+    Scope newChildScope = Toothpick.openScope("bar");
+    assertThat(newChildScope, not(sameInstance(childScope)));
+    executor.runAll();
+    assertThat(Toothpick.openScope("bar"), sameInstance(newChildScope));
+    assertThat(Toothpick.getScopeNamesSize(), is(1));
+  }
+
+  @Test
+  public void closeScope_shouldReleaseSubScopes_whenReleaseIsRequested() {
+    // GIVEN
+    ScopeImpl childScope = (ScopeImpl) Toothpick.openScopes("foo", "bar");
+    childScope.installModules(
+        new Module() {
+          {
+            bind(IFoo.class).to(Foo.class).singleton().releasable();
+          }
+        });
+    childScope.getInstance(IFoo.class);
+    InternalProvider internalProvider =
+        childScope.mapClassesToUnNamedScopedProviders.get(IFoo.class);
+
+    // WHEN
+    Toothpick.closeScope("foo", null, true);
+
+    // THEN
+    assertThat(internalProvider.instance, nullValue());
+    assertThat(Toothpick.getScopeNamesSize(), is(0));
+  }
+
+  @Test
+  public void closeScope_shouldCloseAllSubScopes_whenTreeIsDeep() {
+    // GIVEN
+    Object[] names = new Object[1000];
+    for (int i = 0; i < names.length; i++) {
+      names[i] = i;
+    }
+    Scope leafScope = Toothpick.openScopes(names);
+
+    // WHEN
+    Toothpick.closeScope(0);
+
+    // THEN
+    assertThat(Toothpick.getScopeNamesSize(), is(0));
+    try {
+      leafScope.getInstance(Foo.class);
+      fail("Should throw an exception");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
   @After
   public void tearDown() {
+    Toothpick.setConfiguration(Configuration.forProduction());
     Toothpick.reset();
   }
 
@@ -472,4 +575,20 @@ public class ToothpickTest {
       return wasApplied;
     }
   }
+
+  private static class QueueExecutor implements Executor {
+    private final List<Runnable> runnables = new ArrayList<>();
+
+    @Override
+    public void execute(Runnable runnable) {
+      runnables.add(runnable);
+    }
+
+    void runAll() {
+      for (Runnable runnable : runnables) {
+        runnable.run();
+      }
+      runnables.clear();
+    }
+  }
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.concurrency;
+
+import static org.junit.Assert.assertTrue;
+import static toothpick.concurrency.utils.ThreadTestUtil.STANDARD_THREAD_COUNT;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import javax.inject.Provider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import toothpick.Toothpick;
+import toothpick.concurrency.threads.GetInstanceThread;
+import toothpick.concurrency.threads.ReleaseScopeThread;
+import toothpick.concurrency.threads.TestableThread;
+import toothpick.concurrency.utils.ThreadTestUtil;
+import toothpick.config.Module;
+import toothpick.data.Bar;
+import toothpick.data.Foo;
+import toothpick.data.IFoo;
+
+public class ReleaseMultiThreadTest {
+
+  static final String ROOT_SCOPE = "ROOT_SCOPE";
+
+  @Before
+  public void setUp() throws Exception {
+    Toothpick.openScope(ROOT_SCOPE)
+        .installModules(
+            new Module() {
+              {
+                bind(IFoo.class).to(Foo.class).singleton().releasable();
+                bind(Bar.class)
+                    .toProviderInstance(
+                        new Provider<Bar>() {
+                          @Override
+                          public Bar get() {
+                            return new Bar();
+                          }
+                        })
+                    .providesSingleton()
+                    .providesReleasable();
+              }
+            });
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Toothpick.reset();
+  }
+
+  @Test
+  public void concurrentReleaseAndGetInstance_shouldNeverReturnNull() throws InterruptedException {
+    // GIVEN
+    final int releaseThreadCount = STANDARD_THREAD_COUNT / 2;
+    final int getInstanceThreadCount = STANDARD_THREAD_COUNT / 2;
+    List<TestableThread> threadList = new ArrayList<>();
+    final Random random = new Random();
+
+    // WHEN
+    for (int indexThread = 0;
+        indexThread < releaseThreadCount + getInstanceThreadCount;
+        indexThread++) {
+      final TestableThread runnable;
+      final int draw = random.nextInt(100);
+      if (draw < 50) {
+        runnable = new ReleaseScopeThread(ROOT_SCOPE);
+      } else if (draw < 75) {
+        runnable = new GetInstanceThread(ROOT_SCOPE, IFoo.class);
+      } else {
+        runnable = new GetInstanceThread(ROOT_SCOPE, Bar.class);
+      }
+      threadList.add(runnable);
+      ThreadTestUtil.submit(runnable);
+    }
+
+    // THEN
+    // a get instance never observes a half released provider
+    ThreadTestUtil.shutdown();
+    for (TestableThread thread : threadList) {
+      assertTrue(
+          String.format("test of thread %s failed", thread.getName()), thread.isSuccessful());
+    }
+  }
+}
@@ -33,6 +33,7 @@ import toothpick.Toothpick;
 import toothpick.ToothpickVisibilityExposer;
 import toothpick.concurrency.threads.AddSameScopeThread;
 import toothpick.concurrency.threads.AddScopeToListThread;
+import toothpick.concurrency.threads.OpenAndCloseScopeThread;
 import toothpick.concurrency.threads.RemoveSameScopeThread;
 import toothpick.concurrency.threads.RemoveScopeFromListThread;
 import toothpick.concurrency.threads.TestableThread;
@@ -189,4 +190,27 @@ public class ToothpickManipulationsMultiThreadTest {
     }
     assertThat(ToothpickVisibilityExposer.getScopeNamesSize(), anyOf(is(1), is(2)));
   }
+
+  @Test
+  public void concurrentOpenAndCloseOfDistinctScopes_shouldLeaveNoScopeOpen()
+      throws InterruptedException {
+    // GIVEN
+    final int openAndCloseThreadCount = STANDARD_THREAD_COUNT;
+    List<TestableThread> threadList = new ArrayList<>();
+
+    // WHEN
+    for (int indexThread = 0; indexThread < openAndCloseThreadCount; indexThread++) {
+      OpenAndCloseScopeThread runnable = new OpenAndCloseScopeThread(ROOT_SCOPE);
+      threadList.add(runnable);
+      ThreadTestUtil.submit(runnable);
+    }
+
+    // THEN
+    ThreadTestUtil.shutdown();
+    for (TestableThread thread : threadList) {
+      assertTrue(
+          String.format("test of thread %s failed", thread.getName()), thread.isSuccessful());
+    }
+    assertThat(ToothpickVisibilityExposer.getScopeNamesSize(), is(1));
+  }
 }
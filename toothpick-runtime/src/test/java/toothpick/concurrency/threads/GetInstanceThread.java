@@ -31,7 +31,6 @@ public class GetInstanceThread extends TestableThread {
 
   @Override
   public void doRun() {
-    Toothpick.openScope(scopeName).getInstance(clazz);
-    setIsSuccessful(true);
+    setIsSuccessful(Toothpick.openScope(scopeName).getInstance(clazz) != null);
   }
 }
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.concurrency.threads;
+
+import toothpick.Scope;
+import toothpick.Toothpick;
+
+public class OpenAndCloseScopeThread extends TestableThread {
+  static int instanceNumber = 0;
+  private final Object parentScopeName;
+
+  public OpenAndCloseScopeThread(Object parentScopeName) {
+    super("OpenAndCloseScopeThread " + instanceNumber++);
+    this.parentScopeName = parentScopeName;
+  }
+
+  @Override
+  public void doRun() {
+    Object scopeName = new Object();
+    Scope scope = Toothpick.openScopes(parentScopeName, scopeName);
+    if (scope.getParentScope().getName() != parentScopeName) {
+      return;
+    }
+    Toothpick.closeScope(scopeName);
+    setIsSuccessful(!Toothpick.isScopeOpen(scopeName));
+  }
+}
@@ -16,14 +16,21 @@
  */
 package toothpick.locators;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import toothpick.Toothpick;
 import toothpick.configuration.Configuration;
 import toothpick.data.Foo;
 import toothpick.data.Qurtz;
+import toothpick.monitoring.LocatorKind;
+import toothpick.monitoring.LocatorListener;
 
 public class FactoryLocatorTest {
 
@@ -32,6 +39,11 @@ public class FactoryLocatorTest {
     Toothpick.setConfiguration(Configuration.forProduction());
   }
 
+  @After
+  public void tearDown() {
+    Toothpick.setConfiguration(Configuration.forProduction());
+  }
+
   @Test
   public void testGetFactory_shouldFindTheFactoryForFoo_whenTheFactoryIsGenerated() {
     // GIVEN
@@ -51,4 +63,34 @@ public class FactoryLocatorTest {
     // THEN
     fail("Should throw an exception");
   }
+
+  @Test
+  public void testGetFactory_shouldNotifyLocatorListeners() {
+    // GIVEN
+    final List<String> events = new ArrayList<>();
+    Toothpick.setConfiguration(
+        Configuration.forProduction()
+            .addLocatorListener(
+                new LocatorListener() {
+                  @Override
+                  public void onLocated(
+                      LocatorKind locatorKind, Class<?> clazz, boolean found, long durationNanos) {
+                    events.add(locatorKind + " " + clazz.getSimpleName() + " " + found);
+                  }
+                }));
+
+    // WHEN
+    FactoryLocator.getFactory(Foo.class);
+    try {
+      FactoryLocator.getFactory(Qurtz.class);
+      fail("Should throw an exception");
+    } catch (NoFactoryFoundException e) {
+      // expected
+    }
+
+    // THEN
+    assertThat(events.size(), is(2));
+    assertThat(events.get(0), is("FACTORY Foo true"));
+    assertThat(events.get(1), is("FACTORY Qurtz false"));
+  }
 }
@@ -16,10 +16,14 @@
  */
 package toothpick.locators;
 
+import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import toothpick.MemberInjector;
@@ -27,6 +31,8 @@ import toothpick.Toothpick;
 import toothpick.configuration.Configuration;
 import toothpick.data.Foo;
 import toothpick.data.Qurtz;
+import toothpick.monitoring.LocatorKind;
+import toothpick.monitoring.LocatorListener;
 
 public class MemberInjectorLocatorTest {
 
@@ -35,6 +41,11 @@ public class MemberInjectorLocatorTest {
     Toothpick.setConfiguration(Configuration.forProduction());
   }
 
+  @After
+  public void tearDown() {
+    Toothpick.setConfiguration(Configuration.forProduction());
+  }
+
   @Test
   public void
       testGetMemberInjector_shouldFindTheMemberInjectorForFoo_whenTheMemberInjectorIsGenerated() {
@@ -55,4 +66,29 @@ public class MemberInjectorLocatorTest {
     // THEN
     assertThat(memberInjector, nullValue());
   }
+
+  @Test
+  public void testGetMemberInjector_shouldNotifyLocatorListeners() {
+    // GIVEN
+    final List<String> events = new ArrayList<>();
+    Toothpick.setConfiguration(
+        Configuration.forProduction()
+            .addLocatorListener(
+                new LocatorListener() {
+                  @Override
+                  public void onLocated(
+                      LocatorKind locatorKind, Class<?> clazz, boolean found, long durationNanos) {
+                    events.add(locatorKind + " " + clazz.getSimpleName() + " " + found);
+                  }
+                }));
+
+    // WHEN
+    MemberInjectorLocator.getMemberInjector(Foo.class);
+    MemberInjectorLocator.getMemberInjector(Qurtz.class);
+
+    // THEN
+    assertThat(events.size(), is(2));
+    assertThat(events.get(0), is("MEMBER_INJECTOR Foo true"));
+    assertThat(events.get(1), is("MEMBER_INJECTOR Qurtz false"));
+  }
 }
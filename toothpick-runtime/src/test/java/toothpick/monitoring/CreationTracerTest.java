@@ -0,0 +1,123 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.monitoring;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import toothpick.Scope;
+import toothpick.ScopeImpl;
+import toothpick.Toothpick;
+import toothpick.config.Module;
+import toothpick.configuration.Configuration;
+import toothpick.data.Bar;
+import toothpick.data.Foo;
+import toothpick.data.FooSingleton;
+
+public class CreationTracerTest {
+
+  private CreationTracer tracer;
+
+  @Before
+  public void setUp() {
+    tracer = new CreationTracer();
+    Toothpick.setConfiguration(Configuration.forProduction().addCreationListener(tracer));
+  }
+
+  @After
+  public void tearDown() {
+    Toothpick.setConfiguration(Configuration.forProduction());
+    Toothpick.reset();
+  }
+
+  @Test
+  public void getInstance_shouldRecordNestedSpans_whenInstanceHasDependencies() {
+    // GIVEN
+    Scope scope = new ScopeImpl("root");
+
+    // WHEN
+    scope.getInstance(Foo.class);
+
+    // THEN
+    List<CreationTracer.Span> spans = tracer.getSpans();
+    assertThat(spans.size(), is(2));
+    assertThat(spans.get(0).getClassName(), is(Bar.class.getName()));
+    assertThat(spans.get(0).getDepth(), is(1));
+    assertThat(spans.get(1).getClassName(), is(Foo.class.getName()));
+    assertThat(spans.get(1).getDepth(), is(0));
+    assertThat(spans.get(1).getScopeName(), is("root"));
+    assertThat(spans.get(1).getBindingName(), nullValue());
+    assertThat(spans.get(1).getThreadName(), is(Thread.currentThread().getName()));
+    assertThat(spans.get(1).getDurationNanos() >= spans.get(0).getDurationNanos(), is(true));
+  }
+
+  @Test
+  public void getInstance_shouldNotRecordSpans_whenSingletonIsAlreadyCreated() {
+    // GIVEN
+    Scope scope = new ScopeImpl("root");
+    scope.getInstance(FooSingleton.class);
+    tracer.clear();
+
+    // WHEN
+    scope.getInstance(FooSingleton.class);
+
+    // THEN
+    assertThat(tracer.getSpans().size(), is(0));
+  }
+
+  @Test
+  public void getInstance_shouldRecordBindingName_whenBindingIsNamed() {
+    // GIVEN
+    Scope scope = new ScopeImpl("root");
+    scope.installModules(
+        new Module() {
+          {
+            bind(Foo.class).withName("bar").to(Foo.class);
+          }
+        });
+
+    // WHEN
+    scope.getInstance(Foo.class, "bar");
+
+    // THEN
+    List<CreationTracer.Span> spans = tracer.getSpans();
+    assertThat(spans.get(spans.size() - 1).getBindingName(), is("bar"));
+  }
+
+  @Test
+  public void toChromeTrace_shouldExportCompleteEventsAndThreadLanes() {
+    // GIVEN
+    Scope scope = new ScopeImpl("root");
+    scope.getInstance(Foo.class);
+
+    // WHEN
+    String trace = tracer.toChromeTrace();
+
+    // THEN
+    assertThat(trace, containsString("{\"traceEvents\":["));
+    assertThat(trace, containsString("\"ph\":\"M\""));
+    assertThat(trace, containsString("\"ph\":\"X\""));
+    assertThat(trace, containsString("\"class\":\"" + Foo.class.getName() + "\""));
+    assertThat(trace, containsString("\"scope\":\"root\""));
+  }
+}
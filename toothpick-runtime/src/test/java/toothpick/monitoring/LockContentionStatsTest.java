@@ -0,0 +1,171 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.monitoring;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Provider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import toothpick.Scope;
+import toothpick.Toothpick;
+import toothpick.config.Module;
+import toothpick.configuration.Configuration;
+import toothpick.data.Bar;
+
+public class LockContentionStatsTest {
+
+  private LockContentionStats stats;
+
+  @Before
+  public void setUp() {
+    stats = new LockContentionStats();
+    Toothpick.setConfiguration(Configuration.forProduction().addLockListener(stats));
+  }
+
+  @After
+  public void tearDown() {
+    Toothpick.setConfiguration(Configuration.forProduction());
+    Toothpick.reset();
+  }
+
+  @Test
+  public void getInstance_shouldRecordLockAcquisitions() {
+    // GIVEN
+    Scope scope = Toothpick.openScope("root");
+
+    // WHEN
+    scope.getInstance(Bar.class);
+
+    // THEN
+    Map<LockKind, LockContentionStats.Entry> entries = stats.getEntriesByLockKind();
+    assertThat(entries.get(LockKind.ROOT_SCOPES), notNullValue());
+    assertThat(entries.get(LockKind.UNNAMED_SCOPED_PROVIDERS), notNullValue());
+    assertThat(entries.get(LockKind.UNSCOPED_PROVIDERS), notNullValue());
+    assertThat(entries.get(LockKind.INTERNAL_PROVIDER).getAcquisitionCount(), is(1L));
+    assertThat(findEntry(LockKind.INTERNAL_PROVIDER, Bar.class), notNullValue());
+  }
+
+  @Test
+  public void getInstance_shouldRecordWaitTime_whenSingletonIsCreatedConcurrently()
+      throws Exception {
+    // GIVEN
+    final CountDownLatch creationStarted = new CountDownLatch(1);
+    final Scope scope = Toothpick.openScope("root");
+    scope.installModules(
+        new Module() {
+          {
+            bind(Bar.class)
+                .toProviderInstance(new SlowBarProvider(creationStarted))
+                .providesSingleton();
+          }
+        });
+    Thread thread =
+        new Thread() {
+          @Override
+          public void run() {
+            scope.getInstance(Bar.class);
+          }
+        };
+    thread.start();
+    creationStarted.await();
+
+    // WHEN
+    scope.getInstance(Bar.class);
+    thread.join();
+
+    // THEN
+    LockContentionStats.Entry entry = findEntry(LockKind.INTERNAL_PROVIDER, Bar.class);
+    assertThat(entry.getAcquisitionCount(), is(2L));
+    assertThat(entry.getMaxWaitNanos() >= TimeUnit.MILLISECONDS.toNanos(10), is(true));
+    assertThat(entry.getTotalWaitNanos() >= entry.getMaxWaitNanos(), is(true));
+  }
+
+  @Test
+  public void getInstance_shouldRecordEntriesPerBindingName() {
+    // GIVEN
+    Scope scope = Toothpick.openScope("root");
+    scope.installModules(
+        new Module() {
+          {
+            bind(Bar.class).withName("foo").toInstance(new Bar());
+          }
+        });
+
+    // WHEN
+    scope.getInstance(Bar.class, "foo");
+    scope.getInstance(Bar.class, "foo");
+
+    // THEN
+    LockContentionStats.Entry namedEntry = null;
+    for (LockContentionStats.Entry entry : stats.getEntries()) {
+      if (entry.getLockKind() == LockKind.NAMED_SCOPED_PROVIDERS
+          && "foo".equals(entry.getBindingName())) {
+        namedEntry = entry;
+      }
+    }
+    assertThat(namedEntry.getBindingClass() == Bar.class, is(true));
+    assertThat(namedEntry.getAcquisitionCount() >= 2L, is(true));
+  }
+
+  @Test
+  public void clear_shouldRemoveAllEntries() {
+    // GIVEN
+    Scope scope = Toothpick.openScope("root");
+    scope.getInstance(Bar.class);
+
+    // WHEN
+    stats.clear();
+
+    // THEN
+    assertThat(stats.getEntries().size(), is(0));
+  }
+
+  private LockContentionStats.Entry findEntry(LockKind lockKind, Class<?> clazz) {
+    for (LockContentionStats.Entry entry : stats.getEntries()) {
+      if (entry.getLockKind() == lockKind && entry.getBindingClass() == clazz) {
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  private static class SlowBarProvider implements Provider<Bar> {
+    private final CountDownLatch creationStarted;
+
+    SlowBarProvider(CountDownLatch creationStarted) {
+      this.creationStarted = creationStarted;
+    }
+
+    @Override
+    public Bar get() {
+      creationStarted.countDown();
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+      return new Bar();
+    }
+  }
+}
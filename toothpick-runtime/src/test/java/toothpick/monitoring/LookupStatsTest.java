@@ -0,0 +1,158 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.monitoring;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import toothpick.EphemeralScope;
+import toothpick.Scope;
+import toothpick.Toothpick;
+import toothpick.config.Module;
+import toothpick.configuration.Configuration;
+import toothpick.data.Bar;
+import toothpick.data.Foo;
+import toothpick.data.IFoo;
+
+public class LookupStatsTest {
+
+  private LookupStats stats;
+
+  @Before
+  public void setUp() {
+    stats = new LookupStats();
+    Toothpick.setConfiguration(
+        Configuration.forProduction().addLookupListener(stats).addScopeListener(stats));
+  }
+
+  @After
+  public void tearDown() {
+    Toothpick.setConfiguration(Configuration.forProduction());
+    Toothpick.reset();
+  }
+
+  @Test
+  public void getInstance_shouldCountScopeLookup_whenBindingIsInCurrentScope() {
+    // GIVEN
+    Scope scope = Toothpick.openScopes("root", "child");
+
+    // WHEN
+    scope.getInstance(Scope.class);
+
+    // THEN
+    LookupStats.Counters counters = stats.getCounters("child");
+    assertThat(counters.getScopeLookupCount(0), is(1L));
+    assertThat(counters.getScopeProbeCount(0), is(1L));
+    assertThat(counters.getLookupCount(), is(1L));
+  }
+
+  @Test
+  public void getInstance_shouldCountAncestorDepth_whenBindingIsInAncestorScope() {
+    // GIVEN
+    Toothpick.openScope("root")
+        .installModules(
+            new Module() {
+              {
+                bind(IFoo.class).to(Foo.class);
+              }
+            });
+    Scope scope = Toothpick.openScopes("root", "child", "grandChild");
+
+    // WHEN
+    scope.getInstance(IFoo.class);
+
+    // THEN
+    LookupStats.Counters counters = stats.getCounters("grandChild");
+    assertThat(counters.getScopeLookupCount(2), is(1L));
+    assertThat(counters.getScopeProbeCount(2), is(3L));
+    assertThat(counters.getMaxScopeDepth(), is(2));
+  }
+
+  @Test
+  public void getInstance_shouldCountFactoryThenUnscopedPool_whenClassIsNotBound() {
+    // GIVEN
+    Scope scope = Toothpick.openScopes("root", "child");
+
+    // WHEN
+    scope.getInstance(Bar.class);
+    scope.getInstance(Bar.class);
+
+    // THEN
+    LookupStats.Counters counters = stats.getCounters("child");
+    assertThat(counters.getFactoryLookupCount(), is(1L));
+    assertThat(counters.getFactoryProbeCount(), is(3L));
+    assertThat(counters.getUnscopedPoolLookupCount(), is(1L));
+    assertThat(counters.getUnscopedPoolProbeCount(), is(3L));
+    assertThat(stats.getAggregateCounters().getLookupCount(), is(2L));
+  }
+
+  @Test
+  public void closeScope_shouldRemoveCountersOfScopeAndSubScopes() {
+    // GIVEN
+    Toothpick.openScope("root").getInstance(Bar.class);
+    Toothpick.openScopes("root", "child").getInstance(Bar.class);
+    Toothpick.openScopes("root", "child", "grandChild").getInstance(Bar.class);
+    Toothpick.openScopes("root", "otherChild").getInstance(Bar.class);
+
+    // WHEN
+    Toothpick.closeScope("child");
+
+    // THEN
+    assertThat(stats.getCounters("child"), nullValue());
+    assertThat(stats.getCounters("grandChild"), nullValue());
+    assertThat(stats.getCounters("root").getLookupCount(), is(1L));
+    assertThat(stats.getCounters("otherChild").getLookupCount(), is(1L));
+    assertThat(stats.getAggregateCounters().getLookupCount(), is(4L));
+  }
+
+  @Test
+  public void getInstance_shouldCountEphemeralScopesTogether() {
+    // GIVEN
+    Scope scope = Toothpick.openScope("root");
+    EphemeralScope ephemeralScope = Toothpick.openEphemeralSubScope(scope);
+    EphemeralScope otherEphemeralScope = Toothpick.openEphemeralSubScope(scope);
+
+    // WHEN
+    ephemeralScope.getInstance(Bar.class);
+    otherEphemeralScope.getInstance(Bar.class);
+    ephemeralScope.close();
+    otherEphemeralScope.close();
+
+    // THEN
+    assertThat(stats.getCountersPerScope().isEmpty(), is(true));
+    assertThat(stats.getEphemeralScopeCounters().getLookupCount(), is(2L));
+    assertThat(stats.getAggregateCounters().getLookupCount(), is(2L));
+  }
+
+  @Test
+  public void clear_shouldRemoveAllCounters() {
+    // GIVEN
+    Scope scope = Toothpick.openScope("root");
+    scope.getInstance(Bar.class);
+
+    // WHEN
+    stats.clear();
+
+    // THEN
+    assertThat(stats.getCounters("root"), nullValue());
+    assertThat(stats.getAggregateCounters().getLookupCount(), is(0L));
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.monitoring;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.List;
+import javax.inject.Provider;
+import org.junit.After;
+import org.junit.Test;
+import toothpick.Scope;
+import toothpick.ScopeImpl;
+import toothpick.Toothpick;
+import toothpick.config.Module;
+import toothpick.configuration.Configuration;
+import toothpick.data.Bar;
+import toothpick.data.Foo;
+
+public class SlowCreationDetectorTest {
+
+  @After
+  public void tearDown() {
+    Toothpick.setConfiguration(Configuration.forProduction());
+    Toothpick.reset();
+  }
+
+  @Test
+  public void getInstance_shouldReportResolutionPath_whenDependencyIsSlow() {
+    // GIVEN
+    SlowCreationDetector detector = new SlowCreationDetector(10);
+    Toothpick.setConfiguration(Configuration.forProduction().addCreationListener(detector));
+    Scope scope = createScopeWithSlowBar("root");
+
+    // WHEN
+    scope.getInstance(Foo.class);
+
+    // THEN
+    List<SlowCreationDetector.Report> reports = detector.getReports();
+    assertThat(reports.size(), is(1));
+    assertThat(reports.get(0).getPath(), is(asList(Foo.class.getName(), Bar.class.getName())));
+    assertThat(reports.get(0).getScopeName(), is("root"));
+    assertThat(reports.get(0).getThreadName(), is(Thread.currentThread().getName()));
+  }
+
+  @Test
+  public void getInstance_shouldReportAncestor_whenItIsSlowOnItsOwn() {
+    // GIVEN
+    SlowCreationDetector detector = new SlowCreationDetector(10);
+    Toothpick.setConfiguration(Configuration.forProduction().addCreationListener(detector));
+    final Scope scope = createScopeWithSlowBar("root");
+    scope.installModules(
+        new Module() {
+          {
+            bind(Foo.class).toProviderInstance(new SlowFooProvider(scope));
+          }
+        });
+
+    // WHEN
+    scope.getInstance(Foo.class);
+
+    // THEN
+    List<SlowCreationDetector.Report> reports = detector.getReports();
+    assertThat(reports.size(), is(2));
+    assertThat(reports.get(0).getPath(), is(asList(Foo.class.getName(), Bar.class.getName())));
+    assertThat(reports.get(1).getPath(), is(asList(Foo.class.getName())));
+    assertThat(reports.get(1).getSelfDurationNanos() < reports.get(1).getDurationNanos(), is(true));
+  }
+
+  @Test
+  public void inject_shouldReportInjectedInstanceInPath_whenDetectorIsAnInjectionListener() {
+    // GIVEN
+    SlowCreationDetector detector = new SlowCreationDetector(10);
+    Toothpick.setConfiguration(
+        Configuration.forProduction().addCreationListener(detector).addInjectionListener(detector));
+    Scope scope = createScopeWithSlowBar("root");
+
+    // WHEN
+    Toothpick.inject(new Foo(), scope);
+
+    // THEN
+    List<SlowCreationDetector.Report> reports = detector.getReports();
+    assertThat(reports.size(), is(1));
+    assertThat(reports.get(0).getPath(), is(asList(Foo.class.getName(), Bar.class.getName())));
+  }
+
+  @Test
+  public void getInstance_shouldNotReport_whenCreationIsFast() {
+    // GIVEN
+    SlowCreationDetector detector = new SlowCreationDetector(10_000);
+    Toothpick.setConfiguration(Configuration.forProduction().addCreationListener(detector));
+    Scope scope = new ScopeImpl("root");
+
+    // WHEN
+    scope.getInstance(Foo.class);
+
+    // THEN
+    assertThat(detector.getReports().size(), is(0));
+  }
+
+  @Test
+  public void getInstance_shouldSuppressReports_whenRateLimitIsReached() {
+    // GIVEN
+    SlowCreationDetector detector = new SlowCreationDetector(10, 10, 1);
+    Toothpick.setConfiguration(Configuration.forProduction().addCreationListener(detector));
+    Scope scope = createScopeWithSlowBar("root");
+
+    // WHEN
+    scope.getInstance(Foo.class);
+    scope.getInstance(Foo.class);
+
+    // THEN
+    assertThat(detector.getReports().size(), is(1));
+    assertThat(detector.getSuppressedReportCount(), is(1L));
+  }
+
+  @Test
+  public void getInstance_shouldKeepMostRecentReports_whenCapacityIsReached() {
+    // GIVEN
+    SlowCreationDetector detector = new SlowCreationDetector(10, 1, 10);
+    Toothpick.setConfiguration(Configuration.forProduction().addCreationListener(detector));
+    Scope scope = createScopeWithSlowBar("root");
+    scope.getInstance(Foo.class);
+
+    // WHEN
+    scope.getInstance(Bar.class);
+
+    // THEN
+    List<SlowCreationDetector.Report> reports = detector.getReports();
+    assertThat(reports.size(), is(1));
+    assertThat(reports.get(0).getPath(), is(asList(Bar.class.getName())));
+  }
+
+  private Scope createScopeWithSlowBar(String name) {
+    Scope scope = new ScopeImpl(name);
+    scope.installModules(
+        new Module() {
+          {
+            bind(Bar.class).toProviderInstance(new SlowBarProvider());
+          }
+        });
+    return scope;
+  }
+
+  private static class SlowFooProvider implements Provider<Foo> {
+    private final Scope scope;
+
+    SlowFooProvider(Scope scope) {
+      this.scope = scope;
+    }
+
+    @Override
+    public Foo get() {
+      Foo foo = new Foo();
+      foo.bar = scope.getInstance(Bar.class);
+      sleep();
+      return foo;
+    }
+  }
+
+  private static class SlowBarProvider implements Provider<Bar> {
+    @Override
+    public Bar get() {
+      sleep();
+      return new Bar();
+    }
+  }
+
+  private static void sleep() {
+    try {
+      Thread.sleep(30);
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick;
+
+/**
+ * The instances of the dependencies of a {@link PlannedFactory}, in the order of {@link
+ * PlannedFactory#getDependencyClasses()}. A plan is created by a scope the first time it uses a
+ * factory, and reused by all the next creations of the factory in this scope. It only resolves the
+ * providers of the dependencies again when the bindings change.
+ */
+public interface DependencyPlan {
+  /**
+   * @param index the index of the dependency in {@link PlannedFactory#getDependencyClasses()}.
+   * @param <D> the type of the dependency.
+   * @return an instance of the dependency, produced by its provider in the scope of the plan.
+   */
+  <D> D getInstance(int index);
+}
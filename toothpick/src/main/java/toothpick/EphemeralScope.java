@@ -0,0 +1,46 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick;
+
+/**
+ * A short lived, anonymous sub scope, created by {@code
+ * toothpick.Toothpick.openEphemeralSubScope(Scope)}. It resolves its bindings through its parent
+ * scopes like any other sub scope, but it is not registered in Toothpick nor in its parent: it
+ * can't be opened or closed by name, it has no children scopes, and it is not closed when its
+ * parent is closed. It must be closed once it is not needed anymore, typically in a
+ * try-with-resources block:
+ *
+ * <pre>{@code
+ * try (EphemeralScope requestScope = Toothpick.openEphemeralSubScope(appScope)) {
+ *   requestScope.installModules(new RequestModule(request));
+ *   requestScope.getInstance(RequestHandler.class).handle();
+ * }
+ * }</pre>
+ */
+public interface EphemeralScope extends Scope, AutoCloseable {
+  /**
+   * Closes this scope. The scope can't be used to create new instances anymore. Closing a scope
+   * that is already closed has no effect. If the configuration disposes closeable singletons, the
+   * closeable singletons of this scope are closed, like the ones of a scope closed via {@code
+   * toothpick.Toothpick.closeScope(Object)}.
+   *
+   * @throws IllegalStateException if some closeable singletons could not be disposed. The scope is
+   *     closed nonetheless.
+   */
+  @Override
+  void close();
+}
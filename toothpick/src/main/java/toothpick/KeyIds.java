@@ -0,0 +1,98 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Assigns dense integer ids to the classes used as unnamed injection keys. Ids are assigned in the
+ * order in which classes are first seen, starting at 0, and are never reused. The factories and
+ * member injectors generated with the {@code toothpick_key_ids} annotation processor option
+ * obtain the ids of their dependencies once, when they are loaded, and pass them to {@link
+ * #getInstance(Scope, Class, int)}.
+ *
+ * <p>Ids are assigned at runtime, as a compiler only sees a part of the classes of an app. Classes
+ * are weakly referenced, so that their ids don't prevent them, and their class loader, from being
+ * unloaded. The id of an unloaded class is not reused.
+ */
+public final class KeyIds {
+  // ids are only obtained once per generated class, a synchronized map is enough
+  private static final Map<Class<?>, Integer> MAP_CLASS_TO_KEY_ID = new WeakHashMap<>();
+  private static int nextKeyId;
+
+  private KeyIds() {}
+
+  /**
+   * @param clazz the class of the key.
+   * @return the id of the unnamed key of {@code clazz}.
+   */
+  public static int of(Class<?> clazz) {
+    if (clazz == null) {
+      throw new IllegalArgumentException("The class of a key can't be null.");
+    }
+    synchronized (MAP_CLASS_TO_KEY_ID) {
+      Integer keyId = MAP_CLASS_TO_KEY_ID.get(clazz);
+      if (keyId == null) {
+        keyId = nextKeyId++;
+        MAP_CLASS_TO_KEY_ID.put(clazz, keyId);
+      }
+      return keyId;
+    }
+  }
+
+  /**
+   * Requests an instance via an unnamed binding, like {@link Scope#getInstance(Class)}. When
+   * {@code scope} supports key ids, it remembers the provider of {@code clazz} in a table indexed
+   * by {@code keyId}, so that the next requests for the same key don't need to look it up.
+   *
+   * @param scope the scope in which to obtain the instance.
+   * @param clazz the class for which to obtain an instance in {@code scope}.
+   * @param keyId the id of {@code clazz}, it must be obtained via {@link #of(Class)}.
+   * @param <T> the type of {@code clazz}.
+   * @return a scoped instance or a new one produced by the factory associated to {@code clazz}.
+   */
+  public static <T> T getInstance(Scope scope, Class<T> clazz, int keyId) {
+    if (scope instanceof KeyIdScope) {
+      return ((KeyIdScope) scope).getInstance(clazz, keyId);
+    }
+    return scope.getInstance(clazz);
+  }
+
+  /** @return the number of ids assigned so far, including the ids of unloaded classes. */
+  public static int size() {
+    synchronized (MAP_CLASS_TO_KEY_ID) {
+      return nextKeyId;
+    }
+  }
+
+  /** A scope that supports key ids. It is implemented by Toothpick scopes. */
+  public interface KeyIdScope {
+    /**
+     * Requests an instance via an unnamed binding, like {@link Scope#getInstance(Class)}. The
+     * provider of {@code clazz} is remembered by the scope in a table indexed by {@code keyId}, so
+     * that the next requests for the same key don't need to look it up, until the bindings of the
+     * scope or of its parents change.
+     *
+     * @param clazz the class for which to obtain an instance in the scope of this scope.
+     * @param keyId the id of {@code clazz}, it must be obtained via {@link KeyIds#of(Class)}.
+     * @param <T> the type of {@code clazz}.
+     * @return a scoped instance or a new one produced by the factory associated to {@code clazz}.
+     */
+    <T> T getInstance(Class<T> clazz, int keyId);
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick;
+
+/**
+ * A {@link Factory} whose constructor dependencies are all unnamed instances. Such a factory
+ * exposes the classes of its dependencies, so that a scope can look up their providers once and
+ * keep them in a {@link DependencyPlan}, instead of looking them up for every creation.
+ *
+ * <p>Implementations are generated during annotation processing when the {@code
+ * toothpick_dependency_plans} option is enabled. They also implement {@link
+ * Factory#createInstance(Scope)}, which is used when plans can't be used, for instance when the
+ * runtime checks are enabled.
+ */
+public interface PlannedFactory<T> extends Factory<T> {
+  /**
+   * @return the classes of the dependencies of the {@link javax.inject.Inject} annotated
+   *     constructor of {@code T}, in the order of its parameters.
+   */
+  Class<?>[] getDependencyClasses();
+
+  /**
+   * Creates a new instance of T, like {@link Factory#createInstance(Scope)}, but with the
+   * dependencies of the plan.
+   *
+   * @param scope the target scope of the factory, used to inject the new instance if needed.
+   * @param plan the dependencies of the instance, obtained from {@code scope}.
+   * @return a new instance of T, injected if needed.
+   */
+  T createInstance(Scope scope, DependencyPlan plan);
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick;
+
+/**
+ * Obtains the unscoped dependencies of the factories generated with the {@code
+ * toothpick_static_wiring} annotation processor option. It is called by generated code, and is not
+ * part of the {@link Scope} API so that other implementations of scopes don't have to support it.
+ */
+public final class StaticWiring {
+
+  private StaticWiring() {}
+
+  /**
+   * Returns an instance of {@code clazz} created directly by {@code factory}, when {@code scope}
+   * supports static wiring. Otherwise, it behaves like {@link Scope#getInstance(Class)}.
+   *
+   * @param scope the scope in which to obtain the instance.
+   * @param clazz the class for which to obtain an instance in {@code scope}.
+   * @param factory the factory of {@code clazz}.
+   * @param <T> the type of {@code clazz}.
+   * @return a new instance produced by {@code factory}, or the instance bound to {@code clazz}.
+   * @see StaticWiringScope#getStaticallyWiredInstance(Class, Factory)
+   */
+  public static <T> T getInstance(Scope scope, Class<T> clazz, Factory<T> factory) {
+    if (scope instanceof StaticWiringScope) {
+      return ((StaticWiringScope) scope).getStaticallyWiredInstance(clazz, factory);
+    }
+    return scope.getInstance(clazz);
+  }
+
+  /** A scope that can create statically wired instances. It is implemented by Toothpick scopes. */
+  public interface StaticWiringScope {
+    /**
+     * Returns an instance of {@code clazz} created directly by {@code factory}, without looking
+     * up a provider, when {@code clazz} is not bound by any module. Otherwise, or when the runtime
+     * needs to observe the resolution (e.g. to detect cycles), it behaves like {@link
+     * Scope#getInstance(Class)}.
+     *
+     * @param clazz the class for which to obtain an instance in the scope of this scope.
+     * @param factory the factory of {@code clazz}.
+     * @param <T> the type of {@code clazz}.
+     * @return a new instance produced by {@code factory}, or the instance bound to {@code clazz}.
+     */
+    <T> T getStaticallyWiredInstance(Class<T> clazz, Factory<T> factory);
+  }
+}
@@ -32,13 +32,56 @@ public class Binding<T> {
   private boolean isCreatingReleasable;
   private boolean isProvidingSingleton;
   private boolean isProvidingReleasable;
+  // frozen bindings can't be changed through the DSL
+  private boolean isFrozen;
 
   public Binding(Class<T> key) {
     this.key = key;
     mode = Mode.SIMPLE;
   }
 
+  // used by generated modules, they are validated during annotation processing and are shared by
+  // all the instances of a module, so they can't be changed through the DSL
+  Binding(
+      Mode mode,
+      Class<T> key,
+      String name,
+      Class<? extends T> implementationClass,
+      Class<? extends Provider<? extends T>> providerClass,
+      boolean isCreatingSingleton,
+      boolean isCreatingReleasable,
+      boolean isProvidingSingleton,
+      boolean isProvidingReleasable) {
+    this.mode = mode;
+    this.key = key;
+    this.name = name;
+    this.implementationClass = implementationClass;
+    this.providerClass = providerClass;
+    this.isCreatingSingleton = isCreatingSingleton;
+    this.isCreatingReleasable = isCreatingReleasable;
+    this.isProvidingSingleton = isProvidingSingleton;
+    this.isProvidingReleasable = isProvidingReleasable;
+    this.isFrozen = true;
+  }
+
+  // used by module templates, the frozen copy can't be changed through the DSL of either binding
+  Binding(Binding<T> binding) {
+    this.mode = binding.mode;
+    this.key = binding.key;
+    this.name = binding.name;
+    this.implementationClass = binding.implementationClass;
+    this.instance = binding.instance;
+    this.providerInstance = binding.providerInstance;
+    this.providerClass = binding.providerClass;
+    this.isCreatingSingleton = binding.isCreatingSingleton;
+    this.isCreatingReleasable = binding.isCreatingReleasable;
+    this.isProvidingSingleton = binding.isProvidingSingleton;
+    this.isProvidingReleasable = binding.isProvidingReleasable;
+    this.isFrozen = true;
+  }
+
   public CanBeReleasable singleton() {
+    checkNotFrozen();
     isCreatingSingleton = true;
     return new CanBeReleasable();
   }
@@ -87,6 +130,13 @@ public class Binding<T> {
     return isProvidingReleasable;
   }
 
+  private void checkNotFrozen() {
+    if (isFrozen) {
+      throw new UnsupportedOperationException(
+          "The bindings of a module template or of a generated module can't be changed.");
+    }
+  }
+
   public enum Mode {
     SIMPLE,
     CLASS,
@@ -101,12 +151,14 @@ public class Binding<T> {
 
   public class CanBeNamed extends CanBeBound {
     public CanBeBound withName(String name) {
+      checkNotFrozen();
       Binding.this.name = name;
       return new CanBeBound();
     }
 
     public <A extends Annotation> CanBeBound withName(
         Class<A> annotationClassWithQualifierAnnotation) {
+      checkNotFrozen();
       if (!annotationClassWithQualifierAnnotation.isAnnotationPresent(Qualifier.class)) {
         throw new IllegalArgumentException(
             String.format(
@@ -120,16 +172,19 @@ public class Binding<T> {
 
   public class CanBeBound {
     public CanBeReleasable singleton() {
+      checkNotFrozen();
       isCreatingSingleton = true;
       return new CanBeReleasable();
     }
 
     public void toInstance(T instance) {
+      checkNotFrozen();
       Binding.this.instance = instance;
       mode = Mode.INSTANCE;
     }
 
     public CanBeSingleton to(Class<? extends T> implClass) {
+      checkNotFrozen();
       Binding.this.implementationClass = implClass;
       mode = Mode.CLASS;
       return new CanBeSingleton();
@@ -137,12 +192,14 @@ public class Binding<T> {
 
     public CanProvideSingletonOrSingleton toProvider(
         Class<? extends Provider<? extends T>> providerClass) {
+      checkNotFrozen();
       Binding.this.providerClass = providerClass;
       mode = Mode.PROVIDER_CLASS;
       return new CanProvideSingletonOrSingleton();
     }
 
     public CanProvideSingleton toProviderInstance(Provider<? extends T> providerInstance) {
+      checkNotFrozen();
       Binding.this.providerInstance = providerInstance;
       mode = Mode.PROVIDER_INSTANCE;
       return new CanProvideSingleton();
@@ -152,6 +209,7 @@ public class Binding<T> {
   public class CanBeSingleton {
     /** to provide a singleton using the binding's scope and reuse it inside the binding's scope */
     public CanBeReleasable singleton() {
+      checkNotFrozen();
       Binding.this.isCreatingSingleton = true;
       return new CanBeReleasable();
     }
@@ -160,12 +218,14 @@ public class Binding<T> {
   public class CanBeReleasable {
     /** to make the singleton releasable */
     public void releasable() {
+      checkNotFrozen();
       Binding.this.isCreatingReleasable = true;
     }
   }
 
   public class CanProvideSingleton {
     public CanProvideReleasable providesSingleton() {
+      checkNotFrozen();
       isProvidingSingleton = true;
       return new CanProvideReleasable();
     }
@@ -173,12 +233,14 @@ public class Binding<T> {
 
   public class CanProvideReleasable {
     public void providesReleasable() {
+      checkNotFrozen();
       Binding.this.isProvidingReleasable = true;
     }
   }
 
   public class CanProvideSingletonOrSingleton extends CanBeSingleton {
     public CanProvideReleasableAndThenOnlySingleton providesSingleton() {
+      checkNotFrozen();
       isProvidingSingleton = true;
       return new CanProvideReleasableAndThenOnlySingleton();
     }
@@ -186,6 +248,7 @@ public class Binding<T> {
 
   public class CanProvideReleasableAndThenOnlySingleton {
     public CanBeOnlySingleton providesReleasable() {
+      checkNotFrozen();
       Binding.this.isProvidingReleasable = true;
       return new CanBeOnlySingleton();
     }
@@ -193,6 +256,7 @@ public class Binding<T> {
 
   public class CanBeOnlySingleton {
     public void singleton() {
+      checkNotFrozen();
       Binding.this.isCreatingSingleton = true;
     }
   }
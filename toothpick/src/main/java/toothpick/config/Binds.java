@@ -0,0 +1,41 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares a binding in a {@link GenerateModule} annotated type. The return type of the method is
+ * the key of the binding. A method without parameter binds the key to itself, like {@code
+ * bind(Foo.class)}. A method with one parameter binds the key to the class of this parameter, like
+ * {@code bind(IFoo.class).to(Foo.class)}. A {@link javax.inject.Named} or {@link
+ * javax.inject.Qualifier} annotation on the method names the binding.
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.CLASS)
+@Documented
+public @interface Binds {
+  /** @return true to create a singleton in the scope of the binding. */
+  boolean singleton() default false;
+
+  /** @return true to make the singleton releasable, it requires {@link #singleton()}. */
+  boolean releasable() default false;
+}
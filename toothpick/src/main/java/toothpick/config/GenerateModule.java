@@ -0,0 +1,44 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the bindings of a module at compile time. The annotated interface or abstract class
+ * contains {@link Binds} and {@link Provides} annotated abstract methods, and the annotation
+ * processor generates a {@link GeneratedModule} named after it, with the {@code __Module} suffix.
+ *
+ * <pre>{@code
+ * @GenerateModule
+ * interface AppBindings {
+ *   @Binds IFoo foo(Foo foo); // bind(IFoo.class).to(Foo.class)
+ *   @Binds(singleton = true) Bar bar(); // bind(Bar.class).singleton()
+ *   @Provides @Named("baz") Baz baz(BazProvider provider); // bind(Baz.class)...toProvider(...)
+ * }
+ *
+ * scope.installModules(new AppBindings__Module());
+ * }</pre>
+ */
+@Target({ElementType.TYPE})
+@Retention(RetentionPolicy.CLASS)
+@Documented
+public @interface GenerateModule {}
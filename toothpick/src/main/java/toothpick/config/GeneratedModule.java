@@ -0,0 +1,115 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.config;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.inject.Provider;
+
+/**
+ * The base class of the modules generated from {@link GenerateModule} annotated types. The bindings
+ * of a generated module are created once per module class, when it is loaded, and are shared by
+ * all its instances. Scopes install them from a list, without using the binding DSL.
+ *
+ * <p>The bindings of a generated module can't be changed: they are exposed via unmodifiable
+ * collections, {@link #bind(Class)} is not supported, and the bindings themselves are frozen, their
+ * DSL methods throw an {@link UnsupportedOperationException}.
+ */
+public abstract class GeneratedModule extends Module {
+  private final List<Binding> bindings;
+  private Set<Binding> bindingSet;
+
+  protected GeneratedModule(Binding[] bindings) {
+    this.bindings = Collections.unmodifiableList(Arrays.asList(bindings));
+  }
+
+  /** @return the bindings of this module, in declaration order. The list is unmodifiable. */
+  public List<Binding> getBindings() {
+    return bindings;
+  }
+
+  @Override
+  public <T> Binding<T>.CanBeNamed bind(Class<T> key) {
+    throw new UnsupportedOperationException("The bindings of a generated module can't be changed.");
+  }
+
+  @Override
+  public Set<Binding> getBindingSet() {
+    if (bindingSet == null) {
+      bindingSet = Collections.unmodifiableSet(new HashSet<>(bindings));
+    }
+    return bindingSet;
+  }
+
+  /** Creates the equivalent of {@code bind(key).withName(name).singleton().releasable()}. */
+  protected static <T> Binding<T> bindingToSelf(
+      Class<T> key, String name, boolean isCreatingSingleton, boolean isCreatingReleasable) {
+    return new Binding<T>(
+        Binding.Mode.SIMPLE,
+        key,
+        name,
+        null,
+        null,
+        isCreatingSingleton,
+        isCreatingReleasable,
+        false,
+        false);
+  }
+
+  /** Creates the equivalent of {@code bind(key).withName(name).to(implClass).singleton()}. */
+  protected static <T> Binding<T> bindingToClass(
+      Class<T> key,
+      String name,
+      Class<? extends T> implClass,
+      boolean isCreatingSingleton,
+      boolean isCreatingReleasable) {
+    return new Binding<T>(
+        Binding.Mode.CLASS,
+        key,
+        name,
+        implClass,
+        null,
+        isCreatingSingleton,
+        isCreatingReleasable,
+        false,
+        false);
+  }
+
+  /** Creates the equivalent of {@code bind(key).withName(name).toProvider(providerClass)}. */
+  protected static <T> Binding<T> bindingToProviderClass(
+      Class<T> key,
+      String name,
+      Class<? extends Provider<? extends T>> providerClass,
+      boolean isCreatingSingleton,
+      boolean isCreatingReleasable,
+      boolean isProvidingSingleton,
+      boolean isProvidingReleasable) {
+    return new Binding<T>(
+        Binding.Mode.PROVIDER_CLASS,
+        key,
+        name,
+        null,
+        providerClass,
+        isCreatingSingleton,
+        isCreatingReleasable,
+        isProvidingSingleton,
+        isProvidingReleasable);
+  }
+}
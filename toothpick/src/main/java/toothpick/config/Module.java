@@ -97,15 +97,23 @@ import toothpick.ProvidesSingleton;
  * of the instance it produces.
  */
 public class Module {
-  private Set<Binding> bindingSet = new HashSet<>();
+  // created lazily, generated modules don't use it
+  private Set<Binding> bindingSet;
 
   public <T> Binding<T>.CanBeNamed bind(Class<T> key) {
     Binding<T> binding = new Binding<>(key);
-    bindingSet.add(binding);
+    getOrCreateBindingSet().add(binding);
     return binding.new CanBeNamed();
   }
 
   public Set<Binding> getBindingSet() {
+    return getOrCreateBindingSet();
+  }
+
+  private Set<Binding> getOrCreateBindingSet() {
+    if (bindingSet == null) {
+      bindingSet = new HashSet<>();
+    }
     return bindingSet;
   }
 }
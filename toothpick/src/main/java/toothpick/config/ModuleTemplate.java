@@ -0,0 +1,197 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.config;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable snapshot of the bindings of some modules, that can be installed in any number of
+ * scopes. The modules are read and validated once, when they are frozen, and all the scopes share
+ * the same bindings. A scope only creates the provider of a binding of a template the first time
+ * this binding is used.
+ *
+ * <pre>{@code
+ * static final ModuleTemplate SESSION_MODULES =
+ *     ModuleTemplate.freeze(new SessionModule(), new NetworkModule());
+ * ...
+ * Toothpick.openScopes(APP, session).installModules(SESSION_MODULES);
+ * }</pre>
+ *
+ * When several frozen bindings have the same key and name, the first one wins, as if the modules
+ * were installed in the same scope. The bindings of a template can't be changed: they are exposed
+ * via unmodifiable collections, {@link #bind(Class)} is not supported, and the bindings themselves
+ * are frozen copies whose DSL methods throw an {@link UnsupportedOperationException}.
+ */
+public final class ModuleTemplate extends Module {
+  private final List<Binding> bindings;
+  private final List<Binding> scopeAnnotatedBindings;
+  private final Map<Class, Binding> mapClassesToUnNamedBindings;
+  private final Map<Class, Map<String, Binding>> mapClassesToNamedBindings;
+  private Set<Binding> bindingSet;
+
+  private ModuleTemplate(
+      List<Binding> bindings,
+      List<Binding> scopeAnnotatedBindings,
+      Map<Class, Binding> mapClassesToUnNamedBindings,
+      Map<Class, Map<String, Binding>> mapClassesToNamedBindings) {
+    this.bindings = bindings;
+    this.scopeAnnotatedBindings = scopeAnnotatedBindings;
+    this.mapClassesToUnNamedBindings = mapClassesToUnNamedBindings;
+    this.mapClassesToNamedBindings = mapClassesToNamedBindings;
+  }
+
+  /**
+   * Freezes the bindings of {@code modules} into a template. The modules can be changed or reused
+   * afterwards, it doesn't affect the template.
+   *
+   * @param modules the modules to freeze, in installation order.
+   * @return a template containing a copy of the bindings of all the modules.
+   * @throws IllegalStateException if one of the modules has a null binding.
+   */
+  @SuppressWarnings("unchecked")
+  public static ModuleTemplate freeze(Module... modules) {
+    List<Binding> bindings = new ArrayList<>();
+    List<Binding> scopeAnnotatedBindings = new ArrayList<>();
+    Map<Class, Binding> mapClassesToUnNamedBindings = new IdentityHashMap<>();
+    Map<Class, Map<String, Binding>> mapClassesToNamedBindings = new IdentityHashMap<>();
+    for (Module module : modules) {
+      for (Binding binding : getBindings(module)) {
+        if (binding == null) {
+          throw new IllegalStateException("A module can't have a null binding : " + module);
+        }
+        Class key = binding.getKey();
+        String name = binding.getName();
+        Binding frozenBinding = new Binding(binding);
+        if (name == null) {
+          if (mapClassesToUnNamedBindings.containsKey(key)) {
+            continue;
+          }
+          mapClassesToUnNamedBindings.put(key, frozenBinding);
+        } else {
+          Map<String, Binding> mapNameToBinding = mapClassesToNamedBindings.get(key);
+          if (mapNameToBinding == null) {
+            mapNameToBinding = new HashMap<>(1);
+            mapClassesToNamedBindings.put(key, mapNameToBinding);
+          } else if (mapNameToBinding.containsKey(name)) {
+            continue;
+          }
+          mapNameToBinding.put(name, frozenBinding);
+        }
+        bindings.add(frozenBinding);
+        if (isScopeAnnotated(frozenBinding)) {
+          scopeAnnotatedBindings.add(frozenBinding);
+        }
+      }
+    }
+    return new ModuleTemplate(
+        Collections.unmodifiableList(bindings),
+        Collections.unmodifiableList(scopeAnnotatedBindings),
+        mapClassesToUnNamedBindings,
+        mapClassesToNamedBindings);
+  }
+
+  /** @return the bindings of this template, in installation order. The list is unmodifiable. */
+  public List<Binding> getBindings() {
+    return bindings;
+  }
+
+  /**
+   * @return the bindings of this template whose target class has a {@link javax.inject.Scope}
+   *     annotation. Only those bindings can be illegal in some scopes. The list is unmodifiable.
+   */
+  public List<Binding> getScopeAnnotatedBindings() {
+    return scopeAnnotatedBindings;
+  }
+
+  /** @return the keys of the unnamed bindings of this template. */
+  public Set<Class> getUnNamedKeys() {
+    return Collections.unmodifiableSet(mapClassesToUnNamedBindings.keySet());
+  }
+
+  /**
+   * @param key the key of the binding.
+   * @param name the name, possibly {@code null}, of the binding.
+   * @param <T> the type of {@code key}.
+   * @return the binding of {@code key} and {@code name} in this template, or {@code null} if there
+   *     is none.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> Binding<T> getBinding(Class<T> key, String name) {
+    if (name == null) {
+      return mapClassesToUnNamedBindings.get(key);
+    }
+    Map<String, Binding> mapNameToBinding = mapClassesToNamedBindings.get(key);
+    return mapNameToBinding == null ? null : mapNameToBinding.get(name);
+  }
+
+  @Override
+  public <T> Binding<T>.CanBeNamed bind(Class<T> key) {
+    throw new UnsupportedOperationException("The bindings of a module template can't be changed.");
+  }
+
+  @Override
+  public Set<Binding> getBindingSet() {
+    if (bindingSet == null) {
+      bindingSet = Collections.unmodifiableSet(new HashSet<>(bindings));
+    }
+    return bindingSet;
+  }
+
+  private static Iterable<Binding> getBindings(Module module) {
+    if (module instanceof ModuleTemplate) {
+      return ((ModuleTemplate) module).getBindings();
+    }
+    if (module instanceof GeneratedModule) {
+      return ((GeneratedModule) module).getBindings();
+    }
+    return module.getBindingSet();
+  }
+
+  private static boolean isScopeAnnotated(Binding binding) {
+    Class<?> clazz;
+    switch (binding.getMode()) {
+      case SIMPLE:
+        clazz = binding.getKey();
+        break;
+      case CLASS:
+        clazz = binding.getImplementationClass();
+        break;
+      case PROVIDER_CLASS:
+        clazz = binding.getProviderClass();
+        break;
+      default:
+        return false;
+    }
+    if (clazz == null) {
+      return false;
+    }
+    for (Annotation annotation : clazz.getAnnotations()) {
+      if (annotation.annotationType().isAnnotationPresent(javax.inject.Scope.class)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares a binding to a provider class in a {@link GenerateModule} annotated type. The return
+ * type of the method is the key of the binding, and its only parameter is the class of a {@link
+ * javax.inject.Provider} of the key, like {@code bind(Foo.class).toProvider(FooProvider.class)}. A
+ * {@link javax.inject.Named} or {@link javax.inject.Qualifier} annotation on the method names the
+ * binding.
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.CLASS)
+@Documented
+public @interface Provides {
+  /** @return true to create the provider as a singleton in the scope of the binding. */
+  boolean singleton() default false;
+
+  /** @return true to make the singleton provider releasable, it requires {@link #singleton()}. */
+  boolean releasable() default false;
+
+  /** @return true to reuse the first instance produced by the provider. */
+  boolean providesSingleton() default false;
+
+  /** @return true to make the provided singleton releasable, it requires providesSingleton. */
+  boolean providesReleasable() default false;
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.config;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static toothpick.config.Binding.Mode.CLASS;
+import static toothpick.config.Binding.Mode.PROVIDER_CLASS;
+import static toothpick.config.Binding.Mode.SIMPLE;
+
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+
+public class GeneratedModuleTest extends BaseBindingTest {
+
+  @Test
+  public void testGeneratedModule_shouldCreateBindings() {
+    // GIVEN
+
+    // WHEN
+    List<Binding> bindings = new TestGeneratedModule().getBindings();
+
+    // THEN
+    assertThat(bindings.size(), is(3));
+    assertBinding(
+        bindings.get(0),
+        SIMPLE,
+        String.class,
+        null,
+        null,
+        null,
+        null,
+        null,
+        true,
+        true,
+        false,
+        false);
+    assertBinding(
+        bindings.get(1),
+        CLASS,
+        CharSequence.class,
+        "foo",
+        String.class,
+        null,
+        null,
+        null,
+        false,
+        false,
+        false,
+        false);
+    assertBinding(
+        bindings.get(2),
+        PROVIDER_CLASS,
+        String.class,
+        "bar",
+        null,
+        null,
+        null,
+        StringProvider.class,
+        true,
+        false,
+        true,
+        true);
+  }
+
+  @Test
+  public void testGeneratedModule_shouldShareBindings_betweenInstances() {
+    // GIVEN
+    GeneratedModule module = new TestGeneratedModule();
+
+    // WHEN
+    GeneratedModule otherModule = new TestGeneratedModule();
+
+    // THEN
+    assertThat(otherModule.getBindings().get(0), sameInstance(module.getBindings().get(0)));
+  }
+
+  @Test
+  public void testGeneratedModule_shouldExposeBindingsAsSet() {
+    // GIVEN
+    GeneratedModule module = new TestGeneratedModule();
+
+    // WHEN
+    Set<Binding> bindingSet = module.getBindingSet();
+
+    // THEN
+    assertThat(bindingSet.size(), is(3));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testGeneratedModule_shouldNotAllowNewBindings() {
+    // GIVEN
+    GeneratedModule module = new TestGeneratedModule();
+
+    // WHEN
+    module.bind(String.class);
+
+    // THEN
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testGeneratedModule_shouldNotAllowToChangeBindingList() {
+    // GIVEN
+    GeneratedModule module = new TestGeneratedModule();
+
+    // WHEN
+    module.getBindings().clear();
+
+    // THEN
+  }
+
+  @Test
+  public void testGeneratedModule_shouldNotAllowToChangeBindings() {
+    // GIVEN
+    GeneratedModule module = new TestGeneratedModule();
+    Binding<CharSequence> binding = module.getBindings().get(1);
+
+    // WHEN
+    boolean isSingletonRejected = false;
+    try {
+      binding.singleton();
+    } catch (UnsupportedOperationException e) {
+      isSingletonRejected = true;
+    }
+    boolean isTargetRejected = false;
+    try {
+      binding.new CanBeBound().toInstance("bar");
+    } catch (UnsupportedOperationException e) {
+      isTargetRejected = true;
+    }
+
+    // THEN
+    assertThat(isSingletonRejected, is(true));
+    assertThat(isTargetRejected, is(true));
+    assertThat(new TestGeneratedModule().getBindings().get(1).isCreatingSingleton(), is(false));
+  }
+
+  private static final class TestGeneratedModule extends GeneratedModule {
+    private static final Binding[] BINDINGS = {
+      bindingToSelf(String.class, null, true, true),
+      bindingToClass(CharSequence.class, "foo", String.class, false, false),
+      bindingToProviderClass(String.class, "bar", StringProvider.class, true, false, true, true)
+    };
+
+    TestGeneratedModule() {
+      super(BINDINGS);
+    }
+  }
+}
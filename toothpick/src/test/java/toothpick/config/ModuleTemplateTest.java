@@ -0,0 +1,247 @@
+/*
+ * Copyright 2019 Stephane Nicolas
+ * Copyright 2019 Daniel Molinero Reguera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package toothpick.config;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static toothpick.config.Binding.Mode.CLASS;
+import static toothpick.config.Binding.Mode.INSTANCE;
+import static toothpick.config.Binding.Mode.PROVIDER_CLASS;
+
+import java.util.List;
+import javax.inject.Singleton;
+import org.junit.Test;
+
+public class ModuleTemplateTest extends BaseBindingTest {
+
+  @Test
+  public void testFreeze_shouldCopyBindings() {
+    // GIVEN
+    Module module = new Module();
+    module.bind(CharSequence.class).to(String.class).singleton();
+    module.bind(String.class).withName("foo").toInstance("bar");
+
+    // WHEN
+    ModuleTemplate moduleTemplate = ModuleTemplate.freeze(module);
+
+    // THEN
+    assertThat(moduleTemplate.getBindings().size(), is(2));
+    assertBinding(
+        moduleTemplate.getBinding(CharSequence.class, null),
+        CLASS,
+        CharSequence.class,
+        null,
+        String.class,
+        null,
+        null,
+        null,
+        true,
+        false,
+        false,
+        false);
+    assertBinding(
+        moduleTemplate.getBinding(String.class, "foo"),
+        INSTANCE,
+        String.class,
+        "foo",
+        null,
+        "bar",
+        null,
+        null,
+        false,
+        false,
+        false,
+        false);
+    assertThat(moduleTemplate.getBinding(String.class, null), nullValue());
+    assertThat(moduleTemplate.getBinding(String.class, "qurtz"), nullValue());
+  }
+
+  @Test
+  public void testFreeze_shouldNotBeAffected_whenModuleChanges() {
+    // GIVEN
+    Module module = new Module();
+    Binding<String>.CanBeNamed canBeNamed = module.bind(String.class);
+    Binding<String> originalBinding = getBinding(module);
+    ModuleTemplate moduleTemplate = ModuleTemplate.freeze(module);
+
+    // WHEN
+    canBeNamed.withName("foo").toInstance("bar");
+    module.bind(CharSequence.class).to(String.class);
+
+    // THEN
+    Binding<String> binding = moduleTemplate.getBinding(String.class, null);
+    assertThat(binding, not(sameInstance(originalBinding)));
+    assertThat(binding.getInstance(), nullValue());
+    assertThat(moduleTemplate.getBindings().size(), is(1));
+  }
+
+  @Test
+  public void testFreeze_shouldKeepFirstBinding_whenKeyAndNameAreBoundTwice() {
+    // GIVEN
+    Module module = new Module();
+    module.bind(String.class).withName("foo").toInstance("bar");
+    Module otherModule = new Module();
+    otherModule.bind(String.class).withName("foo").toInstance("qurtz");
+    otherModule.bind(String.class).toProvider(StringProvider.class);
+
+    // WHEN
+    ModuleTemplate moduleTemplate = ModuleTemplate.freeze(module, otherModule);
+
+    // THEN
+    assertThat(moduleTemplate.getBindings().size(), is(2));
+    assertThat(moduleTemplate.getBinding(String.class, "foo").getInstance(), is("bar"));
+    assertThat(moduleTemplate.getBinding(String.class, null).getMode(), is(PROVIDER_CLASS));
+    assertThat(moduleTemplate.getUnNamedKeys().size(), is(1));
+    assertThat(moduleTemplate.getUnNamedKeys().contains(String.class), is(true));
+  }
+
+  @Test
+  public void testFreeze_shouldFindScopeAnnotatedBindings() {
+    // GIVEN
+    Module module = new Module();
+    module.bind(FooSingleton.class);
+    module.bind(String.class).toProvider(StringProvider.class);
+    Module otherModule = new Module();
+    otherModule.bind(Object.class).to(FooSingleton.class);
+    otherModule.bind(CharSequence.class).toInstance("foo");
+
+    // WHEN
+    ModuleTemplate moduleTemplate = ModuleTemplate.freeze(module, otherModule);
+
+    // THEN
+    List<Binding> scopeAnnotatedBindings = moduleTemplate.getScopeAnnotatedBindings();
+    assertThat(scopeAnnotatedBindings.size(), is(2));
+    assertThat(scopeAnnotatedBindings.get(0).getKey() == FooSingleton.class, is(true));
+    assertThat(scopeAnnotatedBindings.get(1).getKey() == Object.class, is(true));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testFreeze_shouldFail_whenModuleHasNullBinding() {
+    // GIVEN
+    Module module = new Module();
+    module.getBindingSet().add(null);
+
+    // WHEN
+    ModuleTemplate.freeze(module);
+
+    // THEN
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testModuleTemplate_shouldNotAllowNewBindings() {
+    // GIVEN
+    ModuleTemplate moduleTemplate = ModuleTemplate.freeze(new Module());
+
+    // WHEN
+    moduleTemplate.bind(String.class);
+
+    // THEN
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testModuleTemplate_shouldNotAllowToChangeBindingList() {
+    // GIVEN
+    Module module = new Module();
+    module.bind(String.class).toInstance("foo");
+    ModuleTemplate moduleTemplate = ModuleTemplate.freeze(module);
+
+    // WHEN
+    moduleTemplate.getBindings().clear();
+
+    // THEN
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testModuleTemplate_shouldNotAllowToChangeScopeAnnotatedBindingList() {
+    // GIVEN
+    Module module = new Module();
+    module.bind(FooSingleton.class);
+    ModuleTemplate moduleTemplate = ModuleTemplate.freeze(module);
+
+    // WHEN
+    moduleTemplate.getScopeAnnotatedBindings().clear();
+
+    // THEN
+  }
+
+  @Test
+  public void testModuleTemplate_shouldNotAllowToChangeBindings() {
+    // GIVEN
+    Module module = new Module();
+    module.bind(CharSequence.class).to(String.class);
+    ModuleTemplate moduleTemplate = ModuleTemplate.freeze(module);
+    Binding<CharSequence> binding = moduleTemplate.getBinding(CharSequence.class, null);
+
+    // WHEN
+    boolean isSingletonRejected = false;
+    try {
+      binding.singleton();
+    } catch (UnsupportedOperationException e) {
+      isSingletonRejected = true;
+    }
+    boolean isNameRejected = false;
+    try {
+      binding.new CanBeNamed().withName("foo");
+    } catch (UnsupportedOperationException e) {
+      isNameRejected = true;
+    }
+    boolean isTargetRejected = false;
+    try {
+      binding.new CanBeBound().toInstance("foo");
+    } catch (UnsupportedOperationException e) {
+      isTargetRejected = true;
+    }
+
+    // THEN
+    assertThat(isSingletonRejected, is(true));
+    assertThat(isNameRejected, is(true));
+    assertThat(isTargetRejected, is(true));
+    assertBinding(
+        binding,
+        CLASS,
+        CharSequence.class,
+        null,
+        String.class,
+        null,
+        null,
+        null,
+        false,
+        false,
+        false,
+        false);
+  }
+
+  @Test
+  public void testFreeze_shouldNotFreezeOriginalBindings() {
+    // GIVEN
+    Module module = new Module();
+    Binding<CharSequence>.CanBeNamed binding = module.bind(CharSequence.class);
+
+    // WHEN
+    ModuleTemplate.freeze(module);
+    binding.to(String.class).singleton();
+
+    // THEN
+    assertThat(module.getBindingSet().iterator().next().isCreatingSingleton(), is(true));
+  }
+
+  @Singleton
+  private static class FooSingleton {}
+}